@@ -0,0 +1,27 @@
+-- Indexes for the sorted, keyset-paged Books, Members and Transactions tables.
+-- Each page query orders by (column, id) and seeks past the last row shown, so
+-- an index on exactly those columns returns the page without a filesort.
+-- Run once against library_db: mysql library_db < sql/migrations/001_sort_indexes.sql
+
+CREATE INDEX idx_books_title ON books (title, book_id);
+CREATE INDEX idx_books_author ON books (author, book_id);
+CREATE INDEX idx_books_category ON books (category, book_id);
+CREATE INDEX idx_books_isbn ON books (isbn, book_id);
+CREATE INDEX idx_books_year ON books (publication_year, book_id);
+CREATE INDEX idx_books_available ON books (available_copies, book_id);
+CREATE INDEX idx_books_total ON books (total_copies, book_id);
+CREATE INDEX idx_books_status ON books (status, book_id);
+
+CREATE INDEX idx_members_name ON members (name, member_id);
+CREATE INDEX idx_members_email ON members (email, member_id);
+CREATE INDEX idx_members_phone ON members (phone, member_id);
+CREATE INDEX idx_members_join_date ON members (join_date, member_id);
+CREATE INDEX idx_members_status ON members (status, member_id);
+CREATE INDEX idx_members_max_books ON members (max_books_allowed, member_id);
+
+-- Sorting by book title or member name goes through a join and cannot use these
+CREATE INDEX idx_transactions_issue_date ON transactions (issue_date, transaction_id);
+CREATE INDEX idx_transactions_due_date ON transactions (due_date, transaction_id);
+CREATE INDEX idx_transactions_return_date ON transactions (return_date, transaction_id);
+CREATE INDEX idx_transactions_fine ON transactions (fine_amount, transaction_id);
+CREATE INDEX idx_transactions_status ON transactions (status, transaction_id);
@@ -0,0 +1,6 @@
+-- Archive for transactions returned long ago, moved here by the nightly archiver.
+-- Same columns and indexes as transactions. The application looks for this table
+-- once at startup and leaves archiving off without it.
+-- Run once against library_db: mysql library_db < sql/migrations/002_transactions_archive.sql
+
+CREATE TABLE transactions_archive LIKE transactions;
@@ -0,0 +1,41 @@
+-- Stores every valid ISBN the way the application now writes it: 13 digits without
+-- hyphens or spaces, ISBN-10s converted to their 978 ISBN-13. The importer's duplicate
+-- check and ISBN lookups compare that form only. ISBNs that are not valid are left as
+-- they are. If two rows hold the same book in different forms, the unique ISBN key
+-- stops the update; merge those rows and run it again.
+-- Run once against library_db: mysql library_db < sql/migrations/003_normalize_isbns.sql
+
+CREATE TEMPORARY TABLE isbn_fix AS
+SELECT book_id, UPPER(REPLACE(REPLACE(isbn, '-', ''), ' ', '')) AS d
+FROM books
+WHERE isbn IS NOT NULL;
+
+DELETE FROM isbn_fix WHERE d NOT REGEXP '^([0-9]{9}[0-9X]|97[89][0-9]{10})$';
+
+-- ISBN-10 checksum, then the ISBN-13 check digit over 978 + the first nine digits
+UPDATE isbn_fix
+SET d = CONCAT('978', LEFT(d, 9), MOD(10 - MOD(38
+        + 3 * SUBSTRING(d, 1, 1) + SUBSTRING(d, 2, 1) + 3 * SUBSTRING(d, 3, 1)
+        + SUBSTRING(d, 4, 1) + 3 * SUBSTRING(d, 5, 1) + SUBSTRING(d, 6, 1)
+        + 3 * SUBSTRING(d, 7, 1) + SUBSTRING(d, 8, 1) + 3 * SUBSTRING(d, 9, 1), 10), 10))
+WHERE LENGTH(d) = 10
+  AND MOD(10 * SUBSTRING(d, 1, 1) + 9 * SUBSTRING(d, 2, 1) + 8 * SUBSTRING(d, 3, 1)
+        + 7 * SUBSTRING(d, 4, 1) + 6 * SUBSTRING(d, 5, 1) + 5 * SUBSTRING(d, 6, 1)
+        + 4 * SUBSTRING(d, 7, 1) + 3 * SUBSTRING(d, 8, 1) + 2 * SUBSTRING(d, 9, 1)
+        + IF(SUBSTRING(d, 10, 1) = 'X', 10, SUBSTRING(d, 10, 1)), 11) = 0;
+
+DELETE FROM isbn_fix WHERE LENGTH(d) = 10;
+
+DELETE FROM isbn_fix
+WHERE MOD(SUBSTRING(d, 1, 1) + 3 * SUBSTRING(d, 2, 1) + SUBSTRING(d, 3, 1)
+        + 3 * SUBSTRING(d, 4, 1) + SUBSTRING(d, 5, 1) + 3 * SUBSTRING(d, 6, 1)
+        + SUBSTRING(d, 7, 1) + 3 * SUBSTRING(d, 8, 1) + SUBSTRING(d, 9, 1)
+        + 3 * SUBSTRING(d, 10, 1) + SUBSTRING(d, 11, 1) + 3 * SUBSTRING(d, 12, 1)
+        + SUBSTRING(d, 13, 1), 10) <> 0;
+
+UPDATE books b
+JOIN isbn_fix f ON f.book_id = b.book_id
+SET b.isbn = f.d
+WHERE b.isbn <> f.d;
+
+DROP TEMPORARY TABLE isbn_fix;
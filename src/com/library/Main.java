@@ -1,19 +1,27 @@
 package com.library;
 
+import com.library.dao.MySqlStorageEngine;
+import com.library.dao.StorageEngine;
+import com.library.services.LibraryService;
 import com.library.ui.MainFrame;
 
 public class Main {
     public static void main(String[] args) {
+        // Pick the storage engine (-Dlibrary.storage=memory runs without MySQL)
+        StorageEngine storage = StorageEngine.fromSystemProperties();
+
         // Initialize database connection
         try {
             // Test database connection
-            Class.forName("com.mysql.cj.jdbc.Driver");
+            if (storage instanceof MySqlStorageEngine) {
+                Class.forName("com.mysql.cj.jdbc.Driver");
+            }
 
             // Launch the main application window
             javax.swing.SwingUtilities.invokeLater(new Runnable() {
                 @Override
                 public void run() {
-                    MainFrame mainFrame = new MainFrame();
+                    MainFrame mainFrame = new MainFrame(new LibraryService(storage));
                     mainFrame.setVisible(true);
                 }
             });
@@ -23,4 +31,4 @@ public class Main {
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+}
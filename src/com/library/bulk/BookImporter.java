@@ -0,0 +1,268 @@
+package com.library.bulk;
+
+import com.library.dao.BookRepository;
+import com.library.models.Book;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+// Bulk catalog import: parsed and validated in parallel, written in input order one chunk per transaction
+public class BookImporter {
+    public static final int DEFAULT_CHUNK_SIZE = 2000;
+    private static final int MAX_TITLE_LENGTH = 255;
+    private static final int MAX_AUTHOR_LENGTH = 255;
+    private static final int MAX_CATEGORY_LENGTH = 100;
+    private static final int MAX_COPIES = 1000;
+
+    public interface ProgressListener {
+        void onProgress(ImportResult progress);
+    }
+
+    private final BookRepository books;
+    private final int chunkSize;
+    private final int workers;
+    private final Consumer<List<Book>> onStored;
+
+    // onStored sees every chunk of books once they are committed, with their new ids
+    public BookImporter(BookRepository books, int chunkSize, int workers, Consumer<List<Book>> onStored) {
+        this.books = books;
+        this.chunkSize = chunkSize;
+        this.workers = Math.max(1, workers);
+        this.onStored = onStored;
+    }
+
+    // A chunk after validation: valid books and rejected records with reasons
+    private static class Chunk {
+        final List<ImportRecord> records;
+        final List<Book> valid = new ArrayList<>();
+        final List<ImportRecord> validRecords = new ArrayList<>();
+        final Map<ImportRecord, String> rejected = new LinkedHashMap<>();
+
+        Chunk(List<ImportRecord> records) {
+            this.records = records;
+        }
+    }
+
+    private static final Chunk END = new Chunk(new ArrayList<>());
+
+    public ImportResult run(RecordSource source, Writer rejectWriter, ProgressListener listener) throws IOException {
+        long start = System.currentTimeMillis();
+        CsvWriter rejects = new CsvWriter(rejectWriter);
+        rejects.writeRow("record", "reason", "title", "author", "isbn", "year", "category", "copies");
+
+        ExecutorService validators = Executors.newFixedThreadPool(workers, r -> {
+            Thread thread = new Thread(r, "import-validator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Bounded so a fast reader cannot run far ahead of the database
+        BlockingQueue<CompletableFuture<Chunk>> pending = new ArrayBlockingQueue<>(workers * 2);
+        IOException[] readFailure = new IOException[1];
+
+        Thread reader = new Thread(() -> {
+            try {
+                List<ImportRecord> records = new ArrayList<>(chunkSize);
+                ImportRecord record;
+                while ((record = source.next()) != null) {
+                    records.add(record);
+                    if (records.size() == chunkSize) {
+                        List<ImportRecord> full = records;
+                        pending.put(CompletableFuture.supplyAsync(() -> validate(full), validators));
+                        records = new ArrayList<>(chunkSize);
+                    }
+                }
+                if (!records.isEmpty()) {
+                    List<ImportRecord> last = records;
+                    pending.put(CompletableFuture.supplyAsync(() -> validate(last), validators));
+                }
+            } catch (IOException e) {
+                readFailure[0] = e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                pending.put(CompletableFuture.completedFuture(END));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "import-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        Set<String> seenIsbns = new HashSet<>();
+        long read = 0;
+        long imported = 0;
+        long rejected = 0;
+
+        try {
+            while (true) {
+                Chunk chunk = pending.take().get();
+                if (chunk == END) break;
+
+                read += chunk.records.size();
+                imported += store(chunk, seenIsbns);
+                for (Map.Entry<ImportRecord, String> entry : chunk.rejected.entrySet()) {
+                    ImportRecord r = entry.getKey();
+                    rejects.writeRow(r.getNumber(), entry.getValue(), r.getTitle(), r.getAuthor(),
+                            r.getIsbn(), r.getYear(), r.getCategory(), r.getCopies());
+                }
+                rejected += chunk.rejected.size();
+
+                if (listener != null) {
+                    listener.onProgress(new ImportResult(read, imported, rejected,
+                            System.currentTimeMillis() - start, false));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Import failed: " + e.getCause(), e.getCause());
+        } finally {
+            reader.interrupt();
+            validators.shutdownNow();
+            rejects.flush();
+        }
+
+        if (readFailure[0] != null) {
+            throw new IOException("Import stopped after " + read + " records: " + readFailure[0].getMessage(), readFailure[0]);
+        }
+
+        ImportResult result = new ImportResult(read, imported, rejected, System.currentTimeMillis() - start, true);
+        if (listener != null) listener.onProgress(result);
+        return result;
+    }
+
+    // Runs on the calling thread so duplicate checks see every earlier chunk
+    private int store(Chunk chunk, Set<String> seenIsbns) {
+        List<Book> batch = new ArrayList<>(chunk.valid.size());
+        List<ImportRecord> batchRecords = new ArrayList<>(chunk.valid.size());
+        for (int i = 0; i < chunk.valid.size(); i++) {
+            Book book = chunk.valid.get(i);
+            if (seenIsbns.add(book.getIsbn())) {
+                batch.add(book);
+                batchRecords.add(chunk.validRecords.get(i));
+            } else {
+                chunk.rejected.put(chunk.validRecords.get(i), "Duplicate ISBN in file");
+            }
+        }
+
+        Set<String> isbns = new HashSet<>();
+        for (Book book : batch) isbns.add(book.getIsbn());
+        Set<String> existing = books.findExistingIsbns(isbns);
+        if (!existing.isEmpty()) {
+            for (int i = batch.size() - 1; i >= 0; i--) {
+                if (existing.contains(batch.get(i).getIsbn())) {
+                    chunk.rejected.put(batchRecords.get(i), "ISBN already in catalog");
+                    batch.remove(i);
+                    batchRecords.remove(i);
+                }
+            }
+        }
+        if (batch.isEmpty()) return 0;
+
+        if (books.addBooks(batch) >= 0) {
+            onStored.accept(batch);
+            return batch.size();
+        }
+
+        // The chunk was rolled back; find the bad rows one at a time
+        List<Book> stored = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            if (books.addBook(batch.get(i))) {
+                stored.add(batch.get(i));
+            } else {
+                chunk.rejected.put(batchRecords.get(i), "Insert failed");
+            }
+        }
+        if (!stored.isEmpty()) onStored.accept(stored);
+        return stored.size();
+    }
+
+    private static Chunk validate(List<ImportRecord> records) {
+        Chunk chunk = new Chunk(records);
+        for (ImportRecord record : records) {
+            String problem = record.getParseError();
+            Book book = null;
+            if (problem == null) {
+                book = new Book();
+                problem = validate(record, book);
+            }
+            if (problem == null) {
+                chunk.valid.add(book);
+                chunk.validRecords.add(record);
+            } else {
+                chunk.rejected.put(record, problem);
+            }
+        }
+        return chunk;
+    }
+
+    // Fills in the book and returns null, or returns why the record is rejected
+    private static String validate(ImportRecord record, Book book) {
+        String title = trimToNull(record.getTitle());
+        String author = trimToNull(record.getAuthor());
+        String category = trimToNull(record.getCategory());
+        if (title == null) return "Missing title";
+        if (author == null) return "Missing author";
+        if (title.length() > MAX_TITLE_LENGTH) return "Title too long";
+        if (author.length() > MAX_AUTHOR_LENGTH) return "Author too long";
+        if (category != null && category.length() > MAX_CATEGORY_LENGTH) return "Category too long";
+
+        String isbn = Isbn.normalize(trimToNull(record.getIsbn()));
+        if (isbn == null) return "Invalid ISBN";
+
+        int year = 0;
+        String yearText = trimToNull(record.getYear());
+        if (yearText != null) {
+            try {
+                year = Integer.parseInt(yearText);
+            } catch (NumberFormatException e) {
+                return "Invalid publication year";
+            }
+            if (year < 1000 || year > Year.now().getValue() + 1) return "Invalid publication year";
+        }
+
+        int copies = 1;
+        String copiesText = trimToNull(record.getCopies());
+        if (copiesText != null) {
+            try {
+                copies = Integer.parseInt(copiesText);
+            } catch (NumberFormatException e) {
+                return "Invalid number of copies";
+            }
+            if (copies < 1 || copies > MAX_COPIES) return "Invalid number of copies";
+        }
+
+        book.setTitle(title);
+        book.setAuthor(author);
+        book.setIsbn(isbn);
+        book.setPublicationYear(year);
+        book.setCategory(category);
+        book.setTotalCopies(copies);
+        book.setAvailableCopies(copies);
+        book.setStatus("Available");
+        return null;
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) return null;
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+}
@@ -0,0 +1,113 @@
+package com.library.bulk;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Reads books from CSV with a header row naming the columns
+public class CsvRecordSource implements RecordSource {
+    private final BufferedReader reader;
+    private int titleColumn = -1;
+    private int authorColumn = -1;
+    private int isbnColumn = -1;
+    private int yearColumn = -1;
+    private int categoryColumn = -1;
+    private int copiesColumn = -1;
+    private long recordNumber;
+
+    public CsvRecordSource(Reader reader) throws IOException {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader, 1 << 16);
+        readHeader();
+    }
+
+    private void readHeader() throws IOException {
+        List<String> header = readRow();
+        if (header == null) throw new IOException("CSV file is empty");
+
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT);
+            switch (name) {
+                case "title": titleColumn = i; break;
+                case "author": authorColumn = i; break;
+                case "isbn": isbnColumn = i; break;
+                case "publication_year":
+                case "year": yearColumn = i; break;
+                case "category": categoryColumn = i; break;
+                case "total_copies":
+                case "copies": copiesColumn = i; break;
+                default: break;
+            }
+        }
+        if (titleColumn < 0 || authorColumn < 0 || isbnColumn < 0) {
+            throw new IOException("CSV header must contain title, author and isbn columns");
+        }
+    }
+
+    @Override
+    public ImportRecord next() throws IOException {
+        List<String> row;
+        do {
+            row = readRow();
+            if (row == null) return null;
+        } while (row.size() == 1 && row.get(0).trim().isEmpty());
+
+        recordNumber++;
+        return new ImportRecord(recordNumber, column(row, titleColumn), column(row, authorColumn),
+                column(row, isbnColumn), column(row, yearColumn), column(row, categoryColumn),
+                column(row, copiesColumn));
+    }
+
+    private static String column(List<String> row, int index) {
+        return index >= 0 && index < row.size() ? row.get(index) : null;
+    }
+
+    // One record, or null at end of input
+    private List<String> readRow() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean inQuotes = false;
+        boolean any = false;
+
+        int c;
+        while ((c = reader.read()) != -1) {
+            any = true;
+            char ch = (char) c;
+            if (inQuotes) {
+                if (ch == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        inQuotes = false;
+                        if (next != -1) reader.reset();
+                    }
+                } else {
+                    field.append(ch);
+                }
+            } else if (ch == '"') {
+                inQuotes = true;
+            } else if (ch == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (ch == '\n') {
+                fields.add(field.toString());
+                return fields;
+            } else if (ch != '\r') {
+                field.append(ch);
+            }
+        }
+
+        if (!any) return null;
+        fields.add(field.toString());
+        return fields;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,246 @@
+package com.library.bulk;
+
+import com.library.dao.BookRepository;
+import com.library.dao.MemberRepository;
+import com.library.dao.TransactionRepository;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+// Streams whole tables to CSV or JSON Lines files, optionally gzipped
+public class DataExporter {
+    private static final int FETCH_SIZE = 1000;
+
+    public enum Format {
+        CSV(".csv"),
+        JSON_LINES(".jsonl");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+    }
+
+    public enum Table { BOOKS, MEMBERS, TRANSACTIONS }
+
+    private static final String[] BOOK_COLUMNS = {"book_id", "title", "author", "isbn", "publication_year",
+            "category", "total_copies", "available_copies", "status"};
+    private static final String[] MEMBER_COLUMNS = {"member_id", "name", "email", "phone", "address",
+            "join_date", "status", "max_books_allowed"};
+    private static final String[] TRANSACTION_COLUMNS = {"transaction_id", "book_id", "member_id", "issue_date",
+            "due_date", "return_date", "fine_amount", "status", "notes"};
+
+    private final BookRepository books;
+    private final MemberRepository members;
+    private final TransactionRepository transactions;
+
+    public DataExporter(BookRepository books, MemberRepository members, TransactionRepository transactions) {
+        this.books = books;
+        this.members = members;
+        this.transactions = transactions;
+    }
+
+    // Export the given tables into directory as <table>.csv / <table>.jsonl (+ .gz)
+    public List<ExportResult> export(File directory, Collection<Table> tables, Format format, boolean gzip) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create export directory " + directory);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, tables.size()), r -> {
+            Thread thread = new Thread(r, "data-export");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<ExportResult>> futures = new ArrayList<>();
+            for (Table table : tables) {
+                futures.add(executor.submit(() -> exportTable(directory, table, format, gzip)));
+            }
+
+            List<ExportResult> results = new ArrayList<>();
+            IOException failure = null;
+            for (Future<ExportResult> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (failure == null) {
+                        failure = cause instanceof IOException ? (IOException) cause
+                                : new IOException("Export failed: " + cause, cause);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Export interrupted", e);
+                }
+            }
+            if (failure != null) throw failure;
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private ExportResult exportTable(File directory, Table table, Format format, boolean gzip) throws IOException {
+        long start = System.currentTimeMillis();
+        String name = table.name().toLowerCase(Locale.ROOT);
+        File target = new File(directory, name + format.extension + (gzip ? ".gz" : ""));
+        File partial = new File(directory, target.getName() + ".part");
+
+        long[] rows = new long[1];
+        boolean read;
+        try (Writer out = openWriter(partial, gzip)) {
+            RowWriter writer = format == Format.CSV ? new CsvRowWriter(out) : new JsonLinesRowWriter(out);
+            try {
+                switch (table) {
+                    case BOOKS:
+                        writer.header(BOOK_COLUMNS);
+                        read = books.forEachBook(FETCH_SIZE, b -> {
+                            write(writer, b.getBookId(), b.getTitle(), b.getAuthor(), b.getIsbn(),
+                                    b.getPublicationYear(), b.getCategory(), b.getTotalCopies(),
+                                    b.getAvailableCopies(), b.getStatus());
+                            rows[0]++;
+                        });
+                        break;
+                    case MEMBERS:
+                        writer.header(MEMBER_COLUMNS);
+                        read = members.forEachMember(FETCH_SIZE, m -> {
+                            write(writer, m.getMemberId(), m.getName(), m.getEmail(), m.getPhone(),
+                                    m.getAddress(), m.getJoinDate(), m.getStatus(), m.getMaxBooksAllowed());
+                            rows[0]++;
+                        });
+                        break;
+                    default:
+                        writer.header(TRANSACTION_COLUMNS);
+                        read = transactions.forEachTransaction(FETCH_SIZE, t -> {
+                            write(writer, t.getTransactionId(), t.getBookId(), t.getMemberId(),
+                                    t.getIssueDate(), t.getDueDate(), t.getReturnDate(),
+                                    t.getFineAmount(), t.getStatus(), t.getNotes());
+                            rows[0]++;
+                        });
+                        break;
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(partial.toPath());
+            throw new IOException("Export of " + name + " failed: " + e.getMessage(), e);
+        }
+
+        if (!read) {
+            Files.deleteIfExists(partial.toPath());
+            throw new IOException("Could not read " + name + " from the database");
+        }
+        Files.move(partial.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return new ExportResult(name, target, rows[0], System.currentTimeMillis() - start);
+    }
+
+    private static Writer openWriter(File file, boolean gzip) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        if (gzip) out = new GZIPOutputStream(out, 1 << 16);
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    // The repositories take a plain Consumer, so I/O errors are tunnelled out unchecked
+    private static void write(RowWriter writer, Object... values) {
+        try {
+            writer.row(values);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private interface RowWriter {
+        void header(String[] columns) throws IOException;
+
+        void row(Object[] values) throws IOException;
+    }
+
+    private static class CsvRowWriter implements RowWriter {
+        private final CsvWriter csv;
+
+        CsvRowWriter(Writer out) {
+            this.csv = new CsvWriter(out);
+        }
+
+        public void header(String[] columns) throws IOException {
+            csv.writeRow((Object[]) columns);
+        }
+
+        public void row(Object[] values) throws IOException {
+            csv.writeRow(values);
+        }
+    }
+
+    // One JSON object per line; numbers stay numbers, dates become "yyyy-mm-dd" strings
+    private static class JsonLinesRowWriter implements RowWriter {
+        private final Writer out;
+        private String[] columns;
+
+        JsonLinesRowWriter(Writer out) {
+            this.out = out;
+        }
+
+        public void header(String[] columns) {
+            this.columns = columns;
+        }
+
+        public void row(Object[] values) throws IOException {
+            out.write('{');
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) out.write(',');
+                writeString(columns[i]);
+                out.write(':');
+                Object value = values[i];
+                if (value == null) {
+                    out.write("null");
+                } else if (value instanceof Number) {
+                    out.write(value.toString());
+                } else {
+                    writeString(value.toString());
+                }
+            }
+            out.write("}\n");
+        }
+
+        private void writeString(String value) throws IOException {
+            out.write('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"': out.write("\\\""); break;
+                    case '\\': out.write("\\\\"); break;
+                    case '\n': out.write("\\n"); break;
+                    case '\r': out.write("\\r"); break;
+                    case '\t': out.write("\\t"); break;
+                    default:
+                        if (c < 0x20) {
+                            out.write(String.format("\\u%04x", (int) c));
+                        } else {
+                            out.write(c);
+                        }
+                }
+            }
+            out.write('"');
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.library.bulk;
+
+import java.io.File;
+
+// Outcome of exporting one table
+public class ExportResult {
+    private final String table;
+    private final File file;
+    private final long rows;
+    private final long elapsedMillis;
+
+    public ExportResult(String table, File file, long rows, long elapsedMillis) {
+        this.table = table;
+        this.file = file;
+        this.rows = rows;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public String getTable() { return table; }
+    public File getFile() { return file; }
+    public long getRows() { return rows; }
+    public long getElapsedMillis() { return elapsedMillis; }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d rows to %s in %.1fs", table, rows, file.getName(), elapsedMillis / 1000.0);
+    }
+}
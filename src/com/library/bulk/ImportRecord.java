@@ -0,0 +1,45 @@
+package com.library.bulk;
+
+// One raw catalog record from an import file, before validation
+public class ImportRecord {
+    private final long number;
+    private final String title;
+    private final String author;
+    private final String isbn;
+    private final String year;
+    private final String category;
+    private final String copies;
+    private final String parseError;
+
+    public ImportRecord(long number, String title, String author, String isbn,
+                        String year, String category, String copies) {
+        this(number, title, author, isbn, year, category, copies, null);
+    }
+
+    private ImportRecord(long number, String title, String author, String isbn,
+                         String year, String category, String copies, String parseError) {
+        this.number = number;
+        this.title = title;
+        this.author = author;
+        this.isbn = isbn;
+        this.year = year;
+        this.category = category;
+        this.copies = copies;
+        this.parseError = parseError;
+    }
+
+    // A record the source could not decode; it is rejected with the given reason
+    public static ImportRecord unreadable(long number, String reason) {
+        return new ImportRecord(number, null, null, null, null, null, null, reason);
+    }
+
+    // Record (CSV data row or MARC record) number, starting at 1
+    public long getNumber() { return number; }
+    public String getTitle() { return title; }
+    public String getAuthor() { return author; }
+    public String getIsbn() { return isbn; }
+    public String getYear() { return year; }
+    public String getCategory() { return category; }
+    public String getCopies() { return copies; }
+    public String getParseError() { return parseError; }
+}
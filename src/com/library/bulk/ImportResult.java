@@ -0,0 +1,34 @@
+package com.library.bulk;
+
+// Counters for a bulk import, reported after every chunk and once at the end
+public class ImportResult {
+    private final long recordsRead;
+    private final long imported;
+    private final long rejected;
+    private final long elapsedMillis;
+    private final boolean finished;
+
+    public ImportResult(long recordsRead, long imported, long rejected, long elapsedMillis, boolean finished) {
+        this.recordsRead = recordsRead;
+        this.imported = imported;
+        this.rejected = rejected;
+        this.elapsedMillis = elapsedMillis;
+        this.finished = finished;
+    }
+
+    public long getRecordsRead() { return recordsRead; }
+    public long getImported() { return imported; }
+    public long getRejected() { return rejected; }
+    public long getElapsedMillis() { return elapsedMillis; }
+    public boolean isFinished() { return finished; }
+
+    public double getRowsPerSecond() {
+        return elapsedMillis == 0 ? 0.0 : (imported + rejected) * 1000.0 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d imported, %d rejected in %.1fs (%.0f rows/s)",
+                imported, rejected, elapsedMillis / 1000.0, getRowsPerSecond());
+    }
+}
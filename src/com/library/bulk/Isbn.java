@@ -0,0 +1,62 @@
+package com.library.bulk;
+
+// ISBN validation; valid ISBNs are stored as 13 digits without hyphens
+public final class Isbn {
+    private Isbn() {}
+
+    // ISBN-13 digits for a valid ISBN-10 or ISBN-13, or null if the checksum or format is wrong
+    public static String normalize(String raw) {
+        if (raw == null) return null;
+        StringBuilder compact = new StringBuilder(13);
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c >= '0' && c <= '9') compact.append(c);
+            else if (c == 'x' || c == 'X') compact.append('X');
+            else if (c != '-' && c != ' ') return null;
+        }
+
+        String digits = compact.toString();
+        if (digits.length() == 10 && isValidIsbn10(digits)) {
+            String body = "978" + digits.substring(0, 9);
+            return body + isbn13CheckDigit(body);
+        }
+        if (digits.length() == 13 && (digits.startsWith("978") || digits.startsWith("979"))
+                && digits.indexOf('X') < 0
+                && isbn13CheckDigit(digits.substring(0, 12)) == digits.charAt(12)) {
+            return digits;
+        }
+        return null;
+    }
+
+    // The form an ISBN is kept in: 13 digits if it is valid, otherwise as given. Every
+    // write and lookup goes through this, so the same book always has the same key.
+    public static String toStored(String raw) {
+        String isbn = normalize(raw);
+        return isbn != null ? isbn : raw;
+    }
+
+    private static boolean isValidIsbn10(String digits) {
+        int sum = 0;
+        for (int i = 0; i < 10; i++) {
+            char c = digits.charAt(i);
+            int value;
+            if (c == 'X') {
+                if (i != 9) return false;
+                value = 10;
+            } else {
+                value = c - '0';
+            }
+            sum += (10 - i) * value;
+        }
+        return sum % 11 == 0;
+    }
+
+    private static char isbn13CheckDigit(String first12) {
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            int value = first12.charAt(i) - '0';
+            sum += (i % 2 == 0) ? value : value * 3;
+        }
+        return (char) ('0' + (10 - sum % 10) % 10);
+    }
+}
@@ -0,0 +1,170 @@
+package com.library.bulk;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Reads books from binary MARC 21 (ISO 2709) records
+public class MarcRecordSource implements RecordSource {
+    private static final byte FIELD_TERMINATOR = 0x1E;
+    private static final byte SUBFIELD_DELIMITER = 0x1F;
+    private static final int LEADER_LENGTH = 24;
+    private static final Pattern YEAR = Pattern.compile("\\d{4}");
+
+    private final InputStream in;
+    private long recordNumber;
+
+    public MarcRecordSource(InputStream in) {
+        this.in = in instanceof BufferedInputStream ? in : new BufferedInputStream(in, 1 << 16);
+    }
+
+    @Override
+    public ImportRecord next() throws IOException {
+        // Some files put line breaks between records
+        int first;
+        do {
+            first = in.read();
+        } while (first == '\n' || first == '\r');
+        if (first == -1) return null;
+
+        byte[] lengthDigits = new byte[5];
+        lengthDigits[0] = (byte) first;
+        readFully(lengthDigits, 1, 4);
+        int length;
+        try {
+            length = parseNumber(lengthDigits, 0, 5);
+        } catch (IllegalArgumentException e) {
+            length = -1;
+        }
+        if (length < LEADER_LENGTH + 1) {
+            throw new IOException("Corrupt MARC record length after record " + recordNumber);
+        }
+
+        byte[] record = new byte[length];
+        System.arraycopy(lengthDigits, 0, record, 0, 5);
+        readFully(record, 5, length - 5);
+        recordNumber++;
+
+        try {
+            return parse(record);
+        } catch (RuntimeException e) {
+            return ImportRecord.unreadable(recordNumber, "Malformed MARC record");
+        }
+    }
+
+    private ImportRecord parse(byte[] record) {
+        Charset charset = record[9] == 'a' ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1;
+        int baseAddress = parseNumber(record, 12, 5);
+
+        String isbn = null;
+        String title = null;
+        String author = null;
+        String fallbackAuthor = null;
+        String year = null;
+        String category = null;
+        String fallbackCategory = null;
+
+        // Directory: 12-byte entries of tag (3), field length (4) and start offset (5)
+        for (int entry = LEADER_LENGTH; entry + 12 <= record.length && record[entry] != FIELD_TERMINATOR; entry += 12) {
+            String tag = new String(record, entry, 3, StandardCharsets.US_ASCII);
+            int fieldLength = parseNumber(record, entry + 3, 4);
+            int start = baseAddress + parseNumber(record, entry + 7, 5);
+            // Data fields: two indicators, then subfields; the field terminator is dropped
+            int dataStart = start + 2;
+            int dataEnd = start + fieldLength - 1;
+            if (tag.compareTo("010") < 0 || dataStart > dataEnd) continue;
+
+            switch (tag) {
+                case "020":
+                    if (isbn == null) {
+                        String value = subfield(record, dataStart, dataEnd, 'a', charset);
+                        // "0261102214 (pbk.)" - keep the number only
+                        if (value != null) isbn = value.trim().split("\\s+")[0];
+                    }
+                    break;
+                case "245":
+                    String main = subfield(record, dataStart, dataEnd, 'a', charset);
+                    String rest = subfield(record, dataStart, dataEnd, 'b', charset);
+                    if (main != null) title = trimPunctuation(rest == null ? main : trimPunctuation(main) + ": " + rest);
+                    break;
+                case "100":
+                    author = trimPunctuation(subfield(record, dataStart, dataEnd, 'a', charset));
+                    break;
+                case "110":
+                case "700":
+                    if (fallbackAuthor == null) fallbackAuthor = trimPunctuation(subfield(record, dataStart, dataEnd, 'a', charset));
+                    break;
+                case "260":
+                case "264":
+                    if (year == null) {
+                        String date = subfield(record, dataStart, dataEnd, 'c', charset);
+                        Matcher matcher = date == null ? null : YEAR.matcher(date);
+                        if (matcher != null && matcher.find()) year = matcher.group();
+                    }
+                    break;
+                case "650":
+                    if (category == null) category = trimPunctuation(subfield(record, dataStart, dataEnd, 'a', charset));
+                    break;
+                case "655":
+                    if (fallbackCategory == null) fallbackCategory = trimPunctuation(subfield(record, dataStart, dataEnd, 'a', charset));
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        return new ImportRecord(recordNumber, title, author != null ? author : fallbackAuthor, isbn, year,
+                category != null ? category : fallbackCategory, "1");
+    }
+
+    // First occurrence of a subfield within a data field
+    private static String subfield(byte[] record, int from, int to, char code, Charset charset) {
+        for (int i = from; i < to; i++) {
+            if (record[i] == SUBFIELD_DELIMITER && i + 1 < to && record[i + 1] == code) {
+                int start = i + 2;
+                int end = start;
+                while (end < to && record[end] != SUBFIELD_DELIMITER) end++;
+                return new String(record, start, end - start, charset);
+            }
+        }
+        return null;
+    }
+
+    // Cataloguing punctuation ("The hobbit /", "Tolkien, J. R. R.,")
+    private static String trimPunctuation(String value) {
+        if (value == null) return null;
+        String trimmed = value.trim();
+        while (!trimmed.isEmpty() && " /:;,.=".indexOf(trimmed.charAt(trimmed.length() - 1)) >= 0) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1).trim();
+        }
+        return trimmed;
+    }
+
+    private static int parseNumber(byte[] bytes, int offset, int length) {
+        int value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            byte b = bytes[i];
+            if (b < '0' || b > '9') throw new IllegalArgumentException("Not a number in MARC header");
+            value = value * 10 + (b - '0');
+        }
+        return value;
+    }
+
+    private void readFully(byte[] buffer, int offset, int length) throws IOException {
+        while (length > 0) {
+            int read = in.read(buffer, offset, length);
+            if (read < 0) throw new IOException("Truncated MARC record after record " + recordNumber);
+            offset += read;
+            length -= read;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,10 @@
+package com.library.bulk;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+// Streams catalog records from an import file, one at a time
+public interface RecordSource extends Closeable {
+    // The next record, or null at the end of the input
+    ImportRecord next() throws IOException;
+}
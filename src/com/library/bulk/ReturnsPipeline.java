@@ -0,0 +1,153 @@
+package com.library.bulk;
+
+import com.library.models.ReturnOutcome;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+// Bulk returns for the book drop: scanned ids are returned in parallel batches, one transaction each
+public class ReturnsPipeline {
+    public static final int DEFAULT_BATCH_SIZE = 200;
+
+    public interface ProgressListener {
+        void onProgress(ReturnsResult progress);
+    }
+
+    private final Function<List<Integer>, List<ReturnOutcome>> returner;
+    private final int batchSize;
+    private final int workers;
+
+    // returner returns one batch (TransactionRepository.returnBooks plus whatever
+    // bookkeeping goes with it) and is called from several workers at once
+    public ReturnsPipeline(Function<List<Integer>, List<ReturnOutcome>> returner, int batchSize, int workers) {
+        this.returner = returner;
+        this.batchSize = Math.max(1, batchSize);
+        this.workers = Math.max(1, workers);
+    }
+
+    // Running totals; only the calling thread touches them
+    private static class Tally {
+        final long start = System.currentTimeMillis();
+        final List<ReturnOutcome> failures = new ArrayList<>();
+        long scanned;
+        long returned;
+        long failed;
+        double fines;
+
+        void add(ReturnOutcome outcome) {
+            if (outcome.isReturned()) {
+                returned++;
+                fines += outcome.getFine();
+            } else {
+                failed++;
+                failures.add(outcome);
+            }
+        }
+
+        ReturnsResult snapshot(boolean finished) {
+            return new ReturnsResult(scanned, returned, failed, fines, System.currentTimeMillis() - start,
+                    finished, finished ? failures : new ArrayList<>());
+        }
+    }
+
+    public ReturnsResult run(Iterator<String> scans, ProgressListener listener) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+            Thread thread = new Thread(r, "returns-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Bounded so a fast scanner cannot queue up the whole drop ahead of the database
+        BlockingQueue<CompletableFuture<List<ReturnOutcome>>> pending = new ArrayBlockingQueue<>(workers * 2);
+
+        Tally tally = new Tally();
+        Set<Integer> seen = new HashSet<>();
+
+        try {
+            List<Integer> batch = new ArrayList<>(batchSize);
+            while (scans.hasNext()) {
+                String scan = scans.next().trim();
+                if (scan.isEmpty()) continue;
+                tally.scanned++;
+
+                Integer transactionId = parse(scan);
+                if (transactionId == null) {
+                    tally.add(ReturnOutcome.failed(0, "Unreadable scan '" + scan + "'"));
+                } else if (!seen.add(transactionId)) {
+                    tally.add(ReturnOutcome.failed(transactionId, "Scanned twice"));
+                } else {
+                    batch.add(transactionId);
+                    if (batch.size() == batchSize) {
+                        submit(batch, pool, pending, tally, listener);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+            }
+            if (!batch.isEmpty()) submit(batch, pool, pending, tally, listener);
+            while (!pending.isEmpty()) {
+                collect(pending.take(), tally, listener);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        ReturnsResult result = tally.snapshot(true);
+        if (listener != null) listener.onProgress(result);
+        return result;
+    }
+
+    // Waits for the oldest batch first when the queue is full, so results are taken in scan order
+    private void submit(List<Integer> batch, ExecutorService pool,
+                        BlockingQueue<CompletableFuture<List<ReturnOutcome>>> pending,
+                        Tally tally, ProgressListener listener) throws InterruptedException {
+        if (pending.remainingCapacity() == 0) {
+            collect(pending.take(), tally, listener);
+        }
+        pending.put(CompletableFuture.supplyAsync(() -> returnBatch(batch), pool));
+    }
+
+    // Runs on a worker; a batch that fails as a whole reports every loan in it as failed
+    private List<ReturnOutcome> returnBatch(List<Integer> transactionIds) {
+        try {
+            return returner.apply(transactionIds);
+        } catch (RuntimeException e) {
+            System.out.println("Error returning batch: " + e.getMessage());
+            List<ReturnOutcome> outcomes = new ArrayList<>(transactionIds.size());
+            for (int transactionId : transactionIds) {
+                outcomes.add(ReturnOutcome.failed(transactionId, "Batch failed: " + e.getMessage()));
+            }
+            return outcomes;
+        }
+    }
+
+    private void collect(CompletableFuture<List<ReturnOutcome>> future, Tally tally, ProgressListener listener)
+            throws InterruptedException {
+        try {
+            for (ReturnOutcome outcome : future.get()) {
+                tally.add(outcome);
+            }
+        } catch (ExecutionException e) {
+            // returnBatch catches everything it can, so this is a bug rather than a bad scan
+            throw new IllegalStateException("Returns batch failed", e.getCause());
+        }
+        if (listener != null) listener.onProgress(tally.snapshot(false));
+    }
+
+    private static Integer parse(String scan) {
+        try {
+            int transactionId = Integer.parseInt(scan);
+            return transactionId > 0 ? transactionId : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
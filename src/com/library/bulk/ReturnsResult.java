@@ -0,0 +1,50 @@
+package com.library.bulk;
+
+import com.library.models.ReturnOutcome;
+
+import java.util.Collections;
+import java.util.List;
+
+// Counters for a bulk return, reported after every batch and once at the end
+public class ReturnsResult {
+    private final long scanned;
+    private final long returned;
+    private final long failed;
+    private final double fines;
+    private final long elapsedMillis;
+    private final boolean finished;
+    private final List<ReturnOutcome> failures;
+
+    public ReturnsResult(long scanned, long returned, long failed, double fines, long elapsedMillis,
+                         boolean finished, List<ReturnOutcome> failures) {
+        this.scanned = scanned;
+        this.returned = returned;
+        this.failed = failed;
+        this.fines = fines;
+        this.elapsedMillis = elapsedMillis;
+        this.finished = finished;
+        this.failures = failures;
+    }
+
+    public long getScanned() { return scanned; }
+    public long getReturned() { return returned; }
+    public long getFailed() { return failed; }
+    public double getFines() { return fines; }
+    public long getElapsedMillis() { return elapsedMillis; }
+    public boolean isFinished() { return finished; }
+
+    // Every scan that was not returned, with the reason; empty until the run is finished
+    public List<ReturnOutcome> getFailures() {
+        return Collections.unmodifiableList(failures);
+    }
+
+    public double getReturnsPerSecond() {
+        return elapsedMillis == 0 ? 0.0 : (returned + failed) * 1000.0 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d returned, %d failed, $%.2f in fines in %.1fs (%.0f returns/s)",
+                returned, failed, fines, elapsedMillis / 1000.0, getReturnsPerSecond());
+    }
+}
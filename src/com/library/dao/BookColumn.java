@@ -0,0 +1,48 @@
+package com.library.dao;
+
+import com.library.models.Book;
+
+import java.util.function.Function;
+
+// Book columns the catalog table can be sorted by
+public enum BookColumn implements SortColumn<Book> {
+    ID("book_id", false, Book::getBookId),
+    TITLE("title", true, Book::getTitle),
+    AUTHOR("author", true, Book::getAuthor),
+    CATEGORY("category", true, Book::getCategory),
+    ISBN("isbn", true, Book::getIsbn),
+    YEAR("publication_year", false, Book::getPublicationYear),
+    AVAILABLE("available_copies", false, Book::getAvailableCopies),
+    TOTAL("total_copies", false, Book::getTotalCopies),
+    STATUS("status", true, Book::getStatus);
+
+    private final String sqlExpression;
+    private final boolean nullable;
+    private final Function<Book, Comparable<?>> key;
+
+    BookColumn(String sqlExpression, boolean nullable, Function<Book, Comparable<?>> key) {
+        this.sqlExpression = sqlExpression;
+        this.nullable = nullable;
+        this.key = key;
+    }
+
+    @Override
+    public String sqlExpression() {
+        return sqlExpression;
+    }
+
+    @Override
+    public boolean nullable() {
+        return nullable;
+    }
+
+    @Override
+    public Comparable<?> keyOf(Book book) {
+        return key.apply(book);
+    }
+
+    @Override
+    public int idOf(Book book) {
+        return book.getBookId();
+    }
+}
@@ -1,12 +1,20 @@
 package com.library.dao;
 
 import com.library.db.DatabaseConnection;
+import com.library.db.QueryCanceller;
 import com.library.models.Book;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
-public class BookDAO {
+public class BookDAO implements BookRepository {
+    // 7 parameters per row keeps a full statement well under MySQL's 65535 placeholder limit
+    private static final int MAX_ROWS_PER_INSERT = 500;
 
     // Add new book
     public boolean addBook(Book book) {
@@ -15,12 +23,13 @@ public class BookDAO {
 
         Connection conn = null;
         PreparedStatement pstmt = null;
+        ResultSet keys = null;
 
         try {
             conn = DatabaseConnection.getConnection();
             if (conn == null) return false;
 
-            pstmt = conn.prepareStatement(sql);
+            pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
             pstmt.setString(1, book.getTitle());
             pstmt.setString(2, book.getAuthor());
             pstmt.setString(3, book.getIsbn());
@@ -30,13 +39,157 @@ public class BookDAO {
             pstmt.setInt(7, book.getAvailableCopies());
 
             int rowsInserted = pstmt.executeUpdate();
+
+            // Hand the new book_id back so callers can index the book without re-reading it
+            keys = pstmt.getGeneratedKeys();
+            if (keys.next()) {
+                book.setBookId(keys.getInt(1));
+            }
             return rowsInserted > 0;
 
         } catch (SQLException e) {
             System.out.println("Error adding book: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
             return false;
         } finally {
-            closeResources(null, pstmt, conn);
+            closeResources(keys, pstmt, conn);
+        }
+    }
+
+    // Add many books in one transaction using multi-row INSERTs. Returns the number
+    // of rows inserted, or -1 if anything failed (for example a duplicate ISBN) and
+    // the inserts were rolled back. Generated ids are set on the books.
+    public int addBooks(List<Book> books) {
+        if (books.isEmpty()) return 0;
+
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null) return -1;
+
+        try {
+            return DatabaseConnection.inTransaction(conn, () -> {
+                int inserted = 0;
+                for (int from = 0; from < books.size(); from += MAX_ROWS_PER_INSERT) {
+                    List<Book> rows = books.subList(from, Math.min(books.size(), from + MAX_ROWS_PER_INSERT));
+
+                    try (PreparedStatement pstmt = conn.prepareStatement(multiRowInsertSql(rows.size()),
+                            Statement.RETURN_GENERATED_KEYS)) {
+                        int index = 1;
+                        for (Book book : rows) {
+                            pstmt.setString(index++, book.getTitle());
+                            pstmt.setString(index++, book.getAuthor());
+                            pstmt.setString(index++, book.getIsbn());
+                            pstmt.setInt(index++, book.getPublicationYear());
+                            pstmt.setString(index++, book.getCategory());
+                            pstmt.setInt(index++, book.getTotalCopies());
+                            pstmt.setInt(index++, book.getAvailableCopies());
+                        }
+                        inserted += pstmt.executeUpdate();
+
+                        // A multi-row INSERT hands back one consecutive key per row, in order
+                        try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                            for (int i = 0; i < rows.size() && keys.next(); i++) {
+                                rows.get(i).setBookId(keys.getInt(1));
+                            }
+                        }
+                    }
+                }
+                return inserted;
+            });
+
+        } catch (SQLException e) {
+            System.out.println("Error adding books: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
+            return -1;
+        } finally {
+            DatabaseConnection.closeConnection(conn);
+        }
+    }
+
+    // Which of the given ISBNs are already in the catalog. Valid ISBNs are stored as 13
+    // digits (sql/migrations/003_normalize_isbns.sql), so an exact match uses the index.
+    public Set<String> findExistingIsbns(Collection<String> isbns) {
+        Set<String> existing = new HashSet<>();
+        if (isbns.isEmpty()) return existing;
+
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            if (conn == null) return existing;
+
+            List<String> values = new ArrayList<>(isbns);
+            for (int from = 0; from < values.size(); from += MAX_ROWS_PER_INSERT) {
+                List<String> slice = values.subList(from, Math.min(values.size(), from + MAX_ROWS_PER_INSERT));
+                String placeholders = String.join(", ", Collections.nCopies(slice.size(), "?"));
+
+                pstmt = conn.prepareStatement("SELECT isbn FROM books WHERE isbn IN (" + placeholders + ")");
+                for (int i = 0; i < slice.size(); i++) {
+                    pstmt.setString(i + 1, slice.get(i));
+                }
+                rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    existing.add(rs.getString("isbn"));
+                }
+                closeResources(rs, pstmt, null);
+                rs = null;
+                pstmt = null;
+            }
+
+        } catch (SQLException e) {
+            System.out.println("Error checking ISBNs: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
+        } finally {
+            closeResources(rs, pstmt, conn);
+        }
+        return existing;
+    }
+
+    private static String multiRowInsertSql(int rows) {
+        return "INSERT INTO books (title, author, isbn, publication_year, " +
+                "category, total_copies, available_copies) VALUES " +
+                String.join(", ", Collections.nCopies(rows, "(?, ?, ?, ?, ?, ?, ?)"));
+    }
+
+    // Stream every book through a forward-only, read-only cursor. With useCursorFetch
+    // the driver holds only fetchSize rows at a time, whatever the table size.
+    public boolean forEachBook(int fetchSize, Consumer<Book> action) {
+        String sql = "SELECT * FROM books ORDER BY book_id";
+
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            if (conn == null) return false;
+
+            pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstmt.setFetchSize(fetchSize);
+            rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                Book book = new Book();
+                book.setBookId(rs.getInt("book_id"));
+                book.setTitle(rs.getString("title"));
+                book.setAuthor(rs.getString("author"));
+                book.setIsbn(rs.getString("isbn"));
+                book.setPublicationYear(rs.getInt("publication_year"));
+                book.setCategory(rs.getString("category"));
+                book.setTotalCopies(rs.getInt("total_copies"));
+                book.setAvailableCopies(rs.getInt("available_copies"));
+                book.setStatus(rs.getString("status"));
+                action.accept(book);
+            }
+            return true;
+
+        } catch (SQLException e) {
+            System.out.println("Error reading books: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
+            return false;
+        } finally {
+            closeResources(rs, pstmt, conn);
         }
     }
 
@@ -72,12 +225,107 @@ public class BookDAO {
 
         } catch (SQLException e) {
             System.out.println("Error getting books: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
         } finally {
             closeResources(rs, stmt, conn);
         }
         return books;
     }
 
+    // One page of books in (title, book_id) order, starting after the given key.
+    // Seeking past the last row seen keeps every page as cheap as the first,
+    // unlike OFFSET. Pass a null afterTitle for the first page. Null on failure.
+    public List<Book> getBooksPage(String afterTitle, int afterBookId, int pageSize, int fetchSize) {
+        List<Book> books = new ArrayList<>();
+        String sql = afterTitle == null
+                ? "SELECT * FROM books ORDER BY title, book_id LIMIT ?"
+                : "SELECT * FROM books WHERE (title, book_id) > (?, ?) ORDER BY title, book_id LIMIT ?";
+
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            if (conn == null) return null;
+
+            pstmt = conn.prepareStatement(sql);
+            // With useCursorFetch the driver pulls rows from the server fetchSize at a time
+            pstmt.setFetchSize(Math.max(1, Math.min(fetchSize, pageSize)));
+            if (afterTitle == null) {
+                pstmt.setInt(1, pageSize);
+            } else {
+                pstmt.setString(1, afterTitle);
+                pstmt.setInt(2, afterBookId);
+                pstmt.setInt(3, pageSize);
+            }
+            rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                Book book = new Book();
+                book.setBookId(rs.getInt("book_id"));
+                book.setTitle(rs.getString("title"));
+                book.setAuthor(rs.getString("author"));
+                book.setIsbn(rs.getString("isbn"));
+                book.setPublicationYear(rs.getInt("publication_year"));
+                book.setCategory(rs.getString("category"));
+                book.setTotalCopies(rs.getInt("total_copies"));
+                book.setAvailableCopies(rs.getInt("available_copies"));
+                book.setStatus(rs.getString("status"));
+                books.add(book);
+            }
+
+        } catch (SQLException e) {
+            System.out.println("Error getting books page: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
+            return null;
+        } finally {
+            closeResources(rs, pstmt, conn);
+        }
+        return books;
+    }
+
+    // One page of books in any column order, for the virtualized catalog table. Null on failure.
+    public List<Book> getBooksPage(BookColumn sortBy, boolean descending, Book after, int offset, int pageSize) {
+        List<Book> books = new ArrayList<>();
+        String sql = KeysetQuery.sql("SELECT * FROM books", "book_id", sortBy, descending, after, offset);
+
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            if (conn == null) return null;
+
+            pstmt = conn.prepareStatement(sql);
+            KeysetQuery.bind(pstmt, sortBy, after, offset, pageSize);
+            rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                Book book = new Book();
+                book.setBookId(rs.getInt("book_id"));
+                book.setTitle(rs.getString("title"));
+                book.setAuthor(rs.getString("author"));
+                book.setIsbn(rs.getString("isbn"));
+                book.setPublicationYear(rs.getInt("publication_year"));
+                book.setCategory(rs.getString("category"));
+                book.setTotalCopies(rs.getInt("total_copies"));
+                book.setAvailableCopies(rs.getInt("available_copies"));
+                book.setStatus(rs.getString("status"));
+                books.add(book);
+            }
+
+        } catch (SQLException e) {
+            System.out.println("Error getting books page: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
+            return null;
+        } finally {
+            closeResources(rs, pstmt, conn);
+        }
+        return books;
+    }
+
     // Search books
     public List<Book> searchBooks(String keyword) {
         List<Book> books = new ArrayList<>();
@@ -98,6 +346,7 @@ public class BookDAO {
             pstmt.setString(3, searchPattern);
             pstmt.setString(4, searchPattern);
 
+            QueryCanceller.register(pstmt);
             rs = pstmt.executeQuery();
 
             while (rs.next()) {
@@ -115,8 +364,11 @@ public class BookDAO {
             }
 
         } catch (SQLException e) {
-            System.out.println("Error searching books: " + e.getMessage());
+            // A search superseded by a newer one is cancelled on purpose
+            if (!QueryCanceller.isCancelled()) System.out.println("Error searching books: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
         } finally {
+            QueryCanceller.unregister(pstmt);
             closeResources(rs, pstmt, conn);
         }
         return books;
@@ -151,6 +403,7 @@ public class BookDAO {
 
         } catch (SQLException e) {
             System.out.println("Error updating book: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
             return false;
         } finally {
             closeResources(null, pstmt, conn);
@@ -159,41 +412,47 @@ public class BookDAO {
 
     // Delete book
     public boolean deleteBook(int bookId) {
-        // First check if the book is currently issued
+        // Lock the book row first so nobody can issue it between the check and the delete
+        String lockSql = "SELECT book_id FROM books WHERE book_id = ? FOR UPDATE";
         String checkSql = "SELECT COUNT(*) as count FROM transactions WHERE book_id = ? AND status IN ('Issued', 'Overdue')";
         String deleteSql = "DELETE FROM books WHERE book_id = ?";
 
-        Connection conn = null;
-        PreparedStatement checkStmt = null;
-        PreparedStatement deleteStmt = null;
-        ResultSet rs = null;
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null) return false;
 
         try {
-            conn = DatabaseConnection.getConnection();
-            if (conn == null) return false;
-
-            // Check if book is issued
-            checkStmt = conn.prepareStatement(checkSql);
-            checkStmt.setInt(1, bookId);
-            rs = checkStmt.executeQuery();
-
-            if (rs.next() && rs.getInt("count") > 0) {
-                System.out.println("Cannot delete book: It is currently issued to a member");
-                return false;
-            }
-
-            // Delete the book
-            deleteStmt = conn.prepareStatement(deleteSql);
-            deleteStmt.setInt(1, bookId);
-            int rowsDeleted = deleteStmt.executeUpdate();
-            return rowsDeleted > 0;
+            return DatabaseConnection.inTransaction(conn, () -> {
+                try (PreparedStatement lockStmt = conn.prepareStatement(lockSql)) {
+                    lockStmt.setInt(1, bookId);
+                    try (ResultSet lockRs = lockStmt.executeQuery()) {
+                        if (!lockRs.next()) return false;
+                    }
+                }
+
+                // Check if book is issued
+                try (PreparedStatement checkStmt = conn.prepareStatement(checkSql)) {
+                    checkStmt.setInt(1, bookId);
+                    try (ResultSet rs = checkStmt.executeQuery()) {
+                        if (rs.next() && rs.getInt("count") > 0) {
+                            System.out.println("Cannot delete book: It is currently issued to a member");
+                            return false;
+                        }
+                    }
+                }
+
+                // Delete the book
+                try (PreparedStatement deleteStmt = conn.prepareStatement(deleteSql)) {
+                    deleteStmt.setInt(1, bookId);
+                    return deleteStmt.executeUpdate() > 0;
+                }
+            });
 
         } catch (SQLException e) {
             System.out.println("Error deleting book: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
             return false;
         } finally {
-            closeResources(rs, checkStmt, null);
-            closeResources(null, deleteStmt, conn);
+            DatabaseConnection.closeConnection(conn);
         }
     }
 
@@ -207,9 +466,10 @@ public class BookDAO {
 
         try {
             conn = DatabaseConnection.getConnection();
-            if (conn == null) return 0;
+            if (conn == null) return -1;
 
             stmt = conn.createStatement();
+            QueryCanceller.register(stmt);
             rs = stmt.executeQuery(sql);
 
             if (rs.next()) {
@@ -218,10 +478,12 @@ public class BookDAO {
 
         } catch (SQLException e) {
             System.out.println("Error getting total books count: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
         } finally {
+            QueryCanceller.unregister(stmt);
             closeResources(rs, stmt, conn);
         }
-        return 0;
+        return -1;
     }
 
     // Get available books count
@@ -234,9 +496,10 @@ public class BookDAO {
 
         try {
             conn = DatabaseConnection.getConnection();
-            if (conn == null) return 0;
+            if (conn == null) return -1;
 
             stmt = conn.createStatement();
+            QueryCanceller.register(stmt);
             rs = stmt.executeQuery(sql);
 
             if (rs.next()) {
@@ -245,10 +508,12 @@ public class BookDAO {
 
         } catch (SQLException e) {
             System.out.println("Error getting available books count: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
         } finally {
+            QueryCanceller.unregister(stmt);
             closeResources(rs, stmt, conn);
         }
-        return 0;
+        return -1;
     }
 
     // Get book by ID
@@ -283,6 +548,7 @@ public class BookDAO {
 
         } catch (SQLException e) {
             System.out.println("Error getting book by ID: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
         } finally {
             closeResources(rs, pstmt, conn);
         }
@@ -321,6 +587,7 @@ public class BookDAO {
 
         } catch (SQLException e) {
             System.out.println("Error getting book by ISBN: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
         } finally {
             closeResources(rs, pstmt, conn);
         }
@@ -347,6 +614,7 @@ public class BookDAO {
 
         } catch (SQLException e) {
             System.out.println("Error updating book status: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
             return false;
         } finally {
             closeResources(null, pstmt, conn);
@@ -373,6 +641,7 @@ public class BookDAO {
 
         } catch (SQLException e) {
             System.out.println("Error updating available copies: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
             return false;
         } finally {
             closeResources(null, pstmt, conn);
@@ -401,6 +670,7 @@ public class BookDAO {
 
         } catch (SQLException e) {
             System.out.println("Error checking if book exists: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
         } finally {
             closeResources(rs, pstmt, conn);
         }
@@ -417,4 +687,4 @@ public class BookDAO {
             System.err.println("Error closing resources: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,52 @@
+package com.library.dao;
+
+import com.library.db.DataAccessException;
+import com.library.models.Book;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+// Walks the catalog in (title, book_id) order, one keyset page query at a time
+public class BookPageIterator implements Iterator<Book> {
+    private final BookRepository books;
+    private final int pageSize;
+    private final int fetchSize;
+
+    private List<Book> page;
+    private int position;
+    private boolean lastPage;
+
+    public BookPageIterator(BookRepository books, int pageSize, int fetchSize) {
+        if (pageSize <= 0) throw new IllegalArgumentException("pageSize must be positive");
+        this.books = books;
+        this.pageSize = pageSize;
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (page != null && position < page.size()) return true;
+        if (lastPage) return false;
+
+        Book last = page == null || page.isEmpty() ? null : page.get(page.size() - 1);
+        List<Book> next = last == null
+                ? books.getBooksPage(null, 0, pageSize, fetchSize)
+                : books.getBooksPage(last.getTitle(), last.getBookId(), pageSize, fetchSize);
+        if (next == null) {
+            throw new DataAccessException(last == null
+                    ? "Could not read the first page of books"
+                    : "Could not read the books after book " + last.getBookId());
+        }
+        page = next;
+        position = 0;
+        lastPage = page.size() < pageSize;
+        return !page.isEmpty();
+    }
+
+    @Override
+    public Book next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        return page.get(position++);
+    }
+}
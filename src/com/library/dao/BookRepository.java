@@ -0,0 +1,65 @@
+package com.library.dao;
+
+import com.library.models.Book;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Storage-independent access to the book catalog
+public interface BookRepository {
+    boolean addBook(Book book);
+
+    // All-or-nothing bulk insert; rows inserted, or -1 if nothing was kept
+    int addBooks(List<Book> books);
+
+    // Which of the ISBNs are in the catalog, compared in the stored form (Isbn.toStored)
+    Set<String> findExistingIsbns(Collection<String> isbns);
+
+    List<Book> getAllBooks();
+
+    // Visits every book in id order without collecting them; false if they could not be read
+    boolean forEachBook(int fetchSize, Consumer<Book> action);
+
+    // Keyset page in (title, book_id) order after the given key; null afterTitle for the first
+    // page. Null if it could not be read, so a failure is not taken for the end of the catalog.
+    List<Book> getBooksPage(String afterTitle, int afterBookId, int pageSize, int fetchSize);
+
+    // Page of books sorted by any column: the rows after the given one (from the start
+    // when null), skipping offset of them. Used by the virtualized catalog table. Null if
+    // it could not be read.
+    List<Book> getBooksPage(BookColumn sortBy, boolean descending, Book after, int offset, int pageSize);
+
+    // The whole catalog in title order, read one page at a time so only a page is held in memory;
+    // throws DataAccessException if a page cannot be read
+    default Stream<Book> streamBooks(int pageSize, int fetchSize) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                new BookPageIterator(this, pageSize, fetchSize),
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    List<Book> searchBooks(String keyword);
+
+    boolean updateBook(Book book);
+
+    boolean deleteBook(int bookId);
+
+    // The counts are -1 if they could not be read
+    int getTotalBooks();
+
+    int getAvailableBooksCount();
+
+    Book getBookById(int bookId);
+
+    Book getBookByISBN(String isbn);
+
+    boolean updateBookStatus(int bookId, String status);
+
+    boolean updateAvailableCopies(int bookId, int change);
+
+    boolean bookExists(int bookId);
+}
@@ -0,0 +1,160 @@
+package com.library.dao;
+
+import com.library.cache.LoadingCache;
+import com.library.db.DatabaseConnection;
+import com.library.models.Book;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Read-through cache in front of getBookById and getBookByISBN
+public class CachingBookRepository implements BookRepository {
+    private final BookRepository delegate;
+    private final LoadingCache<Integer, Book> byId;
+    private final LoadingCache<String, Integer> idsByIsbn;
+
+    public CachingBookRepository(BookRepository delegate, int maxSize, long ttlSeconds) {
+        this.delegate = delegate;
+        this.byId = new LoadingCache<>("Book", maxSize, ttlSeconds, TimeUnit.SECONDS);
+        this.idsByIsbn = new LoadingCache<>("ISBN", maxSize, ttlSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public Book getBookById(int bookId) {
+        // Inside a unit of work the caller must see its own uncommitted changes
+        if (DatabaseConnection.hasBoundConnection()) return delegate.getBookById(bookId);
+        Book book = byId.get(bookId, delegate::getBookById);
+        return book != null ? new Book(book) : null;
+    }
+
+    @Override
+    public Book getBookByISBN(String isbn) {
+        if (isbn == null || DatabaseConnection.hasBoundConnection()) return delegate.getBookByISBN(isbn);
+        Integer bookId = idsByIsbn.get(isbn, key -> {
+            Book book = delegate.getBookByISBN(key);
+            return book != null ? book.getBookId() : null;
+        });
+        if (bookId == null) return null;
+
+        Book book = getBookById(bookId);
+        if (book != null && isbn.equals(book.getIsbn())) return book;
+        // The book was deleted or its ISBN changed since the mapping was cached
+        idsByIsbn.invalidate(isbn);
+        return delegate.getBookByISBN(isbn);
+    }
+
+    // Drop a book whose row was changed outside this repository
+    public void invalidate(int bookId) {
+        Book cached = byId.getIfPresent(bookId);
+        byId.invalidate(bookId);
+        if (cached != null && cached.getIsbn() != null) idsByIsbn.invalidate(cached.getIsbn());
+        DatabaseConnection.runAfterTransaction(() -> byId.invalidate(bookId));
+    }
+
+    private void invalidate(int bookId, String isbn) {
+        invalidate(bookId);
+        if (isbn != null) {
+            idsByIsbn.invalidate(isbn);
+            DatabaseConnection.runAfterTransaction(() -> idsByIsbn.invalidate(isbn));
+        }
+    }
+
+    public String report() {
+        return byId.report() + idsByIsbn.report();
+    }
+
+    @Override
+    public boolean updateBook(Book book) {
+        boolean updated = delegate.updateBook(book);
+        invalidate(book.getBookId(), book.getIsbn());
+        return updated;
+    }
+
+    @Override
+    public boolean deleteBook(int bookId) {
+        boolean deleted = delegate.deleteBook(bookId);
+        invalidate(bookId);
+        return deleted;
+    }
+
+    @Override
+    public boolean updateBookStatus(int bookId, String status) {
+        boolean updated = delegate.updateBookStatus(bookId, status);
+        invalidate(bookId);
+        return updated;
+    }
+
+    @Override
+    public boolean updateAvailableCopies(int bookId, int change) {
+        boolean updated = delegate.updateAvailableCopies(bookId, change);
+        invalidate(bookId);
+        return updated;
+    }
+
+    @Override
+    public boolean addBook(Book book) {
+        boolean added = delegate.addBook(book);
+        // A cached miss for this ISBN must not hide the new book
+        if (added && book.getIsbn() != null) idsByIsbn.invalidate(book.getIsbn());
+        return added;
+    }
+
+    @Override
+    public int addBooks(List<Book> books) {
+        int added = delegate.addBooks(books);
+        if (added > 0) {
+            for (Book book : books) {
+                if (book.getIsbn() != null) idsByIsbn.invalidate(book.getIsbn());
+            }
+        }
+        return added;
+    }
+
+    @Override
+    public Set<String> findExistingIsbns(Collection<String> isbns) {
+        return delegate.findExistingIsbns(isbns);
+    }
+
+    @Override
+    public List<Book> getAllBooks() {
+        return delegate.getAllBooks();
+    }
+
+    @Override
+    public boolean forEachBook(int fetchSize, Consumer<Book> action) {
+        return delegate.forEachBook(fetchSize, action);
+    }
+
+    @Override
+    public List<Book> getBooksPage(String afterTitle, int afterBookId, int pageSize, int fetchSize) {
+        return delegate.getBooksPage(afterTitle, afterBookId, pageSize, fetchSize);
+    }
+
+    @Override
+    public List<Book> getBooksPage(BookColumn sortBy, boolean descending, Book after, int offset, int pageSize) {
+        return delegate.getBooksPage(sortBy, descending, after, offset, pageSize);
+    }
+
+    @Override
+    public List<Book> searchBooks(String keyword) {
+        return delegate.searchBooks(keyword);
+    }
+
+    @Override
+    public int getTotalBooks() {
+        return delegate.getTotalBooks();
+    }
+
+    @Override
+    public int getAvailableBooksCount() {
+        return delegate.getAvailableBooksCount();
+    }
+
+    @Override
+    public boolean bookExists(int bookId) {
+        return delegate.bookExists(bookId);
+    }
+}
@@ -0,0 +1,133 @@
+package com.library.dao;
+
+import com.library.cache.LoadingCache;
+import com.library.db.DatabaseConnection;
+import com.library.models.Member;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Read-through cache of members and their open-loan counts, for issue checks without a round trip
+public class CachingMemberRepository implements MemberRepository {
+    private final MemberRepository delegate;
+    private final TransactionRepository transactions;
+    private final LoadingCache<Integer, Member> byId;
+    private final LoadingCache<Integer, Integer> openLoans;
+
+    public CachingMemberRepository(MemberRepository delegate, TransactionRepository transactions,
+                                   int maxSize, long ttlSeconds) {
+        this.delegate = delegate;
+        this.transactions = transactions;
+        this.byId = new LoadingCache<>("Member", maxSize, ttlSeconds, TimeUnit.SECONDS);
+        this.openLoans = new LoadingCache<>("Open loans", maxSize, ttlSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public Member getMemberById(int memberId) {
+        // Inside a unit of work the caller must see its own uncommitted changes
+        if (DatabaseConnection.hasBoundConnection()) return delegate.getMemberById(memberId);
+        Member member = byId.get(memberId, delegate::getMemberById);
+        return member != null ? new Member(member) : null;
+    }
+
+    // Issued or overdue loans held by the member, or -1 if they could not be counted
+    public int getOpenLoanCount(int memberId) {
+        if (DatabaseConnection.hasBoundConnection()) return transactions.countOpenLoans(memberId);
+        Integer count = openLoans.get(memberId, id -> {
+            int counted = transactions.countOpenLoans(id);
+            return counted >= 0 ? counted : null;
+        });
+        return count != null ? count : -1;
+    }
+
+    public void loanIssued(int memberId) {
+        adjustOpenLoans(memberId, 1);
+    }
+
+    public void loanReturned(int memberId) {
+        adjustOpenLoans(memberId, -1);
+    }
+
+    // Forget the member's loan count; the next check counts again
+    public void invalidateOpenLoans(int memberId) {
+        openLoans.invalidate(memberId);
+        DatabaseConnection.runAfterTransaction(() -> openLoans.invalidate(memberId));
+    }
+
+    private void adjustOpenLoans(int memberId, int change) {
+        // The unit of work may still roll back, so count again once it is over
+        if (DatabaseConnection.hasBoundConnection()) {
+            invalidateOpenLoans(memberId);
+            return;
+        }
+        synchronized (openLoans) {
+            Integer count = openLoans.getIfPresent(memberId);
+            if (count != null) {
+                openLoans.put(memberId, Math.max(0, count + change));
+            } else {
+                // Also stops a count that is being loaded right now from being cached
+                openLoans.invalidate(memberId);
+            }
+        }
+    }
+
+    public void invalidate(int memberId) {
+        byId.invalidate(memberId);
+        DatabaseConnection.runAfterTransaction(() -> byId.invalidate(memberId));
+    }
+
+    public String report() {
+        return byId.report() + openLoans.report();
+    }
+
+    @Override
+    public boolean addMember(Member member) {
+        return delegate.addMember(member);
+    }
+
+    @Override
+    public boolean updateMember(Member member) {
+        boolean updated = delegate.updateMember(member);
+        invalidate(member.getMemberId());
+        return updated;
+    }
+
+    @Override
+    public boolean deleteMember(int memberId) {
+        boolean deleted = delegate.deleteMember(memberId);
+        invalidate(memberId);
+        invalidateOpenLoans(memberId);
+        return deleted;
+    }
+
+    @Override
+    public List<Member> getAllMembers() {
+        return delegate.getAllMembers();
+    }
+
+    @Override
+    public boolean forEachMember(int fetchSize, Consumer<Member> action) {
+        return delegate.forEachMember(fetchSize, action);
+    }
+
+    @Override
+    public List<Member> getMembersPage(MemberColumn sortBy, boolean descending, Member after, int offset, int pageSize) {
+        return delegate.getMembersPage(sortBy, descending, after, offset, pageSize);
+    }
+
+    @Override
+    public int getMemberCount() {
+        return delegate.getMemberCount();
+    }
+
+    @Override
+    public int getActiveMembersCount() {
+        return delegate.getActiveMembersCount();
+    }
+
+    @Override
+    public List<Member> searchMembers(String searchTerm) {
+        return delegate.searchMembers(searchTerm);
+    }
+}
@@ -0,0 +1,54 @@
+package com.library.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+// Sorted page queries for the MySQL DAOs, seeking past (column, id) instead of using OFFSET
+final class KeysetQuery {
+    private KeysetQuery() {}
+
+    // select is the query without WHERE or ORDER BY, such as "SELECT * FROM books"
+    static <T> String sql(String select, String idColumn, SortColumn<T> sortBy, boolean descending,
+                          T after, int offset) {
+        String column = sortBy.sqlExpression();
+        String direction = descending ? " DESC" : "";
+        StringBuilder sql = new StringBuilder(select);
+        if (after != null) {
+            sql.append(" WHERE ").append(seek(column, idColumn, sortBy.nullable(),
+                    sortBy.keyOf(after) == null, descending));
+        }
+        sql.append(" ORDER BY ").append(column).append(direction)
+                .append(", ").append(idColumn).append(direction)
+                .append(" LIMIT ?");
+        if (offset > 0) sql.append(" OFFSET ?");
+        return sql.toString();
+    }
+
+    // Rows after (key, id); the parameters are the key twice and then the id, or
+    // just the id when the key is NULL
+    private static String seek(String column, String idColumn, boolean nullable, boolean nullKey,
+                               boolean descending) {
+        String after = descending ? " < ?" : " > ?";
+        if (nullKey) {
+            String sameKey = "(" + column + " IS NULL AND " + idColumn + after + ")";
+            return descending ? sameKey : "(" + sameKey + " OR " + column + " IS NOT NULL)";
+        }
+        String seek = "(" + column + after + " OR (" + column + " = ? AND " + idColumn + after + ")";
+        return descending && nullable ? seek + " OR " + column + " IS NULL)" : seek + ")";
+    }
+
+    static <T> void bind(PreparedStatement pstmt, SortColumn<T> sortBy, T after, int offset, int pageSize)
+            throws SQLException {
+        int index = 1;
+        if (after != null) {
+            Object key = sortBy.keyOf(after);
+            if (key != null) {
+                pstmt.setObject(index++, key);
+                pstmt.setObject(index++, key);
+            }
+            pstmt.setInt(index++, sortBy.idOf(after));
+        }
+        pstmt.setInt(index++, pageSize);
+        if (offset > 0) pstmt.setInt(index, offset);
+    }
+}
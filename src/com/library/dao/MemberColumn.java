@@ -0,0 +1,46 @@
+package com.library.dao;
+
+import com.library.models.Member;
+
+import java.util.function.Function;
+
+// Member columns the members table can be sorted by
+public enum MemberColumn implements SortColumn<Member> {
+    ID("member_id", false, Member::getMemberId),
+    NAME("name", true, Member::getName),
+    EMAIL("email", true, Member::getEmail),
+    PHONE("phone", true, Member::getPhone),
+    JOIN_DATE("join_date", true, Member::getJoinDate),
+    STATUS("status", true, Member::getStatus),
+    MAX_BOOKS("max_books_allowed", false, Member::getMaxBooksAllowed);
+
+    private final String sqlExpression;
+    private final boolean nullable;
+    private final Function<Member, Comparable<?>> key;
+
+    MemberColumn(String sqlExpression, boolean nullable, Function<Member, Comparable<?>> key) {
+        this.sqlExpression = sqlExpression;
+        this.nullable = nullable;
+        this.key = key;
+    }
+
+    @Override
+    public String sqlExpression() {
+        return sqlExpression;
+    }
+
+    @Override
+    public boolean nullable() {
+        return nullable;
+    }
+
+    @Override
+    public Comparable<?> keyOf(Member member) {
+        return key.apply(member);
+    }
+
+    @Override
+    public int idOf(Member member) {
+        return member.getMemberId();
+    }
+}
@@ -1,12 +1,14 @@
 package com.library.dao;
 
 import com.library.db.DatabaseConnection;
+import com.library.db.QueryCanceller;
 import com.library.models.Member;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
-public class MemberDAO {
+public class MemberDAO implements MemberRepository {
 
     // Add new member
     public boolean addMember(Member member) {
@@ -15,12 +17,13 @@ public class MemberDAO {
 
         Connection conn = null;
         PreparedStatement pstmt = null;
+        ResultSet keys = null;
 
         try {
             conn = DatabaseConnection.getConnection();
             if (conn == null) return false;
 
-            pstmt = conn.prepareStatement(sql);
+            pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
             pstmt.setString(1, member.getName());
             pstmt.setString(2, member.getEmail());
             pstmt.setString(3, member.getPhone());
@@ -30,13 +33,60 @@ public class MemberDAO {
             pstmt.setInt(7, member.getMaxBooksAllowed());
 
             int rowsInserted = pstmt.executeUpdate();
+
+            // Hand the new member_id back so callers can index the member without re-reading it
+            keys = pstmt.getGeneratedKeys();
+            if (keys.next()) {
+                member.setMemberId(keys.getInt(1));
+            }
             return rowsInserted > 0;
 
         } catch (SQLException e) {
             System.out.println("Error adding member: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
             return false;
         } finally {
-            closeResources(null, pstmt, conn);
+            closeResources(keys, pstmt, conn);
+        }
+    }
+
+    // Stream every member through a forward-only, read-only cursor. With useCursorFetch
+    // the driver holds only fetchSize rows at a time, whatever the table size.
+    public boolean forEachMember(int fetchSize, Consumer<Member> action) {
+        String sql = "SELECT * FROM members ORDER BY member_id";
+
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            if (conn == null) return false;
+
+            pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstmt.setFetchSize(fetchSize);
+            rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                Member member = new Member();
+                member.setMemberId(rs.getInt("member_id"));
+                member.setName(rs.getString("name"));
+                member.setEmail(rs.getString("email"));
+                member.setPhone(rs.getString("phone"));
+                member.setAddress(rs.getString("address"));
+                member.setJoinDate(rs.getDate("join_date"));
+                member.setStatus(rs.getString("status"));
+                member.setMaxBooksAllowed(rs.getInt("max_books_allowed"));
+                action.accept(member);
+            }
+            return true;
+
+        } catch (SQLException e) {
+            System.out.println("Error reading members: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
+            return false;
+        } finally {
+            closeResources(rs, pstmt, conn);
         }
     }
 
@@ -71,12 +121,80 @@ public class MemberDAO {
 
         } catch (SQLException e) {
             System.out.println("Error getting members: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
         } finally {
             closeResources(rs, stmt, conn);
         }
         return members;
     }
 
+    // One page of members in any column order, for the virtualized members table
+    public List<Member> getMembersPage(MemberColumn sortBy, boolean descending, Member after, int offset, int pageSize) {
+        List<Member> members = new ArrayList<>();
+        String sql = KeysetQuery.sql("SELECT * FROM members", "member_id", sortBy, descending, after, offset);
+
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            if (conn == null) return null;
+
+            pstmt = conn.prepareStatement(sql);
+            KeysetQuery.bind(pstmt, sortBy, after, offset, pageSize);
+            rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                Member member = new Member();
+                member.setMemberId(rs.getInt("member_id"));
+                member.setName(rs.getString("name"));
+                member.setEmail(rs.getString("email"));
+                member.setPhone(rs.getString("phone"));
+                member.setAddress(rs.getString("address"));
+                member.setJoinDate(rs.getDate("join_date"));
+                member.setStatus(rs.getString("status"));
+                member.setMaxBooksAllowed(rs.getInt("max_books_allowed"));
+                members.add(member);
+            }
+
+        } catch (SQLException e) {
+            System.out.println("Error getting members page: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
+            return null;
+        } finally {
+            closeResources(rs, pstmt, conn);
+        }
+        return members;
+    }
+
+    public int getMemberCount() {
+        String sql = "SELECT COUNT(*) as count FROM members";
+
+        Connection conn = null;
+        Statement stmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            if (conn == null) return -1;
+
+            stmt = conn.createStatement();
+            rs = stmt.executeQuery(sql);
+
+            if (rs.next()) {
+                return rs.getInt("count");
+            }
+
+        } catch (SQLException e) {
+            System.out.println("Error getting members count: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
+        } finally {
+            closeResources(rs, stmt, conn);
+        }
+        return -1;
+    }
+
     // Get member by ID
     public Member getMemberById(int memberId) {
         String sql = "SELECT * FROM members WHERE member_id = ?";
@@ -108,6 +226,7 @@ public class MemberDAO {
 
         } catch (SQLException e) {
             System.out.println("Error getting member: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
         } finally {
             closeResources(rs, pstmt, conn);
         }
@@ -121,12 +240,13 @@ public class MemberDAO {
 
         Connection conn = null;
         PreparedStatement pstmt = null;
+        ResultSet keys = null;
 
         try {
             conn = DatabaseConnection.getConnection();
             if (conn == null) return false;
 
-            pstmt = conn.prepareStatement(sql);
+            pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
             pstmt.setString(1, member.getName());
             pstmt.setString(2, member.getEmail());
             pstmt.setString(3, member.getPhone());
@@ -140,6 +260,7 @@ public class MemberDAO {
 
         } catch (SQLException e) {
             System.out.println("Error updating member: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
             return false;
         } finally {
             closeResources(null, pstmt, conn);
@@ -164,6 +285,7 @@ public class MemberDAO {
 
         } catch (SQLException e) {
             System.out.println("Error deleting member: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
             return false;
         } finally {
             closeResources(null, pstmt, conn);
@@ -180,9 +302,10 @@ public class MemberDAO {
 
         try {
             conn = DatabaseConnection.getConnection();
-            if (conn == null) return 0;
+            if (conn == null) return -1;
 
             stmt = conn.createStatement();
+            QueryCanceller.register(stmt);
             rs = stmt.executeQuery(sql);
 
             if (rs.next()) {
@@ -191,10 +314,12 @@ public class MemberDAO {
 
         } catch (SQLException e) {
             System.out.println("Error getting active members count: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
         } finally {
+            QueryCanceller.unregister(stmt);
             closeResources(rs, stmt, conn);
         }
-        return 0;
+        return -1;
     }
 
     // Add searchMembers method to MemberDAO
@@ -216,6 +341,7 @@ public class MemberDAO {
             pstmt.setString(2, searchPattern);
             pstmt.setString(3, searchPattern);
 
+            QueryCanceller.register(pstmt);
             rs = pstmt.executeQuery();
 
             while (rs.next()) {
@@ -232,8 +358,11 @@ public class MemberDAO {
             }
 
         } catch (SQLException e) {
-            System.out.println("Error searching members: " + e.getMessage());
+            // A search superseded by a newer one is cancelled on purpose
+            if (!QueryCanceller.isCancelled()) System.out.println("Error searching members: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
         } finally {
+            QueryCanceller.unregister(pstmt);
             closeResources(rs, pstmt, conn);
         }
         return members;
@@ -249,4 +378,4 @@ public class MemberDAO {
             System.err.println("Error closing resources: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
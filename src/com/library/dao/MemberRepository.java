@@ -0,0 +1,33 @@
+package com.library.dao;
+
+import com.library.models.Member;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Storage-independent access to library members
+public interface MemberRepository {
+    boolean addMember(Member member);
+
+    List<Member> getAllMembers();
+
+    // Visits every member in id order without collecting them; false if they could not be read
+    boolean forEachMember(int fetchSize, Consumer<Member> action);
+
+    // Page of members sorted by any column, positioned as BookRepository.getBooksPage;
+    // null if it could not be read
+    List<Member> getMembersPage(MemberColumn sortBy, boolean descending, Member after, int offset, int pageSize);
+
+    // -1 if the members could not be counted
+    int getMemberCount();
+
+    Member getMemberById(int memberId);
+
+    boolean updateMember(Member member);
+
+    boolean deleteMember(int memberId);
+
+    // -1 if it could not be counted
+    int getActiveMembersCount();
+
+    List<Member> searchMembers(String searchTerm);
+}
@@ -0,0 +1,88 @@
+package com.library.dao;
+
+import com.library.db.ConnectionPool;
+import com.library.db.DataAccessException;
+import com.library.db.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.function.Supplier;
+
+// The default engine: the JDBC DAOs backed by MySQL
+public class MySqlStorageEngine implements StorageEngine {
+    public static final String NAME = "mysql";
+
+    private final BookDAO bookDAO = new BookDAO();
+    private final MemberDAO memberDAO = new MemberDAO();
+    private final TransactionDAO transactionDAO = new TransactionDAO();
+
+    @Override
+    public String getName() { return NAME; }
+
+    @Override
+    public BookRepository books() { return bookDAO; }
+
+    @Override
+    public MemberRepository members() { return memberDAO; }
+
+    @Override
+    public TransactionRepository transactions() { return transactionDAO; }
+
+    @Override
+    public String getPerformanceReport() {
+        try {
+            ConnectionPool pool = DatabaseConnection.getPool();
+            return pool.getQueryMetrics().report() +
+                    String.format("%nConnection pool: active=%d idle=%d max=%d%n",
+                            pool.getActiveCount(), pool.getIdleCount(), pool.getMaxSize()) +
+                    String.format("Statement cache: hits=%d misses=%d evictions=%d%n",
+                            pool.getStatementCacheHits(), pool.getStatementCacheMisses(),
+                            pool.getStatementCacheEvictions());
+        } catch (ClassNotFoundException e) {
+            return "MySQL JDBC Driver not found!\n";
+        }
+    }
+
+    @Override
+    public <T> T runInTransaction(boolean consistentSnapshot, Supplier<T> work) {
+        if (DatabaseConnection.hasBoundConnection()) {
+            return work.get();
+        }
+
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null) {
+            // The DAOs report their own connection errors, same as outside a unit of work
+            return work.get();
+        }
+
+        boolean committed = false;
+        try {
+            conn.setAutoCommit(false);
+            if (consistentSnapshot) {
+                conn.setReadOnly(true);
+                conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            }
+
+            DatabaseConnection.bindConnection(conn);
+            T result = work.get();
+            conn.commit();
+            committed = true;
+            return result;
+
+        } catch (SQLException e) {
+            System.out.println("Error in unit of work: " + e.getMessage());
+            throw new DataAccessException("Unit of work failed", e);
+        } finally {
+            if (!committed) {
+                try {
+                    conn.rollback();
+                } catch (SQLException e) {
+                    System.err.println("Error rolling back unit of work: " + e.getMessage());
+                }
+            }
+            // After the commit or rollback, so after-transaction actions see the outcome
+            DatabaseConnection.unbindConnection(committed);
+            DatabaseConnection.closeConnection(conn);
+        }
+    }
+}
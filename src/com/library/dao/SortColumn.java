@@ -0,0 +1,27 @@
+package com.library.dao;
+
+import java.util.Comparator;
+
+// A column a table view can be sorted and keyset-paged by, with ties ordered by id
+public interface SortColumn<T> {
+    // Plain column to order and seek by
+    String sqlExpression();
+
+    // Whether the column can be NULL, which needs its own branch in a seek
+    boolean nullable();
+
+    // The value sqlExpression has for this row, null where it is NULL
+    Comparable<?> keyOf(T row);
+
+    int idOf(T row);
+
+    // The same ascending order as the SQL, ties broken by id
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    default Comparator<T> order() {
+        Comparator<Comparable> byKey = Comparator.nullsFirst(Comparator.naturalOrder());
+        return (a, b) -> {
+            int compared = byKey.compare(keyOf(a), keyOf(b));
+            return compared != 0 ? compared : Integer.compare(idOf(a), idOf(b));
+        };
+    }
+}
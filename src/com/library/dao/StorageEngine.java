@@ -0,0 +1,35 @@
+package com.library.dao;
+
+import com.library.dao.memory.InMemoryStorageEngine;
+
+import java.util.function.Supplier;
+
+// A storage backend: the set of repositories the service layer works against
+public interface StorageEngine {
+    // -Dlibrary.storage=memory selects the in-memory engine, anything else uses MySQL
+    String STORAGE_PROPERTY = "library.storage";
+
+    String getName();
+
+    BookRepository books();
+
+    MemberRepository members();
+
+    TransactionRepository transactions();
+
+    // Run work so that every repository call it makes shares one connection and
+    // transaction. With consistentSnapshot the work is read-only and sees a single
+    // REPEATABLE READ snapshot. Calls nested inside another unit of work join it.
+    <T> T runInTransaction(boolean consistentSnapshot, Supplier<T> work);
+
+    // Human-readable performance figures for the Reports tab
+    String getPerformanceReport();
+
+    static StorageEngine fromSystemProperties() {
+        String name = System.getProperty(STORAGE_PROPERTY, MySqlStorageEngine.NAME);
+        if (InMemoryStorageEngine.NAME.equalsIgnoreCase(name)) {
+            return new InMemoryStorageEngine();
+        }
+        return new MySqlStorageEngine();
+    }
+}
@@ -0,0 +1,47 @@
+package com.library.dao;
+
+import com.library.models.Transaction;
+
+import java.util.function.Function;
+
+// Transaction columns the transactions table can be sorted by, over TransactionDAO's view
+public enum TransactionColumn implements SortColumn<Transaction> {
+    ID("t.transaction_id", false, Transaction::getTransactionId),
+    BOOK("b.title", true, Transaction::getBookTitle),
+    MEMBER("m.name", true, Transaction::getMemberName),
+    ISSUE_DATE("t.issue_date", true, Transaction::getIssueDate),
+    DUE_DATE("t.due_date", true, Transaction::getDueDate),
+    RETURN_DATE("t.return_date", true, Transaction::getReturnDate),
+    FINE("t.fine_amount", false, Transaction::getFineAmount),
+    STATUS("t.status", true, Transaction::getStatus);
+
+    private final String sqlExpression;
+    private final boolean nullable;
+    private final Function<Transaction, Comparable<?>> key;
+
+    TransactionColumn(String sqlExpression, boolean nullable, Function<Transaction, Comparable<?>> key) {
+        this.sqlExpression = sqlExpression;
+        this.nullable = nullable;
+        this.key = key;
+    }
+
+    @Override
+    public String sqlExpression() {
+        return sqlExpression;
+    }
+
+    @Override
+    public boolean nullable() {
+        return nullable;
+    }
+
+    @Override
+    public Comparable<?> keyOf(Transaction transaction) {
+        return key.apply(transaction);
+    }
+
+    @Override
+    public int idOf(Transaction transaction) {
+        return transaction.getTransactionId();
+    }
+}
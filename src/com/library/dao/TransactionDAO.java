@@ -1,78 +1,371 @@
 package com.library.dao;
 
 import com.library.db.DatabaseConnection;
+import com.library.db.QueryCanceller;
+import com.library.fines.FineSchedule;
+import com.library.models.IssueOutcome;
+import com.library.models.ReturnOutcome;
 import com.library.models.Transaction;
 import java.sql.*;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+public class TransactionDAO implements TransactionRepository {
+    // Rows per batched UPDATE and per commit when fines are written
+    private static final int FINE_BATCH_SIZE = 1000;
+
+    // Returned transactions old enough to be archived are moved here, out of the way of
+    // the queries on open loans and recent history; same columns as transactions
+    private static final String ARCHIVE_TABLE = "transactions_archive";
+    // Set by enableArchive at startup; until then the archive table is never touched
+    private volatile boolean archiveEnabled;
+
+    // Transactions with the book title and member name they are shown with, read in
+    // the same query. Outer joins, so a loan is listed even if its book or member is gone.
+    private static final String VIEW = view("transactions");
+    // The same over the archive, only read when asked for and enabled
+    private static final String ARCHIVE_VIEW = view(ARCHIVE_TABLE);
+    private static final String SEARCH = " WHERE b.title LIKE ? OR m.name LIKE ? OR t.status LIKE ?";
+
+    private static String view(String table) {
+        return "SELECT t.*, b.title AS book_title, m.name AS member_name " +
+                "FROM " + table + " t " +
+                "LEFT JOIN books b ON b.book_id = t.book_id " +
+                "LEFT JOIN members m ON m.member_id = t.member_id";
+    }
 
-public class TransactionDAO {
-
-    // Issue a book
-    public boolean issueBook(int bookId, int memberId, int dueDays) {
-        String sql = "CALL IssueBook(?, ?, CURDATE(), ?)";
-
+    // Turn the archive on if its table exists (sql/migrations/002_transactions_archive.sql)
+    public boolean enableArchive() {
         Connection conn = null;
-        CallableStatement cstmt = null;
         ResultSet rs = null;
 
         try {
             conn = DatabaseConnection.getConnection();
             if (conn == null) return false;
 
-            cstmt = conn.prepareCall(sql);
+            rs = conn.getMetaData().getTables(conn.getCatalog(), null, ARCHIVE_TABLE, new String[] {"TABLE"});
+            archiveEnabled = rs.next();
+            return archiveEnabled;
+
+        } catch (SQLException e) {
+            System.out.println("Error looking for the transaction archive: " + e.getMessage());
+            return false;
+        } finally {
+            closeResources(rs, null, conn);
+        }
+    }
+
+    // Issue several books to one member with one prepared CALL on one connection, in one
+    // transaction. allOrNothing undoes the whole batch at the first refusal and skips the
+    // rest; otherwise each book is issued or refused on its own, with a savepoint so a
+    // failed call leaves nothing behind. Returns one outcome per book id, in order.
+    public List<IssueOutcome> issueBooks(int memberId, List<Integer> bookIds, int dueDays, boolean allOrNothing) {
+        if (bookIds.isEmpty()) return new ArrayList<>();
+
+        String sql = "CALL IssueBook(?, ?, CURDATE(), ?)";
+
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null) return refuseAll(bookIds, "No database connection");
+
+        try {
+            return DatabaseConnection.inTransaction(conn, () -> {
+                List<IssueOutcome> outcomes = new ArrayList<>(bookIds.size());
+                Savepoint batchStart = allOrNothing ? conn.setSavepoint() : null;
+                boolean failed = false;
+
+                try (CallableStatement cstmt = conn.prepareCall(sql)) {
+                    for (int bookId : bookIds) {
+                        if (failed) {
+                            outcomes.add(new IssueOutcome(bookId, IssueOutcome.Status.SKIPPED, 0, null));
+                            continue;
+                        }
+
+                        Savepoint item = allOrNothing ? null : conn.setSavepoint();
+                        String refusal = callIssue(cstmt, bookId, memberId, dueDays);
+                        if (refusal == null) {
+                            outcomes.add(new IssueOutcome(bookId, IssueOutcome.Status.ISSUED, 0, null));
+                            if (item != null) conn.releaseSavepoint(item);
+                            continue;
+                        }
+
+                        outcomes.add(new IssueOutcome(bookId, IssueOutcome.Status.REFUSED, 0, refusal));
+                        if (allOrNothing) {
+                            failed = true;
+                        } else {
+                            conn.rollback(item);
+                        }
+                    }
+                }
+
+                if (failed) {
+                    conn.rollback(batchStart);
+                    for (int i = 0; i < outcomes.size(); i++) {
+                        if (outcomes.get(i).isIssued()) {
+                            outcomes.set(i, outcomes.get(i).withStatus(IssueOutcome.Status.ROLLED_BACK,
+                                    "Another book of the batch was refused"));
+                        }
+                    }
+                } else {
+                    setIssuedTransactionIds(conn, memberId, outcomes);
+                }
+                return outcomes;
+            });
+
+        } catch (SQLException e) {
+            System.out.println("Error issuing books: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
+            return refuseAll(bookIds, e.getMessage());
+        } finally {
+            DatabaseConnection.closeConnection(conn);
+        }
+    }
+
+    // Null if IssueBook issued the book, otherwise its reason for refusing
+    private String callIssue(CallableStatement cstmt, int bookId, int memberId, int dueDays) {
+        try {
             cstmt.setInt(1, bookId);
             cstmt.setInt(2, memberId);
             cstmt.setInt(3, dueDays);
-
-            rs = cstmt.executeQuery();
-            if (rs.next()) {
+            try (ResultSet rs = cstmt.executeQuery()) {
+                if (!rs.next()) return "No result from IssueBook";
                 String result = rs.getString("result");
-                return result.contains("successfully");
+                return result != null && result.contains("successfully") ? null : result;
+            }
+        } catch (SQLException e) {
+            System.out.println("Error issuing book " + bookId + ": " + e.getMessage());
+            return e.getMessage();
+        }
+    }
+
+    // IssueBook does not return the new ids, so read the member's open loans once and
+    // hand each issued book the newest loan of it not yet claimed (a book issued twice
+    // in the batch gets both of its loans)
+    private void setIssuedTransactionIds(Connection conn, int memberId, List<IssueOutcome> outcomes)
+            throws SQLException {
+        String sql = "SELECT transaction_id, book_id FROM transactions " +
+                "WHERE member_id = ? AND status = 'Issued' ORDER BY transaction_id DESC";
+
+        Map<Integer, Deque<Integer>> newestFirst = new HashMap<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, memberId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    newestFirst.computeIfAbsent(rs.getInt("book_id"), k -> new ArrayDeque<>())
+                            .add(rs.getInt("transaction_id"));
+                }
             }
+        }
+
+        for (int i = outcomes.size() - 1; i >= 0; i--) {
+            IssueOutcome outcome = outcomes.get(i);
+            Deque<Integer> loans = newestFirst.get(outcome.getBookId());
+            if (outcome.isIssued() && loans != null && !loans.isEmpty()) {
+                outcomes.set(i, outcome.withTransactionId(loans.poll()));
+            }
+        }
+    }
+
+    private static List<IssueOutcome> refuseAll(List<Integer> bookIds, String reason) {
+        List<IssueOutcome> outcomes = new ArrayList<>(bookIds.size());
+        for (int bookId : bookIds) {
+            outcomes.add(new IssueOutcome(bookId, IssueOutcome.Status.REFUSED, 0, reason));
+        }
+        return outcomes;
+    }
+
+    // Return many loans in one transaction with JDBC batching. A CALL that returns a result
+    // set cannot be batched, so ReturnBook's effects are applied with two batched UPDATEs
+    // instead: the loans are read and locked in one query, together with the book category
+    // and member tier their fine policy depends on, fines are worked out for the whole
+    // batch, and each loan's update count says whether it was returned. A bad id
+    // fails only itself. Books are updated in id order, so batches returned in parallel
+    // take their row locks in the same order and cannot deadlock. One outcome per id.
+    public List<ReturnOutcome> returnBooks(List<Integer> transactionIds, FineSchedule fines) {
+        if (transactionIds.isEmpty()) return new ArrayList<>();
+
+        String placeholders = String.join(", ", Collections.nCopies(transactionIds.size(), "?"));
+        String selectSql = "SELECT t.transaction_id, t.book_id, t.member_id, t.due_date, t.status, " +
+                "b.category, m.max_books_allowed FROM transactions t " +
+                "LEFT JOIN books b ON b.book_id = t.book_id " +
+                "LEFT JOIN members m ON m.member_id = t.member_id " +
+                "WHERE t.transaction_id IN (" + placeholders + ") FOR UPDATE OF t";
+        String returnSql = "UPDATE transactions SET return_date = ?, fine_amount = ?, status = 'Returned' " +
+                "WHERE transaction_id = ? AND status IN ('Issued', 'Overdue')";
+        String copiesSql = "UPDATE books SET available_copies = available_copies + ? WHERE book_id = ?";
+
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null) return failAll(transactionIds, "No database connection");
+
+        try {
+            return DatabaseConnection.inTransaction(conn, () -> {
+                List<ReturnOutcome> outcomes = new ArrayList<>(transactionIds.size());
+                Map<Integer, Transaction> loans = new HashMap<>();
+                Map<Integer, Integer> policies = new HashMap<>();
+                try (PreparedStatement pstmt = conn.prepareStatement(selectSql)) {
+                    for (int i = 0; i < transactionIds.size(); i++) {
+                        pstmt.setInt(i + 1, transactionIds.get(i));
+                    }
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            Transaction loan = new Transaction();
+                            loan.setTransactionId(rs.getInt("transaction_id"));
+                            loan.setBookId(rs.getInt("book_id"));
+                            loan.setMemberId(rs.getInt("member_id"));
+                            loan.setDueDate(rs.getDate("due_date"));
+                            loan.setStatus(rs.getString("status"));
+                            loans.put(loan.getTransactionId(), loan);
+                            policies.put(loan.getTransactionId(),
+                                    fines.policyFor(rs.getString("category"), rs.getInt("max_books_allowed")));
+                        }
+                    }
+                }
+
+                // Fines for the whole batch, on the same date the rows are stamped with
+                LocalDate today = LocalDate.now();
+                Date returnDate = Date.valueOf(today);
+                List<Integer> batched = new ArrayList<>();
+                int[] counts = new int[0];
+                try (PreparedStatement pstmt = conn.prepareStatement(returnSql)) {
+                    for (int transactionId : transactionIds) {
+                        Transaction loan = loans.get(transactionId);
+                        if (loan == null) {
+                            outcomes.add(ReturnOutcome.failed(transactionId, "Transaction not found"));
+                            continue;
+                        }
+                        if (!"Issued".equals(loan.getStatus()) && !"Overdue".equals(loan.getStatus())) {
+                            outcomes.add(ReturnOutcome.failed(transactionId, "Transaction is " + loan.getStatus()));
+                            continue;
+                        }
+
+                        long overdueDays = ChronoUnit.DAYS.between(loan.getDueDate().toLocalDate(), today);
+                        double fine = fines.fine(policies.get(transactionId), overdueDays);
+                        boolean overdue = "Overdue".equals(loan.getStatus());
+                        outcomes.add(new ReturnOutcome(transactionId, loan.getBookId(), loan.getMemberId(),
+                                true, fine, overdue, null));
+
+                        pstmt.setDate(1, returnDate);
+                        pstmt.setDouble(2, fine);
+                        pstmt.setInt(3, transactionId);
+                        pstmt.addBatch();
+                        batched.add(outcomes.size() - 1);
+                    }
+
+                    if (!batched.isEmpty()) {
+                        try {
+                            counts = pstmt.executeBatch();
+                        } catch (BatchUpdateException e) {
+                            // The driver goes on past a failed row; its count says which ones
+                            System.out.println("Error returning some books: " + e.getMessage());
+                            counts = e.getUpdateCounts();
+                        }
+                    }
+                }
+
+                Map<Integer, Integer> copies = new TreeMap<>();
+                for (int i = 0; i < batched.size(); i++) {
+                    int index = batched.get(i);
+                    ReturnOutcome outcome = outcomes.get(index);
+                    if (i < counts.length && (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO)) {
+                        copies.merge(outcome.getBookId(), 1, Integer::sum);
+                    } else {
+                        outcomes.set(index, ReturnOutcome.failed(outcome.getTransactionId(), "Not updated"));
+                    }
+                }
+
+                if (!copies.isEmpty()) {
+                    try (PreparedStatement pstmt = conn.prepareStatement(copiesSql)) {
+                        for (Map.Entry<Integer, Integer> entry : copies.entrySet()) {
+                            pstmt.setInt(1, entry.getValue());
+                            pstmt.setInt(2, entry.getKey());
+                            pstmt.addBatch();
+                        }
+                        pstmt.executeBatch();
+                    }
+                }
+                return outcomes;
+            });
 
         } catch (SQLException e) {
-            System.out.println("Error issuing book: " + e.getMessage());
+            System.out.println("Error returning books: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
+            return failAll(transactionIds, e.getMessage());
         } finally {
-            closeResources(rs, cstmt, conn);
+            DatabaseConnection.closeConnection(conn);
         }
-        return false;
     }
 
-    // Return a book
-    public boolean returnBook(int transactionId, double finePerDay) {
-        String sql = "CALL ReturnBook(?, CURDATE(), ?)";
+    private static List<ReturnOutcome> failAll(List<Integer> transactionIds, String reason) {
+        List<ReturnOutcome> outcomes = new ArrayList<>(transactionIds.size());
+        for (int transactionId : transactionIds) {
+            outcomes.add(ReturnOutcome.failed(transactionId, reason));
+        }
+        return outcomes;
+    }
 
+    // Stream every transaction through a forward-only, read-only cursor. With useCursorFetch
+    // the driver holds only fetchSize rows at a time, whatever the table size. The hot
+    // table comes first and then the archive if enabled, each in id order, so an export is complete.
+    public boolean forEachTransaction(int fetchSize, Consumer<Transaction> action) {
         Connection conn = null;
-        CallableStatement cstmt = null;
+        PreparedStatement pstmt = null;
         ResultSet rs = null;
 
         try {
             conn = DatabaseConnection.getConnection();
             if (conn == null) return false;
 
-            cstmt = conn.prepareCall(sql);
-            cstmt.setInt(1, transactionId);
-            cstmt.setDouble(2, finePerDay);
-
-            rs = cstmt.executeQuery();
-            if (rs.next()) {
-                String result = rs.getString("result");
-                return result.contains("successfully");
+            String[] tables = archiveEnabled
+                    ? new String[] {"transactions", ARCHIVE_TABLE}
+                    : new String[] {"transactions"};
+            for (String table : tables) {
+                String sql = "SELECT * FROM " + table + " ORDER BY transaction_id";
+                pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                pstmt.setFetchSize(fetchSize);
+                rs = pstmt.executeQuery();
+
+                while (rs.next()) {
+                    Transaction transaction = new Transaction();
+                    transaction.setTransactionId(rs.getInt("transaction_id"));
+                    transaction.setBookId(rs.getInt("book_id"));
+                    transaction.setMemberId(rs.getInt("member_id"));
+                    transaction.setIssueDate(rs.getDate("issue_date"));
+                    transaction.setDueDate(rs.getDate("due_date"));
+                    transaction.setReturnDate(rs.getDate("return_date"));
+                    transaction.setFineAmount(rs.getDouble("fine_amount"));
+                    transaction.setStatus(rs.getString("status"));
+                    transaction.setNotes(rs.getString("notes"));
+                    action.accept(transaction);
+                }
+                closeResources(rs, pstmt, null);
+                rs = null;
+                pstmt = null;
             }
+            return true;
 
         } catch (SQLException e) {
-            System.out.println("Error returning book: " + e.getMessage());
+            System.out.println("Error reading transactions: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
+            return false;
         } finally {
-            closeResources(rs, cstmt, conn);
+            closeResources(rs, pstmt, conn);
         }
-        return false;
     }
 
-    // Get all transactions
-    public List<Transaction> getAllTransactions() {
+    // Get all transactions, from the archive too only if asked
+    public List<Transaction> getAllTransactions(boolean includeArchive) {
         List<Transaction> transactions = new ArrayList<>();
-        String sql = "SELECT * FROM transactions ORDER BY issue_date DESC";
+        String sql = includeArchive && archiveEnabled
+                ? "(" + VIEW + ") UNION ALL (" + ARCHIVE_VIEW + ") ORDER BY issue_date DESC"
+                : VIEW + " ORDER BY t.issue_date DESC";
 
         Connection conn = null;
         Statement stmt = null;
@@ -86,35 +379,117 @@ public class TransactionDAO {
             rs = stmt.executeQuery(sql);
 
             while (rs.next()) {
-                Transaction transaction = new Transaction();
-                transaction.setTransactionId(rs.getInt("transaction_id"));
-                transaction.setBookId(rs.getInt("book_id"));
-                transaction.setMemberId(rs.getInt("member_id"));
-                transaction.setIssueDate(rs.getDate("issue_date"));
-                transaction.setDueDate(rs.getDate("due_date"));
-                transaction.setReturnDate(rs.getDate("return_date"));
-                transaction.setFineAmount(rs.getDouble("fine_amount"));
-                transaction.setStatus(rs.getString("status"));
-                transaction.setNotes(rs.getString("notes"));
+                Transaction transaction = mapTransaction(rs);
                 transactions.add(transaction);
             }
 
         } catch (SQLException e) {
             System.out.println("Error getting transactions: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
         } finally {
             closeResources(rs, stmt, conn);
         }
         return transactions;
     }
 
-    // Get overdue books
+    // One page of transactions in any column order, for the virtualized transactions table
+    public List<Transaction> getTransactionsPage(TransactionColumn sortBy, boolean descending, Transaction after,
+                                                 int offset, int pageSize) {
+        List<Transaction> transactions = new ArrayList<>();
+        String sql = KeysetQuery.sql(VIEW, "t.transaction_id", sortBy, descending, after, offset);
+
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            if (conn == null) return null;
+
+            pstmt = conn.prepareStatement(sql);
+            KeysetQuery.bind(pstmt, sortBy, after, offset, pageSize);
+            rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                Transaction transaction = mapTransaction(rs);
+                transactions.add(transaction);
+            }
+
+        } catch (SQLException e) {
+            System.out.println("Error getting transactions page: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
+            return null;
+        } finally {
+            closeResources(rs, pstmt, conn);
+        }
+        return transactions;
+    }
+
+    public int getTransactionCount() {
+        String sql = "SELECT COUNT(*) as count FROM transactions";
+
+        Connection conn = null;
+        Statement stmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            if (conn == null) return -1;
+
+            stmt = conn.createStatement();
+            rs = stmt.executeQuery(sql);
+
+            if (rs.next()) {
+                return rs.getInt("count");
+            }
+
+        } catch (SQLException e) {
+            System.out.println("Error getting transactions count: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
+        } finally {
+            closeResources(rs, stmt, conn);
+        }
+        return -1;
+    }
+
+    // Get transaction by ID, wherever it is kept; both lookups are by primary key
+    public Transaction getTransactionById(int transactionId) {
+        boolean withArchive = archiveEnabled;
+        String sql = withArchive
+                ? "(" + VIEW + " WHERE t.transaction_id = ?) UNION ALL (" +
+                        ARCHIVE_VIEW + " WHERE t.transaction_id = ?) LIMIT 1"
+                : VIEW + " WHERE t.transaction_id = ?";
+
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            if (conn == null) return null;
+
+            pstmt = conn.prepareStatement(sql);
+            pstmt.setInt(1, transactionId);
+            if (withArchive) pstmt.setInt(2, transactionId);
+            rs = pstmt.executeQuery();
+
+            if (rs.next()) {
+                return mapTransaction(rs);
+            }
+
+        } catch (SQLException e) {
+            System.out.println("Error getting transaction: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
+        } finally {
+            closeResources(rs, pstmt, conn);
+        }
+        return null;
+    }
+
+    // Get overdue books: the loans OverdueEngine has marked, found through the status index
     public List<Transaction> getOverdueBooks() {
         List<Transaction> transactions = new ArrayList<>();
-        String sql = "SELECT t.*, b.title, m.name " +
-                "FROM transactions t " +
-                "JOIN books b ON t.book_id = b.book_id " +
-                "JOIN members m ON t.member_id = m.member_id " +
-                "WHERE t.due_date < CURDATE() AND t.status = 'Issued'";
+        String sql = VIEW + " WHERE t.status = 'Overdue'";
 
         Connection conn = null;
         Statement stmt = null;
@@ -128,28 +503,264 @@ public class TransactionDAO {
             rs = stmt.executeQuery(sql);
 
             while (rs.next()) {
-                Transaction transaction = new Transaction();
-                transaction.setTransactionId(rs.getInt("transaction_id"));
-                transaction.setBookId(rs.getInt("book_id"));
-                transaction.setMemberId(rs.getInt("member_id"));
-                transaction.setIssueDate(rs.getDate("issue_date"));
-                transaction.setDueDate(rs.getDate("due_date"));
-                transaction.setStatus(rs.getString("status"));
+                Transaction transaction = mapTransaction(rs);
                 transactions.add(transaction);
             }
 
         } catch (SQLException e) {
             System.out.println("Error getting overdue books: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
         } finally {
             closeResources(rs, stmt, conn);
         }
         return transactions;
     }
 
-    // Get current issued books for a member
-    public List<Transaction> getCurrentIssues(int memberId) {
-        List<Transaction> transactions = new ArrayList<>();
-        String sql = "SELECT * FROM transactions " +
+    // Count overdue loans with the same condition as getOverdueBooks
+    public int countOverdue() {
+        String sql = "SELECT COUNT(*) as count FROM transactions WHERE status = 'Overdue'";
+
+        Connection conn = null;
+        Statement stmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            if (conn == null) return -1;
+
+            stmt = conn.createStatement();
+            QueryCanceller.register(stmt);
+            rs = stmt.executeQuery(sql);
+
+            if (rs.next()) {
+                return rs.getInt("count");
+            }
+
+        } catch (SQLException e) {
+            System.out.println("Error counting overdue books: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
+        } finally {
+            QueryCanceller.unregister(stmt);
+            closeResources(rs, stmt, conn);
+        }
+        return -1;
+    }
+
+    // Id and due date of every loan still marked Issued, for OverdueEngine to schedule
+    public List<Transaction> getIssuedLoans() {
+        List<Transaction> loans = new ArrayList<>();
+        String sql = "SELECT transaction_id, due_date FROM transactions WHERE status = 'Issued'";
+
+        Connection conn = null;
+        Statement stmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            if (conn == null) return null;
+
+            stmt = conn.createStatement();
+            rs = stmt.executeQuery(sql);
+
+            while (rs.next()) {
+                Transaction loan = new Transaction();
+                loan.setTransactionId(rs.getInt("transaction_id"));
+                loan.setDueDate(rs.getDate("due_date"));
+                loan.setStatus("Issued");
+                loans.add(loan);
+            }
+            return loans;
+
+        } catch (SQLException e) {
+            System.out.println("Error getting issued loans: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
+            return null;
+        } finally {
+            closeResources(rs, stmt, conn);
+        }
+    }
+
+    // Mark loans Overdue with one batched UPDATE in one transaction. Loans returned in the
+    // meantime are no longer Issued and are left alone. Returns the number marked, or -1
+    // if the batch failed and was rolled back.
+    public int markOverdue(List<Integer> transactionIds) {
+        if (transactionIds.isEmpty()) return 0;
+
+        String sql = "UPDATE transactions SET status = 'Overdue' WHERE transaction_id = ? AND status = 'Issued'";
+
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null) return -1;
+
+        try {
+            return DatabaseConnection.inTransaction(conn, () -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    for (int transactionId : transactionIds) {
+                        pstmt.setInt(1, transactionId);
+                        pstmt.addBatch();
+                    }
+                    int marked = 0;
+                    for (int count : pstmt.executeBatch()) {
+                        if (count > 0) marked += count;
+                    }
+                    return marked;
+                }
+            });
+
+        } catch (SQLException e) {
+            System.out.println("Error marking overdue loans: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
+            return -1;
+        } finally {
+            DatabaseConnection.closeConnection(conn);
+        }
+    }
+
+    // Stream the loans marked Overdue, with the book category and member tier their fine
+    // policy depends on, through a forward-only cursor
+    public boolean forEachOverdueLoan(OverdueLoanVisitor visitor) {
+        String sql = "SELECT t.transaction_id, t.due_date, b.category, m.max_books_allowed FROM transactions t " +
+                "LEFT JOIN books b ON b.book_id = t.book_id " +
+                "LEFT JOIN members m ON m.member_id = t.member_id " +
+                "WHERE t.status = 'Overdue'";
+
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            if (conn == null) return false;
+
+            pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstmt.setFetchSize(FINE_BATCH_SIZE);
+            rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                visitor.visit(rs.getInt("transaction_id"), rs.getDate("due_date"),
+                        rs.getString("category"), rs.getInt("max_books_allowed"));
+            }
+            return true;
+
+        } catch (SQLException e) {
+            System.out.println("Error reading overdue loans: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
+            return false;
+        } finally {
+            closeResources(rs, pstmt, conn);
+        }
+    }
+
+    // Write accrued fines with batched UPDATEs, committing every FINE_BATCH_SIZE rows so a
+    // nightly run over many loans does not hold their locks until the end. Inside a unit of
+    // work the caller's transaction is joined instead. Loans returned in the meantime keep
+    // the fine they were returned with.
+    public int updateFines(int[] transactionIds, double[] fines, int count) {
+        if (count == 0) return 0;
+
+        String sql = "UPDATE transactions SET fine_amount = ? WHERE transaction_id = ? AND status = 'Overdue'";
+
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null) return -1;
+
+        int updated = 0;
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int from = 0; from < count; from += FINE_BATCH_SIZE) {
+                int chunkFrom = from;
+                int chunkTo = Math.min(count, from + FINE_BATCH_SIZE);
+                updated += DatabaseConnection.inTransaction(conn, () -> {
+                    for (int i = chunkFrom; i < chunkTo; i++) {
+                        pstmt.setDouble(1, fines[i]);
+                        pstmt.setInt(2, transactionIds[i]);
+                        pstmt.addBatch();
+                    }
+                    int rows = 0;
+                    for (int rowCount : pstmt.executeBatch()) {
+                        if (rowCount > 0) rows += rowCount;
+                    }
+                    return rows;
+                });
+            }
+            return updated;
+
+        } catch (SQLException e) {
+            System.out.println("Error updating fines: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
+            // The failed chunk is rolled back and earlier ones are committed; the next run writes the rest
+            return -1;
+        } finally {
+            DatabaseConnection.closeConnection(conn);
+        }
+    }
+
+    // Move one chunk of transactions returned before cutoff, lowest ids first, into the
+    // archive in one transaction. The chunk is locked, copied and deleted by the same
+    // predicate up to its last id, so every transaction is in exactly one of the two
+    // tables; loans returned from now on are stamped after cutoff and never join a chunk.
+    // Returns the number moved, 0 when nothing is left to move, or -1 if the chunk was
+    // rolled back.
+    public int archiveReturnedBefore(Date cutoff, int limit) {
+        String lockSql = "SELECT transaction_id FROM transactions " +
+                "WHERE status = 'Returned' AND return_date < ? ORDER BY transaction_id LIMIT ? FOR UPDATE";
+        String copySql = "INSERT INTO " + ARCHIVE_TABLE + " SELECT * FROM transactions " +
+                "WHERE status = 'Returned' AND return_date < ? AND transaction_id <= ?";
+        String deleteSql = "DELETE FROM transactions " +
+                "WHERE status = 'Returned' AND return_date < ? AND transaction_id <= ?";
+
+        if (!archiveEnabled) {
+            System.out.println("Error archiving transactions: the archive is not enabled");
+            return -1;
+        }
+
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null) return -1;
+
+        try {
+            return DatabaseConnection.inTransaction(conn, () -> {
+                int locked = 0;
+                int lastId = 0;
+                try (PreparedStatement pstmt = conn.prepareStatement(lockSql)) {
+                    pstmt.setDate(1, cutoff);
+                    pstmt.setInt(2, limit);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            locked++;
+                            lastId = rs.getInt("transaction_id");
+                        }
+                    }
+                }
+                if (locked == 0) return 0;
+
+                int copied;
+                try (PreparedStatement pstmt = conn.prepareStatement(copySql)) {
+                    pstmt.setDate(1, cutoff);
+                    pstmt.setInt(2, lastId);
+                    copied = pstmt.executeUpdate();
+                }
+                int deleted;
+                try (PreparedStatement pstmt = conn.prepareStatement(deleteSql)) {
+                    pstmt.setDate(1, cutoff);
+                    pstmt.setInt(2, lastId);
+                    deleted = pstmt.executeUpdate();
+                }
+
+                if (copied != locked || deleted != locked) {
+                    throw new SQLException("locked " + locked + ", copied " + copied + ", deleted " + deleted);
+                }
+                return locked;
+            });
+
+        } catch (SQLException e) {
+            System.out.println("Error archiving transactions: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
+            return -1;
+        } finally {
+            DatabaseConnection.closeConnection(conn);
+        }
+    }
+
+    // Count the loans a member has not returned yet, as IssueBook does before issuing
+    public int countOpenLoans(int memberId) {
+        String sql = "SELECT COUNT(*) as count FROM transactions " +
                 "WHERE member_id = ? AND status IN ('Issued', 'Overdue')";
 
         Connection conn = null;
@@ -158,40 +769,32 @@ public class TransactionDAO {
 
         try {
             conn = DatabaseConnection.getConnection();
-            if (conn == null) return transactions;
+            if (conn == null) return -1;
 
             pstmt = conn.prepareStatement(sql);
             pstmt.setInt(1, memberId);
             rs = pstmt.executeQuery();
 
-            while (rs.next()) {
-                Transaction transaction = new Transaction();
-                transaction.setTransactionId(rs.getInt("transaction_id"));
-                transaction.setBookId(rs.getInt("book_id"));
-                transaction.setMemberId(rs.getInt("member_id"));
-                transaction.setIssueDate(rs.getDate("issue_date"));
-                transaction.setDueDate(rs.getDate("due_date"));
-                transaction.setStatus(rs.getString("status"));
-                transactions.add(transaction);
+            if (rs.next()) {
+                return rs.getInt("count");
             }
 
         } catch (SQLException e) {
-            System.out.println("Error getting current issues: " + e.getMessage());
+            System.out.println("Error counting open loans: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
         } finally {
             closeResources(rs, pstmt, conn);
         }
-        return transactions;
+        return -1;
     }
 
     // Add searchTransactions method to TransactionDAO
-    public List<Transaction> searchTransactions(String searchTerm) {
+    public List<Transaction> searchTransactions(String searchTerm, boolean includeArchive) {
         List<Transaction> transactions = new ArrayList<>();
-        String sql = "SELECT t.*, b.title, m.name " +
-                "FROM transactions t " +
-                "JOIN books b ON t.book_id = b.book_id " +
-                "JOIN members m ON t.member_id = m.member_id " +
-                "WHERE b.title LIKE ? OR m.name LIKE ? OR t.status LIKE ? " +
-                "ORDER BY t.issue_date DESC";
+        boolean withArchive = includeArchive && archiveEnabled;
+        String sql = withArchive
+                ? "(" + VIEW + SEARCH + ") UNION ALL (" + ARCHIVE_VIEW + SEARCH + ") ORDER BY issue_date DESC"
+                : VIEW + SEARCH + " ORDER BY t.issue_date DESC";
 
         Connection conn = null;
         PreparedStatement pstmt = null;
@@ -203,34 +806,47 @@ public class TransactionDAO {
 
             pstmt = conn.prepareStatement(sql);
             String searchPattern = "%" + searchTerm + "%";
-            pstmt.setString(1, searchPattern);
-            pstmt.setString(2, searchPattern);
-            pstmt.setString(3, searchPattern);
+            int parameters = withArchive ? 6 : 3;
+            for (int i = 1; i <= parameters; i++) {
+                pstmt.setString(i, searchPattern);
+            }
 
+            QueryCanceller.register(pstmt);
             rs = pstmt.executeQuery();
 
             while (rs.next()) {
-                Transaction transaction = new Transaction();
-                transaction.setTransactionId(rs.getInt("transaction_id"));
-                transaction.setBookId(rs.getInt("book_id"));
-                transaction.setMemberId(rs.getInt("member_id"));
-                transaction.setIssueDate(rs.getDate("issue_date"));
-                transaction.setDueDate(rs.getDate("due_date"));
-                transaction.setReturnDate(rs.getDate("return_date"));
-                transaction.setFineAmount(rs.getDouble("fine_amount"));
-                transaction.setStatus(rs.getString("status"));
-                transaction.setNotes(rs.getString("notes"));
+                Transaction transaction = mapTransaction(rs);
                 transactions.add(transaction);
             }
 
         } catch (SQLException e) {
-            System.out.println("Error searching transactions: " + e.getMessage());
+            // A search superseded by a newer one is cancelled on purpose
+            if (!QueryCanceller.isCancelled()) System.out.println("Error searching transactions: " + e.getMessage());
+            DatabaseConnection.failUnitOfWork(e);
         } finally {
+            QueryCanceller.unregister(pstmt);
             closeResources(rs, pstmt, conn);
         }
         return transactions;
     }
 
+    // One row of VIEW
+    private Transaction mapTransaction(ResultSet rs) throws SQLException {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(rs.getInt("transaction_id"));
+        transaction.setBookId(rs.getInt("book_id"));
+        transaction.setMemberId(rs.getInt("member_id"));
+        transaction.setIssueDate(rs.getDate("issue_date"));
+        transaction.setDueDate(rs.getDate("due_date"));
+        transaction.setReturnDate(rs.getDate("return_date"));
+        transaction.setFineAmount(rs.getDouble("fine_amount"));
+        transaction.setStatus(rs.getString("status"));
+        transaction.setNotes(rs.getString("notes"));
+        transaction.setBookTitle(rs.getString("book_title"));
+        transaction.setMemberName(rs.getString("member_name"));
+        return transaction;
+    }
+
     // Helper method to close resources
     private void closeResources(ResultSet rs, Statement stmt, Connection conn) {
         try {
@@ -241,4 +857,4 @@ public class TransactionDAO {
             System.err.println("Error closing resources: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
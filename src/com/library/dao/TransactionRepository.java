@@ -0,0 +1,74 @@
+package com.library.dao;
+
+import com.library.fines.FineSchedule;
+import com.library.models.IssueOutcome;
+import com.library.models.ReturnOutcome;
+import com.library.models.Transaction;
+import java.sql.Date;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Storage-independent access to issue/return transactions
+public interface TransactionRepository {
+    // One loan marked Overdue, with what its fine depends on
+    interface OverdueLoanVisitor {
+        void visit(int transactionId, Date dueDate, String category, int maxBooksAllowed);
+    }
+
+    // Issues each book to the member in one transaction; with allOrNothing the first
+    // refusal undoes the books already issued. One outcome per book id, in order.
+    List<IssueOutcome> issueBooks(int memberId, List<Integer> bookIds, int dueDays, boolean allOrNothing);
+
+    // Returns a batch of loans in one transaction, fined by the schedule; an id that cannot
+    // be returned fails on its own without stopping the rest. One outcome per id, in order.
+    List<ReturnOutcome> returnBooks(List<Integer> transactionIds, FineSchedule fines);
+
+    // Lets the methods below read and write the archive, if it exists; false if it does not,
+    // and until this is called they use the transactions table only
+    boolean enableArchive();
+
+    // Newest first; archived transactions are read only with includeArchive
+    List<Transaction> getAllTransactions(boolean includeArchive);
+
+    // Visits every transaction, archived ones too once enabled, without collecting them; false if they could not be read
+    boolean forEachTransaction(int fetchSize, Consumer<Transaction> action);
+
+    // Page of transactions sorted by any column, positioned as BookRepository.getBooksPage;
+    // like getTransactionCount, it does not read the archive. Null if it could not be read.
+    List<Transaction> getTransactionsPage(TransactionColumn sortBy, boolean descending, Transaction after,
+                                          int offset, int pageSize);
+
+    // -1 if the transactions could not be counted
+    int getTransactionCount();
+
+    // Looks in the archive as well, once enabled
+    Transaction getTransactionById(int transactionId);
+
+    // Loans marked Overdue
+    List<Transaction> getOverdueBooks();
+
+    // Number of loans getOverdueBooks would return, without loading them; -1 if it could not be counted
+    int countOverdue();
+
+    // Every loan still marked Issued, with at least its id and due date; null if they could not be read
+    List<Transaction> getIssuedLoans();
+
+    // Marks the loans that are still Issued as Overdue; the number marked, or -1 on failure
+    int markOverdue(List<Integer> transactionIds);
+
+    // Visits every loan marked Overdue without collecting them; false if they could not be read
+    boolean forEachOverdueLoan(OverdueLoanVisitor visitor);
+
+    // Sets the fine of the first count loans that are still Overdue; the number updated, or -1 on failure
+    int updateFines(int[] transactionIds, double[] fines, int count);
+
+    // Issued or overdue loans held by the member; -1 if they could not be counted
+    int countOpenLoans(int memberId);
+
+    // Archived transactions are searched only with includeArchive
+    List<Transaction> searchTransactions(String searchTerm, boolean includeArchive);
+
+    // Moves up to limit transactions returned before cutoff, lowest ids first, into the
+    // archive in one transaction; the number moved, 0 when none are left, or -1 on failure
+    int archiveReturnedBefore(Date cutoff, int limit);
+}
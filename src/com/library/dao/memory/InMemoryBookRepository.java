@@ -0,0 +1,311 @@
+package com.library.dao.memory;
+
+import com.library.dao.BookColumn;
+import com.library.dao.BookRepository;
+import com.library.models.Book;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+public class InMemoryBookRepository implements BookRepository {
+    private static final Comparator<String> TITLE_ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+    private static final Comparator<Book> PAGE_ORDER = Comparator.comparing(Book::getTitle, TITLE_ORDER)
+            .thenComparingInt(Book::getBookId);
+
+    private final InMemoryStore store;
+
+    InMemoryBookRepository(InMemoryStore store) {
+        this.store = store;
+    }
+
+    // Add new book
+    @Override
+    public boolean addBook(Book book) {
+        store.lock.writeLock().lock();
+        try {
+            if (book.getIsbn() != null && store.bookIdsByIsbn.containsKey(book.getIsbn())) {
+                System.out.println("Error adding book: Duplicate ISBN " + book.getIsbn());
+                return false;
+            }
+
+            Book row = new Book(book);
+            row.setBookId(store.nextBookId.getAndIncrement());
+            if (row.getStatus() == null) row.setStatus("Available");
+            row.setCreatedAt(new java.sql.Date(System.currentTimeMillis()));
+
+            store.books.put(row.getBookId(), row);
+            if (row.getIsbn() != null) store.bookIdsByIsbn.put(row.getIsbn(), row.getBookId());
+            book.setBookId(row.getBookId());
+            return true;
+        } finally {
+            store.lock.writeLock().unlock();
+        }
+    }
+
+    // Add many books; all or nothing, like the MySQL multi-row insert
+    @Override
+    public int addBooks(List<Book> books) {
+        store.lock.writeLock().lock();
+        try {
+            Set<String> batchIsbns = new HashSet<>();
+            for (Book book : books) {
+                String isbn = book.getIsbn();
+                if (isbn != null && (store.bookIdsByIsbn.containsKey(isbn) || !batchIsbns.add(isbn))) {
+                    System.out.println("Error adding books: Duplicate ISBN " + isbn);
+                    return -1;
+                }
+            }
+
+            java.sql.Date now = new java.sql.Date(System.currentTimeMillis());
+            for (Book book : books) {
+                Book row = new Book(book);
+                row.setBookId(store.nextBookId.getAndIncrement());
+                if (row.getStatus() == null) row.setStatus("Available");
+                row.setCreatedAt(now);
+
+                store.books.put(row.getBookId(), row);
+                if (row.getIsbn() != null) store.bookIdsByIsbn.put(row.getIsbn(), row.getBookId());
+                book.setBookId(row.getBookId());
+            }
+            return books.size();
+        } finally {
+            store.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Set<String> findExistingIsbns(Collection<String> isbns) {
+        Set<String> existing = new HashSet<>();
+        store.lock.readLock().lock();
+        try {
+            for (String isbn : isbns) {
+                if (store.bookIdsByIsbn.containsKey(isbn)) existing.add(isbn);
+            }
+        } finally {
+            store.lock.readLock().unlock();
+        }
+        return existing;
+    }
+
+    @Override
+    public boolean forEachBook(int fetchSize, Consumer<Book> action) {
+        store.forEachCopy(store.books, Book::new, action);
+        return true;
+    }
+
+    // Get all books
+    @Override
+    public List<Book> getAllBooks() {
+        store.lock.readLock().lock();
+        try {
+            List<Book> books = new ArrayList<>(store.books.size());
+            for (Book book : store.books.values()) {
+                books.add(new Book(book));
+            }
+            books.sort(Comparator.comparing(Book::getTitle, Comparator.nullsFirst(Comparator.naturalOrder())));
+            return books;
+        } finally {
+            store.lock.readLock().unlock();
+        }
+    }
+
+    // Keyset page: the pageSize smallest (title, book_id) keys after the given one
+    @Override
+    public List<Book> getBooksPage(String afterTitle, int afterBookId, int pageSize, int fetchSize) {
+        // Max-heap holding the best pageSize rows, so a page costs O(n log pageSize)
+        PriorityQueue<Book> page = new PriorityQueue<>(pageSize + 1, PAGE_ORDER.reversed());
+
+        store.lock.readLock().lock();
+        try {
+            for (Book book : store.books.values()) {
+                if (afterTitle != null && comparePageKey(book, afterTitle, afterBookId) <= 0) continue;
+                if (page.size() < pageSize) {
+                    page.add(book);
+                } else if (PAGE_ORDER.compare(book, page.peek()) < 0) {
+                    page.poll();
+                    page.add(book);
+                }
+            }
+
+            List<Book> books = new ArrayList<>(page.size());
+            for (Book book : page) {
+                books.add(new Book(book));
+            }
+            books.sort(PAGE_ORDER);
+            return books;
+        } finally {
+            store.lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Book> getBooksPage(BookColumn sortBy, boolean descending, Book after, int offset, int pageSize) {
+        return store.page(store.books.values(), Book::new, sortBy, descending, after, offset, pageSize);
+    }
+
+    private static int comparePageKey(Book book, String title, int bookId) {
+        int byTitle = TITLE_ORDER.compare(book.getTitle(), title);
+        return byTitle != 0 ? byTitle : Integer.compare(book.getBookId(), bookId);
+    }
+
+    // Search books
+    @Override
+    public List<Book> searchBooks(String keyword) {
+        String term = keyword.toLowerCase();
+        List<Book> books = new ArrayList<>();
+
+        store.lock.readLock().lock();
+        try {
+            for (Book book : store.books.values()) {
+                if (InMemoryStore.matches(book.getTitle(), term)
+                        || InMemoryStore.matches(book.getAuthor(), term)
+                        || InMemoryStore.matches(book.getIsbn(), term)
+                        || InMemoryStore.matches(book.getCategory(), term)) {
+                    books.add(new Book(book));
+                }
+            }
+        } finally {
+            store.lock.readLock().unlock();
+        }
+        return books;
+    }
+
+    // Update book
+    @Override
+    public boolean updateBook(Book book) {
+        store.lock.writeLock().lock();
+        try {
+            Book existing = store.books.get(book.getBookId());
+            if (existing == null) return false;
+
+            Integer isbnOwner = book.getIsbn() == null ? null : store.bookIdsByIsbn.get(book.getIsbn());
+            if (isbnOwner != null && isbnOwner != book.getBookId()) {
+                System.out.println("Error updating book: Duplicate ISBN " + book.getIsbn());
+                return false;
+            }
+
+            Book row = new Book(book);
+            row.setCreatedAt(existing.getCreatedAt());
+            if (existing.getIsbn() != null) store.bookIdsByIsbn.remove(existing.getIsbn());
+            if (row.getIsbn() != null) store.bookIdsByIsbn.put(row.getIsbn(), row.getBookId());
+            store.books.put(row.getBookId(), row);
+            return true;
+        } finally {
+            store.lock.writeLock().unlock();
+        }
+    }
+
+    // Delete book
+    @Override
+    public boolean deleteBook(int bookId) {
+        store.lock.writeLock().lock();
+        try {
+            if (store.countOpenLoansForBook(bookId) > 0) {
+                System.out.println("Cannot delete book: It is currently issued to a member");
+                return false;
+            }
+
+            Book removed = store.books.remove(bookId);
+            if (removed == null) return false;
+            if (removed.getIsbn() != null) store.bookIdsByIsbn.remove(removed.getIsbn());
+            return true;
+        } finally {
+            store.lock.writeLock().unlock();
+        }
+    }
+
+    // Get total books count
+    @Override
+    public int getTotalBooks() {
+        store.lock.readLock().lock();
+        try {
+            return store.books.size();
+        } finally {
+            store.lock.readLock().unlock();
+        }
+    }
+
+    // Get available books count
+    @Override
+    public int getAvailableBooksCount() {
+        store.lock.readLock().lock();
+        try {
+            int count = 0;
+            for (Book book : store.books.values()) {
+                count += book.getAvailableCopies();
+            }
+            return count;
+        } finally {
+            store.lock.readLock().unlock();
+        }
+    }
+
+    // Get book by ID
+    @Override
+    public Book getBookById(int bookId) {
+        store.lock.readLock().lock();
+        try {
+            Book book = store.books.get(bookId);
+            return book == null ? null : new Book(book);
+        } finally {
+            store.lock.readLock().unlock();
+        }
+    }
+
+    // Get book by ISBN
+    @Override
+    public Book getBookByISBN(String isbn) {
+        store.lock.readLock().lock();
+        try {
+            Integer bookId = store.bookIdsByIsbn.get(isbn);
+            return bookId == null ? null : new Book(store.books.get(bookId));
+        } finally {
+            store.lock.readLock().unlock();
+        }
+    }
+
+    // Update book status
+    @Override
+    public boolean updateBookStatus(int bookId, String status) {
+        store.lock.writeLock().lock();
+        try {
+            Book book = store.books.get(bookId);
+            if (book == null) return false;
+            book.setStatus(status);
+            return true;
+        } finally {
+            store.lock.writeLock().unlock();
+        }
+    }
+
+    // Update available copies (when book is issued or returned)
+    @Override
+    public boolean updateAvailableCopies(int bookId, int change) {
+        store.lock.writeLock().lock();
+        try {
+            Book book = store.books.get(bookId);
+            if (book == null) return false;
+            book.setAvailableCopies(book.getAvailableCopies() + change);
+            return true;
+        } finally {
+            store.lock.writeLock().unlock();
+        }
+    }
+
+    // Check if book exists
+    @Override
+    public boolean bookExists(int bookId) {
+        store.lock.readLock().lock();
+        try {
+            return store.books.containsKey(bookId);
+        } finally {
+            store.lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.library.dao.memory;
+
+import com.library.dao.MemberColumn;
+import com.library.dao.MemberRepository;
+import com.library.models.Member;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class InMemoryMemberRepository implements MemberRepository {
+    private static final Comparator<Member> BY_NAME =
+            Comparator.comparing(Member::getName, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final InMemoryStore store;
+
+    InMemoryMemberRepository(InMemoryStore store) {
+        this.store = store;
+    }
+
+    // Add new member
+    @Override
+    public boolean addMember(Member member) {
+        store.lock.writeLock().lock();
+        try {
+            Member row = new Member(member);
+            row.setMemberId(store.nextMemberId.getAndIncrement());
+            store.members.put(row.getMemberId(), row);
+            member.setMemberId(row.getMemberId());
+            return true;
+        } finally {
+            store.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean forEachMember(int fetchSize, Consumer<Member> action) {
+        store.forEachCopy(store.members, Member::new, action);
+        return true;
+    }
+
+    // Get all members
+    @Override
+    public List<Member> getAllMembers() {
+        store.lock.readLock().lock();
+        try {
+            List<Member> members = new ArrayList<>(store.members.size());
+            for (Member member : store.members.values()) {
+                members.add(new Member(member));
+            }
+            members.sort(BY_NAME);
+            return members;
+        } finally {
+            store.lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Member> getMembersPage(MemberColumn sortBy, boolean descending, Member after, int offset, int pageSize) {
+        return store.page(store.members.values(), Member::new, sortBy, descending, after, offset, pageSize);
+    }
+
+    @Override
+    public int getMemberCount() {
+        store.lock.readLock().lock();
+        try {
+            return store.members.size();
+        } finally {
+            store.lock.readLock().unlock();
+        }
+    }
+
+    // Get member by ID
+    @Override
+    public Member getMemberById(int memberId) {
+        store.lock.readLock().lock();
+        try {
+            Member member = store.members.get(memberId);
+            return member == null ? null : new Member(member);
+        } finally {
+            store.lock.readLock().unlock();
+        }
+    }
+
+    // Update member
+    @Override
+    public boolean updateMember(Member member) {
+        store.lock.writeLock().lock();
+        try {
+            Member existing = store.members.get(member.getMemberId());
+            if (existing == null) return false;
+
+            // join_date is not part of the UPDATE in MemberDAO either
+            Member row = new Member(member);
+            row.setJoinDate(existing.getJoinDate());
+            store.members.put(row.getMemberId(), row);
+            return true;
+        } finally {
+            store.lock.writeLock().unlock();
+        }
+    }
+
+    // Delete member
+    @Override
+    public boolean deleteMember(int memberId) {
+        store.lock.writeLock().lock();
+        try {
+            return store.members.remove(memberId) != null;
+        } finally {
+            store.lock.writeLock().unlock();
+        }
+    }
+
+    // Get count of active members
+    @Override
+    public int getActiveMembersCount() {
+        store.lock.readLock().lock();
+        try {
+            int count = 0;
+            for (Member member : store.members.values()) {
+                if ("Active".equals(member.getStatus())) count++;
+            }
+            return count;
+        } finally {
+            store.lock.readLock().unlock();
+        }
+    }
+
+    // Search members by name, email or phone
+    @Override
+    public List<Member> searchMembers(String searchTerm) {
+        String term = searchTerm.toLowerCase();
+        List<Member> members = new ArrayList<>();
+
+        store.lock.readLock().lock();
+        try {
+            for (Member member : store.members.values()) {
+                if (InMemoryStore.matches(member.getName(), term)
+                        || InMemoryStore.matches(member.getEmail(), term)
+                        || InMemoryStore.matches(member.getPhone(), term)) {
+                    members.add(new Member(member));
+                }
+            }
+        } finally {
+            store.lock.readLock().unlock();
+        }
+        members.sort(BY_NAME);
+        return members;
+    }
+}
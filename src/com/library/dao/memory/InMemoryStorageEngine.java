@@ -0,0 +1,57 @@
+package com.library.dao.memory;
+
+import com.library.dao.BookRepository;
+import com.library.dao.MemberRepository;
+import com.library.dao.StorageEngine;
+import com.library.dao.TransactionRepository;
+
+import java.util.function.Supplier;
+
+// Keeps the whole library in process memory, for benchmarks, load tests and kiosks without MySQL
+public class InMemoryStorageEngine implements StorageEngine {
+    public static final String NAME = "memory";
+
+    private final InMemoryStore store;
+    private final InMemoryBookRepository books;
+    private final InMemoryMemberRepository members;
+    private final InMemoryTransactionRepository transactions;
+
+    public InMemoryStorageEngine() {
+        this.store = new InMemoryStore();
+        this.books = new InMemoryBookRepository(store);
+        this.members = new InMemoryMemberRepository(store);
+        this.transactions = new InMemoryTransactionRepository(store);
+    }
+
+    @Override
+    public String getName() { return NAME; }
+
+    @Override
+    public BookRepository books() { return books; }
+
+    @Override
+    public MemberRepository members() { return members; }
+
+    @Override
+    public TransactionRepository transactions() { return transactions; }
+
+    @Override
+    public String getPerformanceReport() {
+        return "The in-memory storage engine does not collect database metrics.\n";
+    }
+
+    // Holding the store's write lock for the whole unit of work keeps other threads
+    // from interleaving with it. It is the write lock even for a snapshot: the
+    // repositories take the write lock for every write, and a thread holding the
+    // read lock cannot upgrade it. There is no rollback: if work throws, writes
+    // that already happened stay.
+    @Override
+    public <T> T runInTransaction(boolean consistentSnapshot, Supplier<T> work) {
+        store.lock.writeLock().lock();
+        try {
+            return work.get();
+        } finally {
+            store.lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.library.dao.memory;
+
+import com.library.dao.SortColumn;
+import com.library.models.Book;
+import com.library.models.Member;
+import com.library.models.Transaction;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+// Tables and indexes shared by the in-memory repositories, holding private copies of the rows
+class InMemoryStore {
+    final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    final Map<Integer, Book> books = new LinkedHashMap<>();
+    final Map<String, Integer> bookIdsByIsbn = new HashMap<>();
+    final AtomicInteger nextBookId = new AtomicInteger(1);
+
+    final Map<Integer, Member> members = new LinkedHashMap<>();
+    final AtomicInteger nextMemberId = new AtomicInteger(1);
+
+    final Map<Integer, Transaction> transactions = new LinkedHashMap<>();
+    // Open (Issued/Overdue) transaction ids per member and per book
+    final Map<Integer, Set<Integer>> openLoansByMember = new HashMap<>();
+    final Map<Integer, Set<Integer>> openLoansByBook = new HashMap<>();
+    final AtomicInteger nextTransactionId = new AtomicInteger(1);
+    // Old returned transactions, moved out of transactions as by TransactionDAO
+    final Map<Integer, Transaction> archivedTransactions = new LinkedHashMap<>();
+
+    void addOpenLoan(Transaction transaction) {
+        openLoansByMember.computeIfAbsent(transaction.getMemberId(), k -> new HashSet<>())
+                .add(transaction.getTransactionId());
+        openLoansByBook.computeIfAbsent(transaction.getBookId(), k -> new HashSet<>())
+                .add(transaction.getTransactionId());
+    }
+
+    void removeOpenLoan(Transaction transaction) {
+        Set<Integer> byMember = openLoansByMember.get(transaction.getMemberId());
+        if (byMember != null) byMember.remove(transaction.getTransactionId());
+        Set<Integer> byBook = openLoansByBook.get(transaction.getBookId());
+        if (byBook != null) byBook.remove(transaction.getTransactionId());
+    }
+
+    int countOpenLoansForMember(int memberId) {
+        Set<Integer> loans = openLoansByMember.get(memberId);
+        return loans == null ? 0 : loans.size();
+    }
+
+    int countOpenLoansForBook(int bookId) {
+        Set<Integer> loans = openLoansByBook.get(bookId);
+        return loans == null ? 0 : loans.size();
+    }
+
+    // Visits copies of every row in id order without holding the lock while the
+    // action runs: ids are taken once, then rows are copied a chunk at a time
+    <T> void forEachCopy(Map<Integer, T> table, UnaryOperator<T> copy, Consumer<T> action) {
+        int[] ids;
+        lock.readLock().lock();
+        try {
+            ids = new int[table.size()];
+            int i = 0;
+            for (Integer id : table.keySet()) ids[i++] = id;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<T> chunk = new ArrayList<>(1000);
+        for (int from = 0; from < ids.length; from += 1000) {
+            chunk.clear();
+            lock.readLock().lock();
+            try {
+                for (int i = from; i < Math.min(ids.length, from + 1000); i++) {
+                    T row = table.get(ids[i]);
+                    if (row != null) chunk.add(copy.apply(row));
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            chunk.forEach(action);
+        }
+    }
+
+    // Sorted page of copies, positioned like the MySQL keyset query: rows after the
+    // given one (all when null), skipping offset. A max-heap keeps only the best
+    // offset + pageSize rows, so a page costs O(n log(offset + pageSize)).
+    <T> List<T> page(Iterable<T> table, UnaryOperator<T> copy, SortColumn<T> sortBy, boolean descending,
+                     T after, int offset, int pageSize) {
+        Comparator<T> order = descending ? sortBy.order().reversed() : sortBy.order();
+        int keep = offset + pageSize;
+        PriorityQueue<T> best = new PriorityQueue<>(keep + 1, order.reversed());
+
+        lock.readLock().lock();
+        try {
+            for (T row : table) {
+                if (after != null && order.compare(row, after) <= 0) continue;
+                if (best.size() < keep) {
+                    best.add(row);
+                } else if (order.compare(row, best.peek()) < 0) {
+                    best.poll();
+                    best.add(row);
+                }
+            }
+
+            List<T> rows = new ArrayList<>(best);
+            rows.sort(order);
+            List<T> page = new ArrayList<>(Math.max(0, rows.size() - offset));
+            for (int i = offset; i < rows.size(); i++) {
+                page.add(copy.apply(rows.get(i)));
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Case-insensitive substring match, the same as LIKE '%term%' under MySQL's default collation
+    static boolean matches(String value, String lowerCaseTerm) {
+        return value != null && value.toLowerCase().contains(lowerCaseTerm);
+    }
+}
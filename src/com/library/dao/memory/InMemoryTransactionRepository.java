@@ -0,0 +1,421 @@
+package com.library.dao.memory;
+
+import com.library.dao.TransactionColumn;
+import com.library.dao.TransactionRepository;
+import com.library.fines.FineSchedule;
+import com.library.models.Book;
+import com.library.models.IssueOutcome;
+import com.library.models.Member;
+import com.library.models.ReturnOutcome;
+import com.library.models.Transaction;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.Set;
+
+public class InMemoryTransactionRepository implements TransactionRepository {
+    private static final Comparator<Transaction> BY_ISSUE_DATE_DESC =
+            Comparator.comparing(Transaction::getIssueDate, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    private final InMemoryStore store;
+
+    InMemoryTransactionRepository(InMemoryStore store) {
+        this.store = store;
+    }
+
+    // Issue several books under one hold of the write lock, as TransactionDAO.issueBooks
+    @Override
+    public List<IssueOutcome> issueBooks(int memberId, List<Integer> bookIds, int dueDays, boolean allOrNothing) {
+        List<IssueOutcome> outcomes = new ArrayList<>(bookIds.size());
+        List<Transaction> issued = new ArrayList<>();
+
+        store.lock.writeLock().lock();
+        try {
+            boolean failed = false;
+            for (int bookId : bookIds) {
+                if (failed) {
+                    outcomes.add(new IssueOutcome(bookId, IssueOutcome.Status.SKIPPED, 0, null));
+                    continue;
+                }
+
+                String refusal = issue(bookId, memberId, dueDays, issued);
+                if (refusal == null) {
+                    outcomes.add(new IssueOutcome(bookId, IssueOutcome.Status.ISSUED,
+                            issued.get(issued.size() - 1).getTransactionId(), null));
+                } else {
+                    outcomes.add(new IssueOutcome(bookId, IssueOutcome.Status.REFUSED, 0, refusal));
+                    failed = allOrNothing;
+                }
+            }
+
+            if (failed) {
+                for (int i = issued.size() - 1; i >= 0; i--) {
+                    undoIssue(issued.get(i));
+                }
+                for (int i = 0; i < outcomes.size(); i++) {
+                    if (outcomes.get(i).isIssued()) {
+                        outcomes.set(i, outcomes.get(i).withStatus(IssueOutcome.Status.ROLLED_BACK,
+                                "Another book of the batch was refused"));
+                    }
+                }
+            }
+            return outcomes;
+        } finally {
+            store.lock.writeLock().unlock();
+        }
+    }
+
+    // The same checks and effects as the IssueBook stored procedure. Null once the new
+    // transaction is added to issued, otherwise why the book cannot be issued.
+    // Call with the write lock held.
+    private String issue(int bookId, int memberId, int dueDays, List<Transaction> issued) {
+        Book book = store.books.get(bookId);
+        if (book == null || book.getAvailableCopies() <= 0) {
+            return "Book is not available";
+        }
+
+        Member member = store.members.get(memberId);
+        if (member == null || !member.canBorrowMoreBooks(store.countOpenLoansForMember(memberId))) {
+            return "Member cannot borrow more books";
+        }
+
+        LocalDate today = LocalDate.now();
+        Transaction transaction = new Transaction(bookId, memberId,
+                Date.valueOf(today), Date.valueOf(today.plusDays(dueDays)), "Issued");
+        transaction.setTransactionId(store.nextTransactionId.getAndIncrement());
+
+        store.transactions.put(transaction.getTransactionId(), transaction);
+        store.addOpenLoan(transaction);
+        book.setAvailableCopies(book.getAvailableCopies() - 1);
+        issued.add(transaction);
+        return null;
+    }
+
+    // Take back a loan issue() just made; its id is not reused, as with AUTO_INCREMENT
+    private void undoIssue(Transaction transaction) {
+        store.transactions.remove(transaction.getTransactionId());
+        store.removeOpenLoan(transaction);
+        Book book = store.books.get(transaction.getBookId());
+        if (book != null) book.setAvailableCopies(book.getAvailableCopies() + 1);
+    }
+
+    // Return a batch under one hold of the write lock, as TransactionDAO.returnBooks
+    @Override
+    public List<ReturnOutcome> returnBooks(List<Integer> transactionIds, FineSchedule fines) {
+        List<ReturnOutcome> outcomes = new ArrayList<>(transactionIds.size());
+        LocalDate today = LocalDate.now();
+
+        store.lock.writeLock().lock();
+        try {
+            for (int transactionId : transactionIds) {
+                outcomes.add(returnLoan(transactionId, fines, today));
+            }
+            return outcomes;
+        } finally {
+            store.lock.writeLock().unlock();
+        }
+    }
+
+    // The same checks and effects as the ReturnBook stored procedure. Call with the write lock held.
+    private ReturnOutcome returnLoan(int transactionId, FineSchedule fines, LocalDate today) {
+        Transaction transaction = store.transactions.get(transactionId);
+        if (transaction == null || !isOpen(transaction)) {
+            return ReturnOutcome.failed(transactionId, "Transaction is not open");
+        }
+
+        long overdueDays = ChronoUnit.DAYS.between(transaction.getDueDate().toLocalDate(), today);
+        double fine = fines.fine(policyFor(transaction, fines), overdueDays);
+        boolean overdue = "Overdue".equals(transaction.getStatus());
+
+        transaction.setReturnDate(Date.valueOf(today));
+        transaction.setFineAmount(fine);
+        transaction.setStatus("Returned");
+        store.removeOpenLoan(transaction);
+
+        Book book = store.books.get(transaction.getBookId());
+        if (book != null) book.setAvailableCopies(book.getAvailableCopies() + 1);
+        return new ReturnOutcome(transactionId, transaction.getBookId(), transaction.getMemberId(),
+                true, fine, overdue, null);
+    }
+
+    @Override
+    public boolean forEachTransaction(int fetchSize, Consumer<Transaction> action) {
+        store.forEachCopy(store.transactions, Transaction::new, action);
+        store.forEachCopy(store.archivedTransactions, Transaction::new, action);
+        return true;
+    }
+
+    // The in-memory archive always exists
+    @Override
+    public boolean enableArchive() {
+        return true;
+    }
+
+    // Get all transactions, from the archive too only if asked
+    @Override
+    public List<Transaction> getAllTransactions(boolean includeArchive) {
+        store.lock.readLock().lock();
+        try {
+            List<Transaction> transactions = new ArrayList<>(store.transactions.size());
+            for (Transaction transaction : store.transactions.values()) {
+                transactions.add(view(transaction));
+            }
+            if (includeArchive) {
+                for (Transaction transaction : store.archivedTransactions.values()) {
+                    transactions.add(view(transaction));
+                }
+            }
+            transactions.sort(BY_ISSUE_DATE_DESC);
+            return transactions;
+        } finally {
+            store.lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Transaction> getTransactionsPage(TransactionColumn sortBy, boolean descending, Transaction after,
+                                                 int offset, int pageSize) {
+        if (sortBy != TransactionColumn.BOOK && sortBy != TransactionColumn.MEMBER) {
+            return store.page(store.transactions.values(), this::view, sortBy, descending, after, offset, pageSize);
+        }
+        // Sorted by a title or name from another table, so every row is joined before it is compared
+        Iterable<Transaction> joined = () -> store.transactions.values().stream().map(this::view).iterator();
+        return store.page(joined, UnaryOperator.identity(), sortBy, descending, after, offset, pageSize);
+    }
+
+    @Override
+    public int getTransactionCount() {
+        store.lock.readLock().lock();
+        try {
+            return store.transactions.size();
+        } finally {
+            store.lock.readLock().unlock();
+        }
+    }
+
+    // Get transaction by ID
+    @Override
+    public Transaction getTransactionById(int transactionId) {
+        store.lock.readLock().lock();
+        try {
+            Transaction transaction = store.transactions.get(transactionId);
+            if (transaction == null) transaction = store.archivedTransactions.get(transactionId);
+            return transaction == null ? null : view(transaction);
+        } finally {
+            store.lock.readLock().unlock();
+        }
+    }
+
+    // Get overdue books
+    @Override
+    public List<Transaction> getOverdueBooks() {
+        List<Transaction> transactions = new ArrayList<>();
+
+        store.lock.readLock().lock();
+        try {
+            for (Set<Integer> loans : store.openLoansByMember.values()) {
+                for (Integer transactionId : loans) {
+                    Transaction transaction = store.transactions.get(transactionId);
+                    if ("Overdue".equals(transaction.getStatus())) {
+                        transactions.add(view(transaction));
+                    }
+                }
+            }
+        } finally {
+            store.lock.readLock().unlock();
+        }
+        return transactions;
+    }
+
+    @Override
+    public int countOverdue() {
+        int count = 0;
+
+        store.lock.readLock().lock();
+        try {
+            for (Set<Integer> loans : store.openLoansByMember.values()) {
+                for (Integer transactionId : loans) {
+                    Transaction transaction = store.transactions.get(transactionId);
+                    if ("Overdue".equals(transaction.getStatus())) {
+                        count++;
+                    }
+                }
+            }
+        } finally {
+            store.lock.readLock().unlock();
+        }
+        return count;
+    }
+
+    @Override
+    public List<Transaction> getIssuedLoans() {
+        List<Transaction> loans = new ArrayList<>();
+
+        store.lock.readLock().lock();
+        try {
+            for (Set<Integer> open : store.openLoansByMember.values()) {
+                for (Integer transactionId : open) {
+                    Transaction transaction = store.transactions.get(transactionId);
+                    if ("Issued".equals(transaction.getStatus())) loans.add(new Transaction(transaction));
+                }
+            }
+        } finally {
+            store.lock.readLock().unlock();
+        }
+        return loans;
+    }
+
+    @Override
+    public int markOverdue(List<Integer> transactionIds) {
+        int marked = 0;
+
+        store.lock.writeLock().lock();
+        try {
+            for (int transactionId : transactionIds) {
+                Transaction transaction = store.transactions.get(transactionId);
+                if (transaction != null && "Issued".equals(transaction.getStatus())) {
+                    transaction.setStatus("Overdue");
+                    marked++;
+                }
+            }
+        } finally {
+            store.lock.writeLock().unlock();
+        }
+        return marked;
+    }
+
+    @Override
+    public boolean forEachOverdueLoan(OverdueLoanVisitor visitor) {
+        store.lock.readLock().lock();
+        try {
+            for (Set<Integer> open : store.openLoansByMember.values()) {
+                for (Integer transactionId : open) {
+                    Transaction transaction = store.transactions.get(transactionId);
+                    if (!"Overdue".equals(transaction.getStatus())) continue;
+                    Book book = store.books.get(transaction.getBookId());
+                    Member member = store.members.get(transaction.getMemberId());
+                    visitor.visit(transactionId, transaction.getDueDate(),
+                            book != null ? book.getCategory() : null,
+                            member != null ? member.getMaxBooksAllowed() : 0);
+                }
+            }
+            return true;
+        } finally {
+            store.lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int updateFines(int[] transactionIds, double[] fines, int count) {
+        int updated = 0;
+
+        store.lock.writeLock().lock();
+        try {
+            for (int i = 0; i < count; i++) {
+                Transaction transaction = store.transactions.get(transactionIds[i]);
+                if (transaction != null && "Overdue".equals(transaction.getStatus())) {
+                    transaction.setFineAmount(fines[i]);
+                    updated++;
+                }
+            }
+        } finally {
+            store.lock.writeLock().unlock();
+        }
+        return updated;
+    }
+
+    @Override
+    public int countOpenLoans(int memberId) {
+        store.lock.readLock().lock();
+        try {
+            return store.countOpenLoansForMember(memberId);
+        } finally {
+            store.lock.readLock().unlock();
+        }
+    }
+
+    // Search transactions by book title, member name or status
+    @Override
+    public List<Transaction> searchTransactions(String searchTerm, boolean includeArchive) {
+        String term = searchTerm.toLowerCase();
+        List<Transaction> transactions = new ArrayList<>();
+
+        store.lock.readLock().lock();
+        try {
+            addMatches(store.transactions.values(), term, transactions);
+            if (includeArchive) addMatches(store.archivedTransactions.values(), term, transactions);
+        } finally {
+            store.lock.readLock().unlock();
+        }
+        transactions.sort(BY_ISSUE_DATE_DESC);
+        return transactions;
+    }
+
+    // Call with the read lock held
+    private void addMatches(Iterable<Transaction> table, String term, List<Transaction> matches) {
+        for (Transaction transaction : table) {
+            Book book = store.books.get(transaction.getBookId());
+            Member member = store.members.get(transaction.getMemberId());
+            if (book == null || member == null) continue;
+
+            if (InMemoryStore.matches(book.getTitle(), term)
+                    || InMemoryStore.matches(member.getName(), term)
+                    || InMemoryStore.matches(transaction.getStatus(), term)) {
+                matches.add(view(transaction));
+            }
+        }
+    }
+
+    // Move up to limit transactions returned before cutoff, lowest ids first, as one write
+    @Override
+    public int archiveReturnedBefore(Date cutoff, int limit) {
+        LocalDate before = cutoff.toLocalDate();
+        store.lock.writeLock().lock();
+        try {
+            List<Transaction> chunk = new ArrayList<>();
+            for (Transaction transaction : store.transactions.values()) {
+                if (chunk.size() == limit) break;
+                if ("Returned".equals(transaction.getStatus()) && transaction.getReturnDate() != null
+                        && transaction.getReturnDate().toLocalDate().isBefore(before)) {
+                    chunk.add(transaction);
+                }
+            }
+            for (Transaction transaction : chunk) {
+                store.transactions.remove(transaction.getTransactionId());
+                store.archivedTransactions.put(transaction.getTransactionId(), transaction);
+            }
+            return chunk.size();
+        } finally {
+            store.lock.writeLock().unlock();
+        }
+    }
+
+    // A copy with the book title and member name filled in, as TransactionDAO's
+    // view query returns it; call with the read lock held
+    private Transaction view(Transaction row) {
+        Transaction transaction = new Transaction(row);
+        Book book = store.books.get(row.getBookId());
+        Member member = store.members.get(row.getMemberId());
+        transaction.setBookTitle(book != null ? book.getTitle() : null);
+        transaction.setMemberName(member != null ? member.getName() : null);
+        return transaction;
+    }
+
+    // Call with the lock held
+    private int policyFor(Transaction transaction, FineSchedule fines) {
+        Book book = store.books.get(transaction.getBookId());
+        Member member = store.members.get(transaction.getMemberId());
+        return fines.policyFor(book != null ? book.getCategory() : null,
+                member != null ? member.getMaxBooksAllowed() : 0);
+    }
+
+    private static boolean isOpen(Transaction transaction) {
+        return "Issued".equals(transaction.getStatus()) || "Overdue".equals(transaction.getStatus());
+    }
+}
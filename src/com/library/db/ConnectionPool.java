@@ -0,0 +1,234 @@
+package com.library.db;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ConnectionPool {
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long validationIntervalMillis;
+    private final long leakThresholdMillis;
+    private final int statementCacheSize;
+
+    // Idle connections, most recently used first so hot connections stay warm
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    // One permit per connection that may be handed out at the same time
+    private final Semaphore permits;
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean shutdown;
+
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+    private final LongAdder statementCacheEvictions = new LongAdder();
+    private final QueryMetrics queryMetrics;
+
+    public ConnectionPool(String url, String username, String password,
+                          int minSize, int maxSize, long borrowTimeoutMillis,
+                          long idleTimeoutMillis, long validationIntervalMillis,
+                          long leakThresholdMillis, int statementCacheSize,
+                          long slowQueryThresholdMillis) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.validationIntervalMillis = validationIntervalMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.queryMetrics = new QueryMetrics(slowQueryThresholdMillis);
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, Math.min(idleTimeoutMillis, leakThresholdMillis) / 2);
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+        housekeeper.execute(this::fillToMinimum);
+    }
+
+    // Borrow a connection, waiting up to the borrow timeout if the pool is exhausted
+    public Connection borrow() throws SQLException {
+        if (shutdown) {
+            throw new SQLException("Connection pool has been shut down");
+        }
+
+        long waitStart = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                queryMetrics.recordConnectionWait(System.nanoTime() - waitStart, true);
+                throw new SQLException("Timed out after " + borrowTimeoutMillis +
+                        "ms waiting for a database connection (pool size " + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            PooledConnection pooled = takeValidIdle();
+            if (pooled == null) {
+                pooled = new PooledConnection(this, createPhysical(), statementCacheSize);
+            }
+            queryMetrics.recordConnectionWait(System.nanoTime() - waitStart, false);
+            pooled.markBorrowed(leakThresholdMillis > 0);
+            borrowed.add(pooled);
+            return pooled.newLease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    // Called when a lease is closed
+    void release(PooledConnection pooled) {
+        borrowed.remove(pooled);
+        try {
+            if (shutdown || pooled.isBroken() || !reset(pooled)) {
+                pooled.closePhysical();
+            } else {
+                pooled.markReturned();
+                idle.offerFirst(pooled);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    public void shutdown() {
+        shutdown = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            pooled.closePhysical();
+        }
+    }
+
+    public int getIdleCount() { return idle.size(); }
+    public int getActiveCount() { return borrowed.size(); }
+    public int getMaxSize() { return maxSize; }
+
+    public QueryMetrics getQueryMetrics() { return queryMetrics; }
+
+    public long getStatementCacheHits() { return statementCacheHits.sum(); }
+    public long getStatementCacheMisses() { return statementCacheMisses.sum(); }
+    public long getStatementCacheEvictions() { return statementCacheEvictions.sum(); }
+
+    void recordStatementCacheHit() { statementCacheHits.increment(); }
+    void recordStatementCacheMiss() { statementCacheMisses.increment(); }
+    void recordStatementCacheEviction() { statementCacheEvictions.increment(); }
+
+    private PooledConnection takeValidIdle() {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (System.currentTimeMillis() - pooled.getLastUsedAt() < validationIntervalMillis
+                    || isValid(pooled.getPhysical())) {
+                return pooled;
+            }
+            pooled.closePhysical();
+        }
+        return null;
+    }
+
+    private Connection createPhysical() throws SQLException {
+        Connection connection = DriverManager.getConnection(url, username, password);
+        connection.setAutoCommit(true);
+        return connection;
+    }
+
+    // Undo anything a borrower may have changed before the next borrower sees it
+    private boolean reset(PooledConnection pooled) {
+        Connection connection = pooled.getPhysical();
+        try {
+            if (connection.isClosed()) return false;
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            if (connection.isReadOnly()) {
+                connection.setReadOnly(false);
+            }
+            if (connection.getTransactionIsolation() != pooled.getDefaultIsolation()) {
+                connection.setTransactionIsolation(pooled.getDefaultIsolation());
+            }
+            connection.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Discarding pooled connection: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean isValid(Connection connection) {
+        try {
+            return connection.isValid(2);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+
+        // Evict connections that have been idle too long, keeping the minimum
+        Iterator<PooledConnection> it = idle.descendingIterator();
+        while (it.hasNext() && idle.size() > minSize) {
+            PooledConnection pooled = it.next();
+            if (now - pooled.getLastUsedAt() > idleTimeoutMillis && idle.remove(pooled)) {
+                pooled.closePhysical();
+            }
+        }
+
+        // Report connections that were borrowed and never returned
+        if (leakThresholdMillis > 0) {
+            for (PooledConnection pooled : borrowed) {
+                if (!pooled.isLeakReported() && now - pooled.getBorrowedAt() > leakThresholdMillis) {
+                    pooled.setLeakReported(true);
+                    System.err.println("Possible connection leak: connection held for " +
+                            (now - pooled.getBorrowedAt()) + "ms");
+                    Throwable trace = pooled.getBorrowTrace();
+                    if (trace != null) trace.printStackTrace();
+                }
+            }
+        }
+
+        fillToMinimum();
+    }
+
+    private void fillToMinimum() {
+        while (!shutdown && idle.size() + borrowed.size() < minSize) {
+            if (!permits.tryAcquire()) return;
+            try {
+                PooledConnection pooled = new PooledConnection(this, createPhysical(), statementCacheSize);
+                idle.offerLast(pooled);
+            } catch (SQLException e) {
+                System.err.println("Failed to pre-open pooled connection: " + e.getMessage());
+                return;
+            } finally {
+                permits.release();
+            }
+        }
+    }
+}
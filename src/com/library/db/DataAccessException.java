@@ -0,0 +1,12 @@
+package com.library.db;
+
+// A query failed where an empty or partial result would be mistaken for real data
+public class DataAccessException extends RuntimeException {
+    public DataAccessException(String message) {
+        super(message);
+    }
+
+    public DataAccessException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
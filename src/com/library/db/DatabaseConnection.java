@@ -1,26 +1,41 @@
 package com.library.db;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
 
 public class DatabaseConnection {
-    private static final String URL = "jdbc:mysql://localhost:3306/library_db";
+    // Server-side prepares pair with the per-connection statement cache in the pool
+    private static final String URL = "jdbc:mysql://localhost:3306/library_db?useServerPrepStmts=true&useCursorFetch=true";
     private static final String USERNAME = "root";
     private static final String PASSWORD = "1833";
 
-    // Don't use a static connection - create new connections each time
-    public static Connection getConnection() {
-        try {
-            // Load the MySQL JDBC driver
-            Class.forName("com.mysql.cj.jdbc.Driver");
+    // Connection pool settings
+    private static final int POOL_MIN_SIZE = 2;
+    private static final int POOL_MAX_SIZE = 10;
+    private static final long BORROW_TIMEOUT_MILLIS = 5_000;
+    private static final long IDLE_TIMEOUT_MILLIS = 5 * 60_000;
+    private static final long VALIDATION_INTERVAL_MILLIS = 30_000;
+    private static final long LEAK_THRESHOLD_MILLIS = 60_000;
+    private static final int STATEMENT_CACHE_SIZE = 64;
+    // Queries slower than this are logged with their parameters (-Dlibrary.slowQueryMillis, -1 disables)
+    private static final long SLOW_QUERY_MILLIS = Long.getLong("library.slowQueryMillis", 500);
+
+    private static volatile ConnectionPool pool;
 
-            // Create a new connection
-            Connection connection = DriverManager.getConnection(URL, USERNAME, PASSWORD);
-            // Disable auto-commit if you want transaction support
-            connection.setAutoCommit(true);
-            return connection;
+    // Connection shared by every DAO call made inside a unit of work on this thread
+    private static final ThreadLocal<Connection> BOUND_CONNECTION = new ThreadLocal<>();
+    private static final ThreadLocal<List<Runnable>> AFTER_TRANSACTION = new ThreadLocal<>();
+
+    // Connections come from a shared pool; closing one returns it to the pool
+    public static Connection getConnection() {
+        Connection bound = BOUND_CONNECTION.get();
+        if (bound != null) return bound;
 
+        try {
+            return getPool().borrow();
         } catch (ClassNotFoundException e) {
             System.err.println("MySQL JDBC Driver not found!");
             e.printStackTrace();
@@ -32,7 +47,8 @@ public class DatabaseConnection {
     }
 
     public static void closeConnection(Connection connection) {
-        if (connection != null) {
+        // The unit of work that bound this connection is responsible for closing it
+        if (connection != null && connection != BOUND_CONNECTION.get()) {
             try {
                 connection.close();
             } catch (SQLException e) {
@@ -40,4 +56,111 @@ public class DatabaseConnection {
             }
         }
     }
-}
\ No newline at end of file
+
+    public static void bindConnection(Connection connection) {
+        BOUND_CONNECTION.set(connection);
+    }
+
+    // Unbinds the connection and runs anything registered with runAfterTransaction if the
+    // unit of work committed; after a rollback nothing happened, so they are dropped
+    public static void unbindConnection(boolean committed) {
+        BOUND_CONNECTION.remove();
+        List<Runnable> actions = AFTER_TRANSACTION.get();
+        AFTER_TRANSACTION.remove();
+        if (committed && actions != null) {
+            for (Runnable action : actions) {
+                action.run();
+            }
+        }
+    }
+
+    // Run once the current unit of work has committed (never if it rolls back), or right
+    // away outside one. Caches use it so other threads cannot reload a row between the
+    // invalidation and the commit and keep the old value.
+    public static void runAfterTransaction(Runnable action) {
+        if (BOUND_CONNECTION.get() == null) {
+            action.run();
+            return;
+        }
+        List<Runnable> actions = AFTER_TRANSACTION.get();
+        if (actions == null) {
+            actions = new ArrayList<>();
+            AFTER_TRANSACTION.set(actions);
+        }
+        actions.add(action);
+    }
+
+    public static boolean hasBoundConnection() {
+        return BOUND_CONNECTION.get() != null;
+    }
+
+    // Called by the DAOs when a statement fails. Inside a unit of work the failure is
+    // thrown on, so the whole unit is rolled back instead of committing the steps
+    // around it; outside one the DAO reports it with false, null or -1 as usual.
+    public static void failUnitOfWork(SQLException e) {
+        if (hasBoundConnection()) throw new DataAccessException(e.getMessage(), e);
+    }
+
+    // Work that inTransaction runs on one connection
+    public interface SqlWork<T> {
+        T run() throws SQLException;
+    }
+
+    // Run work as one transaction on conn. Inside a unit of work the caller's transaction
+    // is joined and work is undone back to a savepoint if it throws; otherwise conn gets
+    // its own transaction, committed when work returns and rolled back if it throws.
+    public static <T> T inTransaction(Connection conn, SqlWork<T> work) throws SQLException {
+        boolean ownTransaction = conn.getAutoCommit();
+        Savepoint start = null;
+        if (ownTransaction) {
+            conn.setAutoCommit(false);
+        } else {
+            start = conn.setSavepoint();
+        }
+
+        boolean done = false;
+        try {
+            T result = work.run();
+            if (ownTransaction) conn.commit();
+            done = true;
+            return result;
+        } finally {
+            if (!done) rollbackQuietly(conn, start);
+            if (ownTransaction) {
+                try {
+                    conn.setAutoCommit(true);
+                } catch (SQLException e) {
+                    System.err.println("Error restoring auto-commit: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static void rollbackQuietly(Connection conn, Savepoint savepoint) {
+        try {
+            if (savepoint != null) conn.rollback(savepoint); else conn.rollback();
+        } catch (SQLException e) {
+            System.err.println("Error rolling back: " + e.getMessage());
+        }
+    }
+
+    public static ConnectionPool getPool() throws ClassNotFoundException {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (DatabaseConnection.class) {
+                current = pool;
+                if (current == null) {
+                    // Load the MySQL JDBC driver once for the lifetime of the pool
+                    Class.forName("com.mysql.cj.jdbc.Driver");
+                    current = new ConnectionPool(URL, USERNAME, PASSWORD,
+                            POOL_MIN_SIZE, POOL_MAX_SIZE, BORROW_TIMEOUT_MILLIS,
+                            IDLE_TIMEOUT_MILLIS, VALIDATION_INTERVAL_MILLIS, LEAK_THRESHOLD_MILLIS,
+                            STATEMENT_CACHE_SIZE, SLOW_QUERY_MILLIS);
+                    Runtime.getRuntime().addShutdownHook(new Thread(current::shutdown, "connection-pool-shutdown"));
+                    pool = current;
+                }
+            }
+        }
+        return current;
+    }
+}
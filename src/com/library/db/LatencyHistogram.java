@@ -0,0 +1,55 @@
+package com.library.db;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Lock-free latency histogram with power-of-two microsecond buckets (1us .. ~35min)
+public class LatencyHistogram {
+    private static final int BUCKETS = 32;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder totalMicros = new LongAdder();
+    private final LongAdder samples = new LongAdder();
+    private volatile long maxMicros;
+
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        counts.incrementAndGet(bucketFor(micros));
+        totalMicros.add(micros);
+        samples.increment();
+        if (micros > maxMicros) {
+            synchronized (this) {
+                if (micros > maxMicros) maxMicros = micros;
+            }
+        }
+    }
+
+    public long getCount() { return samples.sum(); }
+    public long getMaxMicros() { return maxMicros; }
+
+    public double getMeanMicros() {
+        long n = samples.sum();
+        return n == 0 ? 0.0 : (double) totalMicros.sum() / n;
+    }
+
+    // Upper bound of the bucket holding the given percentile (0-100)
+    public long getPercentileMicros(double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) total += counts.get(i);
+        if (total == 0) return 0;
+
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(1L << i, maxMicros);
+        }
+        return maxMicros;
+    }
+
+    private static int bucketFor(long micros) {
+        if (micros <= 1) return 0;
+        int bucket = 64 - Long.numberOfLeadingZeros(micros - 1);
+        return Math.min(bucket, BUCKETS - 1);
+    }
+}
@@ -0,0 +1,167 @@
+package com.library.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// A physical connection owned by the pool, plus the bookkeeping the pool needs
+class PooledConnection {
+    private final ConnectionPool pool;
+    private final Connection physical;
+    private final StatementCache statementCache;
+    private final int defaultIsolation;
+    private final long createdAt;
+    private volatile long lastUsedAt;
+    private volatile long borrowedAt;
+    private volatile Throwable borrowTrace;
+    private volatile boolean leakReported;
+    private volatile boolean broken;
+
+    PooledConnection(ConnectionPool pool, Connection physical, int statementCacheSize) {
+        this.pool = pool;
+        this.physical = physical;
+        this.defaultIsolation = readIsolation(physical);
+        this.statementCache = statementCacheSize > 0
+                ? new StatementCache(pool, physical, statementCacheSize, this::failed) : null;
+        this.createdAt = System.currentTimeMillis();
+        this.lastUsedAt = createdAt;
+    }
+
+    Connection getPhysical() { return physical; }
+    int getDefaultIsolation() { return defaultIsolation; }
+    long getCreatedAt() { return createdAt; }
+    long getLastUsedAt() { return lastUsedAt; }
+    long getBorrowedAt() { return borrowedAt; }
+    Throwable getBorrowTrace() { return borrowTrace; }
+    boolean isLeakReported() { return leakReported; }
+    void setLeakReported(boolean leakReported) { this.leakReported = leakReported; }
+    boolean isBroken() { return broken; }
+
+    void markBorrowed(boolean captureTrace) {
+        borrowedAt = System.currentTimeMillis();
+        borrowTrace = captureTrace ? new Throwable("Connection borrowed here") : null;
+        leakReported = false;
+    }
+
+    void markReturned() {
+        lastUsedAt = System.currentTimeMillis();
+        borrowTrace = null;
+    }
+
+    // Hand out a fresh lease; closing the lease returns the connection to the pool
+    Connection newLease() {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new LeaseHandler());
+    }
+
+    // Called with every SQLException the connection or one of its statements throws
+    void failed(SQLException e) {
+        if (isFatal(e)) broken = true;
+    }
+
+    void closePhysical() {
+        try {
+            physical.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing pooled connection: " + e.getMessage());
+        }
+    }
+
+    private class LeaseHandler implements InvocationHandler {
+        private boolean closed;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        pool.release(PooledConnection.this);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + physical + "]";
+                default:
+                    break;
+            }
+
+            if (closed) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+
+            Object result = invokePhysical(proxy, method, args);
+
+            // Every statement handed out is timed by the pool's query metrics
+            if (result instanceof Statement) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                return pool.getQueryMetrics().instrument((Statement) result, sql);
+            }
+            return result;
+        }
+
+        private Object invokePhysical(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            // Fixed SQL strings are re-prepared on every DAO call, so serve them from the cache
+            if (statementCache != null && args != null && args.length == 1) {
+                if (name.equals("prepareStatement")) {
+                    return statementCache.prepareStatement((Connection) proxy, (String) args[0]);
+                }
+                if (name.equals("prepareCall")) {
+                    return statementCache.prepareCall((Connection) proxy, (String) args[0]);
+                }
+            }
+
+            Object result = invokeReporting(physical, method, args);
+            // Cached statements report their errors through the cache; watch the others here
+            return result instanceof Statement ? watch((Statement) result) : result;
+        }
+    }
+
+    private Statement watch(Statement statement) {
+        Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class
+                : Statement.class;
+        return (Statement) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> invokeReporting(statement, method, args));
+    }
+
+    private Object invokeReporting(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) failed((SQLException) cause);
+            throw cause;
+        }
+    }
+
+    private static int readIsolation(Connection connection) {
+        try {
+            return connection.getTransactionIsolation();
+        } catch (SQLException e) {
+            return Connection.TRANSACTION_REPEATABLE_READ;
+        }
+    }
+
+    // SQLState class 08 means the connection itself is gone
+    private static boolean isFatal(SQLException e) {
+        String state = e.getSQLState();
+        return state != null && state.startsWith("08");
+    }
+}
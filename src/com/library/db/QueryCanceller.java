@@ -0,0 +1,62 @@
+package com.library.db;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+
+// Lets one thread stop a query another thread is running, with Statement.cancel
+public class QueryCanceller {
+    private static final ThreadLocal<QueryCanceller> CURRENT = new ThreadLocal<>();
+
+    private Statement statement;
+    private volatile boolean cancelled;
+
+    public void bind() {
+        CURRENT.set(this);
+    }
+
+    public static void unbind() {
+        CURRENT.remove();
+    }
+
+    // Safe to call from the event thread: the driver's cancel opens its own
+    // connection to the server, so it is sent from a background thread
+    public void cancel() {
+        Statement running;
+        synchronized (this) {
+            cancelled = true;
+            running = statement;
+        }
+        if (running == null) return;
+        CompletableFuture.runAsync(() -> {
+            try {
+                running.cancel();
+            } catch (SQLException e) {
+                System.err.println("Error cancelling query: " + e.getMessage());
+            }
+        });
+    }
+
+    public static void register(Statement statement) throws SQLException {
+        QueryCanceller canceller = CURRENT.get();
+        if (canceller == null) return;
+        synchronized (canceller) {
+            if (canceller.cancelled) throw new SQLException("Query cancelled");
+            canceller.statement = statement;
+        }
+    }
+
+    public static void unregister(Statement statement) {
+        QueryCanceller canceller = CURRENT.get();
+        if (canceller == null) return;
+        synchronized (canceller) {
+            if (canceller.statement == statement) canceller.statement = null;
+        }
+    }
+
+    // Whether the query this thread is running was cancelled, so its error is expected
+    public static boolean isCancelled() {
+        QueryCanceller canceller = CURRENT.get();
+        return canceller != null && canceller.cancelled;
+    }
+}
@@ -0,0 +1,211 @@
+package com.library.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+// Per-SQL-template latency, row count and error statistics, plus a slow-query log
+public class QueryMetrics {
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^'\\\\]|\\\\.|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final ConcurrentHashMap<String, QueryStats> statsBySql = new ConcurrentHashMap<>();
+    private final LatencyHistogram connectionWait = new LatencyHistogram();
+    private final LongAdder connectionTimeouts = new LongAdder();
+    private volatile long slowQueryThresholdMillis;
+
+    public QueryMetrics(long slowQueryThresholdMillis) {
+        this.slowQueryThresholdMillis = slowQueryThresholdMillis;
+    }
+
+    public static class QueryStats {
+        private final String sql;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        QueryStats(String sql) {
+            this.sql = sql;
+        }
+
+        public String getSql() { return sql; }
+        public LatencyHistogram getLatency() { return latency; }
+        public long getRows() { return rows.sum(); }
+        public long getErrors() { return errors.sum(); }
+    }
+
+    public long getSlowQueryThresholdMillis() { return slowQueryThresholdMillis; }
+    public void setSlowQueryThresholdMillis(long millis) { this.slowQueryThresholdMillis = millis; }
+
+    public LatencyHistogram getConnectionWait() { return connectionWait; }
+    public long getConnectionTimeouts() { return connectionTimeouts.sum(); }
+
+    public List<QueryStats> getQueryStats() {
+        return new ArrayList<>(statsBySql.values());
+    }
+
+    public void reset() {
+        statsBySql.clear();
+    }
+
+    void recordConnectionWait(long nanos, boolean timedOut) {
+        connectionWait.record(nanos);
+        if (timedOut) connectionTimeouts.increment();
+    }
+
+    // Plain-text summary, slowest templates (by total time) first
+    public String report() {
+        List<QueryStats> stats = getQueryStats();
+        stats.sort((a, b) -> Double.compare(
+                b.latency.getMeanMicros() * b.latency.getCount(),
+                a.latency.getMeanMicros() * a.latency.getCount()));
+
+        StringBuilder report = new StringBuilder();
+        report.append("=== DATABASE PERFORMANCE ===\n\n");
+        report.append(String.format("Connection wait: n=%d mean=%.0fus p99=%dus max=%dus timeouts=%d%n%n",
+                connectionWait.getCount(), connectionWait.getMeanMicros(),
+                connectionWait.getPercentileMicros(99), connectionWait.getMaxMicros(), getConnectionTimeouts()));
+
+        for (QueryStats s : stats) {
+            LatencyHistogram h = s.latency;
+            report.append(s.sql).append("\n");
+            report.append(String.format("  calls=%d errors=%d rows=%d mean=%.0fus p50=%dus p95=%dus p99=%dus max=%dus%n",
+                    h.getCount(), s.getErrors(), s.getRows(), h.getMeanMicros(),
+                    h.getPercentileMicros(50), h.getPercentileMicros(95),
+                    h.getPercentileMicros(99), h.getMaxMicros()));
+        }
+        return report.toString();
+    }
+
+    // Wrap a statement so its executions are timed and counted
+    Statement instrument(Statement statement, String sql) {
+        Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class
+                : Statement.class;
+        return (Statement) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                new StatementHandler(statement, sql));
+    }
+
+    private QueryStats statsFor(String sql, boolean adHoc) {
+        String key = sql == null ? "(unknown)" : adHoc ? toTemplate(sql) : sql;
+        return statsBySql.computeIfAbsent(key, QueryStats::new);
+    }
+
+    // Literals are replaced so ad-hoc SQL with different values still groups together
+    static String toTemplate(String sql) {
+        String template = STRING_LITERAL.matcher(sql).replaceAll("?");
+        template = NUMBER_LITERAL.matcher(template).replaceAll("?");
+        return WHITESPACE.matcher(template).replaceAll(" ").trim();
+    }
+
+    private class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final String sql;
+        private final Map<Integer, Object> parameters = new TreeMap<>();
+
+        StatementHandler(Statement target, String sql) {
+            this.target = target;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                parameters.put((Integer) args[0], args[1]);
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            }
+
+            if (!name.startsWith("execute")) {
+                return invokeTarget(method, args);
+            }
+
+            // Statement.execute*(String sql, ...) carries its own, possibly literal-laden, SQL
+            boolean adHoc = args != null && args.length > 0 && args[0] instanceof String;
+            String executedSql = adHoc ? (String) args[0] : sql;
+            QueryStats stats = statsFor(executedSql, adHoc);
+
+            long start = System.nanoTime();
+            try {
+                Object result = invokeTarget(method, args);
+                long elapsed = System.nanoTime() - start;
+                stats.latency.record(elapsed);
+                logIfSlow(executedSql, elapsed);
+
+                if (result instanceof ResultSet) {
+                    return countingResultSet((ResultSet) result, stats);
+                }
+                if (result instanceof Integer) {
+                    stats.rows.add((Integer) result);
+                } else if (result instanceof Long) {
+                    stats.rows.add((Long) result);
+                } else if (result instanceof int[]) {
+                    for (int count : (int[]) result) if (count > 0) stats.rows.add(count);
+                }
+                return result;
+            } catch (Throwable t) {
+                long elapsed = System.nanoTime() - start;
+                stats.latency.record(elapsed);
+                stats.errors.increment();
+                logIfSlow(executedSql, elapsed);
+                throw t;
+            }
+        }
+
+        private Object invokeTarget(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void logIfSlow(String executedSql, long nanos) {
+            long millis = nanos / 1_000_000;
+            long threshold = slowQueryThresholdMillis;
+            if (threshold >= 0 && millis >= threshold) {
+                System.err.println("Slow query (" + millis + "ms): " + executedSql +
+                        (parameters.isEmpty() ? "" : " params=" + parameters.values()));
+            }
+        }
+    }
+
+    // Counts rows as the caller reads them and records the total on close
+    private static ResultSet countingResultSet(ResultSet target, QueryStats stats) {
+        long[] rows = new long[1];
+        boolean[] recorded = new boolean[1];
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.equals("close") && !recorded[0]) {
+                        recorded[0] = true;
+                        stats.rows.add(rows[0]);
+                    }
+                    Object result;
+                    try {
+                        result = method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (name.equals("next") && Boolean.TRUE.equals(result)) {
+                        rows[0]++;
+                    }
+                    return result;
+                });
+    }
+}
@@ -0,0 +1,184 @@
+package com.library.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// LRU cache of prepared statements for one physical connection, keyed by SQL text
+class StatementCache {
+    private final ConnectionPool pool;
+    private final Connection physical;
+    private final int maxSize;
+    private final Map<String, CachedStatement> statements;
+    // Told of every SQLException a statement throws, so the owner can spot a dead connection
+    private final Consumer<SQLException> errorListener;
+
+    StatementCache(ConnectionPool pool, Connection physical, int maxSize, Consumer<SQLException> errorListener) {
+        this.pool = pool;
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.errorListener = errorListener;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    PreparedStatement prepareStatement(Connection lease, String sql) throws SQLException {
+        return (PreparedStatement) checkOut(lease, sql, false);
+    }
+
+    CallableStatement prepareCall(Connection lease, String sql) throws SQLException {
+        return (CallableStatement) checkOut(lease, sql, true);
+    }
+
+    private synchronized Object checkOut(Connection lease, String sql, boolean callable) throws SQLException {
+        String key = (callable ? "C:" : "P:") + sql;
+        CachedStatement cached = statements.get(key);
+
+        if (cached != null && !cached.inUse) {
+            pool.recordStatementCacheHit();
+            cached.inUse = true;
+            return cached.newHandle(lease);
+        }
+
+        pool.recordStatementCacheMiss();
+        PreparedStatement statement;
+        try {
+            statement = callable ? physical.prepareCall(sql) : physical.prepareStatement(sql);
+        } catch (SQLException e) {
+            errorListener.accept(e);
+            throw e;
+        }
+
+        // The same SQL is already checked out on this connection; don't cache the duplicate
+        if (cached != null) {
+            return new CachedStatement(statement, callable, false).newHandle(lease);
+        }
+
+        cached = new CachedStatement(statement, callable, true);
+        cached.inUse = true;
+        statements.put(key, cached);
+        evictIfNeeded();
+        return cached.newHandle(lease);
+    }
+
+    private synchronized void checkIn(CachedStatement cached) {
+        cached.inUse = false;
+        if (!cached.cached) {
+            closeQuietly(cached.statement);
+            return;
+        }
+        // Back to the driver defaults, so no setting leaks to the next borrower; with
+        // useCursorFetch a leftover fetch size would turn its query into a cursor fetch
+        try {
+            cached.statement.clearParameters();
+            cached.statement.clearBatch();
+            cached.statement.clearWarnings();
+            cached.statement.setFetchSize(0);
+            cached.statement.setMaxRows(0);
+            cached.statement.setQueryTimeout(0);
+        } catch (SQLException e) {
+            statements.values().remove(cached);
+            closeQuietly(cached.statement);
+        }
+    }
+
+    private void evictIfNeeded() {
+        Iterator<CachedStatement> it = statements.values().iterator();
+        while (statements.size() > maxSize && it.hasNext()) {
+            CachedStatement eldest = it.next();
+            if (eldest.inUse) {
+                // Close it when it comes back instead
+                eldest.cached = false;
+            } else {
+                closeQuietly(eldest.statement);
+            }
+            it.remove();
+            pool.recordStatementCacheEviction();
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing cached statement: " + e.getMessage());
+        }
+    }
+
+    private class CachedStatement {
+        private final PreparedStatement statement;
+        private final boolean callable;
+        private boolean cached;
+        private boolean inUse;
+
+        CachedStatement(PreparedStatement statement, boolean callable, boolean cached) {
+            this.statement = statement;
+            this.callable = callable;
+            this.cached = cached;
+        }
+
+        Object newHandle(Connection lease) {
+            Class<?> type = callable ? CallableStatement.class : PreparedStatement.class;
+            return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                    new HandleHandler(this, lease));
+        }
+    }
+
+    // A borrower's view of a cached statement; close() returns it to the cache
+    private class HandleHandler implements InvocationHandler {
+        private final CachedStatement target;
+        private final Connection lease;
+        private boolean closed;
+
+        HandleHandler(CachedStatement target, Connection lease) {
+            this.target = target;
+            this.lease = lease;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        checkIn(target);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || target.statement.isClosed();
+                case "cancel":
+                    // The statement may already be running another borrower's query
+                    if (closed) return null;
+                    break;
+                case "getConnection":
+                    return lease;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+
+            if (closed) {
+                throw new SQLException("Statement has already been closed");
+            }
+
+            try {
+                return method.invoke(target.statement, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException) errorListener.accept((SQLException) cause);
+                throw cause;
+            }
+        }
+    }
+}
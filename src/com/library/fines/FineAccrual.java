@@ -0,0 +1,58 @@
+package com.library.fines;
+
+import com.library.dao.TransactionRepository;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+
+// Nightly fine accrual for loans marked Overdue, computed over primitive arrays and written in batches
+public class FineAccrual {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final TransactionRepository transactions;
+    private final FineSchedule schedule;
+
+    public FineAccrual(TransactionRepository transactions, FineSchedule schedule) {
+        this.transactions = transactions;
+        this.schedule = schedule;
+    }
+
+    public FineSchedule getSchedule() {
+        return schedule;
+    }
+
+    // The loans of one run as parallel arrays, grown by doubling
+    private static class Loans {
+        int[] ids = new int[INITIAL_CAPACITY];
+        int[] policies = new int[INITIAL_CAPACITY];
+        int[] daysOverdue = new int[INITIAL_CAPACITY];
+        int count;
+
+        void add(int transactionId, int policy, int days) {
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+                policies = Arrays.copyOf(policies, count * 2);
+                daysOverdue = Arrays.copyOf(daysOverdue, count * 2);
+            }
+            ids[count] = transactionId;
+            policies[count] = policy;
+            daysOverdue[count] = days;
+            count++;
+        }
+    }
+
+    // The number of loans whose fine was written, or -1 if they could not be read or written
+    public int run(LocalDate today) {
+        Loans loans = new Loans();
+        boolean read = transactions.forEachOverdueLoan((transactionId, dueDate, category, maxBooksAllowed) -> {
+            long days = dueDate == null ? 0 : ChronoUnit.DAYS.between(dueDate.toLocalDate(), today);
+            loans.add(transactionId, schedule.policyFor(category, maxBooksAllowed), (int) Math.max(0, days));
+        });
+        if (!read) return -1;
+
+        double[] fines = new double[loans.count];
+        schedule.fineAll(loans.policies, loans.daysOverdue, fines, loans.count);
+        return transactions.updateFines(loans.ids, fines, loans.count);
+    }
+}
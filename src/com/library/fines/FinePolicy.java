@@ -0,0 +1,40 @@
+package com.library.fines;
+
+// How one kind of loan is fined: a daily rate after a grace period, up to an optional cap
+public class FinePolicy {
+    private final double dailyRate;
+    private final int graceDays;
+    // 0 for no cap
+    private final double maxFine;
+
+    public FinePolicy(double dailyRate, int graceDays, double maxFine) {
+        this.dailyRate = Math.max(0.0, dailyRate);
+        this.graceDays = Math.max(0, graceDays);
+        this.maxFine = Math.max(0.0, maxFine);
+    }
+
+    // "rate", "rate,graceDays" or "rate,graceDays,maxFine"; null if it cannot be read
+    public static FinePolicy parse(String text) {
+        if (text == null) return null;
+        String[] parts = text.split(",");
+        try {
+            double rate = Double.parseDouble(parts[0].trim());
+            int grace = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 0;
+            double cap = parts.length > 2 ? Double.parseDouble(parts[2].trim()) : 0.0;
+            return new FinePolicy(rate, grace, cap);
+        } catch (NumberFormatException e) {
+            System.out.println("Error reading fine policy '" + text + "': " + e.getMessage());
+            return null;
+        }
+    }
+
+    public double getDailyRate() { return dailyRate; }
+    public int getGraceDays() { return graceDays; }
+    public double getMaxFine() { return maxFine; }
+
+    @Override
+    public String toString() {
+        return String.format("$%.2f/day after %d days%s", dailyRate, graceDays,
+                maxFine > 0 ? String.format(", at most $%.2f", maxFine) : "");
+    }
+}
@@ -0,0 +1,135 @@
+package com.library.fines;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+// Which FinePolicy applies to a loan: its book's category, else its member's tier, else the default
+public class FineSchedule {
+    // -Dlibrary.fine.default=0.50 -Dlibrary.fine.category.Reference=1.00,0,20
+    // -Dlibrary.fine.tier.10=0.25,3 (rate, grace days, cap; 0 is no cap)
+    public static final String PROPERTY_PREFIX = "library.fine.";
+    private static final String DEFAULT_POLICY = "0.50";
+
+    private final List<FinePolicy> policies = new ArrayList<>();
+    private final Map<String, Integer> byCategory = new HashMap<>();
+    private final int[] tierMinBooks;
+    private final int[] tierPolicies;
+
+    private final double[] rates;
+    private final int[] graceDays;
+    private final double[] caps;
+
+    // tiers are keyed by the fewest books a member of the tier may borrow
+    public FineSchedule(FinePolicy defaultPolicy, Map<String, FinePolicy> categories, Map<Integer, FinePolicy> tiers) {
+        policies.add(defaultPolicy);
+        for (Map.Entry<String, FinePolicy> entry : categories.entrySet()) {
+            byCategory.put(entry.getKey().toLowerCase(Locale.ROOT), policies.size());
+            policies.add(entry.getValue());
+        }
+
+        // Highest threshold first, so the first match is the member's tier
+        List<Integer> thresholds = new ArrayList<>(tiers.keySet());
+        thresholds.sort(Collections.reverseOrder());
+        tierMinBooks = new int[thresholds.size()];
+        tierPolicies = new int[thresholds.size()];
+        for (int i = 0; i < thresholds.size(); i++) {
+            tierMinBooks[i] = thresholds.get(i);
+            tierPolicies[i] = policies.size();
+            policies.add(tiers.get(thresholds.get(i)));
+        }
+
+        rates = new double[policies.size()];
+        graceDays = new int[policies.size()];
+        caps = new double[policies.size()];
+        for (int i = 0; i < policies.size(); i++) {
+            rates[i] = policies.get(i).getDailyRate();
+            graceDays[i] = policies.get(i).getGraceDays();
+            caps[i] = policies.get(i).getMaxFine();
+        }
+    }
+
+    // The same rate for every loan, with no grace period or cap
+    public static FineSchedule flat(double perDay) {
+        return new FineSchedule(new FinePolicy(perDay, 0, 0.0), new HashMap<>(), new HashMap<>());
+    }
+
+    public static FineSchedule fromSystemProperties() {
+        Properties properties = System.getProperties();
+        FinePolicy defaultPolicy = FinePolicy.parse(properties.getProperty(PROPERTY_PREFIX + "default", DEFAULT_POLICY));
+        if (defaultPolicy == null) defaultPolicy = FinePolicy.parse(DEFAULT_POLICY);
+
+        Map<String, FinePolicy> categories = new HashMap<>();
+        Map<Integer, FinePolicy> tiers = new HashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            if (!name.startsWith(PROPERTY_PREFIX)) continue;
+            String key = name.substring(PROPERTY_PREFIX.length());
+            FinePolicy policy = FinePolicy.parse(properties.getProperty(name));
+            if (policy == null) continue;
+
+            if (key.startsWith("category.")) {
+                categories.put(key.substring("category.".length()), policy);
+            } else if (key.startsWith("tier.")) {
+                try {
+                    tiers.put(Integer.parseInt(key.substring("tier.".length())), policy);
+                } catch (NumberFormatException e) {
+                    System.out.println("Error reading fine tier '" + name + "': " + e.getMessage());
+                }
+            }
+        }
+        return new FineSchedule(defaultPolicy, categories, tiers);
+    }
+
+    // The number of the policy for a loan of a book in category to a member allowed maxBooksAllowed books
+    public int policyFor(String category, int maxBooksAllowed) {
+        if (category != null) {
+            Integer policy = byCategory.get(category.toLowerCase(Locale.ROOT));
+            if (policy != null) return policy;
+        }
+        for (int i = 0; i < tierMinBooks.length; i++) {
+            if (maxBooksAllowed >= tierMinBooks[i]) return tierPolicies[i];
+        }
+        return 0;
+    }
+
+    public FinePolicy getPolicy(int policy) {
+        return policies.get(policy);
+    }
+
+    public double fine(int policy, long daysOverdue) {
+        long billable = daysOverdue - graceDays[policy];
+        if (billable <= 0) return 0.0;
+        double fine = billable * rates[policy];
+        return caps[policy] > 0 ? Math.min(fine, caps[policy]) : fine;
+    }
+
+    // fines[i] = the fine for count loans under policies[i] overdue by daysOverdue[i] days
+    public void fineAll(int[] policies, int[] daysOverdue, double[] fines, int count) {
+        for (int i = 0; i < count; i++) {
+            int policy = policies[i];
+            int billable = daysOverdue[i] - graceDays[policy];
+            if (billable <= 0) {
+                fines[i] = 0.0;
+            } else {
+                double fine = billable * rates[policy];
+                fines[i] = caps[policy] > 0 && fine > caps[policy] ? caps[policy] : fine;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("Default: ").append(policies.get(0));
+        for (Map.Entry<String, Integer> entry : byCategory.entrySet()) {
+            text.append(String.format("%nCategory %s: %s", entry.getKey(), policies.get(entry.getValue())));
+        }
+        for (int i = 0; i < tierMinBooks.length; i++) {
+            text.append(String.format("%nMembers allowed %d+ books: %s", tierMinBooks[i], policies.get(tierPolicies[i])));
+        }
+        return text.toString();
+    }
+}
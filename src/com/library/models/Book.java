@@ -31,6 +31,13 @@ public class Book {
         this.status = status;
     }
 
+    // Copy constructor
+    public Book(Book other) {
+        this(other.bookId, other.title, other.author, other.isbn, other.publicationYear,
+                other.category, other.totalCopies, other.availableCopies, other.status);
+        this.createdAt = other.createdAt;
+    }
+
     // Getters and Setters
     public int getBookId() { return bookId; }
     public void setBookId(int bookId) { this.bookId = bookId; }
@@ -61,4 +68,4 @@ public class Book {
 
     public Date getCreatedAt() { return createdAt; }
     public void setCreatedAt(Date createdAt) { this.createdAt = createdAt; }
-}
\ No newline at end of file
+}
\ No newline at end of file
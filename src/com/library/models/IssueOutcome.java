@@ -0,0 +1,47 @@
+package com.library.models;
+
+// What happened to one book of a batch checkout
+public class IssueOutcome {
+    public enum Status {
+        ISSUED,
+        // IssueBook said no (book unavailable, member at their limit) or the call failed
+        REFUSED,
+        // Issued, then undone because another book of an all-or-nothing batch was refused
+        ROLLED_BACK,
+        // Not tried because an all-or-nothing batch had already failed
+        SKIPPED
+    }
+
+    private final int bookId;
+    private final Status status;
+    private final int transactionId;
+    private final String message;
+
+    public IssueOutcome(int bookId, Status status, int transactionId, String message) {
+        this.bookId = bookId;
+        this.status = status;
+        this.transactionId = transactionId;
+        this.message = message;
+    }
+
+    public int getBookId() { return bookId; }
+    public Status getStatus() { return status; }
+    // The new loan's id when ISSUED, otherwise 0
+    public int getTransactionId() { return transactionId; }
+    public String getMessage() { return message; }
+
+    public boolean isIssued() { return status == Status.ISSUED; }
+
+    public IssueOutcome withStatus(Status status, String message) {
+        return new IssueOutcome(bookId, status, 0, message);
+    }
+
+    public IssueOutcome withTransactionId(int transactionId) {
+        return new IssueOutcome(bookId, status, transactionId, message);
+    }
+
+    @Override
+    public String toString() {
+        return "Book #" + bookId + ": " + status + (message == null ? "" : " (" + message + ")");
+    }
+}
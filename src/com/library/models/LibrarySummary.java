@@ -0,0 +1,22 @@
+package com.library.models;
+
+// Headline numbers shown on the dashboard and in the statistics report
+public class LibrarySummary {
+    private final int totalBooks;
+    private final int availableBooks;
+    private final int activeMembers;
+    private final int overdueBooks;
+
+    public LibrarySummary(int totalBooks, int availableBooks, int activeMembers, int overdueBooks) {
+        this.totalBooks = totalBooks;
+        this.availableBooks = availableBooks;
+        this.activeMembers = activeMembers;
+        this.overdueBooks = overdueBooks;
+    }
+
+    public int getTotalBooks() { return totalBooks; }
+    public int getAvailableBooks() { return availableBooks; }
+    public int getBorrowedBooks() { return totalBooks - availableBooks; }
+    public int getActiveMembers() { return activeMembers; }
+    public int getOverdueBooks() { return overdueBooks; }
+}
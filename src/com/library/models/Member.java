@@ -39,6 +39,12 @@ public class Member {
         this.maxBooksAllowed = maxBooksAllowed;
     }
 
+    // Copy constructor
+    public Member(Member other) {
+        this(other.memberId, other.name, other.email, other.phone,
+                other.address, other.joinDate, other.status, other.maxBooksAllowed);
+    }
+
     // Getters and Setters
     public int getMemberId() { return memberId; }
     public void setMemberId(int memberId) { this.memberId = memberId; }
@@ -0,0 +1,43 @@
+package com.library.models;
+
+// What happened to one scanned loan of a bulk return
+public class ReturnOutcome {
+    private final int transactionId;
+    private final int bookId;
+    private final int memberId;
+    private final boolean returned;
+    private final double fine;
+    // Counted by countOverdue until it was returned (marked Overdue)
+    private final boolean overdue;
+    private final String message;
+
+    public ReturnOutcome(int transactionId, int bookId, int memberId, boolean returned,
+                         double fine, boolean overdue, String message) {
+        this.transactionId = transactionId;
+        this.bookId = bookId;
+        this.memberId = memberId;
+        this.returned = returned;
+        this.fine = fine;
+        this.overdue = overdue;
+        this.message = message;
+    }
+
+    public static ReturnOutcome failed(int transactionId, String message) {
+        return new ReturnOutcome(transactionId, 0, 0, false, 0.0, false, message);
+    }
+
+    public int getTransactionId() { return transactionId; }
+    public int getBookId() { return bookId; }
+    public int getMemberId() { return memberId; }
+    public boolean isReturned() { return returned; }
+    public double getFine() { return fine; }
+    public boolean isOverdue() { return overdue; }
+    public String getMessage() { return message; }
+
+    @Override
+    public String toString() {
+        if (returned) return String.format("Transaction #%d: returned, fine $%.2f", transactionId, fine);
+        // A scan that was not a transaction id has none
+        return transactionId > 0 ? "Transaction #" + transactionId + ": " + message : message;
+    }
+}
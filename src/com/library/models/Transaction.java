@@ -45,6 +45,14 @@ public class Transaction {
         this.fineAmount = 0.0;
     }
 
+    // Copy constructor
+    public Transaction(Transaction other) {
+        this(other.transactionId, other.bookId, other.memberId, other.issueDate,
+                other.dueDate, other.returnDate, other.fineAmount, other.status, other.notes);
+        this.bookTitle = other.bookTitle;
+        this.memberName = other.memberName;
+    }
+
     // Getters and Setters
     public int getTransactionId() { return transactionId; }
     public void setTransactionId(int transactionId) { this.transactionId = transactionId; }
@@ -124,4 +132,4 @@ public class Transaction {
                 ", notes='" + notes + '\'' +
                 '}';
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,276 @@
+package com.library.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+// Prefix completion over titles, authors and names, matched from any of their first few words
+public class AutocompleteIndex {
+    private static final int MAX_WORD_KEYS = 4;
+    // Short prefixes match huge ranges; only this many keys are looked at
+    private static final int MAX_SCAN = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private String[] keys = new String[1024];
+    private String[] completions = new String[1024];
+    private int size;
+    private final Map<String, Integer> references = new HashMap<>();
+    private final Map<Integer, String[]> textsByOwner = new HashMap<>();
+
+    private volatile boolean ready;
+    private boolean building;
+    private final Set<Integer> removedWhileBuilding = new HashSet<>();
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Full load. Owners written while loading keep their newer texts. The index is
+    // ready once items have been read to the end, even if there were none; if
+    // reading them throws, the exception is passed on and nothing is merged.
+    public <T> void build(Iterable<T> items, ToIntFunction<T> ownerId, Function<T, String[]> texts) {
+        lock.writeLock().lock();
+        try {
+            building = true;
+            removedWhileBuilding.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        // Collect outside the lock; only the merge below blocks lookups
+        Map<Integer, String[]> loaded = new HashMap<>();
+        try {
+            for (T item : items) {
+                loaded.put(ownerId.applyAsInt(item), normalizeTexts(texts.apply(item)));
+            }
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                building = false;
+                removedWhileBuilding.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            List<String> added = new ArrayList<>();
+            for (Map.Entry<Integer, String[]> entry : loaded.entrySet()) {
+                int owner = entry.getKey();
+                if (textsByOwner.containsKey(owner) || removedWhileBuilding.contains(owner)) continue;
+                textsByOwner.put(owner, entry.getValue());
+                for (String text : entry.getValue()) {
+                    if (references.merge(text, 1, Integer::sum) == 1) added.add(text);
+                }
+            }
+            mergeSorted(added);
+
+            building = false;
+            removedWhileBuilding.clear();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Add or replace many owners at once, merging their keys with one sort
+    // rather than shifting the key array for every key
+    public <T> void putAll(Iterable<T> items, ToIntFunction<T> ownerId, Function<T, String[]> texts) {
+        Map<Integer, String[]> normalized = new HashMap<>();
+        for (T item : items) {
+            normalized.put(ownerId.applyAsInt(item), normalizeTexts(texts.apply(item)));
+        }
+
+        lock.writeLock().lock();
+        try {
+            List<String> added = new ArrayList<>();
+            for (Map.Entry<Integer, String[]> entry : normalized.entrySet()) {
+                String[] previous = textsByOwner.put(entry.getKey(), entry.getValue());
+                if (previous != null) release(previous);
+                for (String text : entry.getValue()) {
+                    if (references.merge(text, 1, Integer::sum) == 1) added.add(text);
+                }
+            }
+            mergeSorted(added);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Add or replace the texts an owner contributes
+    public void put(int ownerId, String... texts) {
+        String[] normalized = normalizeTexts(texts);
+        lock.writeLock().lock();
+        try {
+            String[] previous = textsByOwner.put(ownerId, normalized);
+            if (previous != null) release(previous);
+            for (String text : normalized) {
+                if (references.merge(text, 1, Integer::sum) == 1) insert(text);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int ownerId) {
+        lock.writeLock().lock();
+        try {
+            String[] previous = textsByOwner.remove(ownerId);
+            if (previous != null) release(previous);
+            if (building) removedWhileBuilding.add(ownerId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Up to limit completions for what the user has typed so far, most referenced first
+    public List<String> complete(String prefix, int limit) {
+        String key = normalizeKey(prefix);
+        if (key.isEmpty() || limit <= 0) return new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            Comparator<String> byRank = Comparator.comparingInt((String c) -> references.get(c))
+                    .thenComparingInt(c -> -c.length())
+                    .thenComparing(Comparator.reverseOrder());
+
+            // Min-heap of the best `limit` completions seen so far
+            PriorityQueue<String> best = new PriorityQueue<>(limit + 1, byRank);
+            Set<String> seen = new HashSet<>();
+            int start = lowerBound(key);
+            int end = Math.min(size, start + MAX_SCAN);
+            for (int i = start; i < end && keys[i].startsWith(key); i++) {
+                String completion = completions[i];
+                if (!seen.add(completion)) continue;
+                if (best.size() < limit) {
+                    best.add(completion);
+                } else if (byRank.compare(completion, best.peek()) > 0) {
+                    best.poll();
+                    best.add(completion);
+                }
+            }
+
+            String[] ranked = new String[best.size()];
+            for (int i = ranked.length - 1; i >= 0; i--) {
+                ranked[i] = best.poll();
+            }
+            return new ArrayList<>(Arrays.asList(ranked));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void release(String[] texts) {
+        for (String text : texts) {
+            Integer count = references.get(text);
+            if (count == null) continue;
+            if (count == 1) {
+                references.remove(text);
+                delete(text);
+            } else {
+                references.put(text, count - 1);
+            }
+        }
+    }
+
+    private void insert(String completion) {
+        for (String key : keysFor(completion)) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                completions = Arrays.copyOf(completions, size * 2);
+            }
+            int at = lowerBound(key);
+            System.arraycopy(keys, at, keys, at + 1, size - at);
+            System.arraycopy(completions, at, completions, at + 1, size - at);
+            keys[at] = key;
+            completions[at] = completion;
+            size++;
+        }
+    }
+
+    private void delete(String completion) {
+        for (String key : keysFor(completion)) {
+            for (int i = lowerBound(key); i < size && keys[i].equals(key); i++) {
+                if (completions[i].equals(completion)) {
+                    System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+                    System.arraycopy(completions, i + 1, completions, i, size - i - 1);
+                    size--;
+                    keys[size] = null;
+                    completions[size] = null;
+                    break;
+                }
+            }
+        }
+    }
+
+    // Bulk insert: one sort instead of an array shift per key
+    private void mergeSorted(List<String> added) {
+        if (added.isEmpty()) return;
+        List<String[]> entries = new ArrayList<>(size + added.size() * 2);
+        for (int i = 0; i < size; i++) {
+            entries.add(new String[]{keys[i], completions[i]});
+        }
+        for (String completion : added) {
+            for (String key : keysFor(completion)) {
+                entries.add(new String[]{key, completion});
+            }
+        }
+        entries.sort((a, b) -> a[0].compareTo(b[0]));
+
+        int capacity = Math.max(1024, entries.size());
+        keys = new String[capacity];
+        completions = new String[capacity];
+        size = entries.size();
+        for (int i = 0; i < size; i++) {
+            keys[i] = entries.get(i)[0];
+            completions[i] = entries.get(i)[1];
+        }
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private static Set<String> keysFor(String completion) {
+        Set<String> result = new LinkedHashSet<>();
+        List<String> words = TextAnalyzer.tokenize(completion);
+        for (int i = 0; i < words.size() && i < MAX_WORD_KEYS; i++) {
+            result.add(String.join(" ", words.subList(i, words.size())));
+        }
+        return result;
+    }
+
+    private static String normalizeKey(String text) {
+        return String.join(" ", TextAnalyzer.tokenize(text));
+    }
+
+    private static String[] normalizeTexts(String[] texts) {
+        Set<String> result = new LinkedHashSet<>();
+        if (texts != null) {
+            for (String text : texts) {
+                if (text != null && !normalizeKey(text).isEmpty()) result.add(text.trim());
+            }
+        }
+        return result.toArray(new String[0]);
+    }
+}
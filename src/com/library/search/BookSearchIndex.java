@@ -0,0 +1,383 @@
+package com.library.search;
+
+import com.library.models.Book;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-process inverted index over the book catalog with BM25 ranking
+public class BookSearchIndex {
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final float TITLE_BOOST = 3.0f;
+    private static final float AUTHOR_BOOST = 2.0f;
+    private static final float CATEGORY_BOOST = 1.0f;
+    private static final float ISBN_BOOST = 1.0f;
+    // The last word of a query is usually still being typed, so it also matches as a prefix
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final float PREFIX_WEIGHT = 0.6f;
+    private static final int MAX_QUERY_TERMS = 31;
+    // Fuzzy matches score below exact ones: weight 1 / (1 + edit distance)
+    private static final int MAX_FUZZY_EXPANSIONS = 16;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final TrigramIndex trigrams = new TrigramIndex();
+    private final Map<Integer, Integer> docByBookId = new HashMap<>();
+    private final Map<Integer, Book> books = new HashMap<>();
+    private int[] docBookIds = new int[1024];
+    private float[] docLengths = new float[1024];
+    private final BitSet deletedDocs = new BitSet();
+    private int docCount;
+    private int liveDocs;
+    private int deletedCount;
+    private double totalLength;
+
+    private volatile boolean ready;
+    private boolean building;
+    private final Set<Integer> removedWhileBuilding = new HashSet<>();
+
+    private final ThreadLocal<Accumulator> accumulators = ThreadLocal.withInitial(Accumulator::new);
+
+    // Term postings: parallel arrays of document numbers and weighted term frequencies
+    private static class Postings {
+        int[] docs = new int[4];
+        float[] freqs = new float[4];
+        int size;
+
+        void add(int doc, float freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+        }
+    }
+
+    // Per-thread score buffers, reused across queries to avoid allocating per search
+    private static class Accumulator {
+        float[] scores = new float[0];
+        int[] masks = new int[0];
+        int[] touched = new int[0];
+        int touchedCount;
+
+        void ensureCapacity(int docs) {
+            if (scores.length < docs) {
+                int capacity = Math.max(docs, scores.length * 2);
+                scores = new float[capacity];
+                masks = new int[capacity];
+                touched = new int[capacity];
+            }
+        }
+
+        void add(int doc, float score, int queryTermBit) {
+            if (masks[doc] == 0) touched[touchedCount++] = doc;
+            scores[doc] += score;
+            masks[doc] |= queryTermBit;
+        }
+
+        void clear() {
+            for (int i = 0; i < touchedCount; i++) {
+                scores[touched[i]] = 0f;
+                masks[touched[i]] = 0;
+            }
+            touchedCount = 0;
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Full load from the database. Writes that arrive while loading win over the
+    // (possibly older) rows being loaded. The index becomes ready only once the
+    // catalog has been read to the end, even if it is empty; if reading it throws,
+    // the exception is passed on and the index stays as ready as it was.
+    public void build(Iterable<Book> catalog) {
+        lock.writeLock().lock();
+        try {
+            building = true;
+            removedWhileBuilding.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        boolean loaded = false;
+        try {
+            List<Book> batch = new ArrayList<>(1000);
+            for (Book book : catalog) {
+                batch.add(book);
+                if (batch.size() == 1000) {
+                    loadBatch(batch);
+                    batch.clear();
+                }
+            }
+            loadBatch(batch);
+            loaded = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                building = false;
+                removedWhileBuilding.clear();
+                if (loaded) ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void loadBatch(List<Book> batch) {
+        lock.writeLock().lock();
+        try {
+            for (Book book : batch) {
+                if (!docByBookId.containsKey(book.getBookId())
+                        && !removedWhileBuilding.contains(book.getBookId())) {
+                    addDocument(new Book(book));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Add or replace a book
+    public void put(Book book) {
+        if (book == null || book.getBookId() <= 0) return;
+        lock.writeLock().lock();
+        try {
+            removeDocument(book.getBookId());
+            addDocument(new Book(book));
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int bookId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(bookId);
+            if (building) removedWhileBuilding.add(bookId);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Book getBook(int bookId) {
+        lock.readLock().lock();
+        try {
+            Book book = books.get(bookId);
+            return book == null ? null : new Book(book);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Ranked search; documents matching more query words come first, then by BM25 score
+    public List<Book> search(String query, int limit) {
+        List<String> queryTerms = queryTerms(query);
+        if (queryTerms.isEmpty() || limit <= 0) return new ArrayList<>();
+
+        lock.readLock().lock();
+        Accumulator acc = accumulators.get();
+        try {
+            acc.ensureCapacity(docCount);
+            float avgLength = liveDocs == 0 ? 1f : (float) (totalLength / liveDocs);
+
+            for (int q = 0; q < queryTerms.size(); q++) {
+                String term = queryTerms.get(q);
+                int bit = 1 << q;
+                Postings exact = terms.get(term);
+                if (exact != null) score(exact, 1f, bit, avgLength, acc);
+
+                if (q == queryTerms.size() - 1) {
+                    int expansions = 0;
+                    SortedMap<String, Postings> prefixed = terms.subMap(term + Character.MIN_VALUE, term + Character.MAX_VALUE);
+                    for (Postings postings : prefixed.values()) {
+                        if (expansions++ == MAX_PREFIX_EXPANSIONS) break;
+                        score(postings, PREFIX_WEIGHT, bit, avgLength, acc);
+                    }
+                }
+            }
+
+            return topResults(acc, limit);
+        } finally {
+            acc.clear();
+            lock.readLock().unlock();
+        }
+    }
+
+    // Typo-tolerant search: each query word also matches indexed words within a
+    // small edit distance ("Tolkein" finds "Tolkien"), found through the trigram
+    // index rather than by scanning the vocabulary
+    public List<Book> fuzzySearch(String query, int limit) {
+        List<String> queryTerms = queryTerms(query);
+        if (queryTerms.isEmpty() || limit <= 0) return new ArrayList<>();
+
+        lock.readLock().lock();
+        Accumulator acc = accumulators.get();
+        try {
+            acc.ensureCapacity(docCount);
+            float avgLength = liveDocs == 0 ? 1f : (float) (totalLength / liveDocs);
+
+            for (int q = 0; q < queryTerms.size(); q++) {
+                String term = queryTerms.get(q);
+                int bit = 1 << q;
+                Postings exact = terms.get(term);
+                if (exact != null) score(exact, 1f, bit, avgLength, acc);
+
+                int expansions = 0;
+                for (TrigramIndex.Match match : trigrams.findSimilar(term)) {
+                    if (match.distance == 0) continue;
+                    if (expansions++ == MAX_FUZZY_EXPANSIONS) break;
+                    score(terms.get(match.term), 1f / (1 + match.distance), bit, avgLength, acc);
+                }
+            }
+
+            return topResults(acc, limit);
+        } finally {
+            acc.clear();
+            lock.readLock().unlock();
+        }
+    }
+
+    private static List<String> queryTerms(String query) {
+        List<String> queryTerms = TextAnalyzer.looksLikeIsbn(query)
+                ? new ArrayList<>(Arrays.asList(TextAnalyzer.compactIsbn(query)))
+                : TextAnalyzer.tokenize(query);
+        return queryTerms.size() > MAX_QUERY_TERMS ? queryTerms.subList(0, MAX_QUERY_TERMS) : queryTerms;
+    }
+
+    private void score(Postings postings, float weight, int bit, float avgLength, Accumulator acc) {
+        float idf = (float) Math.log(1 + (liveDocs - postings.size + 0.5) / (postings.size + 0.5));
+        if (idf <= 0f) idf = 0.01f;
+
+        for (int i = 0; i < postings.size; i++) {
+            int doc = postings.docs[i];
+            if (deletedDocs.get(doc)) continue;
+            float tf = postings.freqs[i];
+            float norm = K1 * (1 - B + B * docLengths[doc] / avgLength);
+            acc.add(doc, weight * idf * tf * (K1 + 1) / (tf + norm), bit);
+        }
+    }
+
+    private List<Book> topResults(Accumulator acc, int limit) {
+        // Min-heap holding the best `limit` documents seen so far
+        PriorityQueue<Integer> heap = new PriorityQueue<>(limit + 1, (a, b) -> compareDocs(acc, a, b));
+        for (int i = 0; i < acc.touchedCount; i++) {
+            int doc = acc.touched[i];
+            if (heap.size() < limit) {
+                heap.add(doc);
+            } else if (compareDocs(acc, doc, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(doc);
+            }
+        }
+
+        Book[] ranked = new Book[heap.size()];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = new Book(books.get(docBookIds[heap.poll()]));
+        }
+        return new ArrayList<>(Arrays.asList(ranked));
+    }
+
+    private static int compareDocs(Accumulator acc, int a, int b) {
+        int byMatches = Integer.compare(Integer.bitCount(acc.masks[a]), Integer.bitCount(acc.masks[b]));
+        return byMatches != 0 ? byMatches : Float.compare(acc.scores[a], acc.scores[b]);
+    }
+
+    private void addDocument(Book book) {
+        Map<String, Float> frequencies = new HashMap<>();
+        float length = 0;
+        length += addField(frequencies, TextAnalyzer.tokenize(book.getTitle()), TITLE_BOOST);
+        length += addField(frequencies, TextAnalyzer.tokenize(book.getAuthor()), AUTHOR_BOOST);
+        length += addField(frequencies, TextAnalyzer.tokenize(book.getCategory()), CATEGORY_BOOST);
+        String compactIsbn = TextAnalyzer.compactIsbn(book.getIsbn());
+        if (!compactIsbn.isEmpty()) {
+            length += addField(frequencies, Arrays.asList(compactIsbn), ISBN_BOOST);
+        }
+
+        int doc = docCount++;
+        if (doc == docBookIds.length) {
+            docBookIds = Arrays.copyOf(docBookIds, doc * 2);
+            docLengths = Arrays.copyOf(docLengths, doc * 2);
+        }
+        docBookIds[doc] = book.getBookId();
+        docLengths[doc] = length;
+
+        for (Map.Entry<String, Float> entry : frequencies.entrySet()) {
+            Postings postings = terms.get(entry.getKey());
+            if (postings == null) {
+                postings = new Postings();
+                terms.put(entry.getKey(), postings);
+                // ISBNs and other numbers are not spelled, so they stay out of the fuzzy vocabulary
+                if (!Character.isDigit(entry.getKey().charAt(0))) trigrams.add(entry.getKey());
+            }
+            postings.add(doc, entry.getValue());
+        }
+
+        docByBookId.put(book.getBookId(), doc);
+        books.put(book.getBookId(), book);
+        liveDocs++;
+        totalLength += length;
+    }
+
+    private static float addField(Map<String, Float> frequencies, List<String> tokens, float boost) {
+        for (String token : tokens) {
+            frequencies.merge(token, boost, Float::sum);
+        }
+        return tokens.size() * boost;
+    }
+
+    private void removeDocument(int bookId) {
+        Integer doc = docByBookId.remove(bookId);
+        if (doc == null) return;
+        books.remove(bookId);
+        deletedDocs.set(doc);
+        deletedCount++;
+        liveDocs--;
+        totalLength -= docLengths[doc];
+    }
+
+    // Rebuild postings without deleted documents once they make up a quarter of the index
+    private void compactIfNeeded() {
+        if (deletedCount < 1000 || deletedCount < liveDocs / 3) return;
+
+        List<Book> live = new ArrayList<>(books.values());
+        terms.clear();
+        trigrams.clear();
+        docByBookId.clear();
+        books.clear();
+        deletedDocs.clear();
+        docCount = 0;
+        liveDocs = 0;
+        deletedCount = 0;
+        totalLength = 0;
+        for (Book book : live) {
+            addDocument(book);
+        }
+    }
+}
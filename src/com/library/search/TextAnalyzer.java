@@ -0,0 +1,59 @@
+package com.library.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+// Turns catalog text into lower-case index terms without diacritics
+public final class TextAnalyzer {
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private TextAnalyzer() {}
+
+    public static String fold(String text) {
+        if (text == null) return "";
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        String folded = fold(text);
+
+        int start = -1;
+        for (int i = 0; i < folded.length(); i++) {
+            if (Character.isLetterOrDigit(folded.charAt(i))) {
+                if (start < 0) start = i;
+            } else if (start >= 0) {
+                tokens.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        if (start >= 0) tokens.add(folded.substring(start));
+        return tokens;
+    }
+
+    // ISBNs are indexed without hyphens or spaces so "978-0-26" and "978026" both match
+    public static String compactIsbn(String isbn) {
+        if (isbn == null) return "";
+        StringBuilder compact = new StringBuilder(isbn.length());
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (Character.isDigit(c)) compact.append(c);
+            else if (c == 'x' || c == 'X') compact.append('x');
+        }
+        return compact.toString();
+    }
+
+    public static boolean looksLikeIsbn(String text) {
+        String trimmed = text.trim();
+        if (trimmed.isEmpty()) return false;
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (!Character.isDigit(c) && c != '-' && c != ' ' && c != 'x' && c != 'X') return false;
+        }
+        return compactIsbn(trimmed).length() >= 4;
+    }
+}
@@ -0,0 +1,157 @@
+package com.library.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Trigram index for finding terms within a small edit distance of a misspelled word; not thread-safe
+class TrigramIndex {
+    // One edit can change at most this many trigrams: an adjacent transposition
+    // touches every trigram covering either of the two characters
+    private static final int GRAMS_PER_EDIT = 4;
+
+    private final List<String> terms = new ArrayList<>();
+    private final Map<String, Integer> termIds = new HashMap<>();
+    // Term ids by term length, for words too short for the trigram filter
+    private final Map<Integer, List<Integer>> termsByLength = new HashMap<>();
+    private final Map<String, int[]> postings = new HashMap<>();
+    private final Map<String, Integer> postingSizes = new HashMap<>();
+
+    static class Match {
+        final String term;
+        final int distance;
+
+        Match(String term, int distance) {
+            this.term = term;
+            this.distance = distance;
+        }
+    }
+
+    void add(String term) {
+        if (termIds.containsKey(term)) return;
+        int id = terms.size();
+        terms.add(term);
+        termIds.put(term, id);
+        termsByLength.computeIfAbsent(term.length(), k -> new ArrayList<>()).add(id);
+
+        for (String gram : trigrams(term)) {
+            int size = postingSizes.getOrDefault(gram, 0);
+            int[] ids = postings.get(gram);
+            if (ids == null) {
+                ids = new int[4];
+            } else if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size] = id;
+            postings.put(gram, ids);
+            postingSizes.put(gram, size + 1);
+        }
+    }
+
+    void clear() {
+        terms.clear();
+        termIds.clear();
+        termsByLength.clear();
+        postings.clear();
+        postingSizes.clear();
+    }
+
+    // Terms within the allowed edit distance of word, closest first
+    List<Match> findSimilar(String word) {
+        int maxDistance = maxDistanceFor(word);
+        List<Integer> candidates = new ArrayList<>();
+
+        // A term within maxDistance edits shares at least this many trigrams with the
+        // word (q-gram lemma), and the lengths differ by at most maxDistance
+        Set<String> grams = trigrams(word);
+        int minShared = grams.size() - GRAMS_PER_EDIT * maxDistance;
+        if (minShared > 0) {
+            Map<Integer, Integer> shared = new HashMap<>();
+            for (String gram : grams) {
+                int[] ids = postings.get(gram);
+                if (ids == null) continue;
+                int size = postingSizes.get(gram);
+                for (int i = 0; i < size; i++) {
+                    shared.merge(ids[i], 1, Integer::sum);
+                }
+            }
+            for (Map.Entry<Integer, Integer> entry : shared.entrySet()) {
+                String term = terms.get(entry.getKey());
+                if (entry.getValue() >= minShared && Math.abs(term.length() - word.length()) <= maxDistance) {
+                    candidates.add(entry.getKey());
+                }
+            }
+        } else {
+            // Too short for the filter to rule anything out: every term of a close enough length
+            for (int length = word.length() - maxDistance; length <= word.length() + maxDistance; length++) {
+                List<Integer> ids = termsByLength.get(length);
+                if (ids != null) candidates.addAll(ids);
+            }
+        }
+
+        List<Match> matches = new ArrayList<>();
+        for (int candidate : candidates) {
+            String term = terms.get(candidate);
+            int distance = boundedDistance(word, term, maxDistance);
+            if (distance <= maxDistance) {
+                matches.add(new Match(term, distance));
+            }
+        }
+        matches.sort((a, b) -> Integer.compare(a.distance, b.distance));
+        return matches;
+    }
+
+    static int maxDistanceFor(String word) {
+        if (word.length() <= 3) return 0;
+        if (word.length() <= 5) return 1;
+        return 2;
+    }
+
+    static Set<String> trigrams(String term) {
+        String padded = "$" + term + "$";
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    // Optimal string alignment distance (Levenshtein plus adjacent transpositions,
+    // so "tolkein" is one edit from "tolkien"). Gives up early and returns
+    // max + 1 once every cell in a row exceeds max.
+    static int boundedDistance(String a, String b, int max) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > max) return max + 1;
+
+        int[] prevPrev = new int[m + 1];
+        int[] prev = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) prev[j] = j;
+
+        for (int i = 1; i <= n; i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= m; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(prev[j] + 1, current[j - 1] + 1), prev[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, prevPrev[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) return max + 1;
+
+            int[] recycled = prevPrev;
+            prevPrev = prev;
+            prev = current;
+            current = recycled;
+        }
+        return prev[m];
+    }
+}
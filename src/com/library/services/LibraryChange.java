@@ -0,0 +1,28 @@
+package com.library.services;
+
+// One committed change to a book, member or transaction, as reported to change listeners
+public class LibraryChange {
+    public enum Entity { BOOK, MEMBER, TRANSACTION }
+
+    // RELOADED means many rows may have changed (a bulk import, say); its id is 0
+    public enum Kind { ADDED, UPDATED, DELETED, RELOADED }
+
+    private final Entity entity;
+    private final Kind kind;
+    private final int id;
+
+    public LibraryChange(Entity entity, Kind kind, int id) {
+        this.entity = entity;
+        this.kind = kind;
+        this.id = id;
+    }
+
+    public Entity getEntity() { return entity; }
+    public Kind getKind() { return kind; }
+    public int getId() { return id; }
+
+    @Override
+    public String toString() {
+        return kind + " " + entity + (kind == Kind.RELOADED ? "" : " #" + id);
+    }
+}
@@ -1,23 +1,168 @@
 package com.library.services;
 
-import com.library.dao.BookDAO;
-import com.library.dao.MemberDAO;
-import com.library.dao.TransactionDAO;
+import com.library.bulk.BookImporter;
+import com.library.bulk.CsvRecordSource;
+import com.library.bulk.DataExporter;
+import com.library.bulk.ExportResult;
+import com.library.bulk.ImportResult;
+import com.library.bulk.Isbn;
+import com.library.bulk.MarcRecordSource;
+import com.library.bulk.RecordSource;
+import com.library.bulk.ReturnsPipeline;
+import com.library.bulk.ReturnsResult;
+import com.library.dao.BookColumn;
+import com.library.dao.BookRepository;
+import com.library.dao.CachingBookRepository;
+import com.library.dao.CachingMemberRepository;
+import com.library.dao.MemberColumn;
+import com.library.dao.MemberRepository;
+import com.library.dao.StorageEngine;
+import com.library.dao.TransactionColumn;
+import com.library.dao.TransactionRepository;
+import com.library.db.DataAccessException;
+import com.library.db.DatabaseConnection;
+import com.library.fines.FineAccrual;
+import com.library.fines.FineSchedule;
 import com.library.models.Book;
+import com.library.models.IssueOutcome;
+import com.library.models.LibrarySummary;
 import com.library.models.Member;
+import com.library.models.ReturnOutcome;
 import com.library.models.Transaction;
+import com.library.search.AutocompleteIndex;
+import com.library.search.BookSearchIndex;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 public class LibraryService {
-    private final BookDAO bookDAO;
-    private final MemberDAO memberDAO;
-    private final TransactionDAO transactionDAO;
+    private static final int SEARCH_RESULT_LIMIT = 500;
+    private static final long INDEX_RETRY_MILLIS = 30_000;
+    private static final int COMPLETION_LIMIT = 10;
+    private static final int BOOK_PAGE_SIZE = 500;
+    private static final int BOOK_FETCH_SIZE = 500;
+    private static final int MEMBER_FETCH_SIZE = 500;
+    private static final int BOOK_CACHE_SIZE = Integer.getInteger("library.bookCache.size", 10_000);
+    private static final long BOOK_CACHE_TTL_SECONDS = Long.getLong("library.bookCache.ttlSeconds", 300);
+    private static final int MEMBER_CACHE_SIZE = Integer.getInteger("library.memberCache.size", 10_000);
+    private static final long MEMBER_CACHE_TTL_SECONDS = Long.getLong("library.memberCache.ttlSeconds", 300);
+    // Threads for concurrent report and dashboard queries, and how long any one of them may take
+    private static final int QUERY_THREADS = Integer.getInteger("library.queryThreads", 4);
+    private static final long QUERY_TIMEOUT_MILLIS = Long.getLong("library.queryTimeoutMillis", 10_000);
+
+    private final StorageEngine storage;
+    private final UnitOfWork unitOfWork;
+    private final BookRepository bookDAO;
+    private final CachingBookRepository bookCache;
+    private final MemberRepository memberDAO;
+    private final CachingMemberRepository memberCache;
+    private final TransactionRepository transactionDAO;
+    private final LibraryStatistics statistics;
+    private final OverdueEngine overdueEngine;
+    private final FineAccrual fineAccrual;
+    private final TransactionArchiver transactionArchiver;
+    private final ExecutorService queryExecutor;
+    private final BookSearchIndex searchIndex = new BookSearchIndex();
+    private final AutocompleteIndex bookCompletions = new AutocompleteIndex();
+    private final AutocompleteIndex memberCompletions = new AutocompleteIndex();
+    private final List<Consumer<LibraryChange>> changeListeners = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean indexLoading = new AtomicBoolean();
+    private volatile long lastIndexLoad;
 
     public LibraryService() {
-        this.bookDAO = new BookDAO();
-        this.memberDAO = new MemberDAO();
-        this.transactionDAO = new TransactionDAO();
+        this(StorageEngine.fromSystemProperties());
+    }
+
+    public LibraryService(StorageEngine storage) {
+        this.storage = storage;
+        this.unitOfWork = new UnitOfWork(storage);
+        this.bookCache = new CachingBookRepository(storage.books(), BOOK_CACHE_SIZE, BOOK_CACHE_TTL_SECONDS);
+        this.bookDAO = bookCache;
+        this.transactionDAO = storage.transactions();
+        this.memberCache = new CachingMemberRepository(storage.members(), transactionDAO,
+                MEMBER_CACHE_SIZE, MEMBER_CACHE_TTL_SECONDS);
+        this.memberDAO = memberCache;
+        this.queryExecutor = Executors.newFixedThreadPool(QUERY_THREADS, r -> {
+            Thread thread = new Thread(r, "library-query");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.statistics = new LibraryStatistics(bookDAO, memberDAO, transactionDAO,
+                queryExecutor, QUERY_TIMEOUT_MILLIS);
+        this.fineAccrual = new FineAccrual(transactionDAO, FineSchedule.fromSystemProperties());
+        this.transactionArchiver = TransactionArchiver.fromSystemProperties(transactionDAO);
+        this.overdueEngine = new OverdueEngine(transactionDAO, statistics,
+                marked -> changed(LibraryChange.Entity.TRANSACTION, LibraryChange.Kind.RELOADED, 0),
+                this::nightlyWork);
+        overdueEngine.start();
+        loadSearchIndexAsync();
+    }
+
+    public String getStorageEngineName() {
+        return storage.getName();
+    }
+
+    public String getPerformanceReport() {
+        return storage.getPerformanceReport() + String.format("%n") + bookCache.report() + memberCache.report();
+    }
+
+    // Told about every successful write, on the thread that made it, once its
+    // unit of work (if any) has finished
+    public void addChangeListener(Consumer<LibraryChange> listener) {
+        changeListeners.add(listener);
+    }
+
+    private void changed(LibraryChange.Entity entity, LibraryChange.Kind kind, int id) {
+        if (changeListeners.isEmpty()) return;
+        LibraryChange change = id > 0 || kind == LibraryChange.Kind.RELOADED
+                ? new LibraryChange(entity, kind, id)
+                : new LibraryChange(entity, LibraryChange.Kind.RELOADED, 0);
+        DatabaseConnection.runAfterTransaction(() -> {
+            for (Consumer<LibraryChange> listener : changeListeners) {
+                try {
+                    listener.accept(change);
+                } catch (RuntimeException e) {
+                    System.out.println("Error notifying " + change + ": " + e.getMessage());
+                }
+            }
+        });
+    }
+
+    // Runs the reads and writes of one change as a single unit of work; false if it
+    // failed and was rolled back
+    private boolean runWrite(String action, Supplier<Boolean> work) {
+        try {
+            return unitOfWork.execute(work);
+        } catch (DataAccessException e) {
+            System.out.println("Error " + action + ": " + e.getMessage());
+            return false;
+        }
     }
 
     // Book-related methods
@@ -25,41 +170,250 @@ public class LibraryService {
         return bookDAO.getAllBooks();
     }
 
-    public int getTotalBooks() {
+    // Keyset page of the catalog in title order; pass the last book of the previous
+    // page, or null for the first page. Null if it could not be read.
+    public List<Book> getBooksPage(Book after, int pageSize) {
+        return after == null
+                ? bookDAO.getBooksPage(null, 0, pageSize, BOOK_FETCH_SIZE)
+                : bookDAO.getBooksPage(after.getTitle(), after.getBookId(), pageSize, BOOK_FETCH_SIZE);
+    }
+
+    // Page of the catalog sorted by any column, for the virtualized books table: the
+    // rows after the given one (from the start when null), skipping offset of them. Null
+    // if it could not be read.
+    public List<Book> getBooksPage(BookColumn sortBy, boolean descending, Book after, int offset, int pageSize) {
+        return bookDAO.getBooksPage(sortBy, descending, after, offset, pageSize);
+    }
+
+    // The whole catalog in title order without holding it all in memory
+    public Stream<Book> streamBooks() {
+        return bookDAO.streamBooks(BOOK_PAGE_SIZE, BOOK_FETCH_SIZE);
+    }
+
+    // Counted in the database, for the books table; -1 if it could not be counted
+    public int getBookCount() {
         return bookDAO.getTotalBooks();
     }
 
+    // The dashboard counter, kept current without a query
+    public int getTotalBooks() {
+        return statistics.getTotalBooks();
+    }
+
     public int getAvailableBooksCount() {
-        return bookDAO.getAvailableBooksCount();
+        return statistics.getAvailableBooks();
     }
 
     public Book getBookById(int bookId) {
         return bookDAO.getBookById(bookId);
     }
 
+    public Book getBookByISBN(String isbn) {
+        return bookDAO.getBookByISBN(Isbn.toStored(isbn));
+    }
+
     public boolean addNewBook(Book book) {
-        return bookDAO.addBook(book);
+        book.setIsbn(Isbn.toStored(book.getIsbn()));
+        statistics.writeStarted();
+        try {
+            boolean added = bookDAO.addBook(book);
+            if (added) {
+                indexBook(book);
+                statistics.booksAdded(1, book.getAvailableCopies());
+                changed(LibraryChange.Entity.BOOK, LibraryChange.Kind.ADDED, book.getBookId());
+            }
+            return added;
+        } finally {
+            statistics.writeFinished();
+        }
     }
 
     public boolean updateBook(Book book) {
-        return bookDAO.updateBook(book);
+        book.setIsbn(Isbn.toStored(book.getIsbn()));
+        statistics.writeStarted();
+        try {
+            Book[] before = new Book[1];
+            boolean updated = runWrite("updating book", () -> {
+                before[0] = bookDAO.getBookById(book.getBookId());
+                return bookDAO.updateBook(book);
+            });
+            if (updated) {
+                indexBook(book);
+                if (before[0] != null) {
+                    statistics.availableCopiesChanged(book.getAvailableCopies() - before[0].getAvailableCopies());
+                } else {
+                    statistics.invalidate();
+                }
+                changed(LibraryChange.Entity.BOOK, LibraryChange.Kind.UPDATED, book.getBookId());
+            }
+            return updated;
+        } finally {
+            statistics.writeFinished();
+        }
     }
 
     public boolean deleteBook(int bookId) {
-        return bookDAO.deleteBook(bookId);
+        statistics.writeStarted();
+        try {
+            Book[] before = new Book[1];
+            boolean deleted = runWrite("deleting book", () -> {
+                before[0] = bookDAO.getBookById(bookId);
+                return bookDAO.deleteBook(bookId);
+            });
+            if (deleted) {
+                searchIndex.remove(bookId);
+                bookCompletions.remove(bookId);
+                if (before[0] != null) {
+                    statistics.booksRemoved(1, before[0].getAvailableCopies());
+                } else {
+                    statistics.invalidate();
+                }
+                changed(LibraryChange.Entity.BOOK, LibraryChange.Kind.DELETED, bookId);
+            }
+            return deleted;
+        } finally {
+            statistics.writeFinished();
+        }
+    }
+
+    // Bulk import from CSV, or binary MARC for .mrc/.marc files. Rejected records are
+    // written to rejectFile with the reason; progress is reported after every chunk.
+    public ImportResult importBooks(File source, File rejectFile, BookImporter.ProgressListener listener) throws IOException {
+        int workers = Math.min(4, Runtime.getRuntime().availableProcessors());
+        BookImporter importer = new BookImporter(bookDAO, BookImporter.DEFAULT_CHUNK_SIZE, workers,
+                this::importedBooks);
+
+        String name = source.getName().toLowerCase(Locale.ROOT);
+        boolean marc = name.endsWith(".mrc") || name.endsWith(".marc");
+        try (RecordSource records = marc
+                ? new MarcRecordSource(new FileInputStream(source))
+                : new CsvRecordSource(new InputStreamReader(new FileInputStream(source), StandardCharsets.UTF_8));
+             Writer rejects = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(rejectFile), StandardCharsets.UTF_8))) {
+            return importer.run(records, rejects, listener);
+        } finally {
+            // A count taken while chunks were landing may include some of them twice
+            statistics.invalidate();
+            changed(LibraryChange.Entity.BOOK, LibraryChange.Kind.RELOADED, 0);
+        }
+    }
+
+    private void importedBooks(List<Book> books) {
+        indexBooks(books);
+        int availableCopies = 0;
+        for (Book book : books) {
+            availableCopies += book.getAvailableCopies();
+        }
+        statistics.booksAdded(books.size(), availableCopies);
+    }
+
+    // Nightly-extract style export of every table, one thread per table
+    public List<ExportResult> exportData(File directory, DataExporter.Format format, boolean gzip) throws IOException {
+        DataExporter exporter = new DataExporter(bookDAO, memberDAO, transactionDAO);
+        return exporter.export(directory, EnumSet.allOf(DataExporter.Table.class), format, gzip);
     }
 
+    // Ranked full-text search; plain SQL until the index has finished loading
     public List<Book> searchBooks(String searchTerm) {
+        if (searchIndex.isReady()) {
+            return searchIndex.search(searchTerm, SEARCH_RESULT_LIMIT);
+        }
+        if (System.currentTimeMillis() - lastIndexLoad > INDEX_RETRY_MILLIS) {
+            loadSearchIndexAsync();
+        }
         return bookDAO.searchBooks(searchTerm);
     }
 
+    // Typo-tolerant search ("Tolkein" finds "Tolkien"); needs the index, so it
+    // behaves like searchBooks until the index has loaded
+    public List<Book> fuzzySearchBooks(String searchTerm) {
+        if (searchIndex.isReady()) {
+            return searchIndex.fuzzySearch(searchTerm, SEARCH_RESULT_LIMIT);
+        }
+        return searchBooks(searchTerm);
+    }
+
+    // Title and author completions for the search box; empty until the index has loaded
+    public List<String> completeBookSearch(String prefix) {
+        if (!bookCompletions.isReady() && System.currentTimeMillis() - lastIndexLoad > INDEX_RETRY_MILLIS) {
+            loadSearchIndexAsync();
+        }
+        return bookCompletions.complete(prefix, COMPLETION_LIMIT);
+    }
+
+    public List<String> completeMemberSearch(String prefix) {
+        if (!memberCompletions.isReady() && System.currentTimeMillis() - lastIndexLoad > INDEX_RETRY_MILLIS) {
+            loadSearchIndexAsync();
+        }
+        return memberCompletions.complete(prefix, COMPLETION_LIMIT);
+    }
+
+    private void indexBook(Book book) {
+        searchIndex.put(book);
+        bookCompletions.put(book.getBookId(), book.getTitle(), book.getAuthor());
+    }
+
+    private void indexBooks(List<Book> books) {
+        for (Book book : books) {
+            searchIndex.put(book);
+        }
+        bookCompletions.putAll(books, Book::getBookId, b -> new String[]{b.getTitle(), b.getAuthor()});
+    }
+
+    private void loadSearchIndexAsync() {
+        if (!indexLoading.compareAndSet(false, true)) return;
+        lastIndexLoad = System.currentTimeMillis();
+
+        Thread loader = new Thread(() -> {
+            try {
+                // Each index streams the catalog itself rather than sharing one full list.
+                // Only the indexes that have not loaded yet are read again on a retry.
+                if (!searchIndex.isReady()) {
+                    searchIndex.build(() -> streamBooks().iterator());
+                }
+                if (!bookCompletions.isReady()) {
+                    bookCompletions.build(() -> streamBooks().iterator(),
+                            Book::getBookId, b -> new String[]{b.getTitle(), b.getAuthor()});
+                }
+                if (!memberCompletions.isReady()) {
+                    List<Member> members = new ArrayList<>();
+                    if (!memberDAO.forEachMember(MEMBER_FETCH_SIZE, members::add)) {
+                        throw new DataAccessException("Could not read members");
+                    }
+                    memberCompletions.build(members, Member::getMemberId, m -> new String[]{m.getName()});
+                }
+            } catch (DataAccessException e) {
+                // Left not ready, so the next search or completion tries again after INDEX_RETRY_MILLIS
+                System.out.println("Error loading search index: " + e.getMessage());
+            } finally {
+                lastIndexLoad = System.currentTimeMillis();
+                indexLoading.set(false);
+            }
+        }, "book-search-index");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    // Issues and returns change available copies, which search results display
+    private void refreshIndexedBook(int bookId) {
+        Book book = bookDAO.getBookById(bookId);
+        if (book != null) searchIndex.put(book);
+    }
+
     // Member-related methods
     public List<Member> getAllMembers() {
         return memberDAO.getAllMembers();
     }
 
+    public List<Member> getMembersPage(MemberColumn sortBy, boolean descending, Member after, int offset, int pageSize) {
+        return memberDAO.getMembersPage(sortBy, descending, after, offset, pageSize);
+    }
+
+    public int getMemberCount() {
+        return memberDAO.getMemberCount();
+    }
+
     public int getActiveMembers() {
-        return memberDAO.getActiveMembersCount();
+        return statistics.getActiveMembers();
     }
 
     public Member getMemberById(int memberId) {
@@ -67,15 +421,68 @@ public class LibraryService {
     }
 
     public boolean registerMember(Member member) {
-        return memberDAO.addMember(member);
+        statistics.writeStarted();
+        try {
+            boolean added = memberDAO.addMember(member);
+            if (added) {
+                if (member.getMemberId() > 0) memberCompletions.put(member.getMemberId(), member.getName());
+                if (isActive(member)) statistics.activeMembersChanged(1);
+                changed(LibraryChange.Entity.MEMBER, LibraryChange.Kind.ADDED, member.getMemberId());
+            }
+            return added;
+        } finally {
+            statistics.writeFinished();
+        }
     }
 
     public boolean updateMember(Member member) {
-        return memberDAO.updateMember(member);
+        statistics.writeStarted();
+        try {
+            Member[] before = new Member[1];
+            boolean updated = runWrite("updating member", () -> {
+                before[0] = memberDAO.getMemberById(member.getMemberId());
+                return memberDAO.updateMember(member);
+            });
+            if (updated) {
+                memberCompletions.put(member.getMemberId(), member.getName());
+                if (before[0] != null) {
+                    statistics.activeMembersChanged((isActive(member) ? 1 : 0) - (isActive(before[0]) ? 1 : 0));
+                } else {
+                    statistics.invalidate();
+                }
+                changed(LibraryChange.Entity.MEMBER, LibraryChange.Kind.UPDATED, member.getMemberId());
+            }
+            return updated;
+        } finally {
+            statistics.writeFinished();
+        }
     }
 
     public boolean deleteMember(int memberId) {
-        return memberDAO.deleteMember(memberId);
+        statistics.writeStarted();
+        try {
+            Member[] before = new Member[1];
+            boolean deleted = runWrite("deleting member", () -> {
+                before[0] = memberDAO.getMemberById(memberId);
+                return memberDAO.deleteMember(memberId);
+            });
+            if (deleted) {
+                memberCompletions.remove(memberId);
+                if (before[0] == null) {
+                    statistics.invalidate();
+                } else if (isActive(before[0])) {
+                    statistics.activeMembersChanged(-1);
+                }
+                changed(LibraryChange.Entity.MEMBER, LibraryChange.Kind.DELETED, memberId);
+            }
+            return deleted;
+        } finally {
+            statistics.writeFinished();
+        }
+    }
+
+    private static boolean isActive(Member member) {
+        return "Active".equals(member.getStatus());
     }
 
     public List<Member> searchMembers(String searchTerm) {
@@ -84,32 +491,244 @@ public class LibraryService {
 
     // Transaction-related methods
     public List<Transaction> getAllTransactions() {
-        return transactionDAO.getAllTransactions();
+        return getAllTransactions(false);
+    }
+
+    public List<Transaction> getAllTransactions(boolean includeArchive) {
+        return transactionDAO.getAllTransactions(includeArchive);
+    }
+
+    public Transaction getTransactionById(int transactionId) {
+        return transactionDAO.getTransactionById(transactionId);
+    }
+
+    public List<Transaction> getTransactionsPage(TransactionColumn sortBy, boolean descending, Transaction after,
+                                                 int offset, int pageSize) {
+        return transactionDAO.getTransactionsPage(sortBy, descending, after, offset, pageSize);
+    }
+
+    public int getTransactionCount() {
+        return transactionDAO.getTransactionCount();
     }
 
     public List<Transaction> getOverdueBooks() {
         return transactionDAO.getOverdueBooks();
     }
 
-    public boolean issueBook(int bookId, int memberId, int days) {
-        return transactionDAO.issueBook(bookId, memberId, days);
+    // Why the member may not borrow another book right now, or null if they may.
+    // Answered from the member cache, or from the database inside a unit of work.
+    private String checkIssueAdmission(int memberId) {
+        Member member = memberDAO.getMemberById(memberId);
+        if (member == null) return "Member #" + memberId + " was not found";
+        if (!"Active".equals(member.getStatus())) {
+            return member.getName() + " is " + String.valueOf(member.getStatus()).toLowerCase(Locale.ROOT);
+        }
+
+        int openLoans = memberCache.getOpenLoanCount(memberId);
+        if (openLoans >= 0 && !member.canBorrowMoreBooks(openLoans)) {
+            return member.getName() + " already has " + openLoans + " of "
+                    + member.getMaxBooksAllowed() + " books allowed";
+        }
+        return null;
+    }
+
+    // The batch path reads the new loan's id in the same transaction as the issue, and the
+    // outcome says why the book was refused
+    public IssueOutcome issueBook(int bookId, int memberId, int days) {
+        return issueBooks(memberId, Collections.singletonList(bookId), days, true).get(0);
+    }
+
+    // Check out a stack of books to one member in one transaction on one connection.
+    // With allOrNothing nothing is issued unless every book can be; otherwise each book
+    // is issued or refused on its own. One outcome per book id, in order.
+    public List<IssueOutcome> issueBooks(int memberId, List<Integer> bookIds, int days, boolean allOrNothing) {
+        statistics.writeStarted();
+        try {
+            List<IssueOutcome> outcomes;
+            try {
+                // The admission check reads the member and loan count on the issuing connection
+                outcomes = unitOfWork.execute(() -> {
+                    String refusal = checkIssueAdmission(memberId);
+                    if (refusal == null) return transactionDAO.issueBooks(memberId, bookIds, days, allOrNothing);
+                    System.out.println("Error issuing books: " + refusal);
+                    return refuseAll(bookIds, refusal);
+                });
+            } catch (DataAccessException e) {
+                System.out.println("Error issuing books: " + e.getMessage());
+                outcomes = refuseAll(bookIds, e.getMessage());
+            }
+            boolean refused = false;
+            for (IssueOutcome outcome : outcomes) {
+                if (!outcome.isIssued()) {
+                    refused = true;
+                    continue;
+                }
+                statistics.availableCopiesChanged(-1);
+                memberCache.loanIssued(memberId);
+                bookCache.invalidate(outcome.getBookId());
+                refreshIndexedBook(outcome.getBookId());
+                changed(LibraryChange.Entity.BOOK, LibraryChange.Kind.UPDATED, outcome.getBookId());
+                overdueEngine.loanIssued(outcome.getTransactionId(), LocalDate.now().plusDays(days));
+                changed(LibraryChange.Entity.TRANSACTION, LibraryChange.Kind.ADDED, outcome.getTransactionId());
+            }
+            // The database may have refused on a count the cache no longer agrees with
+            if (refused) memberCache.invalidateOpenLoans(memberId);
+            return outcomes;
+        } finally {
+            statistics.writeFinished();
+        }
+    }
+
+    private static List<IssueOutcome> refuseAll(List<Integer> bookIds, String reason) {
+        List<IssueOutcome> outcomes = new ArrayList<>(bookIds.size());
+        for (int bookId : bookIds) {
+            outcomes.add(new IssueOutcome(bookId, IssueOutcome.Status.REFUSED, 0, reason));
+        }
+        return outcomes;
+    }
+
+    // Return one loan, fined by the fine schedule (as a batch of one, so the fine is worked
+    // out in Java like every other)
+    public ReturnOutcome returnBook(int transactionId) {
+        ReturnOutcome outcome = returnBatch(Collections.singletonList(transactionId)).get(0);
+        if (outcome.isReturned()) {
+            changed(LibraryChange.Entity.TRANSACTION, LibraryChange.Kind.UPDATED, transactionId);
+            changed(LibraryChange.Entity.BOOK, LibraryChange.Kind.UPDATED, outcome.getBookId());
+        }
+        return outcome;
+    }
+
+    public FineSchedule getFineSchedule() {
+        return fineAccrual.getSchedule();
+    }
+
+    // Empty the book drop: one scanned transaction id per line of scanFile. Loans are
+    // returned in batches across a few workers; scans that cannot be returned are listed
+    // in the result without stopping the run. Progress is reported after every batch.
+    public ReturnsResult processReturns(File scanFile, ReturnsPipeline.ProgressListener listener) throws IOException {
+        try (BufferedReader scans = new BufferedReader(
+                new InputStreamReader(new FileInputStream(scanFile), StandardCharsets.UTF_8))) {
+            return processReturns(scans.lines().iterator(), listener);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public ReturnsResult processReturns(Iterator<String> scans, ReturnsPipeline.ProgressListener listener) {
+        int workers = Math.min(4, Runtime.getRuntime().availableProcessors());
+        ReturnsPipeline pipeline = new ReturnsPipeline(this::returnBatch, ReturnsPipeline.DEFAULT_BATCH_SIZE, workers);
+        try {
+            return pipeline.run(scans, listener);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Returns interrupted", e);
+        } finally {
+            // One reload for the tables instead of an event per loan
+            changed(LibraryChange.Entity.TRANSACTION, LibraryChange.Kind.RELOADED, 0);
+            changed(LibraryChange.Entity.BOOK, LibraryChange.Kind.RELOADED, 0);
+        }
+    }
+
+    // Return a batch of loans and bring the counters and caches up to date; called by
+    // returnBook and, from several worker threads, by the returns pipeline
+    private List<ReturnOutcome> returnBatch(List<Integer> transactionIds) {
+        statistics.writeStarted();
+        try {
+            List<ReturnOutcome> outcomes = transactionDAO.returnBooks(transactionIds, fineAccrual.getSchedule());
+            Set<Integer> bookIds = new HashSet<>();
+            for (ReturnOutcome outcome : outcomes) {
+                if (!outcome.isReturned()) continue;
+                statistics.availableCopiesChanged(1);
+                if (outcome.isOverdue()) statistics.overdueReturned();
+                memberCache.loanReturned(outcome.getMemberId());
+                if (bookIds.add(outcome.getBookId())) bookCache.invalidate(outcome.getBookId());
+            }
+            for (int bookId : bookIds) {
+                refreshIndexedBook(bookId);
+            }
+            return outcomes;
+        } finally {
+            statistics.writeFinished();
+        }
+    }
+
+    // Run after the overdue engine's nightly marking; false to have it retried
+    private boolean nightlyWork() {
+        boolean accrued = accrueFines();
+        boolean archived = archiveTransactions();
+        return accrued && archived;
+    }
+
+    private boolean accrueFines() {
+        int accrued = fineAccrual.run(LocalDate.now());
+        if (accrued > 0) changed(LibraryChange.Entity.TRANSACTION, LibraryChange.Kind.RELOADED, 0);
+        return accrued >= 0;
     }
 
-    public boolean returnBook(int transactionId, double finePerDay) {
-        return transactionDAO.returnBook(transactionId, finePerDay);
+    // Archived rows leave the transactions table, so it is reloaded after any chunk has moved
+    private boolean archiveTransactions() {
+        int archived = transactionArchiver.run(LocalDate.now());
+        if (archived != 0) changed(LibraryChange.Entity.TRANSACTION, LibraryChange.Kind.RELOADED, 0);
+        return archived >= 0;
+    }
+
+    public int getArchiveAfterDays() {
+        return transactionArchiver.getAfterDays();
     }
 
     public List<Transaction> searchTransactions(String searchTerm) {
-        return transactionDAO.searchTransactions(searchTerm);
+        return searchTransactions(searchTerm, false);
+    }
+
+    public List<Transaction> searchTransactions(String searchTerm, boolean includeArchive) {
+        return transactionDAO.searchTransactions(searchTerm, includeArchive);
+    }
+
+    // Dashboard numbers from the incrementally maintained counters; null if the counters
+    // could not be seeded
+    public LibrarySummary getLibrarySummary() {
+        return statistics.getSummary();
+    }
+
+    // Completes off the calling thread once the counters are seeded; the seed's
+    // queries run concurrently and each fails after the query timeout
+    public CompletableFuture<LibrarySummary> getLibrarySummaryAsync() {
+        return statistics.getSummaryAsync();
     }
 
-    // Report generation
+    // Report generation. Unlike the dashboard the report counts the tables, all four in
+    // one read-only snapshot on one connection.
     public String generateLibraryReport() {
-        int totalBooks = getTotalBooks();
-        int availableBooks = getAvailableBooksCount();
-        int borrowedBooks = totalBooks - availableBooks;
-        int activeMembers = getActiveMembers();
-        int overdueBooks = getOverdueBooks().size();
+        try {
+            return formatLibraryReport(countLibrary());
+        } catch (DataAccessException e) {
+            System.out.println("Error generating report: " + e.getMessage());
+            return "Could not generate statistics: " + e.getMessage();
+        }
+    }
+
+    public CompletableFuture<String> generateLibraryReportAsync() {
+        return CompletableFuture.supplyAsync(this::countLibrary, queryExecutor).thenApply(this::formatLibraryReport);
+    }
+
+    private LibrarySummary countLibrary() {
+        return unitOfWork.executeReadOnly(() -> {
+            LibrarySummary summary = new LibrarySummary(bookDAO.getTotalBooks(), bookDAO.getAvailableBooksCount(),
+                    memberDAO.getActiveMembersCount(), transactionDAO.countOverdue());
+            if (summary.getTotalBooks() < 0 || summary.getAvailableBooks() < 0
+                    || summary.getActiveMembers() < 0 || summary.getOverdueBooks() < 0) {
+                throw new DataAccessException("Library counts could not be read");
+            }
+            return summary;
+        });
+    }
+
+    private String formatLibraryReport(LibrarySummary summary) {
+        int totalBooks = summary.getTotalBooks();
+        int availableBooks = summary.getAvailableBooks();
+        int borrowedBooks = summary.getBorrowedBooks();
+        int activeMembers = summary.getActiveMembers();
+        int overdueBooks = summary.getOverdueBooks();
 
         StringBuilder report = new StringBuilder();
         report.append("=== LIBRARY STATISTICS REPORT ===\n\n");
@@ -127,4 +746,4 @@ public class LibraryService {
 
         return report.toString();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,218 @@
+package com.library.services;
+
+import com.library.dao.BookRepository;
+import com.library.dao.MemberRepository;
+import com.library.dao.TransactionRepository;
+import com.library.db.QueryCanceller;
+import com.library.models.LibrarySummary;
+
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Dashboard counters seeded from the database and kept current by LibraryService's writes
+public class LibraryStatistics {
+    private static final int SEED_ATTEMPTS = 5;
+    private static final long SEED_RETRY_MILLIS = 20;
+
+    private final BookRepository books;
+    private final MemberRepository members;
+    private final TransactionRepository transactions;
+    private final Executor executor;
+    private final long timeoutMillis;
+
+    private final LongAdder totalBooks = new LongAdder();
+    private final LongAdder availableBooks = new LongAdder();
+    private final LongAdder activeMembers = new LongAdder();
+    private final LongAdder overdueBooks = new LongAdder();
+
+    private final AtomicLong writesInProgress = new AtomicLong();
+    private final AtomicLong writesFinished = new AtomicLong();
+
+    private volatile CompletableFuture<Base> base;
+
+    // Database counts minus the changes already in the adders when they were taken
+    private static class Base {
+        final LocalDate seededOn;
+        // False if writes overlapped every attempt, so a count may be off by them
+        final boolean exact;
+        final long totalBooks;
+        final long availableBooks;
+        final long activeMembers;
+        final long overdueBooks;
+
+        Base(LocalDate seededOn, boolean exact, long totalBooks, long availableBooks, long activeMembers,
+             long overdueBooks) {
+            this.seededOn = seededOn;
+            this.exact = exact;
+            this.totalBooks = totalBooks;
+            this.availableBooks = availableBooks;
+            this.activeMembers = activeMembers;
+            this.overdueBooks = overdueBooks;
+        }
+    }
+
+    public LibraryStatistics(BookRepository books, MemberRepository members, TransactionRepository transactions,
+                             Executor executor, long timeoutMillis) {
+        this.books = books;
+        this.members = members;
+        this.transactions = transactions;
+        this.executor = executor;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public CompletableFuture<LibrarySummary> getSummaryAsync() {
+        return currentBase().thenApply(current -> new LibrarySummary(
+                (int) (current.totalBooks + totalBooks.sum()),
+                (int) (current.availableBooks + availableBooks.sum()),
+                (int) (current.activeMembers + activeMembers.sum()),
+                (int) Math.max(0, current.overdueBooks + overdueBooks.sum())));
+    }
+
+    // Null if the counts could not be read, so a failure is not shown as an empty library
+    public LibrarySummary getSummary() {
+        try {
+            return getSummaryAsync().join();
+        } catch (CompletionException e) {
+            System.err.println("Error reading library statistics: " + e.getCause());
+            return null;
+        }
+    }
+
+    // The single counts are -1 if they could not be read
+    public int getTotalBooks() {
+        LibrarySummary summary = getSummary();
+        return summary != null ? summary.getTotalBooks() : -1;
+    }
+
+    public int getAvailableBooks() {
+        LibrarySummary summary = getSummary();
+        return summary != null ? summary.getAvailableBooks() : -1;
+    }
+
+    public int getActiveMembers() {
+        LibrarySummary summary = getSummary();
+        return summary != null ? summary.getActiveMembers() : -1;
+    }
+
+    // Writers call this before touching the database and writeFinished after updating the counters
+    public void writeStarted() {
+        writesInProgress.incrementAndGet();
+    }
+
+    public void writeFinished() {
+        writesFinished.incrementAndGet();
+        writesInProgress.decrementAndGet();
+    }
+
+    public void booksAdded(int titles, int availableCopies) {
+        totalBooks.add(titles);
+        availableBooks.add(availableCopies);
+    }
+
+    public void booksRemoved(int titles, int availableCopies) {
+        totalBooks.add(-titles);
+        availableBooks.add(-availableCopies);
+    }
+
+    public void availableCopiesChanged(int change) {
+        availableBooks.add(change);
+    }
+
+    public void activeMembersChanged(int change) {
+        activeMembers.add(change);
+    }
+
+    public void overdueReturned() {
+        overdueBooks.decrement();
+    }
+
+    public void loansBecameOverdue(int count) {
+        overdueBooks.add(count);
+    }
+
+    // Count everything again on the next read
+    public synchronized void invalidate() {
+        base = null;
+    }
+
+    private CompletableFuture<Base> currentBase() {
+        CompletableFuture<Base> current = base;
+        if (isUsable(current)) return current;
+        synchronized (this) {
+            current = base;
+            if (!isUsable(current)) {
+                current = seed(LocalDate.now(), 1);
+                base = current;
+            }
+            return current;
+        }
+    }
+
+    // A seed still running is shared; a failed or yesterday's seed is replaced, and so is
+    // one that overlapped writes, on the first read after they have stopped
+    private boolean isUsable(CompletableFuture<Base> future) {
+        if (future == null) return false;
+        if (!future.isDone()) return true;
+        if (future.isCompletedExceptionally()) return false;
+        Base current = future.join();
+        if (!current.seededOn.equals(LocalDate.now())) return false;
+        return current.exact || writesInProgress.get() != 0;
+    }
+
+    private CompletableFuture<Base> seed(LocalDate today, int attempt) {
+        if (writesInProgress.get() != 0 && attempt < SEED_ATTEMPTS) {
+            return retry(today, attempt);
+        }
+
+        long finishedBefore = writesFinished.get();
+        long[] changes = {totalBooks.sum(), availableBooks.sum(), activeMembers.sum(), overdueBooks.sum()};
+        CompletableFuture<Integer> total = count(books::getTotalBooks);
+        CompletableFuture<Integer> available = count(books::getAvailableBooksCount);
+        CompletableFuture<Integer> active = count(members::getActiveMembersCount);
+        CompletableFuture<Integer> overdue = count(transactions::countOverdue);
+
+        return CompletableFuture.allOf(total, available, active, overdue).thenCompose(done -> {
+            // A count the DAO could not read is a failed seed, not a zero; the next read tries again
+            if (total.join() < 0 || available.join() < 0 || active.join() < 0 || overdue.join() < 0) {
+                return CompletableFuture.failedFuture(new IllegalStateException("Library counts could not be read"));
+            }
+            boolean overlapped = writesInProgress.get() != 0 || writesFinished.get() != finishedBefore;
+            if (overlapped && attempt < SEED_ATTEMPTS) return retry(today, attempt);
+            return CompletableFuture.completedFuture(new Base(today, !overlapped,
+                    total.join() - changes[0],
+                    available.join() - changes[1],
+                    active.join() - changes[2],
+                    overdue.join() - changes[3]));
+        });
+    }
+
+    private CompletableFuture<Base> retry(LocalDate today, int attempt) {
+        Executor later = CompletableFuture.delayedExecutor(SEED_RETRY_MILLIS, TimeUnit.MILLISECONDS, executor);
+        return CompletableFuture.supplyAsync(() -> attempt + 1, later).thenCompose(next -> seed(today, next));
+    }
+
+    // A count that times out is cancelled in the database too, so it does not keep its
+    // connection and executor thread busy after nobody is waiting for it
+    private CompletableFuture<Integer> count(Supplier<Integer> query) {
+        QueryCanceller canceller = new QueryCanceller();
+        CompletableFuture<Integer> result = CompletableFuture.supplyAsync(() -> {
+            canceller.bind();
+            try {
+                return query.get();
+            } finally {
+                QueryCanceller.unbind();
+            }
+        }, executor).orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+        result.whenComplete((count, error) -> {
+            if (error instanceof TimeoutException) canceller.cancel();
+        });
+        return result;
+    }
+}
@@ -0,0 +1,157 @@
+package com.library.services;
+
+import com.library.dao.TransactionRepository;
+import com.library.models.Transaction;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+
+// Marks loans Overdue just after midnight of the day they fall due, from a heap ordered by due date
+public class OverdueEngine {
+    private static final int MARK_BATCH_SIZE = 500;
+    // A little past midnight, so the database's CURDATE() has moved on too
+    private static final long WAKE_DELAY_SECONDS = 5;
+    private static final long RETRY_MINUTES = 5;
+
+    private static class Loan {
+        final int transactionId;
+        final LocalDate dueDate;
+
+        Loan(int transactionId, LocalDate dueDate) {
+            this.transactionId = transactionId;
+            this.dueDate = dueDate;
+        }
+    }
+
+    private final TransactionRepository transactions;
+    private final LibraryStatistics statistics;
+    private final IntConsumer onMarked;
+    private final BooleanSupplier afterWake;
+    private final ScheduledExecutorService scheduler;
+
+    private final PriorityQueue<Loan> dueDates = new PriorityQueue<>(Comparator.comparing(loan -> loan.dueDate));
+
+    // onMarked runs on the engine's thread with the number of loans marked by each wake,
+    // and afterWake once every loan due has been marked (nightly work such as fine
+    // accrual); if afterWake returns false the wake is tried again a little later
+    public OverdueEngine(TransactionRepository transactions, LibraryStatistics statistics,
+                         IntConsumer onMarked, BooleanSupplier afterWake) {
+        this.transactions = transactions;
+        this.statistics = statistics;
+        this.onMarked = onMarked;
+        this.afterWake = afterWake;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "overdue-engine");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start() {
+        scheduler.execute(this::wake);
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    // A new loan; transactionId 0 if it could not be read back, in which case the next
+    // wake reads it from the database
+    public synchronized void loanIssued(int transactionId, LocalDate dueDate) {
+        if (transactionId > 0) dueDates.add(new Loan(transactionId, dueDate));
+    }
+
+    // Number of loans waiting to fall due
+    public synchronized int getScheduledCount() {
+        return dueDates.size();
+    }
+
+    private void wake() {
+        long delayMillis;
+        try {
+            delayMillis = markDue(LocalDate.now())
+                    ? millisUntilNextDay()
+                    : TimeUnit.MINUTES.toMillis(RETRY_MINUTES);
+        } catch (RuntimeException e) {
+            System.out.println("Error marking overdue loans: " + e.getMessage());
+            delayMillis = TimeUnit.MINUTES.toMillis(RETRY_MINUTES);
+        }
+        if (!scheduler.isShutdown()) {
+            scheduler.schedule(this::wake, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // False if something failed and the wake should be retried soon
+    private boolean markDue(LocalDate today) {
+        if (!seed()) return false;
+
+        List<Integer> due = takeDueBefore(today);
+        int marked = 0;
+        for (int from = 0; from < due.size(); from += MARK_BATCH_SIZE) {
+            List<Integer> batch = due.subList(from, Math.min(due.size(), from + MARK_BATCH_SIZE));
+            int count;
+            statistics.writeStarted();
+            try {
+                count = transactions.markOverdue(batch);
+                if (count > 0) statistics.loansBecameOverdue(count);
+            } finally {
+                statistics.writeFinished();
+            }
+            if (count < 0) {
+                // The retry's seed reads back whatever is still Issued
+                if (marked > 0) onMarked.accept(marked);
+                return false;
+            }
+            marked += count;
+        }
+        if (marked > 0) onMarked.accept(marked);
+        return afterWake.getAsBoolean();
+    }
+
+    // Every wake rebuilds the heap from the database, so loans issued by other desks or
+    // processes, which were never pushed here, are marked too
+    private boolean seed() {
+        synchronized (this) {
+            // Loans issued from here on are pushed as well as read; marking one twice is harmless
+            dueDates.clear();
+        }
+
+        List<Transaction> issued = transactions.getIssuedLoans();
+        if (issued == null) return false;
+
+        List<Loan> loans = new ArrayList<>(issued.size());
+        for (Transaction transaction : issued) {
+            if (transaction.getDueDate() != null) {
+                loans.add(new Loan(transaction.getTransactionId(), transaction.getDueDate().toLocalDate()));
+            }
+        }
+        synchronized (this) {
+            dueDates.addAll(loans);
+        }
+        return true;
+    }
+
+    private synchronized List<Integer> takeDueBefore(LocalDate today) {
+        List<Integer> due = new ArrayList<>();
+        while (!dueDates.isEmpty() && dueDates.peek().dueDate.isBefore(today)) {
+            due.add(dueDates.poll().transactionId);
+        }
+        return due;
+    }
+
+    private static long millisUntilNextDay() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime wake = now.toLocalDate().plusDays(1).atStartOfDay().plusSeconds(WAKE_DELAY_SECONDS);
+        return Math.max(1, Duration.between(now, wake).toMillis());
+    }
+}
@@ -0,0 +1,52 @@
+package com.library.services;
+
+import com.library.dao.TransactionRepository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+
+// Moves loans returned more than afterDays ago to the archive table, a chunk per transaction
+public class TransactionArchiver {
+    // -Dlibrary.archive.afterDays=365; 0 turns archiving off
+    public static final String AFTER_DAYS_PROPERTY = "library.archive.afterDays";
+    private static final int DEFAULT_AFTER_DAYS = 365;
+    private static final int CHUNK_SIZE = Integer.getInteger("library.archive.chunkSize", 1000);
+
+    private final TransactionRepository transactions;
+    private final int afterDays;
+
+    public TransactionArchiver(TransactionRepository transactions, int afterDays) {
+        this.transactions = transactions;
+        // Probed once, here; without the archive table there is nowhere to move loans to
+        if (afterDays > 0 && !transactions.enableArchive()) {
+            System.out.println("Transaction archive not found, archiving is off " +
+                    "(apply sql/migrations/002_transactions_archive.sql)");
+            afterDays = 0;
+        }
+        this.afterDays = Math.max(0, afterDays);
+    }
+
+    public static TransactionArchiver fromSystemProperties(TransactionRepository transactions) {
+        return new TransactionArchiver(transactions, Integer.getInteger(AFTER_DAYS_PROPERTY, DEFAULT_AFTER_DAYS));
+    }
+
+    // 0 when archiving is off, by configuration or for want of the archive table
+    public int getAfterDays() {
+        return afterDays;
+    }
+
+    // The number of transactions moved, or -1 if a chunk failed; the chunks before it stay moved
+    public int run(LocalDate today) {
+        if (afterDays == 0) return 0;
+
+        Date cutoff = Date.valueOf(today.minusDays(afterDays));
+        int moved = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            int count = transactions.archiveReturnedBefore(cutoff, CHUNK_SIZE);
+            if (count < 0) return -1;
+            moved += count;
+            if (count < CHUNK_SIZE) break;
+        }
+        return moved;
+    }
+}
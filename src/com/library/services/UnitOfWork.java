@@ -0,0 +1,31 @@
+package com.library.services;
+
+import com.library.dao.StorageEngine;
+
+import java.util.function.Supplier;
+
+// Groups several repository calls into one transaction (rolled back on failure by the MySQL engine only)
+public class UnitOfWork {
+    private final StorageEngine storage;
+
+    public UnitOfWork(StorageEngine storage) {
+        this.storage = storage;
+    }
+
+    // Read-write work; committed if it returns normally, rolled back if it throws (MySQL only)
+    public <T> T execute(Supplier<T> work) {
+        return storage.runInTransaction(false, work);
+    }
+
+    // Read-only work that must see one consistent snapshot (reports, dashboards)
+    public <T> T executeReadOnly(Supplier<T> work) {
+        return storage.runInTransaction(true, work);
+    }
+
+    public void execute(Runnable work) {
+        execute(() -> {
+            work.run();
+            return null;
+        });
+    }
+}
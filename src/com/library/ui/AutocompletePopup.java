@@ -0,0 +1,122 @@
+package com.library.ui;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Drop-down of completions under a text field, refreshed as the user types
+public class AutocompletePopup {
+    private static final int MIN_PREFIX_LENGTH = 2;
+
+    private final JTextField field;
+    private final Function<String, List<String>> completions;
+    private final Consumer<String> onAccept;
+    private final JPopupMenu popup = new JPopupMenu();
+    private final DefaultListModel<String> listModel = new DefaultListModel<>();
+    private final JList<String> list = new JList<>(listModel);
+    private boolean accepting;
+
+    public AutocompletePopup(JTextField field, Function<String, List<String>> completions, Consumer<String> onAccept) {
+        this.field = field;
+        this.completions = completions;
+        this.onAccept = onAccept;
+
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setFocusable(false);
+        popup.setFocusable(false);
+        popup.add(new JScrollPane(list));
+
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) { scheduleRefresh(); }
+            public void removeUpdate(DocumentEvent e) { scheduleRefresh(); }
+            public void changedUpdate(DocumentEvent e) { scheduleRefresh(); }
+        });
+
+        field.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (!popup.isVisible()) return;
+                int index = list.getSelectedIndex();
+                switch (e.getKeyCode()) {
+                    case KeyEvent.VK_DOWN:
+                        list.setSelectedIndex(Math.min(index + 1, listModel.size() - 1));
+                        list.ensureIndexIsVisible(list.getSelectedIndex());
+                        e.consume();
+                        break;
+                    case KeyEvent.VK_UP:
+                        list.setSelectedIndex(Math.max(index - 1, 0));
+                        list.ensureIndexIsVisible(list.getSelectedIndex());
+                        e.consume();
+                        break;
+                    case KeyEvent.VK_ENTER:
+                        if (index >= 0) {
+                            accept(list.getSelectedValue());
+                            e.consume();
+                        }
+                        break;
+                    case KeyEvent.VK_ESCAPE:
+                        popup.setVisible(false);
+                        e.consume();
+                        break;
+                    default:
+                        break;
+                }
+            }
+        });
+
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int index = list.locationToIndex(e.getPoint());
+                if (index >= 0) accept(listModel.get(index));
+            }
+        });
+    }
+
+    // Document listeners must not change the field, so refresh after the edit completes
+    private void scheduleRefresh() {
+        if (accepting) return;
+        SwingUtilities.invokeLater(this::refresh);
+    }
+
+    private void refresh() {
+        String text = field.getText().trim();
+        if (text.length() < MIN_PREFIX_LENGTH || !field.isShowing()) {
+            popup.setVisible(false);
+            return;
+        }
+
+        List<String> matches = completions.apply(text);
+        listModel.clear();
+        for (String match : matches) {
+            listModel.addElement(match);
+        }
+        if (matches.isEmpty()) {
+            popup.setVisible(false);
+            return;
+        }
+
+        list.setVisibleRowCount(Math.min(matches.size(), 10));
+        popup.pack();
+        popup.show(field, 0, field.getHeight());
+        field.requestFocusInWindow();
+    }
+
+    private void accept(String value) {
+        popup.setVisible(false);
+        accepting = true;
+        try {
+            field.setText(value);
+        } finally {
+            accepting = false;
+        }
+        onAccept.accept(value);
+    }
+}
@@ -0,0 +1,114 @@
+package com.library.ui;
+
+import com.library.db.QueryCanceller;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+// Search-as-you-type for one table, debounced, with recent results kept for a short while
+class LiveSearch<T> {
+    private static final int DEBOUNCE_MILLIS = 250;
+    // Shorter terms match most of a large table, so they only run on Enter or the Search button
+    private static final int MIN_TYPED_LENGTH = 2;
+    private static final int CACHED_TERMS = 32;
+    private static final long CACHE_TTL_MILLIS = 60_000;
+
+    private static class Result<T> {
+        final List<T> rows;
+        final long expiresAt;
+
+        Result(List<T> rows, long expiresAt) {
+            this.rows = rows;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final JTextField field;
+    private final Function<String, List<T>> search;
+    private final TableLoader<T> loader;
+    private final Runnable showAll;
+    private final Timer timer;
+    private boolean showingAll = true;
+
+    // Filled by the loader's worker threads, read by the next search
+    private final Map<String, Result<T>> cache = new LinkedHashMap<String, Result<T>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Result<T>> eldest) {
+            return size() > CACHED_TERMS;
+        }
+    };
+
+    LiveSearch(JTextField field, Function<String, List<T>> search, TableLoader<T> loader, Runnable showAll) {
+        this.field = field;
+        this.search = search;
+        this.loader = loader;
+        this.showAll = showAll;
+        this.timer = new Timer(DEBOUNCE_MILLIS, e -> typed());
+        timer.setRepeats(false);
+
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) { timer.restart(); }
+            public void removeUpdate(DocumentEvent e) { timer.restart(); }
+            public void changedUpdate(DocumentEvent e) { timer.restart(); }
+        });
+        field.addActionListener(e -> run());
+    }
+
+    // Search for the field's text now, whatever its length (Enter or the Search button)
+    void run() {
+        timer.stop();
+        String term = field.getText().trim();
+        if (term.isEmpty()) {
+            loader.cancel();
+            showingAll = true;
+            showAll.run();
+            return;
+        }
+
+        showingAll = false;
+        loader.load(sink -> {
+            List<T> rows = cached(term);
+            if (rows == null) {
+                rows = search.apply(term);
+                // A cancelled query's empty result must not answer the next search for this term
+                if (QueryCanceller.isCancelled()) return;
+                remember(term, rows);
+            }
+            rows.forEach(sink);
+        });
+    }
+
+    // Results may include rows that have since changed
+    synchronized void clearCache() {
+        cache.clear();
+    }
+
+    private void typed() {
+        String term = field.getText().trim();
+        if (term.isEmpty()) {
+            // Clearing the field shows the whole table again, once
+            if (!showingAll) run();
+            return;
+        }
+        if (term.length() >= MIN_TYPED_LENGTH) run();
+    }
+
+    private synchronized List<T> cached(String term) {
+        Result<T> result = cache.get(term);
+        if (result == null) return null;
+        if (result.expiresAt - System.currentTimeMillis() <= 0) {
+            cache.remove(term);
+            return null;
+        }
+        return result.rows;
+    }
+
+    private synchronized void remember(String term, List<T> rows) {
+        cache.put(term, new Result<>(rows, System.currentTimeMillis() + CACHE_TTL_MILLIS));
+    }
+}
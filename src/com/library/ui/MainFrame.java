@@ -1,21 +1,33 @@
 package com.library.ui;
 
+import com.library.bulk.DataExporter;
+import com.library.bulk.ExportResult;
+import com.library.bulk.ImportResult;
+import com.library.bulk.ReturnsResult;
+import com.library.dao.BookColumn;
+import com.library.dao.MemberColumn;
+import com.library.dao.TransactionColumn;
 import com.library.models.Book;
+import com.library.models.IssueOutcome;
 import com.library.models.Member;
+import com.library.models.ReturnOutcome;
 import com.library.models.Transaction;
+import com.library.services.LibraryChange;
 import com.library.services.LibraryService;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.TitledBorder;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.JTableHeader;
 import java.awt.*;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
+import java.io.File;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
 
 public class MainFrame extends JFrame {
     private final LibraryService libraryService;
@@ -23,21 +35,38 @@ public class MainFrame extends JFrame {
 
     // Tables
     private JTable booksTable;
-    private DefaultTableModel booksTableModel;
+    private PagedTableModel<Book, BookColumn> booksTableModel;
     private JTable membersTable;
-    private DefaultTableModel membersTableModel;
+    private PagedTableModel<Member, MemberColumn> membersTableModel;
     private JTable transactionsTable;
-    private DefaultTableModel transactionsTableModel;
+    private PagedTableModel<Transaction, TransactionColumn> transactionsTableModel;
 
     // Search fields
     private JTextField bookSearchField;
     private JTextField memberSearchField;
     private JTextField transactionSearchField;
+    // Read by the search's worker thread
+    private volatile boolean searchArchive;
+
+    // Every service call runs on a background worker; the table models read pages
+    // of the whole table, and these fill them with search results
+    private StatusBar statusBar;
+    private TableLoader<Book> bookLoader;
+    private TableLoader<Member> memberLoader;
+    private TableLoader<Transaction> transactionLoader;
+    private LiveSearch<Book> bookSearch;
+    private LiveSearch<Member> memberSearch;
+    private LiveSearch<Transaction> transactionSearch;
 
     public MainFrame() {
-        libraryService = new LibraryService();
+        this(new LibraryService());
+    }
+
+    public MainFrame(LibraryService libraryService) {
+        this.libraryService = libraryService;
         initializeUI();
         loadInitialData();
+        libraryService.addChangeListener(change -> SwingUtilities.invokeLater(() -> applyChange(change)));
     }
 
     private void initializeUI() {
@@ -47,8 +76,20 @@ public class MainFrame extends JFrame {
         setLocationRelativeTo(null);
 
         createMenuBar();
-        createMainContent();
+        // Before the tabs, whose table models report to it
         createStatusBar();
+        createMainContent();
+
+        bookLoader = new TableLoader<>("books", booksTableModel, statusBar);
+        memberLoader = new TableLoader<>("members", membersTableModel, statusBar);
+        transactionLoader = new TableLoader<>("transactions", transactionsTableModel, statusBar);
+
+        bookSearch = new LiveSearch<>(bookSearchField, this::findBooks, bookLoader, this::loadBooksData);
+        memberSearch = new LiveSearch<>(memberSearchField, libraryService::searchMembers, memberLoader,
+                this::loadMembersData);
+        transactionSearch = new LiveSearch<>(transactionSearchField,
+                term -> libraryService.searchTransactions(term, searchArchive),
+                transactionLoader, this::loadTransactionsData);
     }
 
     private void createMenuBar() {
@@ -138,18 +179,35 @@ public class MainFrame extends JFrame {
         statsPanel.setBorder(new TitledBorder("Library Statistics"));
         statsPanel.setBackground(Color.WHITE);
 
-        int totalBooks = libraryService.getTotalBooks();
-        int availableBooks = libraryService.getAvailableBooksCount();
-        int activeMembers = libraryService.getActiveMembers();
-        List<Transaction> overdueBooks = libraryService.getOverdueBooks();
-
-        statsPanel.add(createStatCard("📊 Total Books", String.valueOf(totalBooks), new Color(70, 130, 180)));
-        statsPanel.add(createStatCard("📚 Available Books", String.valueOf(availableBooks), new Color(60, 179, 113)));
-        statsPanel.add(createStatCard("🔒 Borrowed Books", String.valueOf(totalBooks - availableBooks), new Color(255, 140, 0)));
-        statsPanel.add(createStatCard("👥 Active Members", String.valueOf(activeMembers), new Color(138, 43, 226)));
-        statsPanel.add(createStatCard("⏰ Overdue Books", String.valueOf(overdueBooks.size()), new Color(220, 20, 60)));
+        // The cards show "…" until the statistics arrive, so the window opens without waiting on the database
+        JLabel totalBooksValue = new JLabel("…", SwingConstants.CENTER);
+        JLabel availableBooksValue = new JLabel("…", SwingConstants.CENTER);
+        JLabel borrowedBooksValue = new JLabel("…", SwingConstants.CENTER);
+        JLabel activeMembersValue = new JLabel("…", SwingConstants.CENTER);
+        JLabel overdueBooksValue = new JLabel("…", SwingConstants.CENTER);
+
+        statsPanel.add(createStatCard("📊 Total Books", totalBooksValue, new Color(70, 130, 180)));
+        statsPanel.add(createStatCard("📚 Available Books", availableBooksValue, new Color(60, 179, 113)));
+        statsPanel.add(createStatCard("🔒 Borrowed Books", borrowedBooksValue, new Color(255, 140, 0)));
+        statsPanel.add(createStatCard("👥 Active Members", activeMembersValue, new Color(138, 43, 226)));
+        statsPanel.add(createStatCard("⏰ Overdue Books", overdueBooksValue, new Color(220, 20, 60)));
         statsPanel.add(createStatCard("💰 Total Fines", "$0.00", new Color(255, 215, 0)));
 
+        libraryService.getLibrarySummaryAsync().whenComplete((summary, error) -> SwingUtilities.invokeLater(() -> {
+            if (error != null) {
+                for (JLabel label : new JLabel[]{totalBooksValue, availableBooksValue, borrowedBooksValue,
+                        activeMembersValue, overdueBooksValue}) {
+                    label.setText("n/a");
+                }
+                return;
+            }
+            totalBooksValue.setText(String.valueOf(summary.getTotalBooks()));
+            availableBooksValue.setText(String.valueOf(summary.getAvailableBooks()));
+            borrowedBooksValue.setText(String.valueOf(summary.getBorrowedBooks()));
+            activeMembersValue.setText(String.valueOf(summary.getActiveMembers()));
+            overdueBooksValue.setText(String.valueOf(summary.getOverdueBooks()));
+        }));
+
         // Quick Actions Panel
         JPanel quickActionsPanel = new JPanel(new GridLayout(1, 3, 10, 10));
         quickActionsPanel.setBorder(new TitledBorder("Quick Actions"));
@@ -207,11 +265,13 @@ public class MainFrame extends JFrame {
         JButton editButton = createStyledButton("✏️ Edit", new Color(255, 140, 0));
         JButton deleteButton = createStyledButton("🗑️ Delete", new Color(220, 20, 60));
         JButton refreshButton = createStyledButton("🔄 Refresh", new Color(70, 130, 180));
+        JButton importButton = createStyledButton("📥 Import", new Color(0, 128, 128));
 
         buttonPanel.add(addButton);
         buttonPanel.add(editButton);
         buttonPanel.add(deleteButton);
         buttonPanel.add(refreshButton);
+        buttonPanel.add(importButton);
 
         // Search panel
         JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 5));
@@ -231,14 +291,11 @@ public class MainFrame extends JFrame {
 
         // Table for books
         String[] columns = {"ID", "Title", "Author", "Category", "ISBN", "Year", "Available", "Total", "Status"};
-        booksTableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        booksTableModel = new PagedTableModel<>("books", columns, BookColumn.values(), this::bookRow,
+                libraryService::getBookCount, libraryService::getBooksPage, BookColumn.TITLE, false, statusBar);
 
         booksTable = new JTable(booksTableModel);
+        booksTableModel.attach(booksTable);
         booksTable.setRowHeight(25);
         booksTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         booksTable.setFont(new Font("Segoe UI", Font.PLAIN, 12));
@@ -255,10 +312,12 @@ public class MainFrame extends JFrame {
         editButton.addActionListener(e -> editSelectedBook());
         deleteButton.addActionListener(e -> deleteSelectedBook());
         refreshButton.addActionListener(e -> loadBooksData());
+        importButton.addActionListener(e -> importBooks());
         searchButton.addActionListener(e -> searchBooks());
+        new AutocompletePopup(bookSearchField, libraryService::completeBookSearch, value -> searchBooks());
         clearButton.addActionListener(e -> {
             bookSearchField.setText("");
-            loadBooksData();
+            searchBooks();
         });
 
         // Double-click to edit
@@ -314,14 +373,11 @@ public class MainFrame extends JFrame {
 
         // Members table
         String[] columns = {"ID", "Name", "Email", "Phone", "Join Date", "Status", "Max Books"};
-        membersTableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        membersTableModel = new PagedTableModel<>("members", columns, MemberColumn.values(), this::memberRow,
+                libraryService::getMemberCount, libraryService::getMembersPage, MemberColumn.NAME, false, statusBar);
 
         membersTable = new JTable(membersTableModel);
+        membersTableModel.attach(membersTable);
         membersTable.setRowHeight(25);
 
         JScrollPane tableScrollPane = new JScrollPane(membersTable);
@@ -332,9 +388,10 @@ public class MainFrame extends JFrame {
         deleteMemberBtn.addActionListener(e -> deleteSelectedMember());
         refreshMemberBtn.addActionListener(e -> loadMembersData());
         searchMemberBtn.addActionListener(e -> searchMembers());
+        new AutocompletePopup(memberSearchField, libraryService::completeMemberSearch, value -> searchMembers());
         clearMemberBtn.addActionListener(e -> {
             memberSearchField.setText("");
-            loadMembersData();
+            searchMembers();
         });
 
         panel.add(topPanel, BorderLayout.NORTH);
@@ -355,10 +412,12 @@ public class MainFrame extends JFrame {
 
         JButton issueBtn = createStyledButton("📖 Issue Book", new Color(60, 179, 113));
         JButton returnBtn = createStyledButton("↩️ Return Book", new Color(255, 140, 0));
+        JButton bookDropBtn = createStyledButton("📦 Book Drop", new Color(0, 128, 128));
         JButton refreshTransBtn = createStyledButton("🔄 Refresh", new Color(70, 130, 180));
 
         buttonPanel.add(issueBtn);
         buttonPanel.add(returnBtn);
+        buttonPanel.add(bookDropBtn);
         buttonPanel.add(refreshTransBtn);
 
         // Search for transactions
@@ -368,9 +427,11 @@ public class MainFrame extends JFrame {
         transactionSearchField = new JTextField(20);
         JButton searchTransBtn = createStyledButton("🔍 Search", new Color(138, 43, 226));
         JButton clearTransBtn = createStyledButton("🗑️ Clear", Color.GRAY);
+        JCheckBox searchArchiveBox = archiveCheckBox();
 
         searchPanel.add(new JLabel("Search:"));
         searchPanel.add(transactionSearchField);
+        searchPanel.add(searchArchiveBox);
         searchPanel.add(searchTransBtn);
         searchPanel.add(clearTransBtn);
 
@@ -379,14 +440,12 @@ public class MainFrame extends JFrame {
 
         // Transactions table
         String[] columns = {"ID", "Book", "Member", "Issue Date", "Due Date", "Return Date", "Fine", "Status"};
-        transactionsTableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        transactionsTableModel = new PagedTableModel<>("transactions", columns, TransactionColumn.values(),
+                this::transactionRow, libraryService::getTransactionCount, libraryService::getTransactionsPage,
+                TransactionColumn.ISSUE_DATE, true, statusBar);
 
         transactionsTable = new JTable(transactionsTableModel);
+        transactionsTableModel.attach(transactionsTable);
         transactionsTable.setRowHeight(25);
 
         JScrollPane tableScrollPane = new JScrollPane(transactionsTable);
@@ -394,11 +453,17 @@ public class MainFrame extends JFrame {
         // Action listeners
         issueBtn.addActionListener(e -> showIssueBookDialog());
         returnBtn.addActionListener(e -> showReturnBookDialog());
+        bookDropBtn.addActionListener(e -> processBookDrop());
         refreshTransBtn.addActionListener(e -> loadTransactionsData());
         searchTransBtn.addActionListener(e -> searchTransactions());
         clearTransBtn.addActionListener(e -> {
             transactionSearchField.setText("");
-            loadTransactionsData();
+            searchTransactions();
+        });
+        searchArchiveBox.addActionListener(e -> {
+            searchArchive = searchArchiveBox.isSelected();
+            transactionSearch.clearCache();
+            searchTransactions();
         });
 
         panel.add(topPanel, BorderLayout.NORTH);
@@ -422,22 +487,22 @@ public class MainFrame extends JFrame {
         overduePanel.add(new JScrollPane(overdueArea), BorderLayout.CENTER);
 
         JButton generateOverdueBtn = createStyledButton("🔄 Generate Overdue Report", new Color(220, 20, 60));
-        generateOverdueBtn.addActionListener(e -> {
-            List<Transaction> overdue = libraryService.getOverdueBooks();
+        generateOverdueBtn.addActionListener(e -> runInBackground("Generating overdue report...",
+                libraryService::getOverdueBooks, overdue -> {
             StringBuilder report = new StringBuilder("=== OVERDUE BOOKS REPORT ===\n\n");
             report.append("Generated: ").append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date())).append("\n");
             report.append("Total Overdue: ").append(overdue.size()).append("\n\n");
 
             for (Transaction t : overdue) {
                 report.append(String.format("Transaction ID: %d\n", t.getTransactionId()));
-                report.append(String.format("Book ID: %d\n", t.getBookId()));
-                report.append(String.format("Member ID: %d\n", t.getMemberId()));
+                report.append(String.format("Book: %s\n", bookLabel(t)));
+                report.append(String.format("Member: %s\n", memberLabel(t)));
                 report.append(String.format("Due Date: %s\n", t.getDueDate()));
                 report.append("------------------------------------\n");
             }
 
             overdueArea.setText(report.toString());
-        });
+        }, generateOverdueBtn));
         overduePanel.add(generateOverdueBtn, BorderLayout.SOUTH);
 
         // Statistics Report
@@ -449,7 +514,9 @@ public class MainFrame extends JFrame {
 
         JButton generateStatsBtn = createStyledButton("📊 Generate Statistics", new Color(70, 130, 180));
         generateStatsBtn.addActionListener(e -> {
-            statsArea.setText(libraryService.generateLibraryReport());
+            statsArea.setText("Generating statistics...");
+            libraryService.generateLibraryReportAsync().whenComplete((report, error) -> SwingUtilities.invokeLater(() ->
+                    statsArea.setText(error != null ? "Could not generate statistics: " + error.getMessage() : report)));
         });
         statsPanel.add(generateStatsBtn, BorderLayout.SOUTH);
 
@@ -461,60 +528,154 @@ public class MainFrame extends JFrame {
         historyPanel.add(new JScrollPane(historyArea), BorderLayout.CENTER);
 
         JButton generateHistoryBtn = createStyledButton("📜 Generate History", new Color(138, 43, 226));
+        JCheckBox historyArchiveBox = archiveCheckBox();
         generateHistoryBtn.addActionListener(e -> {
-            List<Transaction> transactions = libraryService.getAllTransactions();
-            StringBuilder report = new StringBuilder("=== TRANSACTION HISTORY ===\n\n");
-
-            for (Transaction t : transactions) {
-                report.append(String.format("ID: %d | Book: %d | Member: %d\n",
-                        t.getTransactionId(), t.getBookId(), t.getMemberId()));
-                report.append(String.format("Issue: %s | Due: %s | Status: %s\n",
-                        t.getIssueDate(), t.getDueDate(), t.getStatus()));
-                report.append("------------------------------------\n");
-            }
+            boolean includeArchive = historyArchiveBox.isSelected();
+            runInBackground("Generating transaction history...",
+                    () -> libraryService.getAllTransactions(includeArchive), transactions -> {
+                StringBuilder report = new StringBuilder("=== TRANSACTION HISTORY ===\n\n");
+
+                for (Transaction t : transactions) {
+                    report.append(String.format("ID: %d | Book: %s | Member: %s\n",
+                            t.getTransactionId(), bookLabel(t), memberLabel(t)));
+                    report.append(String.format("Issue: %s | Due: %s | Status: %s\n",
+                            t.getIssueDate(), t.getDueDate(), t.getStatus()));
+                    report.append("------------------------------------\n");
+                }
 
-            historyArea.setText(report.toString());
+                historyArea.setText(report.toString());
+            }, generateHistoryBtn);
+        });
+        JPanel historyButtons = new JPanel(new BorderLayout());
+        historyButtons.add(historyArchiveBox, BorderLayout.WEST);
+        historyButtons.add(generateHistoryBtn, BorderLayout.CENTER);
+        historyPanel.add(historyButtons, BorderLayout.SOUTH);
+
+        // Database Performance
+        JPanel performancePanel = new JPanel(new BorderLayout());
+        JTextArea performanceArea = new JTextArea();
+        performanceArea.setEditable(false);
+        performanceArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        performancePanel.add(new JScrollPane(performanceArea), BorderLayout.CENTER);
+
+        JButton generatePerformanceBtn = createStyledButton("⏱️ Query Performance", new Color(255, 140, 0));
+        generatePerformanceBtn.addActionListener(e -> runInBackground("Collecting query performance...",
+                libraryService::getPerformanceReport, performanceArea::setText, generatePerformanceBtn));
+        performancePanel.add(generatePerformanceBtn, BorderLayout.SOUTH);
+
+        // Data Export
+        JPanel exportPanel = new JPanel(new BorderLayout());
+        JTextArea exportArea = new JTextArea();
+        exportArea.setEditable(false);
+        exportArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        exportPanel.add(new JScrollPane(exportArea), BorderLayout.CENTER);
+
+        JPanel exportOptions = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 5));
+        JComboBox<String> exportFormatCombo = new JComboBox<>(new String[]{"CSV", "JSON Lines"});
+        JCheckBox exportGzipBox = new JCheckBox("gzip");
+        JButton exportBtn = createStyledButton("💾 Export All Tables", new Color(0, 128, 128));
+        exportOptions.add(new JLabel("Format:"));
+        exportOptions.add(exportFormatCombo);
+        exportOptions.add(exportGzipBox);
+        exportOptions.add(exportBtn);
+        exportBtn.addActionListener(e -> {
+            DataExporter.Format format = exportFormatCombo.getSelectedIndex() == 0
+                    ? DataExporter.Format.CSV : DataExporter.Format.JSON_LINES;
+            exportData(exportArea, exportBtn, format, exportGzipBox.isSelected());
         });
-        historyPanel.add(generateHistoryBtn, BorderLayout.SOUTH);
+        exportPanel.add(exportOptions, BorderLayout.SOUTH);
 
         reportsTabbedPane.addTab("Overdue Books", overduePanel);
         reportsTabbedPane.addTab("Statistics", statsPanel);
         reportsTabbedPane.addTab("Transaction History", historyPanel);
+        reportsTabbedPane.addTab("Database Performance", performancePanel);
+        reportsTabbedPane.addTab("Data Export", exportPanel);
 
         panel.add(reportsTabbedPane, BorderLayout.CENTER);
 
         return panel;
     }
 
-    private void createStatusBar() {
-        JPanel statusPanel = new JPanel(new BorderLayout());
-        statusPanel.setBorder(BorderFactory.createEtchedBorder());
-        statusPanel.setBackground(new Color(240, 240, 240));
-
-        JLabel statusLabel = new JLabel(" Ready");
-        statusLabel.setBorder(BorderFactory.createEmptyBorder(2, 5, 2, 5));
+    private void exportData(JTextArea log, JButton exportButton, DataExporter.Format format, boolean gzip) {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Export Directory");
+        chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
 
-        JLabel timeLabel = new JLabel();
-        timeLabel.setBorder(BorderFactory.createEmptyBorder(2, 5, 2, 5));
+        File directory = chooser.getSelectedFile();
+        exportButton.setEnabled(false);
+        log.setText("Exporting to " + directory.getPath() + "...\n");
 
-        // Update time every second
-        Timer timer = new Timer(1000, new ActionListener() {
+        SwingWorker<List<ExportResult>, Void> worker = new SwingWorker<List<ExportResult>, Void>() {
             @Override
-            public void actionPerformed(ActionEvent e) {
-                timeLabel.setText(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()));
+            protected List<ExportResult> doInBackground() throws Exception {
+                return libraryService.exportData(directory, format, gzip);
             }
-        });
-        timer.start();
 
-        statusPanel.add(statusLabel, BorderLayout.WEST);
-        statusPanel.add(timeLabel, BorderLayout.EAST);
+            @Override
+            protected void done() {
+                exportButton.setEnabled(true);
+                try {
+                    for (ExportResult result : get()) {
+                        log.append(result + "\n");
+                    }
+                    log.append("Export finished.\n");
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    log.append("Export failed: " + cause.getMessage() + "\n");
+                }
+            }
+        };
+        worker.execute();
+    }
 
-        add(statusPanel, BorderLayout.SOUTH);
+    private void createStatusBar() {
+        statusBar = new StatusBar();
+        add(statusBar, BorderLayout.SOUTH);
     }
 
     // ========== HELPER METHODS ==========
 
+    // Runs a service call on a background worker and hands its result to onDone on
+    // the event thread. The given components stay disabled until then, so the
+    // action cannot be started twice while the first one is still running.
+    private <T> void runInBackground(String message, Supplier<T> call, Consumer<T> onDone, Component... busy) {
+        for (Component component : busy) {
+            component.setEnabled(false);
+        }
+        statusBar.taskStarted(message);
+
+        SwingWorker<T, Void> worker = new SwingWorker<T, Void>() {
+            @Override
+            protected T doInBackground() {
+                return call.get();
+            }
+
+            @Override
+            protected void done() {
+                for (Component component : busy) {
+                    component.setEnabled(true);
+                }
+                try {
+                    T result = get();
+                    statusBar.taskFinished("Ready");
+                    onDone.accept(result);
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    statusBar.taskFinished("Failed: " + cause.getMessage());
+                    JOptionPane.showMessageDialog(MainFrame.this, "Operation failed: " + cause.getMessage(),
+                            "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        worker.execute();
+    }
+
     private JPanel createStatCard(String title, String value, Color color) {
+        return createStatCard(title, new JLabel(value, SwingConstants.CENTER), color);
+    }
+
+    private JPanel createStatCard(String title, JLabel valueLabel, Color color) {
         JPanel card = new JPanel(new BorderLayout());
         card.setBorder(BorderFactory.createCompoundBorder(
                 BorderFactory.createLineBorder(color.darker(), 1),
@@ -525,7 +686,6 @@ public class MainFrame extends JFrame {
         JLabel titleLabel = new JLabel(title, SwingConstants.CENTER);
         titleLabel.setFont(new Font("Segoe UI", Font.PLAIN, 14));
 
-        JLabel valueLabel = new JLabel(value, SwingConstants.CENTER);
         valueLabel.setFont(new Font("Segoe UI", Font.BOLD, 24));
         valueLabel.setForeground(color);
 
@@ -535,6 +695,18 @@ public class MainFrame extends JFrame {
         return card;
     }
 
+    // Archived transactions are only read when this is ticked
+    private JCheckBox archiveCheckBox() {
+        JCheckBox box = new JCheckBox("Include archive");
+        box.setOpaque(false);
+        int afterDays = libraryService.getArchiveAfterDays();
+        box.setEnabled(afterDays > 0);
+        box.setToolTipText(afterDays > 0
+                ? "Also show transactions returned more than " + afterDays + " days ago"
+                : "Archiving is off");
+        return box;
+    }
+
     private JButton createStyledButton(String text, Color color) {
         JButton button = new JButton(text);
         button.setFont(new Font("Segoe UI", Font.BOLD, 12));
@@ -574,58 +746,131 @@ public class MainFrame extends JFrame {
         loadTransactionsData();
     }
 
+    // Only the count is read here; rows are read a page at a time as they are scrolled into view
     private void loadBooksData() {
-        booksTableModel.setRowCount(0);
-        List<Book> books = libraryService.getAllBooks();
-        for (Book book : books) {
-            Object[] row = {
-                    book.getBookId(),
-                    book.getTitle(),
-                    book.getAuthor(),
-                    book.getCategory(),
-                    book.getIsbn(),
-                    book.getPublicationYear(),
-                    book.getAvailableCopies(),
-                    book.getTotalCopies(),
-                    book.getStatus()
-            };
-            booksTableModel.addRow(row);
-        }
+        bookLoader.cancel();
+        booksTableModel.refresh();
     }
 
     private void loadMembersData() {
-        membersTableModel.setRowCount(0);
-        List<Member> members = libraryService.getAllMembers();
-        for (Member member : members) {
-            Object[] row = {
-                    member.getMemberId(),
-                    member.getName(),
-                    member.getEmail(),
-                    member.getPhone(),
-                    member.getJoinDate(),
-                    member.getStatus(),
-                    member.getMaxBooksAllowed()
-            };
-            membersTableModel.addRow(row);
-        }
+        memberLoader.cancel();
+        membersTableModel.refresh();
     }
 
     private void loadTransactionsData() {
-        transactionsTableModel.setRowCount(0);
-        List<Transaction> transactions = libraryService.getAllTransactions();
-        for (Transaction t : transactions) {
-            Object[] row = {
-                    t.getTransactionId(),
-                    "Book #" + t.getBookId(),
-                    "Member #" + t.getMemberId(),
-                    t.getIssueDate(),
-                    t.getDueDate(),
-                    t.getReturnDate(),
-                    String.format("$%.2f", t.getFineAmount()),
-                    t.getStatus()
-            };
-            transactionsTableModel.addRow(row);
+        transactionLoader.cancel();
+        transactionsTableModel.refresh();
+    }
+
+    // Edits reach the tables as single-row changes, so an issue or return no longer
+    // re-reads the whole transactions table
+    private void applyChange(LibraryChange change) {
+        // Transaction results show book titles and member names, so any change can affect them
+        bookSearch.clearCache();
+        memberSearch.clearCache();
+        transactionSearch.clearCache();
+
+        switch (change.getEntity()) {
+            case BOOK:
+                applyChange(change, booksTableModel, libraryService::getBookById, this::loadBooksData);
+                break;
+            case MEMBER:
+                applyChange(change, membersTableModel, libraryService::getMemberById, this::loadMembersData);
+                break;
+            default:
+                applyChange(change, transactionsTableModel, libraryService::getTransactionById,
+                        this::loadTransactionsData);
+                break;
+        }
+    }
+
+    private <T> void applyChange(LibraryChange change, PagedTableModel<T, ?> model, IntFunction<T> lookup,
+                                 Runnable reload) {
+        int id = change.getId();
+        switch (change.getKind()) {
+            case DELETED:
+                model.rowDeleted(id);
+                return;
+            case RELOADED:
+                reload.run();
+                return;
+            default:
+                break;
         }
+
+        // Added and updated rows are read back, as the table shows them
+        new SwingWorker<T, Void>() {
+            @Override
+            protected T doInBackground() {
+                return lookup.apply(id);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    T row = get();
+                    if (row == null) {
+                        // Gone again before it could be read
+                        if (change.getKind() == LibraryChange.Kind.UPDATED) model.rowDeleted(id);
+                    } else if (change.getKind() == LibraryChange.Kind.ADDED) {
+                        model.rowInserted(row);
+                    } else {
+                        model.rowUpdated(row);
+                    }
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    statusBar.setMessage("Could not refresh " + change + ": " + cause.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    private Object[] bookRow(Book book) {
+        return new Object[]{
+                book.getBookId(),
+                book.getTitle(),
+                book.getAuthor(),
+                book.getCategory(),
+                book.getIsbn(),
+                book.getPublicationYear(),
+                book.getAvailableCopies(),
+                book.getTotalCopies(),
+                book.getStatus()
+        };
+    }
+
+    private Object[] memberRow(Member member) {
+        return new Object[]{
+                member.getMemberId(),
+                member.getName(),
+                member.getEmail(),
+                member.getPhone(),
+                member.getJoinDate(),
+                member.getStatus(),
+                member.getMaxBooksAllowed()
+        };
+    }
+
+    private Object[] transactionRow(Transaction t) {
+        return new Object[]{
+                t.getTransactionId(),
+                bookLabel(t),
+                memberLabel(t),
+                t.getIssueDate(),
+                t.getDueDate(),
+                t.getReturnDate(),
+                String.format("$%.2f", t.getFineAmount()),
+                t.getStatus()
+        };
+    }
+
+    // Title and name come with the transaction; the id stands in if the book or member is gone
+    private static String bookLabel(Transaction t) {
+        return t.getBookTitle() != null ? t.getBookTitle() : "Book #" + t.getBookId();
+    }
+
+    private static String memberLabel(Transaction t) {
+        return t.getMemberName() != null ? t.getMemberName() : "Member #" + t.getMemberId();
     }
 
     // ========== MISSING METHOD IMPLEMENTATIONS ==========
@@ -637,13 +882,19 @@ public class MainFrame extends JFrame {
             return;
         }
 
-        int bookId = (int) booksTableModel.getValueAt(selectedRow, 0);
-        Book book = libraryService.getBookById(bookId);
-        if (book == null) {
-            JOptionPane.showMessageDialog(this, "Book not found!", "Error", JOptionPane.ERROR_MESSAGE);
-            return;
-        }
+        Book selected = booksTableModel.getRow(selectedRow);
+        if (selected == null) return;
+        int bookId = selected.getBookId();
+        runInBackground("Loading book...", () -> libraryService.getBookById(bookId), book -> {
+            if (book == null) {
+                JOptionPane.showMessageDialog(this, "Book not found!", "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            showEditBookDialog(book);
+        });
+    }
 
+    private void showEditBookDialog(Book book) {
         JDialog dialog = new JDialog(this, "Edit Book", true);
         dialog.setSize(400, 450);
         dialog.setLayout(new GridLayout(9, 2, 10, 10));
@@ -688,13 +939,14 @@ public class MainFrame extends JFrame {
                 book.setTotalCopies((int) totalCopiesSpinner.getValue());
                 book.setAvailableCopies((int) availableCopiesSpinner.getValue());
 
-                if (libraryService.updateBook(book)) {
-                    JOptionPane.showMessageDialog(dialog, "Book updated successfully!");
-                    loadBooksData();
-                    dialog.dispose();
-                } else {
-                    JOptionPane.showMessageDialog(dialog, "Failed to update book!");
-                }
+                runInBackground("Saving book...", () -> libraryService.updateBook(book), updated -> {
+                    if (updated) {
+                        JOptionPane.showMessageDialog(dialog, "Book updated successfully!");
+                        dialog.dispose();
+                    } else {
+                        JOptionPane.showMessageDialog(dialog, "Failed to update book!");
+                    }
+                }, saveButton);
             } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(dialog, "Please enter valid year!");
             }
@@ -712,8 +964,10 @@ public class MainFrame extends JFrame {
             return;
         }
 
-        int bookId = (int) booksTableModel.getValueAt(selectedRow, 0);
-        String bookTitle = (String) booksTableModel.getValueAt(selectedRow, 1);
+        Book selected = booksTableModel.getRow(selectedRow);
+        if (selected == null) return;
+        int bookId = selected.getBookId();
+        String bookTitle = selected.getTitle();
 
         int confirm = JOptionPane.showConfirmDialog(this,
                 "Are you sure you want to delete book: " + bookTitle + "?",
@@ -721,39 +975,131 @@ public class MainFrame extends JFrame {
                 JOptionPane.YES_NO_OPTION);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            if (libraryService.deleteBook(bookId)) {
-                JOptionPane.showMessageDialog(this, "Book deleted successfully!");
-                loadBooksData();
-            } else {
-                JOptionPane.showMessageDialog(this, "Failed to delete book!");
-            }
+            runInBackground("Deleting book...", () -> libraryService.deleteBook(bookId), deleted -> {
+                if (deleted) {
+                    JOptionPane.showMessageDialog(this, "Book deleted successfully!");
+                } else {
+                    JOptionPane.showMessageDialog(this, "Failed to delete book!");
+                }
+            });
         }
     }
 
+    private void importBooks() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Import Books (CSV or MARC)");
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+
+        File source = chooser.getSelectedFile();
+        File rejects = new File(source.getParentFile(), source.getName() + ".rejects.csv");
+
+        JDialog progressDialog = new JDialog(this, "Importing " + source.getName(), false);
+        JProgressBar progressBar = new JProgressBar();
+        progressBar.setIndeterminate(true);
+        progressBar.setStringPainted(true);
+        progressBar.setString("Reading " + source.getName() + "...");
+        progressDialog.add(progressBar);
+        progressDialog.setSize(450, 80);
+        progressDialog.setLocationRelativeTo(this);
+        progressDialog.setVisible(true);
+
+        // The import runs off the event thread; progress arrives after every chunk
+        SwingWorker<ImportResult, ImportResult> worker = new SwingWorker<ImportResult, ImportResult>() {
+            @Override
+            protected ImportResult doInBackground() throws Exception {
+                return libraryService.importBooks(source, rejects, progress -> publish(progress));
+            }
+
+            @Override
+            protected void process(List<ImportResult> updates) {
+                progressBar.setString(updates.get(updates.size() - 1).toString());
+            }
+
+            @Override
+            protected void done() {
+                progressDialog.dispose();
+                try {
+                    ImportResult result = get();
+                    String message = "Import finished: " + result;
+                    if (result.getRejected() > 0) {
+                        message += "\nRejected records were written to " + rejects.getPath();
+                    }
+                    JOptionPane.showMessageDialog(MainFrame.this, message);
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(MainFrame.this, "Import failed: " + cause.getMessage(),
+                            "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        worker.execute();
+    }
+
+    // Return every loan scanned from the book drop: a file with one transaction ID per line
+    private void processBookDrop() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Book Drop Scans (one transaction ID per line)");
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+
+        File scans = chooser.getSelectedFile();
+
+        JDialog progressDialog = new JDialog(this, "Returning " + scans.getName(), false);
+        JProgressBar progressBar = new JProgressBar();
+        progressBar.setIndeterminate(true);
+        progressBar.setStringPainted(true);
+        progressBar.setString("Reading " + scans.getName() + "...");
+        progressDialog.add(progressBar);
+        progressDialog.setSize(450, 80);
+        progressDialog.setLocationRelativeTo(this);
+        progressDialog.setVisible(true);
+
+        SwingWorker<ReturnsResult, ReturnsResult> worker = new SwingWorker<ReturnsResult, ReturnsResult>() {
+            @Override
+            protected ReturnsResult doInBackground() throws Exception {
+                return libraryService.processReturns(scans, progress -> publish(progress));
+            }
+
+            @Override
+            protected void process(List<ReturnsResult> updates) {
+                progressBar.setString(updates.get(updates.size() - 1).toString());
+            }
+
+            @Override
+            protected void done() {
+                progressDialog.dispose();
+                try {
+                    ReturnsResult result = get();
+                    StringBuilder message = new StringBuilder("Book drop finished: " + result);
+                    List<ReturnOutcome> failures = result.getFailures();
+                    for (int i = 0; i < failures.size() && i < 20; i++) {
+                        message.append("\n").append(failures.get(i));
+                    }
+                    if (failures.size() > 20) {
+                        message.append("\n... and ").append(failures.size() - 20).append(" more");
+                    }
+                    JOptionPane.showMessageDialog(MainFrame.this, message.toString());
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(MainFrame.this, "Book drop failed: " + cause.getMessage(),
+                            "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        worker.execute();
+    }
+
+    // The search fields also search as you type; these run the search straight away
     private void searchBooks() {
-        String searchTerm = bookSearchField.getText().trim();
-        if (searchTerm.isEmpty()) {
-            loadBooksData();
-            return;
-        }
+        bookSearch.run();
+    }
 
+    private List<Book> findBooks(String searchTerm) {
         List<Book> books = libraryService.searchBooks(searchTerm);
-        booksTableModel.setRowCount(0);
-
-        for (Book book : books) {
-            Object[] row = {
-                    book.getBookId(),
-                    book.getTitle(),
-                    book.getAuthor(),
-                    book.getCategory(),
-                    book.getIsbn(),
-                    book.getPublicationYear(),
-                    book.getAvailableCopies(),
-                    book.getTotalCopies(),
-                    book.getStatus()
-            };
-            booksTableModel.addRow(row);
+        // Nothing matched exactly, so try again allowing for typos
+        if (books.isEmpty()) {
+            books = libraryService.fuzzySearchBooks(searchTerm);
         }
+        return books;
     }
 
     private void editSelectedMember() {
@@ -763,13 +1109,19 @@ public class MainFrame extends JFrame {
             return;
         }
 
-        int memberId = (int) membersTableModel.getValueAt(selectedRow, 0);
-        Member member = libraryService.getMemberById(memberId);
-        if (member == null) {
-            JOptionPane.showMessageDialog(this, "Member not found!", "Error", JOptionPane.ERROR_MESSAGE);
-            return;
-        }
+        Member selected = membersTableModel.getRow(selectedRow);
+        if (selected == null) return;
+        int memberId = selected.getMemberId();
+        runInBackground("Loading member...", () -> libraryService.getMemberById(memberId), member -> {
+            if (member == null) {
+                JOptionPane.showMessageDialog(this, "Member not found!", "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            showEditMemberDialog(member);
+        });
+    }
 
+    private void showEditMemberDialog(Member member) {
         JDialog dialog = new JDialog(this, "Edit Member", true);
         dialog.setSize(400, 350);
         dialog.setLayout(new GridLayout(8, 2, 10, 10));
@@ -810,13 +1162,14 @@ public class MainFrame extends JFrame {
             member.setStatus((String) statusCombo.getSelectedItem());
             member.setMaxBooksAllowed((int) maxBooksSpinner.getValue());
 
-            if (libraryService.updateMember(member)) {
-                JOptionPane.showMessageDialog(dialog, "Member updated successfully!");
-                loadMembersData();
-                dialog.dispose();
-            } else {
-                JOptionPane.showMessageDialog(dialog, "Failed to update member!");
-            }
+            runInBackground("Saving member...", () -> libraryService.updateMember(member), updated -> {
+                if (updated) {
+                    JOptionPane.showMessageDialog(dialog, "Member updated successfully!");
+                    dialog.dispose();
+                } else {
+                    JOptionPane.showMessageDialog(dialog, "Failed to update member!");
+                }
+            }, saveBtn);
         });
 
         cancelBtn.addActionListener(e -> dialog.dispose());
@@ -831,8 +1184,10 @@ public class MainFrame extends JFrame {
             return;
         }
 
-        int memberId = (int) membersTableModel.getValueAt(selectedRow, 0);
-        String memberName = (String) membersTableModel.getValueAt(selectedRow, 1);
+        Member selected = membersTableModel.getRow(selectedRow);
+        if (selected == null) return;
+        int memberId = selected.getMemberId();
+        String memberName = selected.getName();
 
         int confirm = JOptionPane.showConfirmDialog(this,
                 "Are you sure you want to delete member: " + memberName + "?",
@@ -840,82 +1195,45 @@ public class MainFrame extends JFrame {
                 JOptionPane.YES_NO_OPTION);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            if (libraryService.deleteMember(memberId)) {
-                JOptionPane.showMessageDialog(this, "Member deleted successfully!");
-                loadMembersData();
-            } else {
-                JOptionPane.showMessageDialog(this, "Failed to delete member!");
-            }
+            runInBackground("Deleting member...", () -> libraryService.deleteMember(memberId), deleted -> {
+                if (deleted) {
+                    JOptionPane.showMessageDialog(this, "Member deleted successfully!");
+                } else {
+                    JOptionPane.showMessageDialog(this, "Failed to delete member!");
+                }
+            });
         }
     }
 
     private void searchMembers() {
-        String searchTerm = memberSearchField.getText().trim();
-        if (searchTerm.isEmpty()) {
-            loadMembersData();
-            return;
-        }
-
-        List<Member> members = libraryService.searchMembers(searchTerm);
-        membersTableModel.setRowCount(0);
-
-        for (Member member : members) {
-            Object[] row = {
-                    member.getMemberId(),
-                    member.getName(),
-                    member.getEmail(),
-                    member.getPhone(),
-                    member.getJoinDate(),
-                    member.getStatus(),
-                    member.getMaxBooksAllowed()
-            };
-            membersTableModel.addRow(row);
-        }
+        memberSearch.run();
     }
 
     private void searchTransactions() {
-        String searchTerm = transactionSearchField.getText().trim();
-        if (searchTerm.isEmpty()) {
-            loadTransactionsData();
-            return;
-        }
-
-        List<Transaction> transactions = libraryService.searchTransactions(searchTerm);
-        transactionsTableModel.setRowCount(0);
-
-        for (Transaction t : transactions) {
-            Object[] row = {
-                    t.getTransactionId(),
-                    "Book #" + t.getBookId(),
-                    "Member #" + t.getMemberId(),
-                    t.getIssueDate(),
-                    t.getDueDate(),
-                    t.getReturnDate(),
-                    String.format("$%.2f", t.getFineAmount()),
-                    t.getStatus()
-            };
-            transactionsTableModel.addRow(row);
-        }
+        transactionSearch.run();
     }
 
     // ========== DIALOG METHODS ==========
 
     private void showIssueBookDialog() {
         JDialog dialog = new JDialog(this, "Issue Book", true);
-        dialog.setSize(400, 200);
-        dialog.setLayout(new GridLayout(4, 2, 10, 10));
+        dialog.setSize(400, 240);
+        dialog.setLayout(new GridLayout(5, 2, 10, 10));
         dialog.setLocationRelativeTo(this);
 
         JTextField bookIdField = new JTextField();
         JTextField memberIdField = new JTextField();
         JSpinner daysSpinner = new JSpinner(new SpinnerNumberModel(14, 1, 60, 1));
+        JCheckBox allOrNothingBox = new JCheckBox("All or nothing");
 
-        dialog.add(new JLabel("Book ID:"));
+        dialog.add(new JLabel("Book ID(s), comma-separated:"));
         dialog.add(bookIdField);
         dialog.add(new JLabel("Member ID:"));
         dialog.add(memberIdField);
         dialog.add(new JLabel("Days to Issue:"));
         dialog.add(daysSpinner);
+        dialog.add(new JLabel("Several books:"));
+        dialog.add(allOrNothingBox);
 
         JButton issueBtn = createStyledButton("📖 Issue", new Color(60, 179, 113));
         JButton cancelBtn = createStyledButton("❌ Cancel", new Color(220, 20, 60));
@@ -925,18 +1243,42 @@ public class MainFrame extends JFrame {
 
         issueBtn.addActionListener(e -> {
             try {
-                int bookId = Integer.parseInt(bookIdField.getText());
-                int memberId = Integer.parseInt(memberIdField.getText());
+                List<Integer> bookIds = new ArrayList<>();
+                for (String id : bookIdField.getText().split(",")) {
+                    if (!id.trim().isEmpty()) bookIds.add(Integer.parseInt(id.trim()));
+                }
+                int memberId = Integer.parseInt(memberIdField.getText().trim());
                 int days = (int) daysSpinner.getValue();
-
-                if (libraryService.issueBook(bookId, memberId, days)) {
-                    JOptionPane.showMessageDialog(dialog, "Book issued successfully!");
-                    loadBooksData();
-                    loadTransactionsData();
-                    dialog.dispose();
-                } else {
-                    JOptionPane.showMessageDialog(dialog, "Failed to issue book!");
+                if (bookIds.isEmpty()) throw new NumberFormatException();
+
+                if (bookIds.size() > 1) {
+                    boolean allOrNothing = allOrNothingBox.isSelected();
+                    runInBackground("Issuing " + bookIds.size() + " books...",
+                            () -> libraryService.issueBooks(memberId, bookIds, days, allOrNothing), outcomes -> {
+                        StringBuilder report = new StringBuilder();
+                        long issued = outcomes.stream().filter(IssueOutcome::isIssued).count();
+                        report.append(String.format("Issued %d of %d books.%n%n", issued, outcomes.size()));
+                        for (IssueOutcome outcome : outcomes) {
+                            report.append(outcome).append(System.lineSeparator());
+                        }
+                        JOptionPane.showMessageDialog(dialog, report.toString());
+                        if (issued == outcomes.size()) dialog.dispose();
+                    }, issueBtn);
+                    return;
                 }
+
+                int bookId = bookIds.get(0);
+
+                runInBackground("Issuing book...", () -> libraryService.issueBook(bookId, memberId, days), outcome -> {
+                    if (outcome.isIssued()) {
+                        JOptionPane.showMessageDialog(dialog, "Book issued successfully!");
+                        dialog.dispose();
+                    } else if (outcome.getMessage() != null) {
+                        JOptionPane.showMessageDialog(dialog, "Cannot issue: " + outcome.getMessage() + ".");
+                    } else {
+                        JOptionPane.showMessageDialog(dialog, "Failed to issue book!");
+                    }
+                }, issueBtn);
             } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(dialog, "Please enter valid numbers!");
             }
@@ -954,12 +1296,14 @@ public class MainFrame extends JFrame {
         dialog.setLocationRelativeTo(this);
 
         JTextField transIdField = new JTextField();
-        JSpinner fineSpinner = new JSpinner(new SpinnerNumberModel(0.50, 0.0, 10.0, 0.10));
+        // Fines follow the library's fine schedule (-Dlibrary.fine.*)
+        JLabel fineLabel = new JLabel(String.format("$%.2f/day",
+                libraryService.getFineSchedule().getPolicy(0).getDailyRate()));
 
         dialog.add(new JLabel("Transaction ID:"));
         dialog.add(transIdField);
-        dialog.add(new JLabel("Fine per Day ($):"));
-        dialog.add(fineSpinner);
+        dialog.add(new JLabel("Standard Fine:"));
+        dialog.add(fineLabel);
 
         JButton returnBtn = createStyledButton("↩️ Return", new Color(60, 179, 113));
         JButton cancelBtn = createStyledButton("❌ Cancel", new Color(220, 20, 60));
@@ -970,16 +1314,17 @@ public class MainFrame extends JFrame {
         returnBtn.addActionListener(e -> {
             try {
                 int transId = Integer.parseInt(transIdField.getText());
-                double fine = (double) fineSpinner.getValue();
 
-                if (libraryService.returnBook(transId, fine)) {
-                    JOptionPane.showMessageDialog(dialog, "Book returned successfully!");
-                    loadBooksData();
-                    loadTransactionsData();
-                    dialog.dispose();
-                } else {
-                    JOptionPane.showMessageDialog(dialog, "Failed to return book!");
-                }
+                runInBackground("Returning book...", () -> libraryService.returnBook(transId), outcome -> {
+                    if (outcome.isReturned()) {
+                        JOptionPane.showMessageDialog(dialog, outcome.getFine() > 0
+                                ? String.format("Book returned. Fine: $%.2f", outcome.getFine())
+                                : "Book returned successfully!");
+                        dialog.dispose();
+                    } else {
+                        JOptionPane.showMessageDialog(dialog, "Failed to return book: " + outcome.getMessage());
+                    }
+                }, returnBtn);
             } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(dialog, "Please enter valid transaction ID!");
             }
@@ -1032,13 +1377,14 @@ public class MainFrame extends JFrame {
             member.setMaxBooksAllowed((int) maxBooksSpinner.getValue());
             member.setJoinDate(new java.sql.Date(System.currentTimeMillis()));
 
-            if (libraryService.registerMember(member)) {
-                JOptionPane.showMessageDialog(dialog, "Member registered successfully!");
-                loadMembersData();
-                dialog.dispose();
-            } else {
-                JOptionPane.showMessageDialog(dialog, "Failed to register member!");
-            }
+            runInBackground("Registering member...", () -> libraryService.registerMember(member), added -> {
+                if (added) {
+                    JOptionPane.showMessageDialog(dialog, "Member registered successfully!");
+                    dialog.dispose();
+                } else {
+                    JOptionPane.showMessageDialog(dialog, "Failed to register member!");
+                }
+            }, saveBtn);
         });
 
         cancelBtn.addActionListener(e -> dialog.dispose());
@@ -1092,13 +1438,14 @@ public class MainFrame extends JFrame {
                 book.setTotalCopies((int) totalCopiesSpinner.getValue());
                 book.setAvailableCopies((int) availableCopiesSpinner.getValue());
 
-                if (libraryService.addNewBook(book)) {
-                    JOptionPane.showMessageDialog(dialog, "Book added successfully!");
-                    loadBooksData();
-                    dialog.dispose();
-                } else {
-                    JOptionPane.showMessageDialog(dialog, "Failed to add book!");
-                }
+                runInBackground("Adding book...", () -> libraryService.addNewBook(book), added -> {
+                    if (added) {
+                        JOptionPane.showMessageDialog(dialog, "Book added successfully!");
+                        dialog.dispose();
+                    } else {
+                        JOptionPane.showMessageDialog(dialog, "Failed to add book!");
+                    }
+                }, saveButton);
             } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(dialog, "Please enter valid year!");
             }
@@ -1119,10 +1466,14 @@ public class MainFrame extends JFrame {
     }
 
     private void showStatistics() {
-        JOptionPane.showMessageDialog(this,
-                libraryService.generateLibraryReport(),
-                "Library Statistics",
-                JOptionPane.INFORMATION_MESSAGE);
+        libraryService.generateLibraryReportAsync().whenComplete((report, error) -> SwingUtilities.invokeLater(() -> {
+            if (error != null) {
+                JOptionPane.showMessageDialog(this, "Could not generate statistics: " + error.getMessage(),
+                        "Library Statistics", JOptionPane.ERROR_MESSAGE);
+            } else {
+                JOptionPane.showMessageDialog(this, report, "Library Statistics", JOptionPane.INFORMATION_MESSAGE);
+            }
+        }));
     }
 
     private void showFullReport() {
@@ -1148,4 +1499,4 @@ public class MainFrame extends JFrame {
                 "About Library System",
                 JOptionPane.INFORMATION_MESSAGE);
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
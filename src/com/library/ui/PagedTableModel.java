@@ -0,0 +1,474 @@
+package com.library.ui;
+
+import com.library.dao.SortColumn;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.JTableHeader;
+import javax.swing.table.TableColumnModel;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+
+// Table model that reads rows a keyset page at a time as they are shown; call it on the event dispatch thread only
+class PagedTableModel<T, C extends SortColumn<T>> extends AbstractTableModel {
+    private static final int PAGE_SIZE = 200;
+    private static final int MAX_PAGES = 10;
+    // Requests beyond this are for rows scrolled past, and are dropped oldest first
+    private static final int MAX_QUEUED = 4;
+
+    // Reads one page: the rows after the given one (from the start when null), skipping offset
+    // of them; null if it could not be read
+    interface PageSource<T, C> {
+        List<T> page(C sortBy, boolean descending, T after, int offset, int pageSize);
+    }
+
+    private static class Page<T> {
+        // Current while it equals the model's generation
+        int generation;
+        final List<T> rows;
+        final List<Object[]> cells;
+
+        Page(int generation, List<T> rows, List<Object[]> cells) {
+            this.generation = generation;
+            this.rows = rows;
+            this.cells = cells;
+        }
+    }
+
+    private final String noun;
+    private final String[] columnNames;
+    // Sort column for each table column
+    private final C[] sortColumns;
+    private final Function<T, Object[]> toRow;
+    private final IntSupplier count;
+    private final PageSource<T, C> source;
+    private final StatusBar statusBar;
+
+    private int sortIndex;
+    private boolean descending;
+    // Bumped whenever page positions change; pages read for an older one are dropped
+    private int generation;
+    // Bumped by every refresh and switch to list mode; counts read for an older one are dropped
+    private int refreshes;
+    private int rowCount;
+
+    // Access-ordered, so the eldest entry is the page least recently shown
+    private final Map<Integer, Page<T>> pages = new LinkedHashMap<Integer, Page<T>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Page<T>> eldest) {
+            return size() > MAX_PAGES;
+        }
+    };
+    private final TreeMap<Integer, T> anchors = new TreeMap<>();
+    private final Deque<Integer> requests = new ArrayDeque<>();
+    private final Set<Integer> pending = new HashSet<>();
+    private boolean fetching;
+
+    // List mode: rows held in full, in the order given until a header is clicked
+    private List<T> list;
+    private List<Object[]> listCells;
+    private boolean listSorted;
+
+    private JTable table;
+
+    PagedTableModel(String noun, String[] columnNames, C[] sortColumns, Function<T, Object[]> toRow,
+                    IntSupplier count, PageSource<T, C> source, C sortBy, boolean descending, StatusBar statusBar) {
+        this.noun = noun;
+        this.columnNames = columnNames;
+        this.sortColumns = sortColumns;
+        this.toRow = toRow;
+        this.count = count;
+        this.source = source;
+        this.sortIndex = Arrays.asList(sortColumns).indexOf(sortBy);
+        this.descending = descending;
+        this.statusBar = statusBar;
+    }
+
+    // Sorts when one of table's column headers is clicked, and shows the sort arrow there
+    void attach(JTable table) {
+        this.table = table;
+        table.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                JTableHeader header = (JTableHeader) e.getSource();
+                int column = header.columnAtPoint(e.getPoint());
+                if (column < 0) return;
+                int index = header.getTable().convertColumnIndexToModel(column);
+                boolean reverse = index == sortIndex && isSortShown() && !descending;
+                sort(index, reverse);
+            }
+        });
+        updateHeader();
+    }
+
+    void sort(int columnIndex, boolean descending) {
+        this.sortIndex = columnIndex;
+        this.descending = descending;
+        updateHeader();
+        if (list != null) {
+            listSorted = true;
+            sortList();
+            fireTableDataChanged();
+        } else {
+            pages.clear();
+            refresh();
+        }
+    }
+
+    // Show the whole table again in the current sort, re-reading the count and every page
+    void refresh() {
+        int ticket = ++refreshes;
+        generation++;
+        anchors.clear();
+        requests.clear();
+        pending.clear();
+        statusBar.taskStarted("Loading " + noun + "...");
+
+        new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() {
+                return count.getAsInt();
+            }
+
+            @Override
+            protected void done() {
+                if (ticket != refreshes) {
+                    statusBar.taskFinished(null);
+                    return;
+                }
+                try {
+                    rowCount = get();
+                    if (rowCount >= 0) {
+                        statusBar.taskFinished(rowCount + " " + noun);
+                    } else {
+                        rowCount = 0;
+                        statusBar.taskFinished("Could not count " + noun);
+                    }
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    rowCount = 0;
+                    statusBar.taskFinished("Could not load " + noun + ": " + cause.getMessage());
+                }
+                // Pages read before the refresh keep showing until they are read again
+                list = null;
+                listCells = null;
+                updateHeader();
+                fireTableDataChanged();
+            }
+        }.execute();
+    }
+
+    // Switch to list mode with no rows yet; stops any paged reads in progress
+    void startList() {
+        refreshes++;
+        generation++;
+        requests.clear();
+        pending.clear();
+        list = new ArrayList<>();
+        listCells = new ArrayList<>();
+        listSorted = false;
+        updateHeader();
+        fireTableDataChanged();
+    }
+
+    void addToList(List<T> rows) {
+        if (list == null) startList();
+        int first = list.size();
+        for (T row : rows) {
+            list.add(row);
+            listCells.add(toRow.apply(row));
+        }
+        if (listSorted) {
+            sortList();
+            fireTableDataChanged();
+        } else if (!rows.isEmpty()) {
+            fireTableRowsInserted(first, list.size() - 1);
+        }
+    }
+
+    // A row was added: placed among the loaded rows where the sort puts it. String
+    // columns are compared here as Java orders them, which can differ slightly from
+    // the database collation until the next refresh. Search results are left alone.
+    void rowInserted(T row) {
+        if (list != null) {
+            if (indexInList(idOf(row)) >= 0) rowUpdated(row);
+            return;
+        }
+        if (locate(idOf(row)) != null) {
+            rowUpdated(row);
+            return;
+        }
+
+        Comparator<T> order = order();
+        for (Map.Entry<Integer, Page<T>> entry : new TreeMap<>(pages).entrySet()) {
+            int pageNo = entry.getKey();
+            Page<T> page = entry.getValue();
+            if (page.generation != generation) continue;
+            List<T> rows = page.rows;
+            if (rows.isEmpty() && pageNo > 0) continue;
+
+            boolean afterStart = pageNo == 0 || order.compare(row, rows.get(0)) > 0;
+            boolean lastPage = pageNo * PAGE_SIZE + rows.size() >= rowCount;
+            boolean beforeEnd = lastPage || order.compare(row, rows.get(rows.size() - 1)) < 0;
+            if (!afterStart || !beforeEnd) continue;
+
+            int index = 0;
+            while (index < rows.size() && order.compare(row, rows.get(index)) > 0) index++;
+            rows.add(index, row);
+            page.cells.add(index, toRow.apply(row));
+            // The row pushed off the end now starts the next page
+            if (rows.size() > PAGE_SIZE) {
+                rows.remove(rows.size() - 1);
+                page.cells.remove(page.cells.size() - 1);
+            }
+            anchors.put(pageNo, rows.get(rows.size() - 1));
+            rowCount++;
+            shiftedFrom(pageNo + 1);
+            fireTableRowsInserted(pageNo * PAGE_SIZE + index, pageNo * PAGE_SIZE + index);
+            return;
+        }
+
+        // Somewhere outside the loaded rows
+        rowCount++;
+        shiftedFrom(0);
+        fireTableDataChanged();
+    }
+
+    // A row changed. One that is not loaded is read fresh when it is scrolled to.
+    void rowUpdated(T row) {
+        int id = idOf(row);
+        if (list != null) {
+            int index = indexInList(id);
+            if (index < 0) return;
+            list.set(index, row);
+            listCells.set(index, toRow.apply(row));
+            fireTableRowsUpdated(index, index);
+            return;
+        }
+
+        int[] at = locate(id);
+        if (at == null) return;
+        Page<T> page = pages.get(at[0]);
+        T old = page.rows.set(at[1], row);
+        page.cells.set(at[1], toRow.apply(row));
+        if (order().compare(old, row) != 0) {
+            // Its sort value changed, so it may belong on another page
+            shiftedFrom(0);
+            fireTableRowsUpdated(0, Math.max(0, rowCount - 1));
+        } else {
+            int index = at[0] * PAGE_SIZE + at[1];
+            fireTableRowsUpdated(index, index);
+        }
+    }
+
+    void rowDeleted(int id) {
+        if (list != null) {
+            int index = indexInList(id);
+            if (index < 0) return;
+            list.remove(index);
+            listCells.remove(index);
+            fireTableRowsDeleted(index, index);
+            return;
+        }
+
+        rowCount = Math.max(0, rowCount - 1);
+        int[] at = locate(id);
+        if (at == null) {
+            shiftedFrom(0);
+            fireTableDataChanged();
+            return;
+        }
+        Page<T> page = pages.get(at[0]);
+        page.rows.remove(at[1]);
+        page.cells.remove(at[1]);
+        shiftedFrom(at[0]);
+        int index = at[0] * PAGE_SIZE + at[1];
+        fireTableRowsDeleted(index, index);
+    }
+
+    // The row shown at index, or null while its page is still being read
+    T getRow(int rowIndex) {
+        if (list != null) return rowIndex < list.size() ? list.get(rowIndex) : null;
+        Page<T> page = pages.get(rowIndex / PAGE_SIZE);
+        int offset = rowIndex % PAGE_SIZE;
+        return page != null && offset < page.rows.size() ? page.rows.get(offset) : null;
+    }
+
+    @Override
+    public int getRowCount() {
+        return list != null ? list.size() : rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        if (column != sortIndex || !isSortShown()) return columnNames[column];
+        return columnNames[column] + (descending ? " ▼" : " ▲");
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        if (list != null) {
+            return rowIndex < listCells.size() ? listCells.get(rowIndex)[columnIndex] : null;
+        }
+
+        int pageNo = rowIndex / PAGE_SIZE;
+        Page<T> page = pages.get(pageNo);
+        if (page == null || page.generation != generation) request(pageNo);
+        if (page == null) return null;
+        int offset = rowIndex % PAGE_SIZE;
+        // A short page means rows were deleted since the count; the gap fills on the next refresh
+        return offset < page.cells.size() ? page.cells.get(offset)[columnIndex] : null;
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    private int idOf(T row) {
+        return sortColumns[sortIndex].idOf(row);
+    }
+
+    private Comparator<T> order() {
+        Comparator<T> order = sortColumns[sortIndex].order();
+        return descending ? order.reversed() : order;
+    }
+
+    private int indexInList(int id) {
+        for (int i = 0; i < list.size(); i++) {
+            if (idOf(list.get(i)) == id) return i;
+        }
+        return -1;
+    }
+
+    // {page number, index in page} of the loaded row with this id, or null
+    private int[] locate(int id) {
+        for (Map.Entry<Integer, Page<T>> entry : pages.entrySet()) {
+            List<T> rows = entry.getValue().rows;
+            for (int i = 0; i < rows.size(); i++) {
+                if (idOf(rows.get(i)) == id) return new int[]{entry.getKey(), i};
+            }
+        }
+        return null;
+    }
+
+    // Rows from page pageNo on have moved: those pages and their anchors are out of
+    // date, and so is any read in flight. Earlier pages stay current.
+    private void shiftedFrom(int pageNo) {
+        generation++;
+        requests.clear();
+        pending.clear();
+        anchors.tailMap(pageNo, true).clear();
+        for (Map.Entry<Integer, Page<T>> entry : pages.entrySet()) {
+            if (entry.getKey() < pageNo) entry.getValue().generation = generation;
+        }
+    }
+
+    private boolean isSortShown() {
+        return list == null || listSorted;
+    }
+
+    private void sortList() {
+        list.sort(order());
+        listCells.clear();
+        for (T row : list) {
+            listCells.add(toRow.apply(row));
+        }
+    }
+
+    // Column widths are kept, so only the header text changes
+    private void updateHeader() {
+        if (table == null) return;
+        TableColumnModel columns = table.getColumnModel();
+        for (int i = 0; i < columns.getColumnCount(); i++) {
+            columns.getColumn(i).setHeaderValue(getColumnName(columns.getColumn(i).getModelIndex()));
+        }
+        table.getTableHeader().repaint();
+    }
+
+    private void request(int pageNo) {
+        if (!pending.add(pageNo)) return;
+        requests.addFirst(pageNo);
+        while (requests.size() > MAX_QUEUED) {
+            pending.remove(requests.removeLast());
+        }
+        fetchNext();
+    }
+
+    private void fetchNext() {
+        if (fetching || requests.isEmpty()) return;
+        int pageNo = requests.removeFirst();
+        int gen = generation;
+        C sortBy = sortColumns[sortIndex];
+        boolean desc = descending;
+
+        // Seek from the nearest page before this one whose last row is known
+        Map.Entry<Integer, T> anchor = anchors.floorEntry(pageNo - 1);
+        T after = anchor != null ? anchor.getValue() : null;
+        int offset = (anchor != null ? pageNo - anchor.getKey() - 1 : pageNo) * PAGE_SIZE;
+
+        fetching = true;
+        new SwingWorker<Page<T>, Void>() {
+            @Override
+            protected Page<T> doInBackground() {
+                List<T> rows = source.page(sortBy, desc, after, offset, PAGE_SIZE);
+                if (rows == null) return null;
+                List<Object[]> cells = new ArrayList<>(rows.size());
+                for (T row : rows) {
+                    cells.add(toRow.apply(row));
+                }
+                return new Page<>(gen, rows, cells);
+            }
+
+            @Override
+            protected void done() {
+                fetching = false;
+                if (gen == generation) {
+                    pending.remove(pageNo);
+                    try {
+                        Page<T> page = get();
+                        if (page == null) {
+                            failed("the page could not be read");
+                            return;
+                        }
+                        pages.put(pageNo, page);
+                        if (!page.rows.isEmpty()) anchors.put(pageNo, page.rows.get(page.rows.size() - 1));
+                        int first = pageNo * PAGE_SIZE;
+                        int last = Math.min(first + PAGE_SIZE, rowCount) - 1;
+                        if (list == null && last >= first) fireTableRowsUpdated(first, last);
+                    } catch (Exception e) {
+                        Throwable cause = e.getCause() != null ? e.getCause() : e;
+                        failed(cause.getMessage());
+                        return;
+                    }
+                }
+                fetchNext();
+            }
+
+            private void failed(String reason) {
+                statusBar.setMessage("Could not load " + noun + ": " + reason);
+                // Left empty rather than retried on every paint; the next refresh reads it again
+                pages.put(pageNo, new Page<>(gen, new ArrayList<>(), new ArrayList<>()));
+                fetchNext();
+            }
+        }.execute();
+    }
+}
@@ -0,0 +1,58 @@
+package com.library.ui;
+
+import javax.swing.*;
+import java.awt.*;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+// Status line at the bottom of the main window; call it on the event dispatch thread only
+public class StatusBar extends JPanel {
+    private final JLabel statusLabel = new JLabel(" Ready");
+    private final JProgressBar busyBar = new JProgressBar();
+    private int runningTasks;
+
+    public StatusBar() {
+        super(new BorderLayout());
+        setBorder(BorderFactory.createEtchedBorder());
+        setBackground(new Color(240, 240, 240));
+
+        statusLabel.setBorder(BorderFactory.createEmptyBorder(2, 5, 2, 5));
+
+        busyBar.setIndeterminate(true);
+        busyBar.setPreferredSize(new Dimension(120, 14));
+        busyBar.setVisible(false);
+
+        JLabel timeLabel = new JLabel();
+        timeLabel.setBorder(BorderFactory.createEmptyBorder(2, 5, 2, 5));
+
+        // Update time every second
+        Timer timer = new Timer(1000, e -> timeLabel.setText(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date())));
+        timer.start();
+
+        JPanel right = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 0));
+        right.setOpaque(false);
+        right.add(busyBar);
+        right.add(timeLabel);
+
+        add(statusLabel, BorderLayout.WEST);
+        add(right, BorderLayout.EAST);
+    }
+
+    public void taskStarted(String message) {
+        runningTasks++;
+        busyBar.setVisible(true);
+        setMessage(message);
+    }
+
+    // Progress of a running task, without changing the task count
+    public void setMessage(String message) {
+        statusLabel.setText(" " + message);
+    }
+
+    // A null message leaves the status line as it is
+    public void taskFinished(String message) {
+        runningTasks = Math.max(0, runningTasks - 1);
+        busyBar.setVisible(runningTasks > 0);
+        if (message != null) setMessage(message);
+    }
+}
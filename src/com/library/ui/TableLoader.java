@@ -0,0 +1,108 @@
+package com.library.ui;
+
+import com.library.db.QueryCanceller;
+
+import javax.swing.*;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+
+// Fills a table from a background worker; starting a load cancels the one in progress
+class TableLoader<T> {
+    // Reads rows and hands each to the sink; may be called on any thread
+    interface RowSource<T> {
+        void read(Consumer<T> sink) throws Exception;
+    }
+
+    private final String noun;
+    private final PagedTableModel<T, ?> model;
+    private final StatusBar statusBar;
+    private Worker current;
+
+    TableLoader(String noun, PagedTableModel<T, ?> model, StatusBar statusBar) {
+        this.noun = noun;
+        this.model = model;
+        this.statusBar = statusBar;
+    }
+
+    // Replace the table contents with the rows from source; call on the event thread
+    void load(RowSource<T> source) {
+        cancel();
+        current = new Worker(source);
+        statusBar.taskStarted("Loading " + noun + "...");
+        current.execute();
+    }
+
+    // Stop the load in progress, if any, before the table is shown in pages again
+    void cancel() {
+        if (current != null) current.stop();
+    }
+
+    private class Worker extends SwingWorker<Integer, T> {
+        private final RowSource<T> source;
+        private final QueryCanceller canceller = new QueryCanceller();
+        private int shown;
+        private boolean cleared;
+
+        Worker(RowSource<T> source) {
+            this.source = source;
+        }
+
+        void stop() {
+            canceller.cancel();
+            cancel(true);
+        }
+
+        @Override
+        protected Integer doInBackground() throws Exception {
+            int[] read = new int[1];
+            canceller.bind();
+            try {
+                source.read(item -> {
+                    if (isCancelled()) throw new CancellationException();
+                    publish(item);
+                    read[0]++;
+                });
+            } finally {
+                QueryCanceller.unbind();
+            }
+            return read[0];
+        }
+
+        @Override
+        protected void process(List<T> rows) {
+            if (current != this || isCancelled()) return;
+            // The old rows stay until the first new ones arrive, so the table does not flash empty
+            if (!cleared) {
+                model.startList();
+                cleared = true;
+            }
+            model.addToList(rows);
+            shown += rows.size();
+            statusBar.setMessage("Loading " + noun + "... " + shown);
+        }
+
+        @Override
+        protected void done() {
+            // A superseded load only ends its task; the status line belongs to the newer one
+            if (current != this) {
+                statusBar.taskFinished(null);
+                return;
+            }
+            current = null;
+            if (isCancelled()) {
+                statusBar.taskFinished("Cancelled loading " + noun);
+                return;
+            }
+
+            try {
+                int count = get();
+                if (!cleared) model.startList();
+                statusBar.taskFinished("Loaded " + count + " " + noun);
+            } catch (Exception e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                statusBar.taskFinished("Could not load " + noun + ": " + cause.getMessage());
+            }
+        }
+    }
+}
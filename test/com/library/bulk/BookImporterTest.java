@@ -0,0 +1,88 @@
+package com.library.bulk;
+
+import com.library.dao.BookRepository;
+import com.library.dao.memory.InMemoryStorageEngine;
+import com.library.models.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookImporterTest {
+    private BookRepository books;
+    private final List<Book> stored = new ArrayList<>();
+    private final StringWriter rejects = new StringWriter();
+
+    @BeforeEach
+    void setUp() {
+        books = new InMemoryStorageEngine().books();
+    }
+
+    private ImportResult importCsv(String csv, int chunkSize) throws Exception {
+        BookImporter importer = new BookImporter(books, chunkSize, 2, stored::addAll);
+        try (CsvRecordSource source = new CsvRecordSource(new StringReader(csv))) {
+            return importer.run(source, rejects, null);
+        }
+    }
+
+    @Test
+    void validRowsAreStoredWithNormalizedIsbns() throws Exception {
+        ImportResult result = importCsv("title,author,isbn,publication_year,category,total_copies\n"
+                + "Dune,Frank Herbert,0-441-17271-7,1965,Fiction,3\n"
+                + "\"G\u00f6del, Escher, Bach\",Douglas Hofstadter,978-0-465-02656-2,1979,,\n", 2000);
+
+        assertTrue(result.isFinished());
+        assertEquals(2, result.getImported());
+        assertEquals(0, result.getRejected());
+        Book dune = books.getBookByISBN("9780441172719");
+        assertNotNull(dune);
+        assertEquals(3, dune.getAvailableCopies());
+        Book geb = books.getBookByISBN("9780465026562");
+        assertEquals("G\u00f6del, Escher, Bach", geb.getTitle());
+        assertEquals(1, geb.getTotalCopies());
+        assertEquals(2, stored.size());
+    }
+
+    @Test
+    void duplicatesAcrossChunksAndTheCatalogAreRejected() throws Exception {
+        books.addBook(new Book(0, "Dune", "Frank Herbert", "9780441172719", 1965, "Fiction", 1, 1, "Available"));
+
+        // Chunks of two, so the repeat of the first book is checked in a later chunk
+        ImportResult result = importCsv("title,author,isbn\n"
+                + "Neuromancer,William Gibson,0-441-56959-5\n"
+                + "Dune,Frank Herbert,0441172717\n"
+                + "Count Zero,William Gibson,0-441-11773-2\n"
+                + "Neuromancer again,William Gibson,9780441569595\n", 2);
+
+        assertEquals(4, result.getRecordsRead());
+        assertEquals(2, result.getImported());
+        assertEquals(2, result.getRejected());
+        assertTrue(rejects.toString().contains("ISBN already in catalog"));
+        assertTrue(rejects.toString().contains("Duplicate ISBN in file"));
+        assertEquals(3, books.getTotalBooks());
+    }
+
+    @Test
+    void invalidRecordsAreRejectedWithTheReason() throws Exception {
+        ImportResult result = importCsv("title,author,isbn,year,copies\n"
+                + ",Nobody,0-306-40615-2,2000,1\n"
+                + "Bad checksum,Somebody,0-306-40615-3,2000,1\n"
+                + "Too early,Somebody,0-306-40615-2,999,1\n"
+                + "No copies,Somebody,0-306-40615-2,2000,0\n", 2000);
+
+        assertEquals(0, result.getImported());
+        assertEquals(4, result.getRejected());
+        String report = rejects.toString();
+        assertTrue(report.contains("Missing title"));
+        assertTrue(report.contains("Invalid ISBN"));
+        assertTrue(report.contains("Invalid publication year"));
+        assertTrue(report.contains("Invalid number of copies"));
+    }
+}
@@ -0,0 +1,45 @@
+package com.library.bulk;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class IsbnTest {
+    @Test
+    void isbn10AndIsbn13OfOneBookNormalizeAlike() {
+        assertEquals("9780306406157", Isbn.normalize("0-306-40615-2"));
+        assertEquals("9780306406157", Isbn.normalize("978-0-306-40615-7"));
+        assertEquals("9780306406157", Isbn.normalize("978 0 306 40615 7"));
+        assertEquals("9780804429573", Isbn.normalize("080442957x"));
+        assertEquals("9790260000438", Isbn.normalize("979-0-2600-0043-8"));
+    }
+
+    @Test
+    void badChecksumsAndFormatsAreRejected() {
+        assertNull(Isbn.normalize("0-306-40615-3"));
+        assertNull(Isbn.normalize("9780306406158"));
+        // X is only a check digit, and only for ISBN-10
+        assertNull(Isbn.normalize("08044295X7"));
+        assertNull(Isbn.normalize("978030640615X"));
+        // A 13-digit ISBN starts 978 or 979
+        assertNull(Isbn.normalize("9770306406156"));
+        assertNull(Isbn.normalize("030640615"));
+        assertNull(Isbn.normalize("ISBN 0306406152"));
+        assertNull(Isbn.normalize(null));
+    }
+
+    @Test
+    void onlyAsciiDigitsCount() {
+        // Arabic-Indic and fullwidth digits are digits to Character.isDigit, but not ISBN digits
+        assertNull(Isbn.normalize("\u0660-306-40615-2"));
+        assertNull(Isbn.normalize("\uFF10-306-40615-2"));
+    }
+
+    @Test
+    void storedFormKeepsInvalidIsbnsAsGiven() {
+        assertEquals("9780306406157", Isbn.toStored("0-306-40615-2"));
+        assertEquals("not-an-isbn", Isbn.toStored("not-an-isbn"));
+        assertNull(Isbn.toStored(null));
+    }
+}
@@ -0,0 +1,75 @@
+package com.library.bulk;
+
+import com.library.models.ReturnOutcome;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReturnsPipelineTest {
+    // Returns every loan with a fine of one, remembering the batches it was given
+    private final List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+
+    private List<ReturnOutcome> returnAll(List<Integer> transactionIds) {
+        batches.add(transactionIds);
+        List<ReturnOutcome> outcomes = new ArrayList<>();
+        for (int transactionId : transactionIds) {
+            outcomes.add(new ReturnOutcome(transactionId, 1, 1, true, 1.0, true, null));
+        }
+        return outcomes;
+    }
+
+    @Test
+    void scansAreReturnedInBatches() throws Exception {
+        List<ReturnsResult> progress = new CopyOnWriteArrayList<>();
+        ReturnsPipeline pipeline = new ReturnsPipeline(this::returnAll, 2, 3);
+        ReturnsResult result = pipeline.run(Arrays.asList("1", "2", "3", "4", "5").iterator(), progress::add);
+
+        assertEquals(5, result.getScanned());
+        assertEquals(5, result.getReturned());
+        assertEquals(5.0, result.getFines(), 0.001);
+        assertEquals(3, batches.size());
+        for (List<Integer> batch : batches) {
+            assertTrue(batch.size() <= 2);
+        }
+        assertTrue(result.isFinished());
+        assertFalse(progress.get(0).isFinished());
+        assertTrue(progress.get(progress.size() - 1).isFinished());
+    }
+
+    @Test
+    void badScansAreListedWithoutStoppingTheRun() throws Exception {
+        ReturnsPipeline pipeline = new ReturnsPipeline(this::returnAll, 10, 2);
+        ReturnsResult result = pipeline.run(Arrays.asList("7", "", "abc", "7", "-3", "8").iterator(), null);
+
+        assertEquals(5, result.getScanned());
+        assertEquals(2, result.getReturned());
+        assertEquals(3, result.getFailed());
+        List<String> messages = new ArrayList<>();
+        for (ReturnOutcome failure : result.getFailures()) {
+            messages.add(failure.getMessage());
+        }
+        assertEquals(Arrays.asList("Unreadable scan 'abc'", "Scanned twice", "Unreadable scan '-3'"), messages);
+    }
+
+    @Test
+    void failedBatchFailsOnlyItsOwnLoans() throws Exception {
+        ReturnsPipeline pipeline = new ReturnsPipeline(transactionIds -> {
+            if (transactionIds.contains(3)) throw new IllegalStateException("Deadlock");
+            return returnAll(transactionIds);
+        }, 2, 2);
+        ReturnsResult result = pipeline.run(Arrays.asList("1", "2", "3", "4", "5").iterator(), null);
+
+        assertEquals(3, result.getReturned());
+        assertEquals(2, result.getFailed());
+        for (ReturnOutcome failure : result.getFailures()) {
+            assertEquals("Batch failed: Deadlock", failure.getMessage());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.library.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LoadingCacheTest {
+    @Test
+    void leastRecentlyUsedEntryIsEvictedFirst() {
+        LoadingCache<Integer, String> cache = new LoadingCache<>("Test", 2, 1, TimeUnit.HOURS);
+        cache.get(1, String::valueOf);
+        cache.get(2, String::valueOf);
+        cache.get(1, String::valueOf);
+        cache.get(3, String::valueOf);
+
+        assertEquals("1", cache.getIfPresent(1));
+        assertNull(cache.getIfPresent(2));
+        assertEquals("3", cache.getIfPresent(3));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void expiredEntryIsLoadedAgain() throws Exception {
+        LoadingCache<Integer, String> cache = new LoadingCache<>("Test", 10, 20, TimeUnit.MILLISECONDS);
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(1, key -> "v" + loads.incrementAndGet());
+        Thread.sleep(50);
+
+        assertEquals("v2", cache.get(1, key -> "v" + loads.incrementAndGet()));
+    }
+
+    @Test
+    void missingRowsAreNotCached() {
+        LoadingCache<Integer, String> cache = new LoadingCache<>("Test", 10, 1, TimeUnit.HOURS);
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(1, key -> {
+            loads.incrementAndGet();
+            return null;
+        });
+        cache.get(1, key -> {
+            loads.incrementAndGet();
+            return null;
+        });
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        LoadingCache<Integer, String> cache = new LoadingCache<>("Test", 10, 1, TimeUnit.HOURS);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = threads.submit(() -> cache.get(1, key -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return "one";
+            }));
+            loading.await();
+            Future<String> second = threads.submit(() -> cache.get(1, key -> {
+                loads.incrementAndGet();
+                return "other";
+            }));
+            // Give the second caller time to find the load in flight
+            Thread.sleep(50);
+            release.countDown();
+
+            assertEquals("one", first.get(5, TimeUnit.SECONDS));
+            assertEquals("one", second.get(5, TimeUnit.SECONDS));
+            assertEquals(1, loads.get());
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    void loadOverlappingAnInvalidationIsNotKept() {
+        LoadingCache<Integer, String> cache = new LoadingCache<>("Test", 10, 1, TimeUnit.HOURS);
+        String loaded = cache.get(1, key -> {
+            // The row changes while it is being read
+            cache.invalidate(1);
+            return "old";
+        });
+
+        assertEquals("old", loaded);
+        assertNull(cache.getIfPresent(1));
+        assertEquals("new", cache.get(1, key -> "new"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
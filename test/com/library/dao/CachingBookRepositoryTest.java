@@ -0,0 +1,104 @@
+package com.library.dao;
+
+import com.library.dao.memory.InMemoryStorageEngine;
+import com.library.models.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CachingBookRepositoryTest {
+    private static final String ISBN = "9780306406157";
+
+    private BookRepository store;
+    // Calls that reached the store, by method name
+    private final Map<String, Integer> calls = new HashMap<>();
+    private CachingBookRepository cache;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryStorageEngine().books();
+        BookRepository counted = (BookRepository) Proxy.newProxyInstance(BookRepository.class.getClassLoader(),
+                new Class<?>[] {BookRepository.class}, (proxy, method, args) -> {
+                    calls.merge(method.getName(), 1, Integer::sum);
+                    try {
+                        return method.invoke(store, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        cache = new CachingBookRepository(counted, 100, 3600);
+        book = new Book(0, "Title", "Author", ISBN, 2000, "Fiction", 2, 2, "Available");
+        assertTrue(cache.addBook(book));
+    }
+
+    private int calls(String method) {
+        return calls.getOrDefault(method, 0);
+    }
+
+    @Test
+    void repeatedLookupsAreServedFromTheCache() {
+        cache.getBookById(book.getBookId());
+        cache.getBookById(book.getBookId());
+        cache.getBookByISBN(ISBN);
+
+        assertEquals(1, calls("getBookById"));
+        assertEquals(1, calls("getBookByISBN"));
+    }
+
+    @Test
+    void callersGetTheirOwnCopy() {
+        cache.getBookById(book.getBookId()).setTitle("Scribbled on");
+        assertEquals("Title", cache.getBookById(book.getBookId()).getTitle());
+    }
+
+    @Test
+    void writesThroughTheCacheInvalidateIt() {
+        cache.getBookById(book.getBookId());
+        assertTrue(cache.updateAvailableCopies(book.getBookId(), -1));
+        assertEquals(1, cache.getBookById(book.getBookId()).getAvailableCopies());
+
+        Book changed = cache.getBookById(book.getBookId());
+        changed.setTitle("New title");
+        assertTrue(cache.updateBook(changed));
+        assertEquals("New title", cache.getBookById(book.getBookId()).getTitle());
+        assertEquals(3, calls("getBookById"));
+    }
+
+    @Test
+    void isbnChangedElsewhereIsNotServedFromAStaleMapping() {
+        cache.getBookByISBN(ISBN);
+        Book changed = store.getBookById(book.getBookId());
+        changed.setIsbn("9780140449136");
+        store.updateBook(changed);
+        cache.invalidate(book.getBookId());
+
+        assertNull(cache.getBookByISBN(ISBN));
+        assertEquals("Title", cache.getBookByISBN("9780140449136").getTitle());
+    }
+
+    @Test
+    void addedBookReplacesACachedMiss() {
+        assertNull(cache.getBookByISBN("9780140449136"));
+        cache.addBook(new Book(0, "Other", "Author", "9780140449136", 2000, "Fiction", 1, 1, "Available"));
+
+        assertEquals("Other", cache.getBookByISBN("9780140449136").getTitle());
+    }
+
+    @Test
+    void deletedBookIsNoLongerFound() {
+        cache.getBookById(book.getBookId());
+        assertTrue(cache.deleteBook(book.getBookId()));
+
+        assertNull(cache.getBookById(book.getBookId()));
+        assertNull(cache.getBookByISBN(ISBN));
+    }
+}
@@ -0,0 +1,98 @@
+package com.library.dao;
+
+import com.library.dao.memory.InMemoryStorageEngine;
+import com.library.models.Book;
+import com.library.models.Member;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Date;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CachingMemberRepositoryTest {
+    private InMemoryStorageEngine engine;
+    private final AtomicInteger counts = new AtomicInteger();
+    private CachingMemberRepository cache;
+    private Member member;
+
+    @BeforeEach
+    void setUp() {
+        engine = new InMemoryStorageEngine();
+        TransactionRepository counted = (TransactionRepository) Proxy.newProxyInstance(
+                TransactionRepository.class.getClassLoader(), new Class<?>[] {TransactionRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("countOpenLoans")) counts.incrementAndGet();
+                    try {
+                        return method.invoke(engine.transactions(), args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        cache = new CachingMemberRepository(engine.members(), counted, 100, 3600);
+        member = new Member("Reader", "reader@example.com", "555", "Street",
+                new Date(System.currentTimeMillis()), "Active", 5);
+        assertTrue(cache.addMember(member));
+    }
+
+    // Issue straight through the store, as another desk would
+    private void issueElsewhere() {
+        Book book = new Book(0, "Title", "Author", null, 2000, "Fiction", 1, 1, "Available");
+        assertTrue(engine.books().addBook(book));
+        assertTrue(engine.transactions().issueBooks(member.getMemberId(),
+                Collections.singletonList(book.getBookId()), 14, true).get(0).isIssued());
+    }
+
+    @Test
+    void openLoansAreCountedOnce() {
+        assertEquals(0, cache.getOpenLoanCount(member.getMemberId()));
+        assertEquals(0, cache.getOpenLoanCount(member.getMemberId()));
+        assertEquals(1, counts.get());
+    }
+
+    @Test
+    void issuesAndReturnsAdjustTheCachedCount() {
+        cache.getOpenLoanCount(member.getMemberId());
+        cache.loanIssued(member.getMemberId());
+        cache.loanIssued(member.getMemberId());
+        cache.loanReturned(member.getMemberId());
+
+        assertEquals(1, cache.getOpenLoanCount(member.getMemberId()));
+        assertEquals(1, counts.get());
+    }
+
+    @Test
+    void uncachedCountIsNotGuessedAt() {
+        cache.loanIssued(member.getMemberId());
+        issueElsewhere();
+
+        assertEquals(1, cache.getOpenLoanCount(member.getMemberId()));
+    }
+
+    @Test
+    void invalidatedCountIsReadAgain() {
+        cache.getOpenLoanCount(member.getMemberId());
+        issueElsewhere();
+        assertEquals(0, cache.getOpenLoanCount(member.getMemberId()));
+
+        cache.invalidateOpenLoans(member.getMemberId());
+        assertEquals(1, cache.getOpenLoanCount(member.getMemberId()));
+        assertEquals(2, counts.get());
+    }
+
+    @Test
+    void updatedMemberIsReadAgain() {
+        cache.getMemberById(member.getMemberId()).setStatus("Scribbled on");
+        assertEquals("Active", cache.getMemberById(member.getMemberId()).getStatus());
+
+        Member suspended = cache.getMemberById(member.getMemberId());
+        suspended.setStatus("Suspended");
+        assertTrue(cache.updateMember(suspended));
+        assertEquals("Suspended", cache.getMemberById(member.getMemberId()).getStatus());
+    }
+}
@@ -0,0 +1,90 @@
+package com.library.dao;
+
+import com.library.models.Book;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class KeysetQueryTest {
+    private static final String SELECT = "SELECT * FROM books";
+
+    private static Book book(int id, String category, int year) {
+        return new Book(id, "Title " + id, "Author", null, year, category, 1, 1, "Available");
+    }
+
+    // The parameters bind() sets, in order
+    private static List<Object> bound(SortColumn<Book> sortBy, Book after, int offset, int pageSize) throws Exception {
+        List<Object> values = new ArrayList<>();
+        PreparedStatement pstmt = (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(), new Class<?>[] {PreparedStatement.class},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("set")) {
+                        assertEquals(values.size() + 1, args[0], "parameter index");
+                        values.add(args[1]);
+                    }
+                    return null;
+                });
+        KeysetQuery.bind(pstmt, sortBy, after, offset, pageSize);
+        return values;
+    }
+
+    @Test
+    void firstPageHasNoSeek() throws Exception {
+        assertEquals("SELECT * FROM books ORDER BY category, book_id LIMIT ?",
+                KeysetQuery.sql(SELECT, "book_id", BookColumn.CATEGORY, false, null, 0));
+        assertEquals("SELECT * FROM books ORDER BY category DESC, book_id DESC LIMIT ? OFFSET ?",
+                KeysetQuery.sql(SELECT, "book_id", BookColumn.CATEGORY, true, null, 40));
+        assertEquals(Arrays.asList(20, 40), bound(BookColumn.CATEGORY, null, 40, 20));
+    }
+
+    @Test
+    void ascendingSeeksPastEqualKeysById() throws Exception {
+        Book after = book(7, "Poetry", 1999);
+        assertEquals("SELECT * FROM books WHERE (category > ? OR (category = ? AND book_id > ?)) " +
+                        "ORDER BY category, book_id LIMIT ?",
+                KeysetQuery.sql(SELECT, "book_id", BookColumn.CATEGORY, false, after, 0));
+        assertEquals(Arrays.asList("Poetry", "Poetry", 7, 20), bound(BookColumn.CATEGORY, after, 0, 20));
+    }
+
+    @Test
+    void descendingOnANullableColumnGoesOnToTheNulls() {
+        Book after = book(7, "Poetry", 1999);
+        assertEquals("SELECT * FROM books WHERE (category < ? OR (category = ? AND book_id < ?) " +
+                        "OR category IS NULL) ORDER BY category DESC, book_id DESC LIMIT ?",
+                KeysetQuery.sql(SELECT, "book_id", BookColumn.CATEGORY, true, after, 0));
+    }
+
+    @Test
+    void descendingOnAColumnWithoutNullsHasNoNullBranch() throws Exception {
+        Book after = book(7, "Poetry", 1999);
+        assertEquals("SELECT * FROM books WHERE (publication_year < ? OR " +
+                        "(publication_year = ? AND book_id < ?)) " +
+                        "ORDER BY publication_year DESC, book_id DESC LIMIT ?",
+                KeysetQuery.sql(SELECT, "book_id", BookColumn.YEAR, true, after, 0));
+        assertEquals(Arrays.asList(1999, 1999, 7, 20), bound(BookColumn.YEAR, after, 0, 20));
+    }
+
+    @Test
+    void nullKeyAscendingFinishesTheNullsThenTakesEveryValue() throws Exception {
+        Book after = book(3, null, 2001);
+        assertEquals("SELECT * FROM books WHERE ((category IS NULL AND book_id > ?) OR category IS NOT NULL) " +
+                        "ORDER BY category, book_id LIMIT ?",
+                KeysetQuery.sql(SELECT, "book_id", BookColumn.CATEGORY, false, after, 0));
+        assertEquals(Arrays.asList(3, 20), bound(BookColumn.CATEGORY, after, 0, 20));
+    }
+
+    @Test
+    void nullKeyDescendingOnlyHasNullsLeft() throws Exception {
+        Book after = book(3, null, 2001);
+        assertEquals("SELECT * FROM books WHERE (category IS NULL AND book_id < ?) " +
+                        "ORDER BY category DESC, book_id DESC LIMIT ?",
+                KeysetQuery.sql(SELECT, "book_id", BookColumn.CATEGORY, true, after, 0));
+        assertEquals(Arrays.asList(3, 20), bound(BookColumn.CATEGORY, after, 0, 20));
+    }
+}
@@ -0,0 +1,77 @@
+package com.library.dao.memory;
+
+import com.library.dao.BookColumn;
+import com.library.dao.BookRepository;
+import com.library.models.Book;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InMemoryPagingTest {
+
+    // Categories with NULLs and long runs of the same value, added out of order
+    private static BookRepository catalog() {
+        BookRepository books = new InMemoryStorageEngine().books();
+        String[] categories = {"Poetry", null, "Drama", "Poetry", null, "Poetry", "Drama", null, "Art", "Poetry", "Drama"};
+        for (int i = 0; i < categories.length; i++) {
+            books.addBook(new Book(0, "Title " + i, "Author", null, 1990 + i % 3, categories[i], 1, 1, "Available"));
+        }
+        return books;
+    }
+
+    // Every page after the last row of the one before, as the table model reads them
+    private static List<Integer> walk(BookRepository books, BookColumn sortBy, boolean descending, int pageSize) {
+        List<Integer> ids = new ArrayList<>();
+        Book after = null;
+        while (true) {
+            List<Book> page = books.getBooksPage(sortBy, descending, after, 0, pageSize);
+            for (Book book : page) {
+                ids.add(book.getBookId());
+            }
+            if (page.size() < pageSize) return ids;
+            after = page.get(page.size() - 1);
+        }
+    }
+
+    @Test
+    void ascendingPagesPutNullsFirstAndBreakTiesById() {
+        BookRepository books = catalog();
+        // NULL (2, 5, 8), Art (9), Drama (3, 7, 11), Poetry (1, 4, 6, 10)
+        List<Integer> expected = Arrays.asList(2, 5, 8, 9, 3, 7, 11, 1, 4, 6, 10);
+        for (int pageSize = 1; pageSize <= 4; pageSize++) {
+            assertEquals(expected, walk(books, BookColumn.CATEGORY, false, pageSize), "page size " + pageSize);
+        }
+    }
+
+    @Test
+    void descendingPagesPutNullsLast() {
+        BookRepository books = catalog();
+        List<Integer> expected = Arrays.asList(10, 6, 4, 1, 11, 7, 3, 9, 8, 5, 2);
+        for (int pageSize = 1; pageSize <= 4; pageSize++) {
+            assertEquals(expected, walk(books, BookColumn.CATEGORY, true, pageSize), "page size " + pageSize);
+        }
+    }
+
+    @Test
+    void duplicateKeysOnAColumnWithoutNulls() {
+        BookRepository books = catalog();
+        // Years 1990 (1, 4, 7, 10), 1991 (2, 5, 8, 11), 1992 (3, 6, 9)
+        List<Integer> expected = Arrays.asList(1, 4, 7, 10, 2, 5, 8, 11, 3, 6, 9);
+        assertEquals(expected, walk(books, BookColumn.YEAR, false, 3));
+    }
+
+    @Test
+    void offsetJumpsWithinTheSameOrder() {
+        BookRepository books = catalog();
+        List<Book> page = books.getBooksPage(BookColumn.CATEGORY, false, null, 3, 4);
+        List<Integer> ids = new ArrayList<>();
+        for (Book book : page) {
+            ids.add(book.getBookId());
+        }
+        assertEquals(Arrays.asList(9, 3, 7, 11), ids);
+    }
+}
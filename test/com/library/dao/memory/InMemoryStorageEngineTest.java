@@ -0,0 +1,141 @@
+package com.library.dao.memory;
+
+import com.library.dao.StorageEngine;
+import com.library.fines.FineSchedule;
+import com.library.models.Book;
+import com.library.models.IssueOutcome;
+import com.library.models.Member;
+import com.library.models.ReturnOutcome;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Date;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryStorageEngineTest {
+    private InMemoryStorageEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new InMemoryStorageEngine();
+    }
+
+    private Book addBook(String isbn, int copies) {
+        Book book = new Book(0, "Title " + isbn, "Author", isbn, 2000, "Fiction", copies, copies, "Available");
+        assertTrue(engine.books().addBook(book));
+        return book;
+    }
+
+    private Member addMember(String status, int maxBooks) {
+        Member member = new Member("Reader", "reader@example.com", "555", "Street",
+                new Date(System.currentTimeMillis()), status, maxBooks);
+        assertTrue(engine.members().addMember(member));
+        return member;
+    }
+
+    private IssueOutcome issue(int bookId, int memberId, int days) {
+        return engine.transactions().issueBooks(memberId, Collections.singletonList(bookId), days, true).get(0);
+    }
+
+    @Test
+    void rowsAreCopiedInAndOut() {
+        Book book = addBook("9780306406157", 2);
+        book.setTitle("Changed after adding");
+        Book read = engine.books().getBookById(book.getBookId());
+        assertEquals("Title 9780306406157", read.getTitle());
+
+        read.setTitle("Changed after reading");
+        assertEquals("Title 9780306406157", engine.books().getBookByISBN("9780306406157").getTitle());
+    }
+
+    @Test
+    void duplicateIsbnIsRefused() {
+        addBook("9780306406157", 1);
+        assertFalse(engine.books().addBook(new Book(0, "Other", "Author", "9780306406157", 2001, "Fiction", 1, 1, null)));
+        assertEquals(1, engine.books().getTotalBooks());
+    }
+
+    @Test
+    void issueFollowsTheIssueBookRules() {
+        Book book = addBook("9780306406157", 1);
+        Book other = addBook("9780140449136", 1);
+        Member member = addMember("Active", 1);
+
+        IssueOutcome issued = issue(book.getBookId(), member.getMemberId(), 14);
+        assertTrue(issued.isIssued());
+        assertTrue(issued.getTransactionId() > 0);
+        assertEquals(0, engine.books().getBookById(book.getBookId()).getAvailableCopies());
+
+        assertEquals("Book is not available", issue(book.getBookId(), addMember("Active", 5).getMemberId(), 14).getMessage());
+        assertEquals("Member cannot borrow more books", issue(other.getBookId(), member.getMemberId(), 14).getMessage());
+        assertEquals("Member cannot borrow more books",
+                issue(other.getBookId(), addMember("Suspended", 5).getMemberId(), 14).getMessage());
+        assertEquals(1, engine.transactions().countOpenLoans(member.getMemberId()));
+    }
+
+    @Test
+    void allOrNothingBatchLeavesNothingBehind() {
+        Book book = addBook("9780306406157", 1);
+        Member member = addMember("Active", 5);
+
+        List<IssueOutcome> outcomes = engine.transactions().issueBooks(member.getMemberId(),
+                Arrays.asList(book.getBookId(), book.getBookId()), 14, true);
+        assertEquals(IssueOutcome.Status.ROLLED_BACK, outcomes.get(0).getStatus());
+        assertEquals(IssueOutcome.Status.REFUSED, outcomes.get(1).getStatus());
+        assertEquals(1, engine.books().getBookById(book.getBookId()).getAvailableCopies());
+        assertEquals(0, engine.transactions().countOpenLoans(member.getMemberId()));
+    }
+
+    @Test
+    void returnFinesTheDaysOverdueAndFreesTheCopy() {
+        Book book = addBook("9780306406157", 1);
+        Member member = addMember("Active", 5);
+        int loan = issue(book.getBookId(), member.getMemberId(), -3).getTransactionId();
+
+        ReturnOutcome returned = engine.transactions()
+                .returnBooks(Collections.singletonList(loan), FineSchedule.flat(1.0)).get(0);
+        assertTrue(returned.isReturned());
+        assertEquals(3.0, returned.getFine(), 0.001);
+        assertEquals(1, engine.books().getBookById(book.getBookId()).getAvailableCopies());
+        assertEquals("Returned", engine.transactions().getTransactionById(loan).getStatus());
+
+        ReturnOutcome again = engine.transactions()
+                .returnBooks(Collections.singletonList(loan), FineSchedule.flat(1.0)).get(0);
+        assertFalse(again.isReturned());
+    }
+
+    @Test
+    void bookOnLoanCannotBeDeleted() {
+        Book book = addBook("9780306406157", 1);
+        Member member = addMember("Active", 5);
+        int loan = issue(book.getBookId(), member.getMemberId(), 14).getTransactionId();
+
+        assertFalse(engine.books().deleteBook(book.getBookId()));
+        engine.transactions().returnBooks(Collections.singletonList(loan), FineSchedule.flat(0));
+        assertTrue(engine.books().deleteBook(book.getBookId()));
+        assertNull(engine.books().getBookByISBN("9780306406157"));
+    }
+
+    @Test
+    void selectedBySystemProperty() {
+        String previous = System.getProperty(StorageEngine.STORAGE_PROPERTY);
+        System.setProperty(StorageEngine.STORAGE_PROPERTY, "memory");
+        try {
+            assertInstanceOf(InMemoryStorageEngine.class, StorageEngine.fromSystemProperties());
+        } finally {
+            if (previous == null) {
+                System.clearProperty(StorageEngine.STORAGE_PROPERTY);
+            } else {
+                System.setProperty(StorageEngine.STORAGE_PROPERTY, previous);
+            }
+        }
+    }
+}
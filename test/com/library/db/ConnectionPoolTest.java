@@ -0,0 +1,230 @@
+package com.library.db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConnectionPoolTest {
+    private static final String URL = "jdbc:pooltest:library";
+    private static final String SQL = "SELECT * FROM books WHERE book_id = ?";
+
+    // A physical connection the fake driver opened
+    private static class FakeConnection {
+        boolean autoCommit = true;
+        boolean readOnly;
+        boolean closed;
+        int rollbacks;
+        // Thrown by executeQuery on any statement of this connection, when set
+        SQLException queryFailure;
+        Connection proxy;
+    }
+
+    private final List<FakeConnection> opened = new ArrayList<>();
+    private final AtomicInteger failConnects = new AtomicInteger();
+    private Driver driver;
+    private ConnectionPool pool;
+
+    private Connection open() throws SQLException {
+        if (failConnects.getAndDecrement() > 0) throw new SQLException("Connection refused", "08001");
+        FakeConnection fake = new FakeConnection();
+        PreparedStatement statement = (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(), new Class<?>[] {PreparedStatement.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("executeQuery") && fake.queryFailure != null) throw fake.queryFailure;
+                    return method.getName().equals("isClosed") ? false : null;
+                });
+        fake.proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "prepareStatement": return statement;
+                        case "setAutoCommit": fake.autoCommit = (Boolean) args[0]; return null;
+                        case "getAutoCommit": return fake.autoCommit;
+                        case "setReadOnly": fake.readOnly = (Boolean) args[0]; return null;
+                        case "isReadOnly": return fake.readOnly;
+                        case "rollback": fake.rollbacks++; return null;
+                        case "getTransactionIsolation": return Connection.TRANSACTION_REPEATABLE_READ;
+                        case "close": fake.closed = true; return null;
+                        case "isClosed": return fake.closed;
+                        case "isValid": return !fake.closed;
+                        default: return null;
+                    }
+                });
+        synchronized (opened) {
+            opened.add(fake);
+        }
+        return fake.proxy;
+    }
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        driver = new Driver() {
+            @Override
+            public Connection connect(String url, Properties info) throws SQLException {
+                return acceptsURL(url) ? open() : null;
+            }
+
+            @Override
+            public boolean acceptsURL(String url) { return url.startsWith("jdbc:pooltest:"); }
+
+            @Override
+            public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) { return new DriverPropertyInfo[0]; }
+
+            @Override
+            public int getMajorVersion() { return 1; }
+
+            @Override
+            public int getMinorVersion() { return 0; }
+
+            @Override
+            public boolean jdbcCompliant() { return false; }
+
+            @Override
+            public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+                throw new SQLFeatureNotSupportedException();
+            }
+        };
+        DriverManager.registerDriver(driver);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        if (pool != null) pool.shutdown();
+        DriverManager.deregisterDriver(driver);
+    }
+
+    private ConnectionPool newPool(int maxSize, long leakThresholdMillis) {
+        pool = new ConnectionPool(URL, "", "", 0, maxSize, 200, 60_000, 60_000, leakThresholdMillis, 8, -1);
+        return pool;
+    }
+
+    @Test
+    void closingLeaseReturnsItsPermitOnce() throws Exception {
+        newPool(1, 60_000);
+        Connection first = pool.borrow();
+        assertEquals(1, pool.getActiveCount());
+        first.close();
+        first.close();
+
+        Connection second = pool.borrow();
+        assertEquals(1, opened.size(), "the idle connection is reused");
+        // The second close of the first lease must not have freed another permit
+        assertThrows(SQLException.class, pool::borrow);
+        second.close();
+        assertEquals(0, pool.getActiveCount());
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    void failedConnectGivesBackThePermit() throws Exception {
+        newPool(1, 60_000);
+        failConnects.set(1);
+        assertThrows(SQLException.class, pool::borrow);
+
+        Connection connection = pool.borrow();
+        assertFalse(connection.isClosed());
+        connection.close();
+    }
+
+    @Test
+    void closedLeaseCannotBeUsed() throws Exception {
+        newPool(1, 60_000);
+        Connection connection = pool.borrow();
+        connection.close();
+
+        assertTrue(connection.isClosed());
+        assertThrows(SQLException.class, () -> connection.prepareStatement(SQL));
+    }
+
+    @Test
+    void returnedConnectionIsResetForTheNextBorrower() throws Exception {
+        newPool(1, 60_000);
+        Connection connection = pool.borrow();
+        connection.setAutoCommit(false);
+        connection.setReadOnly(true);
+        connection.close();
+
+        FakeConnection fake = opened.get(0);
+        assertEquals(1, fake.rollbacks, "an open transaction is rolled back");
+        assertTrue(fake.autoCommit);
+        assertFalse(fake.readOnly);
+    }
+
+    @Test
+    void statementLosingTheConnectionGetsItDiscarded() throws Exception {
+        newPool(1, 60_000);
+        Connection connection = pool.borrow();
+        opened.get(0).queryFailure = new SQLException("Communications link failure", "08S01");
+        PreparedStatement statement = connection.prepareStatement(SQL);
+        assertThrows(SQLException.class, statement::executeQuery);
+        statement.close();
+        connection.close();
+
+        assertTrue(opened.get(0).closed);
+        assertEquals(0, pool.getIdleCount());
+        pool.borrow().close();
+        assertEquals(2, opened.size(), "the next borrower gets a new connection");
+    }
+
+    @Test
+    void ordinaryStatementErrorKeepsTheConnection() throws Exception {
+        newPool(1, 60_000);
+        Connection connection = pool.borrow();
+        opened.get(0).queryFailure = new SQLException("Duplicate entry", "23000");
+        PreparedStatement statement = connection.prepareStatement(SQL);
+        assertThrows(SQLException.class, statement::executeQuery);
+        statement.close();
+        connection.close();
+
+        assertFalse(opened.get(0).closed);
+        assertEquals(1, pool.getIdleCount());
+        Connection again = pool.borrow();
+        assertEquals(1, opened.size());
+        // Its statement cache survives too
+        again.prepareStatement(SQL).close();
+        again.close();
+        assertEquals(1, pool.getStatementCacheHits());
+    }
+
+    @Test
+    void connectionHeldPastTheThresholdIsReportedAsALeak() throws Exception {
+        PrintStream err = System.err;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(captured, true));
+        try {
+            newPool(1, 50);
+            Connection connection = pool.borrow();
+            // The housekeeper runs about once a second; the borrow trace is printed last
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (!captured.toString().contains("Connection borrowed here")
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertTrue(captured.toString().contains("Possible connection leak"));
+            assertTrue(captured.toString().contains("Connection borrowed here"), "with where it was borrowed");
+            connection.close();
+        } finally {
+            System.setErr(err);
+        }
+    }
+}
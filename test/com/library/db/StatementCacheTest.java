@@ -0,0 +1,121 @@
+package com.library.db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatementCacheTest {
+    private static final String SQL = "SELECT * FROM books WHERE book_id = ?";
+
+    private ConnectionPool pool;
+    private StatementCache cache;
+    private Connection lease;
+    // Settings of each statement the fake connection prepared, in order
+    private final List<Map<String, Object>> prepared = new ArrayList<>();
+    // Errors the cache reported to its owner
+    private final List<SQLException> reported = new ArrayList<>();
+
+    // A statement that only remembers what was set on it
+    private PreparedStatement fakeStatement() {
+        Map<String, Object> settings = new HashMap<>();
+        settings.put("fetchSize", 0);
+        settings.put("maxRows", 0);
+        settings.put("queryTimeout", 0);
+        prepared.add(settings);
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[] {PreparedStatement.class}, (proxy, method, args) -> {
+                    String name = method.getName();
+                    // setFetchSize/getFetchSize and the like read and write "fetchSize"
+                    String setting = name.length() > 3
+                            ? Character.toLowerCase(name.charAt(3)) + name.substring(4) : name;
+                    if (settings.containsKey(setting)) {
+                        if (name.startsWith("set")) {
+                            settings.put(setting, args[0]);
+                            return null;
+                        }
+                        return settings.get(setting);
+                    }
+                    if (name.equals("isClosed")) return false;
+                    if (name.equals("executeQuery")) throw new SQLException("Communications link failure", "08S01");
+                    return null;
+                });
+    }
+
+    @BeforeEach
+    void setUp() {
+        // Never borrowed from, so it never connects; the cache only reports hits and misses to it
+        pool = new ConnectionPool("jdbc:none", "", "", 0, 1, 1000, 60_000, 60_000, 60_000, 8, -1);
+        Connection physical = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, (proxy, method, args) ->
+                        method.getName().equals("prepareStatement") ? fakeStatement() : null);
+        lease = physical;
+        cache = new StatementCache(pool, physical, 8, reported::add);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void checkInResetsWhatTheLastBorrowerSet() throws Exception {
+        PreparedStatement first = cache.prepareStatement(lease, SQL);
+        first.setFetchSize(500);
+        first.setMaxRows(10);
+        first.setQueryTimeout(5);
+        first.close();
+
+        PreparedStatement second = cache.prepareStatement(lease, SQL);
+        assertEquals(1, prepared.size(), "the cached statement is reused");
+        assertEquals(0, second.getFetchSize());
+        assertEquals(0, second.getMaxRows());
+        assertEquals(0, second.getQueryTimeout());
+        second.close();
+    }
+
+    @Test
+    void statementInUseIsNotHandedOutTwice() throws Exception {
+        PreparedStatement first = cache.prepareStatement(lease, SQL);
+        first.setFetchSize(500);
+        PreparedStatement second = cache.prepareStatement(lease, SQL);
+
+        assertEquals(2, prepared.size());
+        assertEquals(0, second.getFetchSize());
+        assertEquals(500, first.getFetchSize());
+        first.close();
+        second.close();
+    }
+
+    @Test
+    void statementErrorsAreReportedToTheOwner() throws Exception {
+        PreparedStatement statement = cache.prepareStatement(lease, SQL);
+        SQLException thrown = assertThrows(SQLException.class, statement::executeQuery);
+        statement.close();
+
+        assertEquals(1, reported.size());
+        assertSame(thrown, reported.get(0));
+    }
+
+    @Test
+    void closedHandleCannotBeUsed() throws Exception {
+        PreparedStatement statement = cache.prepareStatement(lease, SQL);
+        statement.close();
+
+        assertTrue(statement.isClosed());
+        assertThrows(SQLException.class, () -> statement.setFetchSize(10));
+    }
+}
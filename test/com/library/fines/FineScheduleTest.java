@@ -0,0 +1,96 @@
+package com.library.fines;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FineScheduleTest {
+    private static final double DELTA = 1e-9;
+
+    private static FineSchedule schedule() {
+        Map<String, FinePolicy> categories = new HashMap<>();
+        categories.put("Reference", new FinePolicy(1.00, 0, 20.0));
+        Map<Integer, FinePolicy> tiers = new HashMap<>();
+        tiers.put(5, new FinePolicy(0.40, 1, 0.0));
+        tiers.put(10, new FinePolicy(0.25, 3, 0.0));
+        return new FineSchedule(new FinePolicy(0.50, 0, 0.0), categories, tiers);
+    }
+
+    @Test
+    void categoryWinsOverTier() {
+        FineSchedule fines = schedule();
+        assertEquals(1.00, fines.getPolicy(fines.policyFor("Reference", 10)).getDailyRate(), DELTA);
+        assertEquals(1.00, fines.getPolicy(fines.policyFor("reference", 3)).getDailyRate(), DELTA);
+    }
+
+    @Test
+    void highestTierTheMemberReachesApplies() {
+        FineSchedule fines = schedule();
+        assertEquals(0.25, fines.getPolicy(fines.policyFor("Fiction", 12)).getDailyRate(), DELTA);
+        assertEquals(0.25, fines.getPolicy(fines.policyFor("Fiction", 10)).getDailyRate(), DELTA);
+        assertEquals(0.40, fines.getPolicy(fines.policyFor(null, 7)).getDailyRate(), DELTA);
+    }
+
+    @Test
+    void defaultAppliesBelowEveryTier() {
+        FineSchedule fines = schedule();
+        assertEquals(0, fines.policyFor("Fiction", 3));
+        assertEquals(0.50, fines.getPolicy(0).getDailyRate(), DELTA);
+    }
+
+    @Test
+    void graceDaysAreNotBilled() {
+        FineSchedule fines = schedule();
+        int tier10 = fines.policyFor(null, 10);
+        assertEquals(0.0, fines.fine(tier10, 3), DELTA);
+        assertEquals(0.50, fines.fine(tier10, 5), DELTA);
+        assertEquals(0.0, fines.fine(0, 0), DELTA);
+        assertEquals(0.0, fines.fine(0, -4), DELTA);
+    }
+
+    @Test
+    void capLimitsTheFine() {
+        FineSchedule fines = schedule();
+        int reference = fines.policyFor("Reference", 1);
+        assertEquals(15.0, fines.fine(reference, 15), DELTA);
+        assertEquals(20.0, fines.fine(reference, 45), DELTA);
+    }
+
+    @Test
+    void fineAllAgreesWithFine() {
+        FineSchedule fines = schedule();
+        int[] policies = {0, fines.policyFor("Reference", 1), fines.policyFor(null, 10), fines.policyFor(null, 5), 0};
+        int[] days = {4, 30, 2, 6, 0};
+        double[] batch = new double[policies.length];
+        fines.fineAll(policies, days, batch, policies.length);
+
+        double[] single = new double[policies.length];
+        for (int i = 0; i < policies.length; i++) {
+            single[i] = fines.fine(policies[i], days[i]);
+        }
+        assertArrayEquals(single, batch, DELTA);
+        assertArrayEquals(new double[] {2.0, 20.0, 0.0, 2.0, 0.0}, batch, DELTA);
+    }
+
+    @Test
+    void flatScheduleFinesEveryDay() {
+        FineSchedule fines = FineSchedule.flat(0.75);
+        assertEquals(0, fines.policyFor("Reference", 10));
+        assertEquals(2.25, fines.fine(0, 3), DELTA);
+    }
+
+    @Test
+    void policiesAreParsedFromProperties() {
+        FinePolicy policy = FinePolicy.parse("1.00, 2, 15");
+        assertEquals(1.00, policy.getDailyRate(), DELTA);
+        assertEquals(2, policy.getGraceDays());
+        assertEquals(15.0, policy.getMaxFine(), DELTA);
+        assertEquals(0.30, FinePolicy.parse("0.30").getDailyRate(), DELTA);
+        assertNull(FinePolicy.parse("lots"));
+    }
+}
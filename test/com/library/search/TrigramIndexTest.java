@@ -0,0 +1,95 @@
+package com.library.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrigramIndexTest {
+
+    private static List<String> terms(List<TrigramIndex.Match> matches) {
+        List<String> terms = new ArrayList<>();
+        for (TrigramIndex.Match match : matches) {
+            terms.add(match.term);
+        }
+        return terms;
+    }
+
+    @Test
+    void findsOneTranspositionAwayInAShortWord() {
+        TrigramIndex index = new TrigramIndex();
+        index.add("keats");
+        index.add("yeats");
+        index.add("kafka");
+
+        // "kaets" shares one of its five trigrams with "keats": a transposition changes four
+        List<TrigramIndex.Match> matches = index.findSimilar("kaets");
+        assertTrue(terms(matches).contains("keats"), "matches: " + terms(matches));
+        assertEquals(1, TrigramIndex.boundedDistance("kaets", "keats", 1));
+    }
+
+    @Test
+    void findsTwoTranspositionsAwayInALongWord() {
+        TrigramIndex index = new TrigramIndex();
+        index.add("tolkien");
+        index.add("dickens");
+        index.add("austen");
+
+        List<TrigramIndex.Match> matches = index.findSimilar("otlkein");
+        assertEquals(List.of("tolkien"), terms(matches));
+        assertEquals(2, matches.get(0).distance);
+    }
+
+    @Test
+    void findsTranspositionAmongManySimilarTerms() {
+        TrigramIndex index = new TrigramIndex();
+        for (int i = 0; i < 500; i++) {
+            index.add("abcd" + (char) ('a' + i % 26) + (char) ('a' + i / 26));
+        }
+        index.add("abdcef");
+
+        assertTrue(terms(index.findSimilar("abcdef")).contains("abdcef"));
+    }
+
+    @Test
+    void closestMatchesComeFirst() {
+        TrigramIndex index = new TrigramIndex();
+        index.add("history");
+        index.add("histories");
+        index.add("mystery");
+
+        List<TrigramIndex.Match> matches = index.findSimilar("histroy");
+        assertEquals("history", matches.get(0).term);
+        assertEquals(1, matches.get(0).distance);
+    }
+
+    @Test
+    void shortWordsMustMatchExactly() {
+        TrigramIndex index = new TrigramIndex();
+        index.add("art");
+        index.add("arts");
+
+        assertEquals(List.of("art"), terms(index.findSimilar("art")));
+        assertTrue(index.findSimilar("rat").isEmpty());
+    }
+
+    @Test
+    void boundedDistanceGivesUpPastTheLimit() {
+        assertEquals(0, TrigramIndex.boundedDistance("novel", "novel", 2));
+        assertEquals(1, TrigramIndex.boundedDistance("novel", "navel", 2));
+        assertEquals(3, TrigramIndex.boundedDistance("novel", "poetry", 2));
+        assertEquals(2, TrigramIndex.boundedDistance("ab", "abcdef", 1));
+    }
+
+    @Test
+    void clearForgetsEveryTerm() {
+        TrigramIndex index = new TrigramIndex();
+        index.add("keats");
+        index.clear();
+
+        assertTrue(index.findSimilar("kaets").isEmpty());
+    }
+}
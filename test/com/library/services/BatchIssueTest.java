@@ -0,0 +1,109 @@
+package com.library.services;
+
+import com.library.dao.memory.InMemoryStorageEngine;
+import com.library.models.Book;
+import com.library.models.IssueOutcome;
+import com.library.models.Member;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchIssueTest {
+    private LibraryService service;
+    private final List<LibraryChange> changes = new CopyOnWriteArrayList<>();
+    private final List<Integer> books = new ArrayList<>();
+    private int member;
+
+    @BeforeEach
+    void setUp() {
+        service = new LibraryService(new InMemoryStorageEngine());
+        for (int i = 0; i < 3; i++) {
+            Book book = new Book(0, "Title " + i, "Author", null, 2000, "Fiction", 1, 1, "Available");
+            assertTrue(service.addNewBook(book));
+            books.add(book.getBookId());
+        }
+        Member reader = new Member("Reader", "reader@example.com", "555", "Street",
+                new Date(System.currentTimeMillis()), "Active", 5);
+        assertTrue(service.registerMember(reader));
+        member = reader.getMemberId();
+        service.addChangeListener(changes::add);
+    }
+
+    private List<IssueOutcome.Status> statuses(List<IssueOutcome> outcomes) {
+        List<IssueOutcome.Status> statuses = new ArrayList<>();
+        for (IssueOutcome outcome : outcomes) {
+            statuses.add(outcome.getStatus());
+        }
+        return statuses;
+    }
+
+    private int available(int bookId) {
+        return service.getBookById(bookId).getAvailableCopies();
+    }
+
+    @Test
+    void wholeBatchIsIssuedWithOneLoanPerBook() {
+        List<IssueOutcome> outcomes = service.issueBooks(member, books, 14, true);
+
+        assertEquals(Arrays.asList(IssueOutcome.Status.ISSUED, IssueOutcome.Status.ISSUED, IssueOutcome.Status.ISSUED),
+                statuses(outcomes));
+        assertNotEquals(outcomes.get(0).getTransactionId(), outcomes.get(1).getTransactionId());
+        for (IssueOutcome outcome : outcomes) {
+            assertEquals(member, service.getTransactionById(outcome.getTransactionId()).getMemberId());
+            assertEquals(0, available(outcome.getBookId()));
+        }
+    }
+
+    @Test
+    void allOrNothingBatchIsUndoneByOneRefusal() {
+        List<Integer> twice = Arrays.asList(books.get(0), books.get(1), books.get(0), books.get(2));
+        List<IssueOutcome> outcomes = service.issueBooks(member, twice, 14, true);
+
+        assertEquals(Arrays.asList(IssueOutcome.Status.ROLLED_BACK, IssueOutcome.Status.ROLLED_BACK,
+                IssueOutcome.Status.REFUSED, IssueOutcome.Status.SKIPPED), statuses(outcomes));
+        for (int bookId : books) {
+            assertEquals(1, available(bookId));
+        }
+        assertEquals(0, service.getTransactionCount());
+        assertTrue(changes.isEmpty(), "nothing was issued, so nothing changed");
+    }
+
+    @Test
+    void independentBatchIssuesWhatItCan() {
+        List<Integer> twice = Arrays.asList(books.get(0), books.get(1), books.get(0), books.get(2));
+        List<IssueOutcome> outcomes = service.issueBooks(member, twice, 14, false);
+
+        assertEquals(Arrays.asList(IssueOutcome.Status.ISSUED, IssueOutcome.Status.ISSUED,
+                IssueOutcome.Status.REFUSED, IssueOutcome.Status.ISSUED), statuses(outcomes));
+        assertEquals(3, service.getTransactionCount());
+        // A book and a transaction change for each book issued
+        assertEquals(6, changes.size());
+        for (LibraryChange change : changes) {
+            assertNotEquals(LibraryChange.Kind.RELOADED, change.getKind());
+        }
+    }
+
+    @Test
+    void refusedMemberGetsTheReasonForEveryBook() {
+        Member reader = service.getMemberById(member);
+        reader.setMaxBooksAllowed(0);
+        assertTrue(service.updateMember(reader));
+        changes.clear();
+
+        List<IssueOutcome> outcomes = service.issueBooks(member, books, 14, false);
+        for (IssueOutcome outcome : outcomes) {
+            assertEquals(IssueOutcome.Status.REFUSED, outcome.getStatus());
+            assertEquals("Reader already has 0 of 0 books allowed", outcome.getMessage());
+        }
+        assertTrue(changes.isEmpty());
+    }
+}
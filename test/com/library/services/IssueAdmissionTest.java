@@ -0,0 +1,74 @@
+package com.library.services;
+
+import com.library.dao.memory.InMemoryStorageEngine;
+import com.library.models.Book;
+import com.library.models.IssueOutcome;
+import com.library.models.Member;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IssueAdmissionTest {
+    private LibraryService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new LibraryService(new InMemoryStorageEngine());
+    }
+
+    private int addBook(String isbn) {
+        Book book = new Book(0, "Title " + isbn, "Author", isbn, 2000, "Fiction", 1, 1, "Available");
+        assertTrue(service.addNewBook(book));
+        return book.getBookId();
+    }
+
+    private int addMember(String status, int maxBooks) {
+        Member member = new Member("Reader", "reader@example.com", "555", "Street",
+                new Date(System.currentTimeMillis()), status, maxBooks);
+        assertTrue(service.registerMember(member));
+        return member.getMemberId();
+    }
+
+    @Test
+    void activeMemberUnderTheLimitIsIssued() {
+        IssueOutcome outcome = service.issueBook(addBook("9780306406157"), addMember("Active", 1), 14);
+        assertTrue(outcome.isIssued());
+        assertTrue(outcome.getTransactionId() > 0);
+    }
+
+    @Test
+    void suspendedMemberIsRefusedWithTheReason() {
+        IssueOutcome outcome = service.issueBook(addBook("9780306406157"), addMember("Suspended", 5), 14);
+        assertFalse(outcome.isIssued());
+        assertEquals("Reader is suspended", outcome.getMessage());
+    }
+
+    @Test
+    void memberAtTheLimitIsRefusedWithTheReason() {
+        int member = addMember("Active", 1);
+        assertTrue(service.issueBook(addBook("9780306406157"), member, 14).isIssued());
+
+        IssueOutcome outcome = service.issueBook(addBook("9780140449136"), member, 14);
+        assertFalse(outcome.isIssued());
+        assertEquals("Reader already has 1 of 1 books allowed", outcome.getMessage());
+    }
+
+    @Test
+    void returnedLoanFreesTheMemberAgain() {
+        int member = addMember("Active", 1);
+        int loan = service.issueBook(addBook("9780306406157"), member, 14).getTransactionId();
+        assertTrue(service.returnBook(loan).isReturned());
+
+        assertTrue(service.issueBook(addBook("9780140449136"), member, 14).isIssued());
+    }
+
+    @Test
+    void unknownMemberIsRefused() {
+        assertEquals("Member #999 was not found", service.issueBook(addBook("9780306406157"), 999, 14).getMessage());
+    }
+}
@@ -0,0 +1,73 @@
+package com.library.services;
+
+import com.library.dao.BookRepository;
+import com.library.dao.StorageEngine;
+import com.library.dao.memory.InMemoryStorageEngine;
+import com.library.models.Book;
+import com.library.models.LibrarySummary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LibraryStatisticsTest {
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    // The engine's books, except that getTotalBooks reports a database error while failing is set
+    private static BookRepository failingTotals(BookRepository books, AtomicBoolean failing) {
+        return (BookRepository) Proxy.newProxyInstance(BookRepository.class.getClassLoader(),
+                new Class<?>[] {BookRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("getTotalBooks") && failing.get()) return -1;
+                    try {
+                        return method.invoke(books, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    @Test
+    void failedCountIsReportedAsUnavailable() {
+        StorageEngine storage = new InMemoryStorageEngine();
+        storage.books().addBook(new Book(0, "Odes", "Keats", null, 1819, "Poetry", 2, 2, "Available"));
+        AtomicBoolean failing = new AtomicBoolean(true);
+        LibraryStatistics statistics = new LibraryStatistics(failingTotals(storage.books(), failing),
+                storage.members(), storage.transactions(), executor, 5_000);
+
+        assertNull(statistics.getSummary());
+        assertEquals(-1, statistics.getTotalBooks());
+
+        failing.set(false);
+        LibrarySummary summary = statistics.getSummary();
+        assertEquals(1, summary.getTotalBooks());
+        assertEquals(2, summary.getAvailableBooks());
+    }
+
+    @Test
+    void countersFollowWritesAfterTheSeed() {
+        StorageEngine storage = new InMemoryStorageEngine();
+        LibraryStatistics statistics = new LibraryStatistics(storage.books(), storage.members(),
+                storage.transactions(), executor, 5_000);
+        assertEquals(0, statistics.getTotalBooks());
+
+        statistics.writeStarted();
+        storage.books().addBook(new Book(0, "Odes", "Keats", null, 1819, "Poetry", 3, 3, "Available"));
+        statistics.booksAdded(1, 3);
+        statistics.writeFinished();
+
+        assertEquals(1, statistics.getTotalBooks());
+        assertEquals(3, statistics.getAvailableBooks());
+    }
+}
@@ -0,0 +1,90 @@
+package com.library.services;
+
+import com.library.dao.memory.InMemoryStorageEngine;
+import com.library.models.Book;
+import com.library.models.Member;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OverdueEngineTest {
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private InMemoryStorageEngine engine;
+    private LibraryStatistics statistics;
+    private OverdueEngine overdue;
+    private final AtomicInteger marked = new AtomicInteger();
+    // Counted down once every loan due has been marked
+    private final CountDownLatch woken = new CountDownLatch(1);
+    private int member;
+
+    @BeforeEach
+    void setUp() {
+        engine = new InMemoryStorageEngine();
+        statistics = new LibraryStatistics(engine.books(), engine.members(), engine.transactions(), executor, 5_000);
+        overdue = new OverdueEngine(engine.transactions(), statistics, marked::addAndGet, () -> {
+            woken.countDown();
+            return true;
+        });
+        Member reader = new Member("Reader", "reader@example.com", "555", "Street",
+                new Date(System.currentTimeMillis()), "Active", 10);
+        assertTrue(engine.members().addMember(reader));
+        member = reader.getMemberId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        overdue.shutdown();
+        executor.shutdownNow();
+    }
+
+    // Issued straight through the repository, as by another desk the engine never hears from
+    private int issueElsewhere(int days) {
+        Book book = new Book(0, "Title", "Author", null, 2000, "Fiction", 1, 1, "Available");
+        assertTrue(engine.books().addBook(book));
+        return engine.transactions().issueBooks(member, Collections.singletonList(book.getBookId()), days, true)
+                .get(0).getTransactionId();
+    }
+
+    private String status(int transactionId) {
+        return engine.transactions().getTransactionById(transactionId).getStatus();
+    }
+
+    @Test
+    void loansIssuedElsewhereAreMarkedOnWake() throws Exception {
+        int late = issueElsewhere(-3);
+        int dueToday = issueElsewhere(0);
+        int notYet = issueElsewhere(5);
+        assertEquals(0, statistics.getSummary().getOverdueBooks());
+
+        overdue.start();
+        assertTrue(woken.await(5, TimeUnit.SECONDS));
+
+        assertEquals("Overdue", status(late));
+        assertEquals("Issued", status(dueToday));
+        assertEquals("Issued", status(notYet));
+        assertEquals(1, marked.get());
+        assertEquals(1, statistics.getSummary().getOverdueBooks());
+        assertEquals(2, overdue.getScheduledCount());
+    }
+
+    @Test
+    void loanWithoutAnIdIsLeftToTheNextWake() {
+        overdue.loanIssued(0, LocalDate.now().minusDays(1));
+        assertEquals(0, overdue.getScheduledCount());
+
+        overdue.loanIssued(issueElsewhere(5), LocalDate.now().plusDays(5));
+        assertEquals(1, overdue.getScheduledCount());
+    }
+}
@@ -0,0 +1,84 @@
+package com.library.services;
+
+import com.library.bulk.ReturnsResult;
+import com.library.dao.memory.InMemoryStorageEngine;
+import com.library.models.Book;
+import com.library.models.Member;
+import com.library.models.ReturnOutcome;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Date;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReturnsTest {
+    private LibraryService service;
+    private int member;
+
+    @BeforeEach
+    void setUp() {
+        service = new LibraryService(new InMemoryStorageEngine());
+        Member reader = new Member("Reader", "reader@example.com", "555", "Street",
+                new Date(System.currentTimeMillis()), "Active", 10);
+        assertTrue(service.registerMember(reader));
+        member = reader.getMemberId();
+    }
+
+    // Issues a new book due days from today and returns the loan's transaction id
+    private int loan(int days) {
+        Book book = new Book(0, "Title", "Author", null, 2000, "Fiction", 1, 1, "Available");
+        assertTrue(service.addNewBook(book));
+        return service.issueBook(book.getBookId(), member, days).getTransactionId();
+    }
+
+    @Test
+    void loanReturnedOnTimeHasNoFine() {
+        int loan = loan(14);
+        ReturnOutcome outcome = service.returnBook(loan);
+
+        assertTrue(outcome.isReturned());
+        assertFalse(outcome.isOverdue());
+        assertEquals(0.0, outcome.getFine(), 0.001);
+        assertEquals(1, service.getBookById(outcome.getBookId()).getAvailableCopies());
+        assertEquals("Returned", service.getTransactionById(loan).getStatus());
+    }
+
+    @Test
+    void lateReturnIsFinedByTheSchedule() {
+        ReturnOutcome outcome = service.returnBook(loan(-4));
+
+        assertTrue(outcome.isReturned());
+        assertEquals(service.getFineSchedule().fine(0, 4), outcome.getFine(), 0.001);
+    }
+
+    @Test
+    void loanCannotBeReturnedTwice() {
+        int loan = loan(14);
+        assertTrue(service.returnBook(loan).isReturned());
+
+        ReturnOutcome again = service.returnBook(loan);
+        assertFalse(again.isReturned());
+        assertEquals("Transaction is not open", again.getMessage());
+    }
+
+    @Test
+    void bookDropReturnsEveryOpenLoan() {
+        int first = loan(14);
+        int second = loan(-2);
+        int returned = loan(14);
+        service.returnBook(returned);
+
+        ReturnsResult result = service.processReturns(Arrays.asList(String.valueOf(first), String.valueOf(second),
+                String.valueOf(returned), "999").iterator(), null);
+
+        assertEquals(4, result.getScanned());
+        assertEquals(2, result.getReturned());
+        assertEquals(2, result.getFailed());
+        assertEquals(service.getFineSchedule().fine(0, 2), result.getFines(), 0.001);
+        assertEquals(0, service.getOverdueBooks().size());
+    }
+}
@@ -0,0 +1,107 @@
+package com.library.services;
+
+import com.library.dao.TransactionRepository;
+import com.library.dao.memory.InMemoryStorageEngine;
+import com.library.fines.FineSchedule;
+import com.library.models.Book;
+import com.library.models.Member;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TransactionArchiverTest {
+    private InMemoryStorageEngine engine;
+    private TransactionRepository transactions;
+    private final List<Integer> loans = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        engine = new InMemoryStorageEngine();
+        transactions = engine.transactions();
+        Book book = new Book(0, "Odes", "Keats", null, 1819, "Poetry", 4, 4, "Available");
+        engine.books().addBook(book);
+        Member reader = new Member("Reader", "reader@example.com", "555", "Street",
+                new Date(System.currentTimeMillis()), "Active", 10);
+        engine.members().addMember(reader);
+        for (int i = 0; i < 4; i++) {
+            loans.add(transactions.issueBooks(reader.getMemberId(), Collections.singletonList(book.getBookId()),
+                    14, true).get(0).getTransactionId());
+        }
+        // Three returned today, one still out
+        transactions.returnBooks(loans.subList(0, 3), FineSchedule.flat(0));
+    }
+
+    @Test
+    void onlyLoansReturnedBeforeTheCutoffAreMoved() {
+        TransactionArchiver archiver = new TransactionArchiver(transactions, 1);
+        assertEquals(0, archiver.run(LocalDate.now()));
+        assertEquals(0, archiver.run(LocalDate.now().plusDays(1)));
+
+        assertEquals(3, archiver.run(LocalDate.now().plusDays(2)));
+        assertEquals(1, transactions.getTransactionCount());
+        assertEquals("Issued", transactions.getAllTransactions(false).get(0).getStatus());
+    }
+
+    @Test
+    void archivedLoansCanStillBeFound() {
+        new TransactionArchiver(transactions, 1).run(LocalDate.now().plusDays(2));
+
+        assertEquals(4, transactions.getAllTransactions(true).size());
+        assertEquals(0, transactions.searchTransactions("returned", false).size());
+        assertEquals(3, transactions.searchTransactions("returned", true).size());
+        assertEquals("Returned", transactions.getTransactionById(loans.get(0)).getStatus());
+        int[] exported = {0};
+        transactions.forEachTransaction(10, transaction -> exported[0]++);
+        assertEquals(4, exported[0]);
+    }
+
+    @Test
+    void zeroDaysTurnsArchivingOff() {
+        TransactionArchiver archiver = new TransactionArchiver(transactions, 0);
+        assertEquals(0, archiver.run(LocalDate.now().plusYears(10)));
+        assertEquals(4, transactions.getTransactionCount());
+    }
+
+    @Test
+    void missingArchiveTableTurnsArchivingOff() {
+        TransactionRepository noArchive = (TransactionRepository) Proxy.newProxyInstance(
+                TransactionRepository.class.getClassLoader(), new Class<?>[] {TransactionRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("enableArchive")) return false;
+                    try {
+                        return method.invoke(transactions, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        TransactionArchiver archiver = new TransactionArchiver(noArchive, 30);
+
+        assertEquals(0, archiver.getAfterDays());
+        assertEquals(0, archiver.run(LocalDate.now().plusYears(10)));
+        assertEquals(4, transactions.getTransactionCount());
+    }
+
+    @Test
+    void afterDaysComeFromSystemProperties() {
+        String previous = System.getProperty(TransactionArchiver.AFTER_DAYS_PROPERTY);
+        System.setProperty(TransactionArchiver.AFTER_DAYS_PROPERTY, "30");
+        try {
+            assertEquals(30, TransactionArchiver.fromSystemProperties(transactions).getAfterDays());
+        } finally {
+            if (previous == null) {
+                System.clearProperty(TransactionArchiver.AFTER_DAYS_PROPERTY);
+            } else {
+                System.setProperty(TransactionArchiver.AFTER_DAYS_PROPERTY, previous);
+            }
+        }
+    }
+}
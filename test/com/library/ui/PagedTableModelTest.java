@@ -0,0 +1,77 @@
+package com.library.ui;
+
+import com.library.dao.BookColumn;
+import com.library.models.Book;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.SwingUtilities;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PagedTableModelTest {
+    private static final String[] COLUMNS = {"ID", "Title"};
+
+    // Remembers every message shown, for checking from the test thread
+    private static class RecordingStatusBar extends StatusBar {
+        final List<String> messages = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void setMessage(String message) {
+            messages.add(message);
+            super.setMessage(message);
+        }
+    }
+
+    private static PagedTableModel<Book, BookColumn> model(int count, PagedTableModel.PageSource<Book, BookColumn> source,
+                                                          StatusBar statusBar) {
+        return new PagedTableModel<>("books", COLUMNS, new BookColumn[] {BookColumn.ID, BookColumn.TITLE},
+                book -> new Object[] {book.getBookId(), book.getTitle()},
+                () -> count, source, BookColumn.ID, false, statusBar);
+    }
+
+    private static void awaitMessage(RecordingStatusBar statusBar, String message) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!statusBar.messages.contains(message) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        // Let the worker's done() finish on the event dispatch thread
+        SwingUtilities.invokeAndWait(() -> { });
+        assertTrue(statusBar.messages.contains(message), "got " + statusBar.messages);
+    }
+
+    @Test
+    void failedCountShowsAnEmptyTableAndSaysSo() throws Exception {
+        RecordingStatusBar statusBar = new RecordingStatusBar();
+        PagedTableModel<Book, BookColumn> model = model(-1, (sortBy, descending, after, offset, pageSize) -> null,
+                statusBar);
+        SwingUtilities.invokeAndWait(model::refresh);
+
+        awaitMessage(statusBar, "Could not count books");
+        SwingUtilities.invokeAndWait(() -> assertEquals(0, model.getRowCount()));
+    }
+
+    @Test
+    void failedPageIsShownEmptyAndNotReadOnEveryPaint() throws Exception {
+        RecordingStatusBar statusBar = new RecordingStatusBar();
+        AtomicInteger reads = new AtomicInteger();
+        PagedTableModel<Book, BookColumn> model = model(3, (sortBy, descending, after, offset, pageSize) -> {
+            reads.incrementAndGet();
+            return null;
+        }, statusBar);
+        SwingUtilities.invokeAndWait(model::refresh);
+        awaitMessage(statusBar, "3 books");
+
+        SwingUtilities.invokeAndWait(() -> assertNull(model.getValueAt(0, 1)));
+        awaitMessage(statusBar, "Could not load books: the page could not be read");
+        SwingUtilities.invokeAndWait(() -> {
+            assertNull(model.getValueAt(0, 1));
+            assertNull(model.getValueAt(2, 1));
+        });
+        assertEquals(1, reads.get());
+    }
+}